@@ -36,8 +36,11 @@ import com.google.gson.Gson;
 
 import org.sagebionetworks.research.app.inject.SageResearchDemoApplication;
 
+import javax.inject.Singleton;
+
 import dagger.Component;
 
+@Singleton
 @Component(modules = SageResearchDemoApplication.class)
 public interface AppTestComponent {
     Gson gson();
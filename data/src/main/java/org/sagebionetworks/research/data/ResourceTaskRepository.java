@@ -32,64 +32,114 @@
 
 package org.sagebionetworks.research.data;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sagebionetworks.research.domain.task.navigation.TreeNavigator.SECTION_STEP_PREFIX_SEPARATOR;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager.NameNotFoundException;
 import android.content.res.AssetManager;
 import android.content.res.Resources.NotFoundException;
 import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
-
-import com.google.common.collect.ImmutableList;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.CharStreams;
 import com.google.gson.Gson;
 
+import org.sagebionetworks.research.domain.PeekingJsonReader;
 import org.sagebionetworks.research.domain.async.AsyncActionConfiguration;
 import org.sagebionetworks.research.domain.async.RecorderConfiguration;
 import org.sagebionetworks.research.domain.repository.TaskRepository;
+import org.sagebionetworks.research.domain.result.interfaces.Result;
 import org.sagebionetworks.research.domain.result.interfaces.TaskResult;
 import org.sagebionetworks.research.domain.step.interfaces.SectionStep;
 import org.sagebionetworks.research.domain.step.interfaces.Step;
-import org.sagebionetworks.research.domain.step.interfaces.TransformerStep;
 import org.sagebionetworks.research.domain.task.Task;
 import org.sagebionetworks.research.domain.task.TaskInfoView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.StringReader;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.inject.Inject;
 
 import io.reactivex.Completable;
 import io.reactivex.Maybe;
 import io.reactivex.Single;
+import io.reactivex.functions.Action;
+import io.reactivex.schedulers.Schedulers;
 
 public class ResourceTaskRepository implements TaskRepository {
+    /**
+     * A task resolved from its asset, along with a hash of each transformer asset it was resolved with.
+     */
+    private static final class ParsedTask {
+        final Task task;
+
+        final Map<String, HashCode> transformerHashes;
+
+        ParsedTask(@NonNull Task task, @NonNull Map<String, HashCode> transformerHashes) {
+            this.task = task;
+            this.transformerHashes = ImmutableMap.copyOf(transformerHashes);
+        }
+    }
+
     private static final Logger LOGGER = LoggerFactory.getLogger(ResourceTaskRepository.class);
 
+    private static final int MAX_PARSED_TASKS = 16;
+
+    // Tasks and task infos parsed by this repository's gson from its assets. They are keyed by a hash of the asset
+    // and the app version, and a task is also checked against its transformer assets, so a changed asset or an app
+    // update is never served a stale task.
+    private final Cache<String, ParsedTask> parsedTasks = CacheBuilder.newBuilder()
+            .maximumSize(MAX_PARSED_TASKS)
+            .build();
+
+    private final Cache<String, TaskInfoView> parsedTaskInfos = CacheBuilder.newBuilder()
+            .maximumSize(MAX_PARSED_TASKS)
+            .build();
+
     protected final Context context;
     protected final Gson gson;
 
     /**
-     * taskResultMap stores the current or previous task results for a task run uuid.
-     * this allows tasks to be created and run with an existing task result.
+     * taskResultStore persists the current or previous task results for a task run uuid.
+     * this allows tasks to be created and run with an existing task result, even after the process has died.
      */
-    protected final Map<UUID, TaskResult> taskResultMap;
+    protected final TaskResultStore taskResultStore;
+
+    @Nullable
+    private String appVersion;
 
-    @Inject
     public ResourceTaskRepository(Context context, Gson gson) {
+        this(context, gson, new TaskResultStore(
+                new File(context.getFilesDir(), TaskResultStore.DIRECTORY_NAME), gson));
+    }
+
+    @Inject
+    public ResourceTaskRepository(Context context, Gson gson, TaskResultStore taskResultStore) {
         this.context = context;
         this.gson = gson;
-        this.taskResultMap = new HashMap<>();
+        this.taskResultStore = checkNotNull(taskResultStore);
     }
 
     /**
@@ -141,18 +191,29 @@ public class ResourceTaskRepository implements TaskRepository {
     @NonNull
     @Override
     public Single<Task> getTask(final String taskIdentifier) {
-        return Single.fromCallable(() -> {
-            Task task = gson.fromJson(this.getJsonTaskAsset(taskIdentifier), Task.class);
-            ImmutableList<Step> taskSteps = task.getSteps();
-            List<Step> steps = new ArrayList<>();
-            for (Step step : taskSteps) {
-                steps.add(resolveTransformers(step, ""));
-            }
+        return Single.fromCallable(() -> readAsset(this.getJsonTaskAsset(taskIdentifier)))
+                .flatMap(json -> {
+                    String cacheKey = getCacheKey(taskIdentifier, json);
+                    ParsedTask cachedTask = parsedTasks.getIfPresent(cacheKey);
+                    if (cachedTask != null && areTransformerAssetsUnchanged(cachedTask)) {
+                        LOGGER.debug("Using cached task: {}", taskIdentifier);
+                        return Single.just(cachedTask.task);
+                    }
 
-            task = task.copyWithSteps(steps);
-            task = task.copyWithAsyncActions(getAsyncActions(task));
-            return task;
-        })
+                    Task task = gson.fromJson(new PeekingJsonReader(new StringReader(json)), Task.class);
+                    // written concurrently as the transformer assets are parsed
+                    Map<String, HashCode> transformerHashes = new ConcurrentHashMap<>();
+                    TransformerStepResolver transformerStepResolver = new TransformerStepResolver(
+                            resourceName -> parseTransformerAsset(resourceName, transformerHashes),
+                            Schedulers.io(), TransformerStepResolver.DEFAULT_MAX_CONCURRENCY);
+                    return transformerStepResolver.resolve(task.getSteps())
+                            .map(steps -> {
+                                Task resolvedTask = task.copyWithSteps(steps);
+                                return resolvedTask.copyWithAsyncActions(getAsyncActions(resolvedTask));
+                            })
+                            .doOnSuccess(resolvedTask ->
+                                    parsedTasks.put(cacheKey, new ParsedTask(resolvedTask, transformerHashes)));
+                })
                 .doOnSuccess(t -> {
                     LOGGER.debug("Successfully loaded task: {}", t);
                 })
@@ -165,18 +226,27 @@ public class ResourceTaskRepository implements TaskRepository {
     @NonNull
     @Override
     public Single<TaskInfoView> getTaskInfo(final String taskIdentifier) {
-        return Single.fromCallable(() ->
-                gson.fromJson(this.getJsonTaskInfoAsset(taskIdentifier), TaskInfoView.class));
+        return Single.fromCallable(() -> {
+            String json = readAsset(this.getJsonTaskInfoAsset(taskIdentifier));
+            String cacheKey = getCacheKey(taskIdentifier, json);
+            TaskInfoView taskInfo = parsedTaskInfos.getIfPresent(cacheKey);
+            if (taskInfo == null) {
+                taskInfo = gson.fromJson(json, TaskInfoView.class);
+                parsedTaskInfos.put(cacheKey, taskInfo);
+            }
+
+            return taskInfo;
+        });
     }
 
     @NonNull
     @Override
     public Maybe<TaskResult> getTaskResult(final UUID taskRunUUID) {
-        TaskResult taskResult = taskResultMap.get(taskRunUUID);
-        if (taskResult == null) {
-            return Maybe.empty();
-        }
-        return Maybe.just(taskResult);
+        // fromCallable completes empty when no result has been stored for the run
+        return Maybe.fromCallable(() -> taskResultStore.read(taskRunUUID))
+                .subscribeOn(Schedulers.io())
+                .doOnError(throwable ->
+                        LOGGER.warn("Error loading task result for taskRunUUID: {}", taskRunUUID, throwable));
     }
 
     @Override
@@ -194,65 +264,156 @@ public class ResourceTaskRepository implements TaskRepository {
     @NonNull
     @Override
     public Completable setTaskResult(final TaskResult taskResult) {
-        taskResultMap.put(taskResult.getTaskUUID(), taskResult);
-        return Completable.complete();
+        return Completable.fromAction(() -> taskResultStore.writeSnapshot(taskResult))
+                .subscribeOn(Schedulers.io())
+                .doOnError(throwable ->
+                        LOGGER.warn("Error saving task result for taskRunUUID: {}", taskResult.getTaskUUID(),
+                                throwable));
+    }
+
+    @NonNull
+    @Override
+    public Completable addStepHistory(final UUID taskRunUUID, final Result stepResult) {
+        return journal(taskRunUUID, () -> taskResultStore.addStepHistory(taskRunUUID, stepResult));
+    }
+
+    @NonNull
+    @Override
+    public Completable removeStepHistory(final UUID taskRunUUID, final Result stepResult) {
+        return journal(taskRunUUID, () -> taskResultStore.removeStepHistory(taskRunUUID, stepResult));
+    }
+
+    @NonNull
+    @Override
+    public Completable addAsyncResult(final UUID taskRunUUID, final Result asyncResult) {
+        return journal(taskRunUUID, () -> taskResultStore.addAsyncResult(taskRunUUID, asyncResult));
+    }
+
+    @NonNull
+    @Override
+    public Completable removeAsyncResult(final UUID taskRunUUID, final Result asyncResult) {
+        return journal(taskRunUUID, () -> taskResultStore.removeAsyncResult(taskRunUUID, asyncResult));
+    }
+
+    @NonNull
+    private Completable journal(final UUID taskRunUUID, final Action journalAction) {
+        return Completable.fromAction(journalAction)
+                .subscribeOn(Schedulers.io())
+                .doOnError(throwable ->
+                        LOGGER.warn("Error journaling task result for taskRunUUID: {}", taskRunUUID, throwable));
     }
 
     /**
-     * Returns an InputStreamReader for the given asset path.
+     * Returns the key to cache the task or task info parsed from the given asset by.
      *
-     * @param assetPath
-     *         The path to the asset to open.
-     * @return An InputStreamReader for the given asset path.
+     * @param taskIdentifier
+     *         The identifier of the task the asset is for.
+     * @param json
+     *         The contents of the asset.
+     * @return The key to cache the task or task info parsed from the given asset by.
+     */
+    @NonNull
+    private String getCacheKey(@NonNull String taskIdentifier, @NonNull String json) {
+        return taskIdentifier + ":" + Hashing.sha256().newHasher()
+                .putString(getAppVersion(), UTF_8)
+                .putString(json, UTF_8)
+                .hash();
+    }
+
+    /**
+     * Parses the section step from the given transformer asset, keeping a hash of the asset so a cached task can be
+     * checked against it.
+     *
+     * @param resourceName
+     *         The name of the transformer asset to parse.
+     * @param transformerHashes
+     *         The hashes of the transformer assets parsed for the task, by resource name.
+     * @return The section step parsed from the transformer asset.
      * @throws IOException
-     *         if the given assetPath cannot be opened.
+     *         If the asset cannot be read.
      */
     @NonNull
-    private InputStreamReader getAsset(String assetPath) throws IOException {
-        AssetManager assetManager = context.getAssets();
-        return new InputStreamReader(assetManager.open(assetPath), UTF_8);
+    private SectionStep parseTransformerAsset(@NonNull String resourceName,
+            @NonNull Map<String, HashCode> transformerHashes) throws IOException {
+        String json = readAsset(this.getJsonTransformerAsset(resourceName));
+        transformerHashes.put(resourceName, Hashing.sha256().hashString(json, UTF_8));
+        return gson.fromJson(new PeekingJsonReader(new StringReader(json)), SectionStep.class);
     }
 
     /**
-     * Returns the given step with all of the transformers that are substeps of it, recursively replaced with the
-     * result of getting their resource and creating a SectionStep from it.
+     * Returns whether the transformer assets the given task was resolved with are unchanged. Reading the assets is
+     * much cheaper than parsing them again.
      *
-     * @param step
-     *         The step to replace all the transformer substeps of.
-     * @return The givne step with all the transformer substeps replaced with the result of turning their
-     *         resourcesinto section steps.
+     * @param parsedTask
+     *         The cached task to check.
+     * @return Whether every transformer asset the task was resolved with is unchanged.
      * @throws IOException
-     *         If any of the transformer steps has a resource that cannot be opened.
+     *         If one of the assets cannot be read.
      */
-    private Step resolveTransformers(Step step, String prefix) throws IOException {
-        if (step instanceof TransformerStep) {
-            TransformerStep transformer = (TransformerStep) step;
-            // For now the transformer only supports SectionSteps.
-            SectionStep result = gson.fromJson(
-                    this.getJsonTransformerAsset(transformer.getResourceName()), SectionStep.class);
-            result = result.copyWithIdentifier(prefix + transformer.getIdentifier());
-            return resolveTransformers(result, prefix);
-        } else if (step instanceof SectionStep) {
-            SectionStep section = (SectionStep) step;
-            ImmutableList<Step> steps = section.getSteps();
-            ImmutableList.Builder<Step> builder = new ImmutableList.Builder<>();
-            for (Step innerStep : steps) {
-                builder.add(resolveTransformers(innerStep,
-                        prefix + section.getIdentifier() + SECTION_STEP_PREFIX_SEPARATOR));
+    private boolean areTransformerAssetsUnchanged(@NonNull ParsedTask parsedTask) throws IOException {
+        for (Entry<String, HashCode> entry : parsedTask.transformerHashes.entrySet()) {
+            String json = readAsset(this.getJsonTransformerAsset(entry.getKey()));
+            if (!entry.getValue().equals(Hashing.sha256().hashString(json, UTF_8))) {
+                return false;
             }
+        }
 
-            return section.copyWithSteps(builder.build());
-        } else {
-            Step copiedStep = step.copyWithIdentifier(prefix + step.getIdentifier());
-            if (copiedStep.getClass() != step.getClass()) {
-                LOGGER.warn("Copied step ({}) has different class than the original" +
-                        "({})", copiedStep, step);
+        return true;
+    }
+
+    /**
+     * Returns the version of the app, which changes whenever the app is updated and with it the task assets.
+     *
+     * @return The version of the app.
+     */
+    @VisibleForTesting
+    @NonNull
+    @SuppressWarnings("deprecation")
+    protected synchronized String getAppVersion() {
+        if (appVersion == null) {
+            try {
+                PackageInfo packageInfo = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+                appVersion = packageInfo.versionCode + ":" + packageInfo.lastUpdateTime;
+            } catch (NameNotFoundException e) {
+                LOGGER.warn("Unable to find package info, caching tasks by their assets only", e);
+                appVersion = "";
             }
+        }
 
-            return step.copyWithIdentifier(prefix + step.getIdentifier());
+        return appVersion;
+    }
+
+    /**
+     * Reads the whole of the given asset and closes it.
+     *
+     * @param asset
+     *         The asset to read.
+     * @return The contents of the asset.
+     * @throws IOException
+     *         If the asset cannot be read.
+     */
+    @NonNull
+    private static String readAsset(@NonNull InputStreamReader asset) throws IOException {
+        try (InputStreamReader reader = asset) {
+            return CharStreams.toString(reader);
         }
     }
 
+    /**
+     * Returns an InputStreamReader for the given asset path.
+     *
+     * @param assetPath
+     *         The path to the asset to open.
+     * @return An InputStreamReader for the given asset path.
+     * @throws IOException
+     *         if the given assetPath cannot be opened.
+     */
+    @NonNull
+    private InputStreamReader getAsset(String assetPath) throws IOException {
+        AssetManager assetManager = context.getAssets();
+        return new InputStreamReader(assetManager.open(assetPath), UTF_8);
+    }
+
     private static Set<AsyncActionConfiguration> getAsyncActions(Task task) {
         return ResourceTaskRepository.getAsyncActionsHelper(task.getSteps(), new HashSet<>(task.getAsyncActions()));
     }
@@ -0,0 +1,507 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import org.sagebionetworks.research.domain.result.interfaces.Result;
+import org.sagebionetworks.research.domain.result.interfaces.TaskResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * A durable, write-ahead journal of TaskResults keyed by task run UUID.
+ * <p>
+ * Each task run has its own journal file named after its UUID. A journal starts with a snapshot of the whole
+ * TaskResult, followed by small delta records for each step or async result that was added or removed since. Reading
+ * a task run replays the deltas on top of the snapshot. Every {@code snapshotInterval} deltas the journal is folded
+ * and replaced by a new snapshot, so both the cost of a step and the cost of a replay stay bounded.
+ * <p>
+ * Records are framed as {@code [length][crc32][operation][json]}. A torn trailing record (e.g. the process died
+ * mid-write) fails its checksum and is discarded the next time the run is read or written.
+ * <p>
+ * The store keeps at most a bounded number of runs no older than a maximum age. All methods perform blocking I/O and
+ * must not be called on the main thread.
+ */
+public class TaskResultStore {
+    public static final String DIRECTORY_NAME = "task_results";
+
+    public static final int DEFAULT_MAX_RUNS = 20;
+
+    public static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 16;
+
+    @VisibleForTesting
+    static final String LOG_SUFFIX = ".log";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskResultStore.class);
+
+    private static final byte SNAPSHOT = 0;
+
+    private static final byte ADD_STEP_HISTORY = 1;
+
+    private static final byte REMOVE_STEP_HISTORY = 2;
+
+    private static final byte ADD_ASYNC_RESULT = 3;
+
+    private static final byte REMOVE_ASYNC_RESULT = 4;
+
+    // [length][crc32] before the operation and json.
+    private static final int HEADER_BYTES = 8;
+
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    // Journals hash onto a fixed set of locks, so the locks stay bounded however many runs the process journals.
+    private static final int LOG_LOCK_COUNT = 64;
+
+    // Shared across instances so that stores pointing at the same directory never interleave writes to a journal.
+    private static final Object[] LOG_LOCKS = new Object[LOG_LOCK_COUNT];
+
+    static {
+        for (int i = 0; i < LOG_LOCK_COUNT; i++) {
+            LOG_LOCKS[i] = new Object();
+        }
+    }
+
+    // The number of deltas after the snapshot of each journal that has been opened since the process started, removed
+    // when the journal is deleted or pruned.
+    private static final ConcurrentMap<String, Integer> DELTA_COUNTS = new ConcurrentHashMap<>();
+
+    private final File directory;
+
+    private final Gson gson;
+
+    private final long maxAgeMillis;
+
+    private final int maxRuns;
+
+    private final int snapshotInterval;
+
+    private volatile boolean pruned;
+
+    /**
+     * The result of replaying a journal.
+     */
+    private static final class Replay {
+        final int deltaCount;
+
+        final long length;
+
+        @Nullable
+        final TaskResult taskResult;
+
+        Replay(@Nullable TaskResult taskResult, int deltaCount, long length) {
+            this.taskResult = taskResult;
+            this.deltaCount = deltaCount;
+            this.length = length;
+        }
+    }
+
+    public TaskResultStore(@NonNull File directory, @NonNull Gson gson) {
+        this(directory, gson, DEFAULT_MAX_RUNS, DEFAULT_MAX_AGE_MILLIS, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    public TaskResultStore(@NonNull File directory, @NonNull Gson gson, int maxRuns, long maxAgeMillis,
+            int snapshotInterval) {
+        checkArgument(maxRuns > 0, "maxRuns must be positive");
+        checkArgument(maxAgeMillis > 0, "maxAgeMillis must be positive");
+        checkArgument(snapshotInterval > 0, "snapshotInterval must be positive");
+        this.directory = checkNotNull(directory);
+        this.gson = checkNotNull(gson);
+        this.maxRuns = maxRuns;
+        this.maxAgeMillis = maxAgeMillis;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Journals that the given step result was added to the step history of the task run.
+     *
+     * @throws IOException
+     *         If the journal cannot be written, or there is no snapshot of the task run to apply it to.
+     */
+    @WorkerThread
+    public void addStepHistory(@NonNull UUID taskRunUUID, @NonNull Result stepResult) throws IOException {
+        appendDelta(taskRunUUID, ADD_STEP_HISTORY, stepResult);
+    }
+
+    /**
+     * Journals that the given step result, and every step after it, was removed from the step history of the task
+     * run.
+     *
+     * @throws IOException
+     *         If the journal cannot be written, or there is no snapshot of the task run to apply it to.
+     */
+    @WorkerThread
+    public void removeStepHistory(@NonNull UUID taskRunUUID, @NonNull Result stepResult) throws IOException {
+        appendDelta(taskRunUUID, REMOVE_STEP_HISTORY, stepResult);
+    }
+
+    /**
+     * Journals that the given async result was added to the task run.
+     *
+     * @throws IOException
+     *         If the journal cannot be written, or there is no snapshot of the task run to apply it to.
+     */
+    @WorkerThread
+    public void addAsyncResult(@NonNull UUID taskRunUUID, @NonNull Result asyncResult) throws IOException {
+        appendDelta(taskRunUUID, ADD_ASYNC_RESULT, asyncResult);
+    }
+
+    /**
+     * Journals that the given async result was removed from the task run.
+     *
+     * @throws IOException
+     *         If the journal cannot be written, or there is no snapshot of the task run to apply it to.
+     */
+    @WorkerThread
+    public void removeAsyncResult(@NonNull UUID taskRunUUID, @NonNull Result asyncResult) throws IOException {
+        appendDelta(taskRunUUID, REMOVE_ASYNC_RESULT, asyncResult);
+    }
+
+    /**
+     * Replaces the journal of the task run with a snapshot of the given TaskResult.
+     *
+     * @param taskResult
+     *         The TaskResult to persist.
+     * @throws IOException
+     *         If the journal cannot be written.
+     */
+    @WorkerThread
+    public void writeSnapshot(@NonNull TaskResult taskResult) throws IOException {
+        checkNotNull(taskResult);
+        // pruning takes the locks of other journals, so it must happen before taking this one
+        if (!pruned) {
+            prune();
+        }
+
+        File log = getLogFile(taskResult.getTaskUUID());
+        synchronized (lockFor(log)) {
+            writeSnapshot(log, taskResult);
+        }
+    }
+
+    /**
+     * Deletes the journal of the given task run.
+     *
+     * @param taskRunUUID
+     *         The task run to delete the results of.
+     */
+    @WorkerThread
+    public void delete(@NonNull UUID taskRunUUID) {
+        File log = getLogFile(checkNotNull(taskRunUUID));
+        synchronized (lockFor(log)) {
+            DELTA_COUNTS.remove(log.getAbsolutePath());
+            if (log.exists() && !log.delete()) {
+                LOGGER.warn("Unable to delete task result journal {}", log);
+            }
+        }
+    }
+
+    /**
+     * Returns the latest TaskResult stored for the given task run, replaying its journal.
+     *
+     * @param taskRunUUID
+     *         The task run to read the latest result of.
+     * @return The latest TaskResult, or null if none has been stored.
+     * @throws IOException
+     *         If the journal exists but cannot be read.
+     */
+    @Nullable
+    @WorkerThread
+    public TaskResult read(@NonNull UUID taskRunUUID) throws IOException {
+        File log = getLogFile(checkNotNull(taskRunUUID));
+        synchronized (lockFor(log)) {
+            if (!log.isFile()) {
+                return null;
+            }
+
+            try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+                return replay(log, file).taskResult;
+            }
+        }
+    }
+
+    /**
+     * Deletes journals older than the maximum age, then the oldest journals beyond the maximum number of runs.
+     */
+    @WorkerThread
+    public void prune() {
+        pruned = true;
+        File[] logs = directory.listFiles((dir, name) -> name.endsWith(LOG_SUFFIX));
+        if (logs == null) {
+            return;
+        }
+
+        // Newest first, anything past maxRuns or maxAge is deleted.
+        Arrays.sort(logs, new Comparator<File>() {
+            @Override
+            public int compare(File first, File second) {
+                long firstModified = first.lastModified();
+                long secondModified = second.lastModified();
+                return firstModified == secondModified ? 0 : (firstModified < secondModified ? 1 : -1);
+            }
+        });
+        long oldestAllowed = System.currentTimeMillis() - maxAgeMillis;
+        for (int i = 0; i < logs.length; i++) {
+            File log = logs[i];
+            if (i >= maxRuns || log.lastModified() < oldestAllowed) {
+                synchronized (lockFor(log)) {
+                    DELTA_COUNTS.remove(log.getAbsolutePath());
+                    if (!log.delete()) {
+                        LOGGER.warn("Unable to delete expired task result journal {}", log);
+                    }
+                }
+            }
+        }
+
+        // forget the counts of journals in this directory that were removed some other way
+        String directoryPath = directory.getAbsolutePath() + File.separator;
+        for (String key : DELTA_COUNTS.keySet()) {
+            if (key.startsWith(directoryPath) && !new File(key).isFile()) {
+                DELTA_COUNTS.remove(key);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    File getLogFile(@NonNull UUID taskRunUUID) {
+        return new File(directory, taskRunUUID.toString() + LOG_SUFFIX);
+    }
+
+    /**
+     * Replaces the journal with a snapshot of the given TaskResult. Must be called while holding the journal's lock.
+     */
+    private void writeSnapshot(@NonNull File log, @NonNull TaskResult taskResult) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create task result directory " + directory);
+        }
+
+        // write the snapshot next to the journal and swap it in, so a crash leaves one or the other intact
+        File snapshot = new File(directory, log.getName() + SNAPSHOT_SUFFIX);
+        try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+            file.setLength(0);
+            file.write(frame(SNAPSHOT, gson.toJson(taskResult, TaskResult.class)));
+            file.getFD().sync();
+        }
+
+        if (!snapshot.renameTo(log)) {
+            snapshot.delete();
+            throw new IOException("Unable to write task result snapshot " + log);
+        }
+
+        DELTA_COUNTS.put(log.getAbsolutePath(), 0);
+    }
+
+    private void appendDelta(@NonNull UUID taskRunUUID, byte operation, @NonNull Result result) throws IOException {
+        checkNotNull(taskRunUUID);
+        checkNotNull(result);
+
+        byte[] record = frame(operation, gson.toJson(result, Result.class));
+        File log = getLogFile(taskRunUUID);
+        synchronized (lockFor(log)) {
+            if (!log.isFile()) {
+                throw new IOException("No task result snapshot to journal against for " + taskRunUUID);
+            }
+
+            String key = log.getAbsolutePath();
+            TaskResult folded = null;
+            try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+                Integer deltaCount = DELTA_COUNTS.get(key);
+                long end;
+                if (deltaCount == null) {
+                    // first write since the process started, drop any torn tail left by a crash
+                    Replay replay = replay(log, file);
+                    deltaCount = replay.deltaCount;
+                    end = replay.length;
+                } else {
+                    end = file.length();
+                }
+
+                file.seek(end);
+                file.write(record);
+                file.getFD().sync();
+                deltaCount++;
+                DELTA_COUNTS.put(key, deltaCount);
+
+                if (deltaCount >= snapshotInterval) {
+                    folded = replay(log, file).taskResult;
+                }
+            }
+
+            if (folded != null) {
+                // fold under this journal's lock only, without pruning
+                writeSnapshot(log, folded);
+            }
+        }
+    }
+
+    @Nullable
+    private TaskResult apply(@Nullable TaskResult taskResult, byte operation, @NonNull String json) {
+        if (operation == SNAPSHOT) {
+            return gson.fromJson(json, TaskResult.class);
+        }
+
+        if (taskResult == null) {
+            LOGGER.warn("Ignoring task result delta without a snapshot");
+            return null;
+        }
+
+        Result result = gson.fromJson(json, Result.class);
+        TaskResult updated;
+        switch (operation) {
+            case ADD_STEP_HISTORY:
+                updated = taskResult.addStepHistory(result);
+                break;
+            case REMOVE_STEP_HISTORY:
+                updated = taskResult.removeStepHistory(result);
+                break;
+            case ADD_ASYNC_RESULT:
+                updated = taskResult.addAsyncResult(result);
+                break;
+            case REMOVE_ASYNC_RESULT:
+                updated = taskResult.removeAsyncResult(result);
+                break;
+            default:
+                throw new JsonParseException("Unknown task result journal operation " + operation);
+        }
+
+        return updated != null ? updated : taskResult;
+    }
+
+    /**
+     * Folds every intact record of the journal into a TaskResult, truncating the journal after the last one.
+     */
+    @NonNull
+    private Replay replay(@NonNull File log, @NonNull RandomAccessFile file) throws IOException {
+        // snapshotting keeps journals small, so read it in one go rather than record by record
+        byte[] journal = new byte[(int) file.length()];
+        file.seek(0);
+        file.readFully(journal);
+        ByteBuffer buffer = ByteBuffer.wrap(journal);
+        int limit = journal.length;
+        int position = 0;
+        int deltaCount = 0;
+        TaskResult taskResult = null;
+        int length;
+        while ((length = getRecordLength(buffer, position)) > 0) {
+            int payloadStart = position + HEADER_BYTES;
+            byte operation = journal[payloadStart];
+            try {
+                taskResult = apply(taskResult, operation,
+                        new String(journal, payloadStart + 1, length - 1, UTF_8));
+            } catch (JsonParseException e) {
+                throw new IOException("Unable to replay task result journal " + log, e);
+            }
+
+            deltaCount = operation == SNAPSHOT ? 0 : deltaCount + 1;
+            position = payloadStart + length;
+        }
+
+        if (position < limit) {
+            LOGGER.warn("Discarding torn record at the end of task result journal {}", log);
+            file.setLength(position);
+        }
+
+        return new Replay(taskResult, deltaCount, position);
+    }
+
+    @NonNull
+    private static byte[] frame(byte operation, @NonNull String json) {
+        byte[] jsonBytes = json.getBytes(UTF_8);
+        int length = jsonBytes.length + 1;
+        byte[] record = new byte[HEADER_BYTES + length];
+        record[HEADER_BYTES] = operation;
+        System.arraycopy(jsonBytes, 0, record, HEADER_BYTES + 1, jsonBytes.length);
+        CRC32 crc = new CRC32();
+        crc.update(record, HEADER_BYTES, length);
+        ByteBuffer.wrap(record)
+                .putInt(0, length)
+                .putInt(4, (int) crc.getValue());
+        return record;
+    }
+
+    /**
+     * Returns the lock guarding the given journal. Journals that share a lock are simply written one at a time. A
+     * thread must only hold the lock of one journal at once, which is why pruning, which takes the locks of other
+     * journals, is never done while holding one, so sharing can't deadlock.
+     */
+    @NonNull
+    private static Object lockFor(@NonNull File log) {
+        return LOG_LOCKS[(log.getAbsolutePath().hashCode() & Integer.MAX_VALUE) % LOG_LOCK_COUNT];
+    }
+
+    /**
+     * Returns the payload length of the record starting at the given position of the journal.
+     *
+     * @return The payload length, or -1 if there is no intact record at the position.
+     */
+    private static int getRecordLength(@NonNull ByteBuffer journal, int start) {
+        if (start + HEADER_BYTES >= journal.limit()) {
+            return -1;
+        }
+
+        int length = journal.getInt(start);
+        int checksum = journal.getInt(start + 4);
+        if (length < 1 || length > journal.limit() - start - HEADER_BYTES) {
+            return -1;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(journal.array(), start + HEADER_BYTES, length);
+        return (int) crc.getValue() == checksum ? length : -1;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sagebionetworks.research.domain.task.navigation.TreeNavigator.SECTION_STEP_PREFIX_SEPARATOR;
+
+import androidx.annotation.NonNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+import org.sagebionetworks.research.domain.step.interfaces.SectionStep;
+import org.sagebionetworks.research.domain.step.interfaces.Step;
+import org.sagebionetworks.research.domain.step.interfaces.TransformerStep;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.functions.Function;
+
+/**
+ * Replaces the transformer steps of a task with the section steps parsed from their resources. All of the resources
+ * referenced by the task are found before any of them are parsed, and each resource is parsed once, concurrently with
+ * the others, no matter how many transformer steps reference it. Resources referenced from within other resources
+ * are parsed as soon as the resources that reference them have been. The steps are then assembled in task order, so
+ * the result doesn't depend on the order the resources finish parsing in.
+ */
+class TransformerStepResolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransformerStepResolver.class);
+
+    // The maximum number of transformer resources parsed at the same time.
+    static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+    private final int maxConcurrency;
+
+    @NonNull
+    private final Function<String, SectionStep> parser;
+
+    @NonNull
+    private final Scheduler scheduler;
+
+    /**
+     * @param parser
+     *         Parses the section step from the transformer resource with the given name.
+     * @param scheduler
+     *         The scheduler to parse the transformer resources on.
+     * @param maxConcurrency
+     *         The maximum number of transformer resources to parse at the same time.
+     */
+    TransformerStepResolver(@NonNull final Function<String, SectionStep> parser, @NonNull final Scheduler scheduler,
+            final int maxConcurrency) {
+        checkArgument(maxConcurrency > 0, "maxConcurrency must be positive");
+        this.parser = checkNotNull(parser);
+        this.scheduler = checkNotNull(scheduler);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Returns the given steps with all of the transformer steps within them, recursively replaced with the section
+     * steps parsed from their resources.
+     *
+     * @param steps
+     *         The steps to replace the transformer steps of.
+     * @return The given steps with the transformer steps replaced.
+     */
+    @NonNull
+    Single<List<Step>> resolve(@NonNull final List<Step> steps) {
+        return parseResources(steps, new HashMap<>())
+                .map(sections -> {
+                    List<Step> resolvedSteps = new ArrayList<>();
+                    for (Step step : steps) {
+                        resolvedSteps.add(resolveTransformers(step, "", sections, new HashSet<>()));
+                    }
+
+                    return resolvedSteps;
+                });
+    }
+
+    /**
+     * Parses the resources referenced by the given steps that haven't been parsed yet, and then the resources
+     * referenced by those.
+     *
+     * @param steps
+     *         The steps to find the transformer resources in.
+     * @param sections
+     *         The sections parsed so far, by resource name. This is only modified in the callback that merges each
+     *         round of parsing, never concurrently.
+     * @return The sections parsed from all of the resources, by resource name.
+     */
+    @NonNull
+    private Single<Map<String, SectionStep>> parseResources(@NonNull final List<Step> steps,
+            @NonNull final Map<String, SectionStep> sections) {
+        Set<String> resourceNames = new LinkedHashSet<>();
+        findResourceNames(steps, resourceNames);
+        resourceNames.removeAll(sections.keySet());
+        if (resourceNames.isEmpty()) {
+            return Single.just(sections);
+        }
+
+        return Observable.fromIterable(resourceNames)
+                .flatMap(resourceName -> Observable.fromCallable(
+                        () -> Maps.immutableEntry(resourceName, parser.apply(resourceName)))
+                        .subscribeOn(scheduler), maxConcurrency)
+                .toList()
+                .flatMap(entries -> {
+                    List<Step> parsedSteps = new ArrayList<>();
+                    for (Entry<String, SectionStep> entry : entries) {
+                        sections.put(entry.getKey(), entry.getValue());
+                        parsedSteps.add(entry.getValue());
+                    }
+
+                    return parseResources(parsedSteps, sections);
+                });
+    }
+
+    private static void findResourceNames(@NonNull final List<Step> steps, @NonNull final Set<String> resourceNames) {
+        for (Step step : steps) {
+            if (step instanceof TransformerStep) {
+                resourceNames.add(((TransformerStep) step).getResourceName());
+            } else if (step instanceof SectionStep) {
+                findResourceNames(((SectionStep) step).getSteps(), resourceNames);
+            }
+        }
+    }
+
+    /**
+     * Returns the given step with all of the transformers that are substeps of it, recursively replaced with the
+     * section step parsed from their resource.
+     *
+     * @param step
+     *         The step to replace all the transformer substeps of.
+     * @param prefix
+     *         The prefix for the identifiers of the step and its substeps.
+     * @param sections
+     *         The sections parsed from the transformer resources, by resource name.
+     * @param resourcePath
+     *         The resources of the transformers the step is within, used to detect a resource that includes itself.
+     * @return The given step with all the transformer substeps replaced with the section steps parsed from their
+     *         resources.
+     */
+    @NonNull
+    private static Step resolveTransformers(@NonNull final Step step, @NonNull final String prefix,
+            @NonNull final Map<String, SectionStep> sections, @NonNull final Set<String> resourcePath) {
+        if (step instanceof TransformerStep) {
+            TransformerStep transformer = (TransformerStep) step;
+            String resourceName = transformer.getResourceName();
+            if (!resourcePath.add(resourceName)) {
+                throw new IllegalStateException("Transformer resource " + resourceName + " includes itself");
+            }
+
+            // For now the transformer only supports SectionSteps.
+            SectionStep result = sections.get(resourceName).copyWithIdentifier(prefix + transformer.getIdentifier());
+            Step resolved = resolveTransformers(result, prefix, sections, resourcePath);
+            resourcePath.remove(resourceName);
+            return resolved;
+        } else if (step instanceof SectionStep) {
+            SectionStep section = (SectionStep) step;
+            ImmutableList<Step> steps = section.getSteps();
+            ImmutableList.Builder<Step> builder = new ImmutableList.Builder<>();
+            for (Step innerStep : steps) {
+                builder.add(resolveTransformers(innerStep,
+                        prefix + section.getIdentifier() + SECTION_STEP_PREFIX_SEPARATOR, sections, resourcePath));
+            }
+
+            return section.copyWithSteps(builder.build());
+        } else {
+            Step copiedStep = step.copyWithIdentifier(prefix + step.getIdentifier());
+            if (copiedStep.getClass() != step.getClass()) {
+                LOGGER.warn("Copied step ({}) has different class than the original" +
+                        "({})", copiedStep, step);
+            }
+
+            return copiedStep;
+        }
+    }
+}
@@ -37,15 +37,30 @@ import android.content.Context;
 import com.google.gson.Gson;
 
 import org.sagebionetworks.research.data.ResourceTaskRepository;
+import org.sagebionetworks.research.data.TaskResultStore;
+import org.sagebionetworks.research.domain.inject.GsonModule.CompactGson;
 import org.sagebionetworks.research.domain.repository.TaskRepository;
 
+import java.io.File;
+
+import javax.inject.Singleton;
+
 import dagger.Module;
 import dagger.Provides;
 
 @Module
 public class DataModule {
+    // one repository per process, so the tasks it has parsed are cached across screens
+    @Provides
+    @Singleton
+    TaskRepository provideTaskRepository(Context context, Gson gson, TaskResultStore taskResultStore) {
+        return new ResourceTaskRepository(context, gson, taskResultStore);
+    }
+
+    // one store per process, so the journals are pruned once rather than by every store injected
     @Provides
-    TaskRepository provideTaskRepository(Context context, Gson gson) {
-        return new ResourceTaskRepository(context, gson);
+    @Singleton
+    TaskResultStore provideTaskResultStore(Context context, @CompactGson Gson gson) {
+        return new TaskResultStore(new File(context.getFilesDir(), TaskResultStore.DIRECTORY_NAME), gson);
     }
 }
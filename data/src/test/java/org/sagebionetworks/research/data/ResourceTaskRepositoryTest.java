@@ -0,0 +1,277 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonObject;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sagebionetworks.research.domain.step.implementations.SectionStepBase;
+import org.sagebionetworks.research.domain.step.implementations.TransformerStepBase;
+import org.sagebionetworks.research.domain.step.implementations.UIStepBase;
+import org.sagebionetworks.research.domain.step.interfaces.SectionStep;
+import org.sagebionetworks.research.domain.step.interfaces.Step;
+import org.sagebionetworks.research.domain.task.Task;
+import org.sagebionetworks.research.domain.task.TaskInfoBase;
+import org.sagebionetworks.research.domain.task.TaskInfoView;
+import org.sagebionetworks.research.domain.task.navigation.TaskBase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ResourceTaskRepositoryTest {
+    /**
+     * Serves assets from memory with a settable app version, as the Context isn't available in unit tests.
+     */
+    private static class TestResourceTaskRepository extends ResourceTaskRepository {
+        final Map<String, String> assets = new HashMap<>();
+
+        String appVersion = "1:0";
+
+        TestResourceTaskRepository(Gson gson, TaskResultStore taskResultStore) {
+            super(null, gson, taskResultStore);
+        }
+
+        @NonNull
+        @Override
+        public InputStreamReader getJsonTaskAsset(String assetName) throws IOException {
+            return read(assetName);
+        }
+
+        @NonNull
+        @Override
+        public InputStreamReader getJsonTaskInfoAsset(String assetName) throws IOException {
+            return read(assetName);
+        }
+
+        @NonNull
+        @Override
+        public InputStreamReader getJsonTransformerAsset(String assetName) throws IOException {
+            return read(assetName);
+        }
+
+        @NonNull
+        @Override
+        protected synchronized String getAppVersion() {
+            return appVersion;
+        }
+
+        private InputStreamReader read(String assetName) throws IOException {
+            String json = assets.get(assetName);
+            if (json == null) {
+                throw new IOException("No asset " + assetName);
+            }
+            return new InputStreamReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                    StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final String TASK_IDENTIFIER = "task";
+
+    private static final String TRANSFORMER_ASSET = "transformer.json";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private int taskInfosParsed;
+
+    private int tasksParsed;
+
+    private int transformersParsed;
+
+    private TestResourceTaskRepository repository;
+
+    @Before
+    public void setup() {
+        repository = createRepository();
+        repository.assets.put(TASK_IDENTIFIER, asset("v1"));
+    }
+
+    @Test
+    public void testGetTask_CacheHit() {
+        Task first = repository.getTask(TASK_IDENTIFIER).blockingGet();
+        Task second = repository.getTask(TASK_IDENTIFIER).blockingGet();
+
+        assertSame(first, second);
+        assertEquals(1, tasksParsed);
+    }
+
+    @Test
+    public void testGetTask_AssetChanged() {
+        Task first = repository.getTask(TASK_IDENTIFIER).blockingGet();
+        repository.assets.put(TASK_IDENTIFIER, asset("v2"));
+        Task second = repository.getTask(TASK_IDENTIFIER).blockingGet();
+
+        assertNotSame(first, second);
+        assertEquals(2, tasksParsed);
+    }
+
+    @Test
+    public void testGetTask_AppVersionChanged() {
+        Task first = repository.getTask(TASK_IDENTIFIER).blockingGet();
+        repository.appVersion = "2:0";
+        Task second = repository.getTask(TASK_IDENTIFIER).blockingGet();
+
+        assertNotSame(first, second);
+        assertEquals(2, tasksParsed);
+    }
+
+    @Test
+    public void testGetTaskInfo_CacheHit() {
+        TaskInfoView first = repository.getTaskInfo(TASK_IDENTIFIER).blockingGet();
+        TaskInfoView second = repository.getTaskInfo(TASK_IDENTIFIER).blockingGet();
+
+        assertSame(first, second);
+        assertEquals(1, taskInfosParsed);
+    }
+
+    @Test
+    public void testGetTaskInfo_AssetChanged() {
+        TaskInfoView first = repository.getTaskInfo(TASK_IDENTIFIER).blockingGet();
+        repository.assets.put(TASK_IDENTIFIER, asset("v2"));
+        TaskInfoView second = repository.getTaskInfo(TASK_IDENTIFIER).blockingGet();
+
+        assertNotSame(first, second);
+        assertEquals(2, taskInfosParsed);
+    }
+
+    @Test
+    public void testGetTaskInfo_AppVersionChanged() {
+        TaskInfoView first = repository.getTaskInfo(TASK_IDENTIFIER).blockingGet();
+        repository.appVersion = "2:0";
+        TaskInfoView second = repository.getTaskInfo(TASK_IDENTIFIER).blockingGet();
+
+        assertNotSame(first, second);
+        assertEquals(2, taskInfosParsed);
+    }
+
+    @Test
+    public void testGetTask_TransformerCacheHit() {
+        repository.assets.put(TASK_IDENTIFIER, transformerTaskAsset());
+        repository.assets.put(TRANSFORMER_ASSET, transformerAsset("step1"));
+        Task first = repository.getTask(TASK_IDENTIFIER).blockingGet();
+        Task second = repository.getTask(TASK_IDENTIFIER).blockingGet();
+
+        assertSame(first, second);
+        assertEquals(1, tasksParsed);
+        assertEquals(1, transformersParsed);
+    }
+
+    @Test
+    public void testGetTask_TransformerChanged() {
+        repository.assets.put(TASK_IDENTIFIER, transformerTaskAsset());
+        repository.assets.put(TRANSFORMER_ASSET, transformerAsset("step1"));
+        Task first = repository.getTask(TASK_IDENTIFIER).blockingGet();
+        repository.assets.put(TRANSFORMER_ASSET, transformerAsset("step2"));
+        Task second = repository.getTask(TASK_IDENTIFIER).blockingGet();
+
+        assertNotSame(first, second);
+        assertEquals(2, tasksParsed);
+        assertEquals(2, transformersParsed);
+        assertEquals("transformer_step2",
+                ((SectionStep) second.getSteps().get(0)).getSteps().get(0).getIdentifier());
+    }
+
+    @Test
+    public void testGetTask_NotSharedBetweenRepositories() {
+        TestResourceTaskRepository otherRepository = createRepository();
+        otherRepository.assets.put(TASK_IDENTIFIER, asset("v1"));
+        Task first = repository.getTask(TASK_IDENTIFIER).blockingGet();
+        Task second = otherRepository.getTask(TASK_IDENTIFIER).blockingGet();
+
+        assertNotSame(first, second);
+        assertEquals(2, tasksParsed);
+    }
+
+    private TestResourceTaskRepository createRepository() {
+        // The full task adapters live in the domain module, minimal adapters are enough to exercise the caches.
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(Task.class, (JsonDeserializer<Task>) (json, type, context) -> {
+                    tasksParsed++;
+                    JsonObject task = json.getAsJsonObject();
+                    List<Step> steps = task.has("transformer")
+                            ? Collections.singletonList(new TransformerStepBase("transformer",
+                            task.get("transformer").getAsString()))
+                            : Collections.emptyList();
+                    return TaskBase.builder()
+                            .setIdentifier(task.get("identifier").getAsString())
+                            .setSteps(steps)
+                            .build();
+                })
+                .registerTypeAdapter(TaskInfoView.class, (JsonDeserializer<TaskInfoView>) (json, type, context) -> {
+                    taskInfosParsed++;
+                    return TaskInfoBase.builder()
+                            .setIdentifier(json.getAsJsonObject().get("identifier").getAsString())
+                            .build();
+                })
+                .registerTypeAdapter(SectionStep.class, (JsonDeserializer<SectionStep>) (json, type, context) -> {
+                    transformersParsed++;
+                    JsonObject section = json.getAsJsonObject();
+                    return new SectionStepBase(section.get("identifier").getAsString(), Collections.emptySet(),
+                            Collections.singletonList(new UIStepBase(section.get("step").getAsString(),
+                                    Collections.emptySet(), null, null, null, null, null, null, null, null)));
+                })
+                .create();
+        return new TestResourceTaskRepository(gson, new TaskResultStore(temporaryFolder.getRoot(), gson));
+    }
+
+    private static String asset(String title) {
+        return "{\"identifier\": \"" + TASK_IDENTIFIER + "\", \"title\": \"" + title + "\"}";
+    }
+
+    private static String transformerTaskAsset() {
+        return "{\"identifier\": \"" + TASK_IDENTIFIER + "\", \"transformer\": \"" + TRANSFORMER_ASSET + "\"}";
+    }
+
+    private static String transformerAsset(String stepIdentifier) {
+        return "{\"identifier\": \"section\", \"step\": \"" + stepIdentifier + "\"}";
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sagebionetworks.research.domain.result.implementations.ResultBase;
+import org.sagebionetworks.research.domain.result.implementations.TaskResultBase;
+import org.sagebionetworks.research.domain.result.interfaces.Result;
+import org.sagebionetworks.research.domain.result.interfaces.TaskResult;
+import org.threeten.bp.Instant;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+public class TaskResultStoreTest {
+    private static final Instant START = Instant.ofEpochMilli(1_500_000_000_000L);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+
+    private Gson gson;
+
+    private int resultsParsed;
+
+    private int taskResultsParsed;
+
+    @Before
+    public void setup() {
+        directory = new File(temporaryFolder.getRoot(), TaskResultStore.DIRECTORY_NAME);
+        // The full result adapters live in the domain module, a minimal adapter is enough to exercise the log.
+        gson = new GsonBuilder()
+                .registerTypeAdapter(Result.class, (JsonSerializer<Result>) (src, type, context) ->
+                        new JsonPrimitive(src.getIdentifier()))
+                .registerTypeAdapter(Result.class, (JsonDeserializer<Result>) (json, type, context) -> {
+                    resultsParsed++;
+                    return new ResultBase(json.getAsString(), START, START);
+                })
+                .registerTypeAdapter(TaskResult.class, (JsonSerializer<TaskResult>) (src, type, context) -> {
+                    JsonObject json = new JsonObject();
+                    json.addProperty("identifier", src.getIdentifier());
+                    json.addProperty("taskUUID", src.getTaskUUID().toString());
+                    json.add("stepHistory", toIdentifiers(src.getStepHistory()));
+                    json.add("asyncResults", toIdentifiers(src.getAsyncResults()));
+                    return json;
+                })
+                .registerTypeAdapter(TaskResult.class, (JsonDeserializer<TaskResult>) (json, type, context) -> {
+                    taskResultsParsed++;
+                    JsonObject object = json.getAsJsonObject();
+                    return new TaskResultBase(object.get("identifier").getAsString(), START, START,
+                            UUID.fromString(object.get("taskUUID").getAsString()), null,
+                            fromIdentifiers(object.getAsJsonArray("stepHistory")),
+                            fromIdentifiers(object.getAsJsonArray("asyncResults")));
+                })
+                .create();
+    }
+
+    @Test
+    public void testRead_NoResult() throws IOException {
+        TaskResultStore store = new TaskResultStore(directory, gson);
+
+        assertNull(store.read(UUID.randomUUID()));
+    }
+
+    @Test
+    public void testRead_ReplaysJournal() throws IOException {
+        TaskResultStore store = new TaskResultStore(directory, gson);
+        UUID taskRunUUID = UUID.randomUUID();
+        store.writeSnapshot(new TaskResultBase("task", START, taskRunUUID));
+        store.addStepHistory(taskRunUUID, step("step1"));
+        store.addStepHistory(taskRunUUID, step("step2"));
+        store.addStepHistory(taskRunUUID, step("step3"));
+        store.removeStepHistory(taskRunUUID, step("step2"));
+        store.addAsyncResult(taskRunUUID, step("recorder1"));
+        store.addAsyncResult(taskRunUUID, step("recorder2"));
+        store.removeAsyncResult(taskRunUUID, step("recorder2"));
+
+        TaskResult resumed = new TaskResultStore(directory, gson).read(taskRunUUID);
+
+        assertNotNull(resumed);
+        assertEquals(1, resumed.getStepHistory().size());
+        assertEquals("step1", resumed.getStepHistory().get(0).getIdentifier());
+        assertEquals(1, resumed.getAsyncResults().size());
+        assertEquals("recorder1", resumed.getAsyncResults().get(0).getIdentifier());
+    }
+
+    @Test(expected = IOException.class)
+    public void testAddStepHistory_NoSnapshot() throws IOException {
+        new TaskResultStore(directory, gson).addStepHistory(UUID.randomUUID(), step("step1"));
+    }
+
+    @Test
+    public void testRead_FiftyStepsReplaysOneSnapshotAndFewDeltas() throws IOException {
+        TaskResultStore store = new TaskResultStore(directory, gson);
+        UUID taskRunUUID = UUID.randomUUID();
+        store.writeSnapshot(new TaskResultBase("task", START, taskRunUUID));
+        for (int i = 0; i < 50; i++) {
+            store.addStepHistory(taskRunUUID, step("step" + i));
+        }
+
+        resultsParsed = 0;
+        taskResultsParsed = 0;
+        TaskResult resumed = new TaskResultStore(directory, gson).read(taskRunUUID);
+
+        assertNotNull(resumed);
+        assertEquals(taskRunUUID, resumed.getTaskUUID());
+        assertEquals(50, resumed.getStepHistory().size());
+        assertEquals("step49", resumed.getStepHistory().get(49).getIdentifier());
+        // the journal was last folded at step 48, so resuming replays its snapshot and the two steps since
+        assertEquals(1, taskResultsParsed);
+        assertEquals(50 % TaskResultStore.DEFAULT_SNAPSHOT_INTERVAL, resultsParsed);
+    }
+
+    @Test
+    public void testAddStepHistory_SnapshotsPeriodically() throws IOException {
+        TaskResultStore store = new TaskResultStore(directory, gson, TaskResultStore.DEFAULT_MAX_RUNS,
+                TaskResultStore.DEFAULT_MAX_AGE_MILLIS, 4);
+        UUID taskRunUUID = UUID.randomUUID();
+        store.writeSnapshot(new TaskResultBase("task", START, taskRunUUID));
+        File log = store.getLogFile(taskRunUUID);
+        long snapshotLength = log.length();
+        store.addStepHistory(taskRunUUID, step("step0"));
+        long deltaLength = log.length() - snapshotLength;
+        for (int i = 1; i < 4; i++) {
+            store.addStepHistory(taskRunUUID, step("step" + i));
+        }
+
+        // the fourth delta folded the journal into a single snapshot
+        assertTrue(log.length() < snapshotLength + 4 * deltaLength);
+        store.addStepHistory(taskRunUUID, step("step4"));
+        assertEquals(5, store.read(taskRunUUID).getStepHistory().size());
+    }
+
+    @Test
+    public void testRead_TornRecordDiscarded() throws IOException {
+        TaskResultStore store = new TaskResultStore(directory, gson);
+        UUID taskRunUUID = UUID.randomUUID();
+        store.writeSnapshot(new TaskResultBase("task", START, taskRunUUID));
+        store.addStepHistory(taskRunUUID, step("step1"));
+        File log = store.getLogFile(taskRunUUID);
+        long intactLength = log.length();
+        // simulate the process dying part way through writing the second record
+        try (FileOutputStream outputStream = new FileOutputStream(log, true)) {
+            outputStream.write(new byte[]{0, 0, 1, 0, 42, 42, 42});
+        }
+
+        TaskResult resumed = store.read(taskRunUUID);
+
+        assertNotNull(resumed);
+        assertEquals(1, resumed.getStepHistory().size());
+        assertEquals(intactLength, log.length());
+
+        store.addStepHistory(taskRunUUID, step("step2"));
+        assertEquals(2, store.read(taskRunUUID).getStepHistory().size());
+    }
+
+    @Test
+    public void testPrune() throws IOException {
+        TaskResultStore store = new TaskResultStore(directory, gson, 2, TimeUnit.DAYS.toMillis(1),
+                TaskResultStore.DEFAULT_SNAPSHOT_INTERVAL);
+        UUID expired = UUID.randomUUID();
+        UUID oldest = UUID.randomUUID();
+        UUID older = UUID.randomUUID();
+        UUID newest = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        store.writeSnapshot(new TaskResultBase("task", START, expired));
+        store.getLogFile(expired).setLastModified(now - TimeUnit.DAYS.toMillis(2));
+        store.writeSnapshot(new TaskResultBase("task", START, oldest));
+        store.getLogFile(oldest).setLastModified(now - 3000);
+        store.writeSnapshot(new TaskResultBase("task", START, older));
+        store.getLogFile(older).setLastModified(now - 2000);
+        store.writeSnapshot(new TaskResultBase("task", START, newest));
+
+        store.prune();
+
+        assertFalse(store.getLogFile(expired).exists());
+        assertFalse(store.getLogFile(oldest).exists());
+        assertNotNull(store.read(older));
+        assertNotNull(store.read(newest));
+    }
+
+    private static Result step(String identifier) {
+        return new ResultBase(identifier, START, START);
+    }
+
+    private static JsonArray toIdentifiers(List<Result> results) {
+        JsonArray identifiers = new JsonArray();
+        for (Result result : results) {
+            identifiers.add(result.getIdentifier());
+        }
+        return identifiers;
+    }
+
+    private static List<Result> fromIdentifiers(JsonArray identifiers) {
+        List<Result> results = new ArrayList<>();
+        for (JsonElement identifier : identifiers) {
+            results.add(step(identifier.getAsString()));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Test;
+import org.sagebionetworks.research.domain.step.implementations.SectionStepBase;
+import org.sagebionetworks.research.domain.step.implementations.TransformerStepBase;
+import org.sagebionetworks.research.domain.step.implementations.UIStepBase;
+import org.sagebionetworks.research.domain.step.interfaces.SectionStep;
+import org.sagebionetworks.research.domain.step.interfaces.Step;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
+public class TransformerStepResolverTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransformerStepResolverTest.class);
+
+    // Roughly the time to open and parse a transformer asset on a cold start.
+    private static final long PARSE_MILLIS = 20;
+
+    private static final int RESOURCES = 8;
+
+    private final Map<String, AtomicInteger> parseCounts = new ConcurrentHashMap<>();
+
+    @Test
+    public void testResolve() {
+        Map<String, SectionStep> resources = new ConcurrentHashMap<>();
+        resources.put("outer.json", section("outer", uiStep("a"), new TransformerStepBase("inner", "inner.json")));
+        resources.put("inner.json", section("inner", uiStep("b")));
+        List<Step> steps = ImmutableList.of(uiStep("intro"), new TransformerStepBase("first", "outer.json"),
+                section("section", new TransformerStepBase("second", "outer.json")));
+
+        List<Step> resolved = new TransformerStepResolver(parser(resources, 0), Schedulers.io(),
+                TransformerStepResolver.DEFAULT_MAX_CONCURRENCY).resolve(steps).blockingGet();
+
+        assertEquals(3, resolved.size());
+        assertEquals("intro", resolved.get(0).getIdentifier());
+        SectionStep first = (SectionStep) resolved.get(1);
+        assertEquals("first", first.getIdentifier());
+        assertEquals("first_a", first.getSteps().get(0).getIdentifier());
+        SectionStep inner = (SectionStep) first.getSteps().get(1);
+        assertEquals("first_inner", inner.getIdentifier());
+        assertEquals(1, inner.getSteps().size());
+        SectionStep second = (SectionStep) ((SectionStep) resolved.get(2)).getSteps().get(0);
+        assertEquals("section_second", second.getIdentifier());
+
+        // each resource is parsed once no matter how many transformers reference it
+        assertEquals(1, parseCounts.get("outer.json").get());
+        assertEquals(1, parseCounts.get("inner.json").get());
+    }
+
+    @Test
+    public void testResolve_ResourceIncludesItself() {
+        Map<String, SectionStep> resources = new ConcurrentHashMap<>();
+        resources.put("loop.json", section("loop", new TransformerStepBase("again", "loop.json")));
+
+        Throwable error = new TransformerStepResolver(parser(resources, 0), Schedulers.io(),
+                TransformerStepResolver.DEFAULT_MAX_CONCURRENCY)
+                .resolve(ImmutableList.of(new TransformerStepBase("start", "loop.json")))
+                .test()
+                .awaitDone(5, TimeUnit.SECONDS)
+                .errors()
+                .get(0);
+        assertTrue(error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void benchmarkResolve() {
+        Map<String, SectionStep> resources = new ConcurrentHashMap<>();
+        List<Step> steps = new ArrayList<>();
+        for (int i = 0; i < RESOURCES; i++) {
+            resources.put("section" + i + ".json", section("section" + i, uiStep("step")));
+            steps.add(new TransformerStepBase("transformer" + i, "section" + i + ".json"));
+        }
+
+        long start = System.nanoTime();
+        List<Step> serial = new TransformerStepResolver(parser(resources, PARSE_MILLIS), Schedulers.trampoline(), 1)
+                .resolve(steps).blockingGet();
+        long serialMillis = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        List<Step> concurrent = new TransformerStepResolver(parser(resources, PARSE_MILLIS), Schedulers.io(),
+                TransformerStepResolver.DEFAULT_MAX_CONCURRENCY).resolve(steps).blockingGet();
+        long concurrentMillis = (System.nanoTime() - start) / 1_000_000;
+
+        LOGGER.info("{} transformer resources at {} ms each: serial {} ms, concurrent {} ms", RESOURCES,
+                PARSE_MILLIS, serialMillis, concurrentMillis);
+
+        // the steps are assembled in task order whatever order the resources finish parsing in
+        assertEquals(identifiers(serial), identifiers(concurrent));
+    }
+
+    private Function<String, SectionStep> parser(Map<String, SectionStep> resources, long parseMillis) {
+        return resourceName -> {
+            parseCounts.computeIfAbsent(resourceName, name -> new AtomicInteger()).incrementAndGet();
+            if (parseMillis > 0) {
+                Thread.sleep(parseMillis);
+            }
+
+            return resources.get(resourceName);
+        };
+    }
+
+    private static List<String> identifiers(List<Step> steps) {
+        List<String> identifiers = new ArrayList<>();
+        for (Step step : steps) {
+            identifiers.add(step.getIdentifier());
+            if (step instanceof SectionStep) {
+                identifiers.addAll(identifiers(((SectionStep) step).getSteps()));
+            }
+        }
+
+        return identifiers;
+    }
+
+    private static SectionStep section(String identifier, Step... steps) {
+        return new SectionStepBase(identifier, Collections.emptySet(), ImmutableList.copyOf(steps));
+    }
+
+    private static Step uiStep(String identifier) {
+        return new UIStepBase(identifier, Collections.emptySet(), null, null, null, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.domain;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A JsonReader which lets a RuntimeTypeAdapterFactory find the type label of a polymorphic object without parsing
+ * the object into a JsonElement tree first. The factory reads the object's leading scalar members until it reaches
+ * the type field, and this reader then replays the consumed tokens to the delegate adapter before continuing with
+ * the underlying stream. Objects whose type field follows a nested object or array are buffered into a tree by the
+ * factory as before.
+ */
+public class PeekingJsonReader extends JsonReader {
+    private static final class Token {
+        @NonNull
+        final JsonToken kind;
+
+        @Nullable
+        final String value;
+
+        Token(@NonNull JsonToken kind, @Nullable String value) {
+            this.kind = kind;
+            this.value = value;
+        }
+    }
+
+    private final Deque<Token> replay = new ArrayDeque<>();
+
+    public PeekingJsonReader(@NonNull Reader in) {
+        super(in);
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        if (!replay.isEmpty()) {
+            throw unexpected(JsonToken.BEGIN_ARRAY);
+        }
+
+        super.beginArray();
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        if (!replay.isEmpty()) {
+            poll(JsonToken.BEGIN_OBJECT);
+            return;
+        }
+
+        super.beginObject();
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        if (!replay.isEmpty()) {
+            throw unexpected(JsonToken.END_ARRAY);
+        }
+
+        super.endArray();
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        if (!replay.isEmpty()) {
+            throw unexpected(JsonToken.END_OBJECT);
+        }
+
+        super.endObject();
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        if (!replay.isEmpty()) {
+            return true;
+        }
+
+        return super.hasNext();
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        if (!replay.isEmpty()) {
+            return Boolean.parseBoolean(poll(JsonToken.BOOLEAN));
+        }
+
+        return super.nextBoolean();
+    }
+
+    @Override
+    public double nextDouble() throws IOException {
+        if (!replay.isEmpty()) {
+            return Double.parseDouble(pollValue(JsonToken.NUMBER));
+        }
+
+        return super.nextDouble();
+    }
+
+    @Override
+    public int nextInt() throws IOException {
+        if (!replay.isEmpty()) {
+            String value = pollValue(JsonToken.NUMBER);
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                double asDouble = Double.parseDouble(value);
+                int asInt = (int) asDouble;
+                if (asInt != asDouble) {
+                    throw new NumberFormatException("Expected an int but was " + value + " at path " + getPath());
+                }
+
+                return asInt;
+            }
+        }
+
+        return super.nextInt();
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        if (!replay.isEmpty()) {
+            String value = pollValue(JsonToken.NUMBER);
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                double asDouble = Double.parseDouble(value);
+                long asLong = (long) asDouble;
+                if (asLong != asDouble) {
+                    throw new NumberFormatException("Expected a long but was " + value + " at path " + getPath());
+                }
+
+                return asLong;
+            }
+        }
+
+        return super.nextLong();
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        if (!replay.isEmpty()) {
+            return poll(JsonToken.NAME);
+        }
+
+        return super.nextName();
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+        if (!replay.isEmpty()) {
+            poll(JsonToken.NULL);
+            return;
+        }
+
+        super.nextNull();
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        if (!replay.isEmpty()) {
+            return pollValue(JsonToken.STRING);
+        }
+
+        return super.nextString();
+    }
+
+    @Override
+    public JsonToken peek() throws IOException {
+        if (!replay.isEmpty()) {
+            return replay.peekFirst().kind;
+        }
+
+        return super.peek();
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        if (!replay.isEmpty()) {
+            if (replay.pollFirst().kind == JsonToken.BEGIN_OBJECT) {
+                // The rest of the replayed object, then the rest of it in the underlying stream.
+                replay.clear();
+                while (super.hasNext()) {
+                    super.nextName();
+                    super.skipValue();
+                }
+
+                super.endObject();
+            }
+
+            return;
+        }
+
+        super.skipValue();
+    }
+
+    /**
+     * Reads the leading scalar members of the object this reader is positioned at, looking for a string member named
+     * {@code typeFieldName}. Every token consumed is queued to be read again, so afterwards the reader is positioned
+     * at the start of the same object whether or not the label was found.
+     *
+     * @param typeFieldName
+     *         The name of the field holding the type label.
+     * @return The type label, or null if the object has no string type field before its first nested object or
+     *         array.
+     */
+    @Nullable
+    String peekLabel(@NonNull String typeFieldName) throws IOException {
+        if (!replay.isEmpty() || super.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new IllegalStateException("Expected the start of an object at path " + getPath());
+        }
+
+        super.beginObject();
+        replay.addLast(new Token(JsonToken.BEGIN_OBJECT, null));
+        while (super.hasNext()) {
+            String name = super.nextName();
+            replay.addLast(new Token(JsonToken.NAME, name));
+            JsonToken kind = super.peek();
+            if (typeFieldName.equals(name)) {
+                if (kind != JsonToken.STRING) {
+                    return null;
+                }
+
+                String label = super.nextString();
+                replay.addLast(new Token(JsonToken.STRING, label));
+                return label;
+            }
+
+            switch (kind) {
+                case STRING:
+                case NUMBER:
+                    replay.addLast(new Token(kind, super.nextString()));
+                    break;
+                case BOOLEAN:
+                    replay.addLast(new Token(kind, Boolean.toString(super.nextBoolean())));
+                    break;
+                case NULL:
+                    super.nextNull();
+                    replay.addLast(new Token(kind, null));
+                    break;
+                default:
+                    return null;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns true if tokens read by {@link #peekLabel(String)} are still waiting to be read again.
+     */
+    boolean isReplaying() {
+        return !replay.isEmpty();
+    }
+
+    private String poll(JsonToken expected) {
+        if (replay.peekFirst().kind != expected) {
+            throw unexpected(expected);
+        }
+
+        return replay.pollFirst().value;
+    }
+
+    private String pollValue(JsonToken expected) {
+        JsonToken kind = replay.peekFirst().kind;
+        if (kind != JsonToken.STRING && kind != JsonToken.NUMBER) {
+            throw unexpected(expected);
+        }
+
+        return replay.pollFirst().value;
+    }
+
+    private IllegalStateException unexpected(JsonToken expected) {
+        return new IllegalStateException("Expected " + expected + " but was " + replay.peekFirst().kind
+                + " at path " + getPath());
+    }
+}
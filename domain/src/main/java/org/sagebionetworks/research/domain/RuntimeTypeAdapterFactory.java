@@ -25,6 +25,7 @@ import com.google.gson.TypeAdapter;
 import com.google.gson.TypeAdapterFactory;
 import com.google.gson.internal.Streams;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
@@ -119,6 +120,12 @@ import java.util.Set;
  *       .registerSubtype(Circle.class)
  *       .registerSubtype(Diamond.class);
  * }</pre>
+ * <h3>Streaming</h3> Values are normally parsed into a {@code JsonElement} tree to find their type label. When the
+ * JSON is read with a {@link PeekingJsonReader} and the type field comes before any nested object or array, the label
+ * is peeked from the stream instead and the subtype's adapter reads the value directly.
+ * <pre>   {@code
+ *   Shape shape = gson.fromJson(new PeekingJsonReader(new StringReader(json)), Shape.class);
+ * }</pre>
  */
 @SuppressWarnings({})
 public final class RuntimeTypeAdapterFactory<T> implements TypeAdapterFactory {
@@ -216,6 +223,15 @@ public final class RuntimeTypeAdapterFactory<T> implements TypeAdapterFactory {
 
             @Override
             public R read(JsonReader in) throws IOException {
+                if (in instanceof PeekingJsonReader && !((PeekingJsonReader) in).isReplaying()
+                        && in.peek() == JsonToken.BEGIN_OBJECT) {
+                    // Find the label without building a tree, and let the delegate read the object from the stream.
+                    String label = ((PeekingJsonReader) in).peekLabel(typeFieldName);
+                    if (label != null) {
+                        return ensureResult(getDelegate(label).read(in));
+                    }
+                }
+
                 JsonElement jsonElement = Streams.parse(in);
                 JsonElement labelJsonElement = jsonElement.getAsJsonObject().get(typeFieldName);
                 if (labelJsonElement == null) {
@@ -223,6 +239,10 @@ public final class RuntimeTypeAdapterFactory<T> implements TypeAdapterFactory {
                             + " because it does not define a field named " + typeFieldName);
                 }
                 String label = labelJsonElement.getAsString();
+                return ensureResult(getDelegate(label).fromJsonTree(jsonElement));
+            }
+
+            private TypeAdapter<R> getDelegate(String label) {
                 @SuppressWarnings("unchecked") // registration requires that subtype extends T
                         TypeAdapter<R> delegate = (TypeAdapter<R>) labelToDelegate.get(label);
                 if (delegate == null) {
@@ -232,7 +252,10 @@ public final class RuntimeTypeAdapterFactory<T> implements TypeAdapterFactory {
                     throw new JsonParseException("cannot deserialize " + baseType + " subtype named "
                             + label + "; did you forget to register a subtype?");
                 }
-                R result = delegate.fromJsonTree(jsonElement);
+                return delegate;
+            }
+
+            private R ensureResult(R result) {
                 if (result != null) {
                     return result;
                 }
@@ -45,10 +45,57 @@ public interface DeviceMotionRecorderConfiguration extends RecorderConfiguration
     @Nullable
     Double getFrequency();
 
+    /**
+     * Returns the longest time in seconds the sensor hardware may batch samples before delivering them. Batching lets
+     * the device sleep while recording. A value of null or 0 results in every sample being delivered right away.
+     *
+     * @return the max report latency for this recorder in seconds.
+     */
+    @Nullable
+    Double getMaxReportLatency();
+
+    /**
+     * Returns whether samples batched by the sensor hardware should be delivered before the recorder stops. A value
+     * of null results in batched samples being flushed.
+     *
+     * @return whether batched samples are flushed when this recorder stops.
+     */
+    @Nullable
+    Boolean getFlushOnStop();
+
+    /**
+     * Returns how many samples can be buffered between the sensors and the file writer. A value of null results in
+     * a default capacity being used.
+     *
+     * @return the sample buffer capacity for this recorder.
+     */
+    @Nullable
+    Integer getBufferCapacity();
+
+    /**
+     * Returns what to do when the sample buffer is full. A value of null results in SensorOverflowPolicy.DROP_NEWEST
+     * being used.
+     *
+     * @return the overflow policy for this recorder.
+     */
+    @Nullable
+    @SensorOverflowPolicy
+    String getOverflowPolicy();
+
     /**
      * Returns the set of recorder types this device motion recorder will record.
      *
      * @return the set of recorder types this device motion recorder will record.
      */
     Set<String> getRecorderTypes();
+
+    /**
+     * Returns the output format the samples of this recorder should be written in. A value of null results in
+     * MotionRecorderOutputFormat.JSON being used.
+     *
+     * @return the output format for this recorder.
+     */
+    @Nullable
+    @MotionRecorderOutputFormat
+    String getOutputFormat();
 }
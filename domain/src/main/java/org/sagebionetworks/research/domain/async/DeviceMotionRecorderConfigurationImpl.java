@@ -47,10 +47,22 @@ public abstract class DeviceMotionRecorderConfigurationImpl implements DeviceMot
     public abstract static class Builder {
         public abstract DeviceMotionRecorderConfigurationImpl build();
 
+        public abstract Builder setBufferCapacity(@Nullable Integer bufferCapacity);
+
+        public abstract Builder setCompression(@Nullable @RecorderCompression String compression);
+
+        public abstract Builder setFlushOnStop(@Nullable Boolean flushOnStop);
+
         public abstract Builder setFrequency(@Nullable Double frequency);
 
         public abstract Builder setIdentifier(@NonNull String identifier);
 
+        public abstract Builder setMaxReportLatency(@Nullable Double maxReportLatency);
+
+        public abstract Builder setOverflowPolicy(@Nullable @SensorOverflowPolicy String overflowPolicy);
+
+        public abstract Builder setOutputFormat(@Nullable @MotionRecorderOutputFormat String outputFormat);
+
         public abstract Builder setRecorderTypes(@NonNull Set<String> recorderTypes);
 
         public abstract Builder setStartStepIdentifier(@Nullable String startStepIdentifier);
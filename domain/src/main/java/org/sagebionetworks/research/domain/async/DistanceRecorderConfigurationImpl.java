@@ -47,6 +47,8 @@ public abstract class DistanceRecorderConfigurationImpl implements DistanceRecor
     public abstract static class Builder {
         public abstract DistanceRecorderConfigurationImpl build();
 
+        public abstract Builder setCompression(@Nullable @RecorderCompression String compression);
+
         public abstract Builder setIdentifier(@NonNull String identifier);
 
         public abstract Builder setStartStepIdentifier(@Nullable String startStepIdentifier);
@@ -57,6 +57,16 @@ public interface RecorderConfiguration extends AsyncActionConfiguration {
     @Nullable
     String getStopStepIdentifier();
 
+    /**
+     * Returns how the file of this recorder should be compressed while recording. A value of null results in
+     * RecorderCompression.NONE being used.
+     *
+     * @return the compression for this recorder's file, or null
+     */
+    @Nullable
+    @RecorderCompression
+    String getCompression();
+
     /**
      * Returns a RecorderConfiguration identical to this except with the given stop step identifier.
      * @param stopStepIdentifier The new stopStepIdentifier to copy with.
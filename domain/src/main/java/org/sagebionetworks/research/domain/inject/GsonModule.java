@@ -32,6 +32,8 @@
 
 package org.sagebionetworks.research.domain.inject;
 
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
 import com.dampcake.gson.immutable.ImmutableAdapterFactory;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -49,11 +51,15 @@ import org.sagebionetworks.research.domain.impl.DomainAutoValueTypeAdapterFactor
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
 import java.lang.reflect.Type;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import javax.inject.Qualifier;
+
 import dagger.MapKey;
 import dagger.Module;
 import dagger.Provides;
@@ -70,6 +76,17 @@ public abstract class GsonModule {
         Class<?> value();
     }
 
+    /**
+     * Qualifies a Gson which writes compact json, without pretty printing. This is the Gson to use for output that is
+     * written many times or uploaded, such as recorder files, while the unqualified Gson pretty prints for
+     * readability of task definitions and debug output.
+     */
+    @Qualifier
+    @Documented
+    @Retention(RUNTIME)
+    public @interface CompactGson {
+    }
+
     private static final Logger LOGGER = LoggerFactory.getLogger(GsonModule.class);
 
     /**
@@ -124,6 +141,35 @@ public abstract class GsonModule {
             Set<RuntimeTypeAdapterFactory> runtimeTypeAdapterFactories) {
         LOGGER.debug("Providing Gson");
 
+        return createGsonBuilder(jsonDeserializerMap, jsonSerializerMap, typeAdapterFactories,
+                runtimeTypeAdapterFactories)
+                .setPrettyPrinting()
+                .create();
+    }
+
+    @Provides
+    @CompactGson
+    static Gson provideCompactGson(Map<Class<?>, JsonDeserializer<?>> jsonDeserializerMap,
+            Map<Class<?>, JsonSerializer<?>> jsonSerializerMap,
+            Set<TypeAdapterFactory> typeAdapterFactories,
+            Set<RuntimeTypeAdapterFactory> runtimeTypeAdapterFactories) {
+        LOGGER.debug("Providing compact Gson");
+
+        return createGsonBuilder(jsonDeserializerMap, jsonSerializerMap, typeAdapterFactories,
+                runtimeTypeAdapterFactories)
+                .create();
+    }
+
+    @Provides
+    @IntoSet
+    static TypeAdapterFactory provideGuavaImmutableTypeAdapter() {
+        return ImmutableAdapterFactory.forGuava();
+    }
+
+    private static GsonBuilder createGsonBuilder(Map<Class<?>, JsonDeserializer<?>> jsonDeserializerMap,
+            Map<Class<?>, JsonSerializer<?>> jsonSerializerMap,
+            Set<TypeAdapterFactory> typeAdapterFactories,
+            Set<RuntimeTypeAdapterFactory> runtimeTypeAdapterFactories) {
         GsonBuilder builder = new GsonBuilder();
         // Register Deserializers
         for (Entry<Class<?>, ? extends Object> entry : jsonDeserializerMap.entrySet()) {
@@ -153,12 +199,6 @@ public abstract class GsonModule {
 
         ThreeTenGsonAdapter.registerAll(builder);
 
-        return builder.setPrettyPrinting().create();
-    }
-
-    @Provides
-    @IntoSet
-    static TypeAdapterFactory provideGuavaImmutableTypeAdapter() {
-        return ImmutableAdapterFactory.forGuava();
+        return builder;
     }
 }
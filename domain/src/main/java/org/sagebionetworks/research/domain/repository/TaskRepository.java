@@ -37,6 +37,7 @@ import androidx.annotation.CheckResult;
 import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
 
+import org.sagebionetworks.research.domain.result.interfaces.Result;
 import org.sagebionetworks.research.domain.result.interfaces.TaskResult;
 import org.sagebionetworks.research.domain.task.Task;
 import org.sagebionetworks.research.domain.task.TaskInfoView;
@@ -90,7 +91,68 @@ public interface TaskRepository {
     @DrawableRes
     int resolveDrawableFromString(@NonNull String name) throws NotFoundException;
 
+    /**
+     * Saves a snapshot of the given task result, replacing anything previously saved for its task run.
+     *
+     * @param taskResult
+     *         The task result to save.
+     * @return Completes once the task result has been saved.
+     */
     @NonNull
     @CheckResult
     Completable setTaskResult(TaskResult taskResult);
+
+    /**
+     * Records that a step result was added to the step history of a previously saved task result, without saving the
+     * whole task result again.
+     *
+     * @param taskRunUUID
+     *         The UUID of the task result to update.
+     * @param stepResult
+     *         The step result that was added.
+     * @return Completes once the change has been saved.
+     */
+    @NonNull
+    @CheckResult
+    Completable addStepHistory(UUID taskRunUUID, Result stepResult);
+
+    /**
+     * Records that a step result, and every step result after it, was removed from the step history of a previously
+     * saved task result.
+     *
+     * @param taskRunUUID
+     *         The UUID of the task result to update.
+     * @param stepResult
+     *         The step result that was removed.
+     * @return Completes once the change has been saved.
+     */
+    @NonNull
+    @CheckResult
+    Completable removeStepHistory(UUID taskRunUUID, Result stepResult);
+
+    /**
+     * Records that an async result was added to a previously saved task result.
+     *
+     * @param taskRunUUID
+     *         The UUID of the task result to update.
+     * @param asyncResult
+     *         The async result that was added.
+     * @return Completes once the change has been saved.
+     */
+    @NonNull
+    @CheckResult
+    Completable addAsyncResult(UUID taskRunUUID, Result asyncResult);
+
+    /**
+     * Records that an async result was removed from a previously saved task result.
+     *
+     * @param taskRunUUID
+     *         The UUID of the task result to update.
+     * @param asyncResult
+     *         The async result that was removed.
+     * @return Completes once the change has been saved.
+     */
+    @NonNull
+    @CheckResult
+    Completable removeAsyncResult(UUID taskRunUUID, Result asyncResult);
 }
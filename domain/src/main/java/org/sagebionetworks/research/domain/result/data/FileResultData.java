@@ -33,11 +33,15 @@
 package org.sagebionetworks.research.domain.result.data;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableMap;
 import com.google.gson.Gson;
 import com.google.gson.TypeAdapter;
 
+import java.util.Map;
+
 /**
  * A FileResultData stores the state unique to a file result.
  */
@@ -47,8 +51,12 @@ public abstract class FileResultData {
     public abstract static class Builder {
         public abstract FileResultData build();
 
+        public abstract Builder setContentEncoding(@Nullable final String contentEncoding);
+
         public abstract Builder setFileType(@NonNull final String fileType);
 
+        public abstract Builder setMetadata(@Nullable final ImmutableMap<String, String> metadata);
+
         public abstract Builder setRelativePath(@NonNull final String relativePath);
     }
 
@@ -57,9 +65,21 @@ public abstract class FileResultData {
     }
 
     public static FileResultData create(final String fileType, final String relativePath) {
+        return create(fileType, relativePath, null);
+    }
+
+    public static FileResultData create(final String fileType, final String relativePath,
+            final String contentEncoding) {
+        return create(fileType, relativePath, contentEncoding, null);
+    }
+
+    public static FileResultData create(final String fileType, final String relativePath,
+            final String contentEncoding, final Map<String, String> metadata) {
         return FileResultData.builder()
                 .setFileType(fileType)
                 .setRelativePath(relativePath)
+                .setContentEncoding(contentEncoding)
+                .setMetadata(metadata != null ? ImmutableMap.copyOf(metadata) : null)
                 .build();
     }
 
@@ -67,9 +87,15 @@ public abstract class FileResultData {
         return new AutoValue_FileResultData.GsonTypeAdapter(gson);
     }
 
+    @Nullable
+    public abstract String getContentEncoding();
+
     @NonNull
     public abstract String getFileType();
 
+    @Nullable
+    public abstract ImmutableMap<String, String> getMetadata();
+
     @NonNull
     public abstract String getRelativePath();
 
@@ -0,0 +1,437 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.domain.result.data;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.sagebionetworks.research.domain.result.interfaces.Result;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable list of Results which shares structure between versions.
+ * <p>
+ * Results are kept in a persistent balanced tree ordered by insertion, alongside a persistent index from identifier
+ * to position. Replacing, appending and removing a result each create a new list in O(log n) time while sharing all
+ * untouched nodes with the original, so a TaskResult can record a long history without copying it on every step.
+ * The list can be used anywhere a List&lt;Result&gt; is expected, including gson serialization, and is equal to any
+ * other list with the same results in the same order.
+ */
+public final class PersistentResultList extends AbstractList<Result> {
+    private static final PersistentResultList EMPTY = new PersistentResultList(null, null, 0);
+
+    private static final long[] NO_SEQUENCES = new long[0];
+
+    /**
+     * A node of a persistent AVL tree which tracks the size of its subtree.
+     */
+    private static final class Node<K extends Comparable<K>, V> {
+        final int height;
+
+        final K key;
+
+        @Nullable
+        final Node<K, V> left;
+
+        @Nullable
+        final Node<K, V> right;
+
+        final int size;
+
+        final V value;
+
+        Node(@Nullable Node<K, V> left, K key, V value, @Nullable Node<K, V> right) {
+            this.left = left;
+            this.key = key;
+            this.value = value;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    // insertion sequence -> result, in list order
+    @Nullable
+    private final Node<Long, Result> results;
+
+    // identifier -> insertion sequences of the results with that identifier, in list order
+    @Nullable
+    private final Node<String, long[]> index;
+
+    private final long nextSequence;
+
+    /**
+     * Returns a PersistentResultList with the same results, in the same order, as the given list.
+     *
+     * @param results
+     *         The results to copy.
+     * @return The given list if it is already a PersistentResultList, otherwise a copy of it.
+     */
+    @NonNull
+    public static PersistentResultList copyOf(@NonNull List<Result> results) {
+        checkNotNull(results);
+        if (results instanceof PersistentResultList) {
+            return (PersistentResultList) results;
+        }
+
+        PersistentResultList copy = EMPTY;
+        for (Result result : results) {
+            copy = copy.append(result);
+        }
+
+        return copy;
+    }
+
+    @NonNull
+    public static PersistentResultList empty() {
+        return EMPTY;
+    }
+
+    private PersistentResultList(@Nullable Node<Long, Result> results, @Nullable Node<String, long[]> index,
+            long nextSequence) {
+        this.results = results;
+        this.index = index;
+        this.nextSequence = nextSequence;
+    }
+
+    @Override
+    public Result get(int position) {
+        if (position < 0 || position >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + size());
+        }
+
+        Node<Long, Result> node = results;
+        while (true) {
+            int leftSize = size(node.left);
+            if (position < leftSize) {
+                node = node.left;
+            } else if (position == leftSize) {
+                return node.value;
+            } else {
+                position -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Returns the first result with the given identifier.
+     *
+     * @param identifier
+     *         The identifier of the result to find.
+     * @return The first result with the given identifier, or null if there is none.
+     */
+    @Nullable
+    public Result getResult(@NonNull String identifier) {
+        long[] sequences = find(index, identifier);
+        return sequences == null ? null : find(results, sequences[0]);
+    }
+
+    /**
+     * Finds the position of the given result through the identifier index rather than a scan.
+     */
+    @Override
+    public int indexOf(@Nullable Object object) {
+        if (!(object instanceof Result)) {
+            return super.indexOf(object);
+        }
+
+        long[] sequences = find(index, ((Result) object).getIdentifier());
+        if (sequences != null) {
+            for (long sequence : sequences) {
+                if (object.equals(find(results, sequence))) {
+                    return rank(results, sequence);
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    @NonNull
+    @Override
+    public Iterator<Result> iterator() {
+        return new Iterator<Result>() {
+            private final Deque<Node<Long, Result>> path = new ArrayDeque<>();
+
+            {
+                pushLeft(results);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public Result next() {
+                if (path.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+
+                Node<Long, Result> node = path.pop();
+                pushLeft(node.right);
+                return node.value;
+            }
+
+            private void pushLeft(@Nullable Node<Long, Result> node) {
+                while (node != null) {
+                    path.push(node);
+                    node = node.left;
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns a list with every result with the same identifier as the given result removed, and the given result
+     * appended to the end.
+     *
+     * @param result
+     *         The result to replace and append.
+     * @return The new list, this list is unchanged.
+     */
+    @NonNull
+    public PersistentResultList replaceAndAppend(@NonNull Result result) {
+        checkNotNull(result);
+        long[] sequences = find(index, result.getIdentifier());
+        Node<Long, Result> newResults = results;
+        if (sequences != null) {
+            for (long sequence : sequences) {
+                newResults = remove(newResults, sequence);
+            }
+        }
+
+        long sequence = nextSequence;
+        return new PersistentResultList(insert(newResults, sequence, result),
+                insert(index, result.getIdentifier(), new long[]{sequence}), sequence + 1);
+    }
+
+    /**
+     * Returns a list with the first result with the given identifier, and every result after it, removed.
+     *
+     * @param identifier
+     *         The identifier of the first result to remove.
+     * @return The new list, or this list if it has no result with the given identifier.
+     */
+    @NonNull
+    public PersistentResultList truncateAt(@NonNull String identifier) {
+        long[] sequences = find(index, checkNotNull(identifier));
+        if (sequences == null) {
+            return this;
+        }
+
+        long first = sequences[0];
+        Node<Long, Result> newResults = results;
+        Node<String, long[]> newIndex = index;
+        // Remove from the end, so only the removed results are visited.
+        Node<Long, Result> last;
+        while ((last = last(newResults)) != null && last.key >= first) {
+            newResults = remove(newResults, last.key);
+            String lastIdentifier = last.value.getIdentifier();
+            long[] remaining = withoutLast(find(newIndex, lastIdentifier));
+            newIndex = remaining.length == 0 ? remove(newIndex, lastIdentifier)
+                    : insert(newIndex, lastIdentifier, remaining);
+        }
+
+        return new PersistentResultList(newResults, newIndex, nextSequence);
+    }
+
+    @Override
+    public int size() {
+        return size(results);
+    }
+
+    /**
+     * Appends the given result, keeping any earlier results with the same identifier.
+     */
+    @NonNull
+    private PersistentResultList append(@NonNull Result result) {
+        long sequence = nextSequence;
+        long[] sequences = find(index, result.getIdentifier());
+        long[] newSequences;
+        if (sequences == null) {
+            newSequences = new long[]{sequence};
+        } else {
+            newSequences = Arrays.copyOf(sequences, sequences.length + 1);
+            newSequences[sequences.length] = sequence;
+        }
+
+        return new PersistentResultList(insert(results, sequence, result),
+                insert(index, result.getIdentifier(), newSequences), sequence + 1);
+    }
+
+    @NonNull
+    private static long[] withoutLast(@Nullable long[] sequences) {
+        return sequences == null || sequences.length <= 1 ? NO_SEQUENCES
+                : Arrays.copyOf(sequences, sequences.length - 1);
+    }
+
+    // region Persistent AVL tree
+
+    private static int height(@Nullable Node<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(@Nullable Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    @Nullable
+    private static <K extends Comparable<K>, V> V find(@Nullable Node<K, V> node, @NonNull K key) {
+        while (node != null) {
+            int comparison = key.compareTo(node.key);
+            if (comparison == 0) {
+                return node.value;
+            }
+
+            node = comparison < 0 ? node.left : node.right;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the number of keys in the tree less than the given key.
+     */
+    private static <K extends Comparable<K>, V> int rank(@Nullable Node<K, V> node, @NonNull K key) {
+        int rank = 0;
+        while (node != null) {
+            int comparison = key.compareTo(node.key);
+            if (comparison <= 0) {
+                if (comparison == 0) {
+                    return rank + size(node.left);
+                }
+
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+
+        return rank;
+    }
+
+    @Nullable
+    private static <K extends Comparable<K>, V> Node<K, V> last(@Nullable Node<K, V> node) {
+        if (node == null) {
+            return null;
+        }
+
+        while (node.right != null) {
+            node = node.right;
+        }
+
+        return node;
+    }
+
+    @NonNull
+    private static <K extends Comparable<K>, V> Node<K, V> insert(@Nullable Node<K, V> node, @NonNull K key,
+            V value) {
+        if (node == null) {
+            return new Node<>(null, key, value, null);
+        }
+
+        int comparison = key.compareTo(node.key);
+        if (comparison < 0) {
+            return balance(insert(node.left, key, value), node.key, node.value, node.right);
+        } else if (comparison > 0) {
+            return balance(node.left, node.key, node.value, insert(node.right, key, value));
+        } else {
+            return new Node<>(node.left, key, value, node.right);
+        }
+    }
+
+    @Nullable
+    private static <K extends Comparable<K>, V> Node<K, V> remove(@Nullable Node<K, V> node, @NonNull K key) {
+        if (node == null) {
+            return null;
+        }
+
+        int comparison = key.compareTo(node.key);
+        if (comparison < 0) {
+            return balance(remove(node.left, key), node.key, node.value, node.right);
+        } else if (comparison > 0) {
+            return balance(node.left, node.key, node.value, remove(node.right, key));
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else {
+            Node<K, V> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+
+            return balance(node.left, successor.key, successor.value, remove(node.right, successor.key));
+        }
+    }
+
+    @NonNull
+    private static <K extends Comparable<K>, V> Node<K, V> balance(@Nullable Node<K, V> left, K key, V value,
+            @Nullable Node<K, V> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.left, left.key, left.value, new Node<>(left.right, key, value, right));
+            }
+
+            Node<K, V> pivot = left.right;
+            return new Node<>(new Node<>(left.left, left.key, left.value, pivot.left), pivot.key, pivot.value,
+                    new Node<>(pivot.right, key, value, right));
+        } else if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(new Node<>(left, key, value, right.left), right.key, right.value, right.right);
+            }
+
+            Node<K, V> pivot = right.left;
+            return new Node<>(new Node<>(left, key, value, pivot.left), pivot.key, pivot.value,
+                    new Node<>(pivot.right, right.key, right.value, right.right));
+        }
+
+        return new Node<>(left, key, value, right);
+    }
+
+    // endregion
+}
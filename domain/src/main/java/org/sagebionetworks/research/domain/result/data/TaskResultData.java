@@ -46,7 +46,8 @@ import java.util.List;
 import java.util.UUID;
 
 /**
- * A TaskResultData stores the state unique to a task result.
+ * A TaskResultData stores the state unique to a task result. When created through {@link #create}, the step history
+ * and async results are PersistentResultLists, so updated copies share structure with the original.
  */
 @AutoValue
 public abstract class TaskResultData {
@@ -76,8 +77,8 @@ public abstract class TaskResultData {
         return TaskResultData.builder()
                 .setUUID(taskUUID)
                 .setSchema(schema)
-                .setStepHistory(stepHistory)
-                .setAsyncResults(asyncResults)
+                .setStepHistory(PersistentResultList.copyOf(stepHistory))
+                .setAsyncResults(PersistentResultList.copyOf(asyncResults))
                 .build();
     }
 
@@ -44,6 +44,8 @@ import org.sagebionetworks.research.domain.result.data.FileResultData;
 import org.sagebionetworks.research.domain.result.interfaces.FileResult;
 import org.threeten.bp.Instant;
 
+import java.util.Map;
+
 /**
  * The concrete implementation of a result for a File. A wrapper around FileResultData which adds behavior and can be
  * subclassed.
@@ -57,8 +59,20 @@ public class FileResultBase extends ResultBase implements FileResult {
 
     public FileResultBase(@NonNull final String identifier, @NonNull final Instant startTime,
             @NonNull final Instant endTime, @NonNull final String fileType, @NonNull final String relativePath) {
+        this(identifier, startTime, endTime, fileType, relativePath, null);
+    }
+
+    public FileResultBase(@NonNull final String identifier, @NonNull final Instant startTime,
+            @NonNull final Instant endTime, @NonNull final String fileType, @NonNull final String relativePath,
+            @Nullable final String contentEncoding) {
+        this(identifier, startTime, endTime, fileType, relativePath, contentEncoding, null);
+    }
+
+    public FileResultBase(@NonNull final String identifier, @NonNull final Instant startTime,
+            @NonNull final Instant endTime, @NonNull final String fileType, @NonNull final String relativePath,
+            @Nullable final String contentEncoding, @Nullable final Map<String, String> metadata) {
         super(identifier, startTime, endTime);
-        this.fileResultData = FileResultData.create(fileType, relativePath);
+        this.fileResultData = FileResultData.create(fileType, relativePath, contentEncoding, metadata);
     }
 
     @Override
@@ -93,12 +107,24 @@ public class FileResultBase extends ResultBase implements FileResult {
                 .add("TaskResultData", this.fileResultData);
     }
 
+    @Nullable
+    @Override
+    public String getContentEncoding() {
+        return this.fileResultData.getContentEncoding();
+    }
+
     @Nullable
     @Override
     public String getFileType() {
         return this.fileResultData.getFileType();
     }
 
+    @Nullable
+    @Override
+    public Map<String, String> getMetadata() {
+        return this.fileResultData.getMetadata();
+    }
+
     @Nullable
     @Override
     public String getRelativePath() {
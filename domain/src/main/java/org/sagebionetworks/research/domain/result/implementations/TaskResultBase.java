@@ -37,10 +37,13 @@ import androidx.annotation.Nullable;
 
 import com.google.common.base.MoreObjects.ToStringHelper;
 import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import org.sagebionetworks.research.domain.Schema;
 import org.sagebionetworks.research.domain.interfaces.HashCodeHelper;
 import org.sagebionetworks.research.domain.result.ResultType;
+import org.sagebionetworks.research.domain.result.data.PersistentResultList;
 import org.sagebionetworks.research.domain.result.data.TaskResultData;
 import org.sagebionetworks.research.domain.result.interfaces.AnswerResult;
 import org.sagebionetworks.research.domain.result.interfaces.Result;
@@ -49,9 +52,9 @@ import org.sagebionetworks.research.domain.step.interfaces.Step;
 import org.threeten.bp.Instant;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 import javax.annotation.RegEx;
 
@@ -63,9 +66,18 @@ public class TaskResultBase extends ResultBase implements TaskResult {
     @ResultType
     public static final String TYPE_KEY = ResultType.TASK;
 
+    // Compiled patterns for getResultsMatchingRegex, navigation rules query the same few patterns repeatedly.
+    private static final Cache<String, Pattern> PATTERN_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(64)
+            .build();
+
     // Subclasses shouldn't hide this field as doing so will result in a gson error.
     private final TaskResultData taskResultData;
 
+    // Lazily built identifier index of the step history, transient so gson ignores it.
+    @Nullable
+    private transient PersistentResultList stepHistoryIndex;
+
     public TaskResultBase(@NonNull String identifier, @NonNull UUID taskRunUUID) {
         this(identifier, Instant.now(), null, taskRunUUID, null, new ArrayList<>(), new ArrayList<>());
     }
@@ -100,17 +112,32 @@ public class TaskResultBase extends ResultBase implements TaskResult {
     @NonNull
     @Override
     public TaskResultBase addAsyncResult(final Result result) {
-        List<Result> asyncResults = replaceAndAppendResult(this.getAsyncResults(), result);
+        List<Result> asyncResults = PersistentResultList.copyOf(this.getAsyncResults()).replaceAndAppend(result);
         TaskResultData newData = TaskResultData
                 .create(this.getTaskUUID(), this.getSchemaInfo(), this.getStepHistory(),
                         asyncResults);
         return new TaskResultBase(this, newData);
     }
 
+    @NonNull
+    @Override
+    public TaskResultBase upsertAsyncResult(@NonNull final Result result) {
+        PersistentResultList asyncResults = PersistentResultList.copyOf(this.getAsyncResults());
+        Result previousResult = asyncResults.getResult(result.getIdentifier());
+        if (previousResult != null && !previousResult.getStartTime().isBefore(result.getStartTime())) {
+            return this;
+        }
+
+        TaskResultData newData = TaskResultData
+                .create(this.getTaskUUID(), this.getSchemaInfo(), this.getStepHistory(),
+                        asyncResults.replaceAndAppend(result));
+        return new TaskResultBase(this, newData);
+    }
+
     @NonNull
     @Override
     public TaskResultBase addStepHistory(final Result result) {
-        List<Result> stepHistory = replaceAndAppendResult(this.getStepHistory(), result);
+        List<Result> stepHistory = this.getStepHistoryIndex().replaceAndAppend(result);
         TaskResultData newData = TaskResultData.create(this.taskResultData, stepHistory);
         return new TaskResultBase(this, newData);
     }
@@ -146,13 +173,7 @@ public class TaskResultBase extends ResultBase implements TaskResult {
     @Nullable
     @Override
     public Result getResult(final String identifier) {
-        for (Result result : this.getStepHistory()) {
-            if (result.getIdentifier().equals(identifier)) {
-                return result;
-            }
-        }
-
-        return null;
+        return this.getStepHistoryIndex().getResult(identifier);
     }
 
     @Override
@@ -173,20 +194,7 @@ public class TaskResultBase extends ResultBase implements TaskResult {
     @NonNull
     @Override
     public TaskResultBase removeStepHistory(final Result result) {
-        List<Result> stepHistory = new ArrayList<>(this.getStepHistory());
-        Iterator<Result> iterator = stepHistory.iterator();
-        boolean foundResult = false;
-        while (iterator.hasNext()) {
-            Result stepResult = iterator.next();
-            if (!foundResult && stepResult.getIdentifier().equals(result.getIdentifier())) {
-                foundResult = true;
-            }
-
-            if (foundResult) {
-                iterator.remove();
-            }
-        }
-
+        List<Result> stepHistory = this.getStepHistoryIndex().truncateAt(result.getIdentifier());
         TaskResultData newData = TaskResultData.create(this.taskResultData, stepHistory);
         return new TaskResultBase(this, newData);
     }
@@ -194,20 +202,8 @@ public class TaskResultBase extends ResultBase implements TaskResult {
     @Nullable
     @Override
     public TaskResult removeAsyncResult(final Result result) {
-        List<Result> asyncResults = new ArrayList<>(this.getAsyncResults());
-        Iterator<Result> iterator = asyncResults.iterator();
-        boolean foundResult = false;
-        while (iterator.hasNext()) {
-            Result stepResult = iterator.next();
-            if (!foundResult && stepResult.getIdentifier().equals(result.getIdentifier())) {
-                foundResult = true;
-            }
-
-            if (foundResult) {
-                iterator.remove();
-            }
-        }
-
+        List<Result> asyncResults = PersistentResultList.copyOf(this.getAsyncResults())
+                .truncateAt(result.getIdentifier());
         TaskResultData newData = TaskResultData.create(
                 getTaskUUID(), getSchemaInfo(), getStepHistory(), asyncResults);
         return new TaskResultBase(this, newData);
@@ -216,9 +212,15 @@ public class TaskResultBase extends ResultBase implements TaskResult {
     @Override
     @NonNull
     public List<Result> getResultsMatchingRegex(@RegEx String regex) {
+        Pattern pattern = PATTERN_CACHE.getIfPresent(regex);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex);
+            PATTERN_CACHE.put(regex, pattern);
+        }
+
         List<Result> matches = new ArrayList<>();
         for (Result result : this.taskResultData.getStepHistory()) {
-            if (result.getIdentifier().matches(regex)) {
+            if (pattern.matcher(result.getIdentifier()).matches()) {
                 matches.add(result);
             }
         }
@@ -239,6 +241,21 @@ public class TaskResultBase extends ResultBase implements TaskResult {
         return TYPE_KEY;
     }
 
+    /**
+     * Returns the step history as a PersistentResultList, which is usually the step history itself. A step history
+     * deserialized by gson is converted once and cached, as this TaskResult and its data are immutable.
+     */
+    @NonNull
+    private PersistentResultList getStepHistoryIndex() {
+        PersistentResultList index = this.stepHistoryIndex;
+        if (index == null) {
+            index = PersistentResultList.copyOf(this.getStepHistory());
+            this.stepHistoryIndex = index;
+        }
+
+        return index;
+    }
+
     @Override
     protected boolean equalsHelper(Object o) {
         TaskResultBase taskResult = (TaskResultBase) o;
@@ -257,29 +274,4 @@ public class TaskResultBase extends ResultBase implements TaskResult {
         return super.toStringHelper()
                 .add("TaskResultData", this.taskResultData);
     }
-
-    /**
-     * Returns a copy of the given list with all occurrences of results with the same identifier as the given result
-     * removed, and then appends the given result to the end of the given list.
-     *
-     * @param list
-     *         The list of results to remove from and append to.
-     * @param result
-     *         The result to remove duplicates of and then append.
-     * @return A copy of the given list with all duplicates of the given result removed and then the result appended
-     *         to the end.
-     */
-    private static List<Result> replaceAndAppendResult(List<Result> list, final Result result) {
-        List<Result> returnValue = new ArrayList<>(list);
-        Iterator<Result> iterator = returnValue.iterator();
-        while (iterator.hasNext()) {
-            Result stepResult = iterator.next();
-            if (stepResult.getIdentifier().equals(result.getIdentifier())) {
-                iterator.remove();
-            }
-        }
-
-        returnValue.add(result);
-        return returnValue;
-    }
 }
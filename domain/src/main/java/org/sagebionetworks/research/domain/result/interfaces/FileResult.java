@@ -37,6 +37,8 @@ import androidx.annotation.Nullable;
 
 import org.threeten.bp.Instant;
 
+import java.util.Map;
+
 /**
  * A FileResult is a result that stores the location and type of a file.
  */
@@ -48,12 +50,25 @@ public interface FileResult extends Result {
     @NonNull
     Instant getEndTime();
 
+    /**
+     * @return The encoding applied to the content of the file, such as "gzip", or null if the file isn't encoded.
+     */
+    @Nullable
+    String getContentEncoding();
+
     /**
      * @return A String representing the type of content in the file.
      */
     @Nullable
     String getFileType();
 
+    /**
+     * @return Metadata describing how the file was recorded, such as sample counts for data quality auditing, or null
+     * if there is none.
+     */
+    @Nullable
+    Map<String, String> getMetadata();
+
     /**
      * @return The relative path of the file as a String.
      */
@@ -56,6 +56,19 @@ public interface TaskResult extends Result {
      */
     TaskResult addAsyncResult(Result result);
 
+    /**
+     * Returns a new TaskResult with the given result in place of the async result with the same identifier, unless
+     * that result was started at the same time or later. Async results are looked up by identifier, so this does not
+     * scan or copy the async results.
+     *
+     * @param result
+     *         The result to add to the async results.
+     * @return a new task result with the given result appended to the async results, or this task result if an async
+     *         result with the same identifier started no earlier than the given result.
+     */
+    @NonNull
+    TaskResult upsertAsyncResult(@NonNull Result result);
+
     /**
      * Returns a new TaskResult with the old result removed from the step history and appended to the end.
      *
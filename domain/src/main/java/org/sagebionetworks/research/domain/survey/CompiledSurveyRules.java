@@ -0,0 +1,344 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.domain.survey;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import org.sagebionetworks.research.domain.result.interfaces.AnswerResult;
+import org.sagebionetworks.research.domain.result.interfaces.Result;
+import org.sagebionetworks.research.domain.task.navigation.strategy.StepNavigationStrategy.NextStepStrategy;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The survey rules of a single input field compiled into lookup tables. Numeric answers are located by a binary
+ * search over the sorted thresholds of all the numeric rules, and other answers by a hash lookup on the matching
+ * answers of the equality rules, so the cost of evaluating an answer doesn't grow with the number of rules. The
+ * outcome for each threshold, each range between thresholds, and each matching answer is computed once when the
+ * rules are compiled.
+ * <p>
+ * Rules are evaluated with the following semantics:
+ * <ul>
+ * <li>The operator defaults to {@link Operator#EQUALS}. {@link Operator#SKIPS} matches a missing answer, every
+ * other operator requires both an answer and a matching answer.</li>
+ * <li>Numbers are compared by value. Other answers only support {@link Operator#EQUALS} and
+ * {@link Operator#NOT_EQUALS}, and a collection answer equals a matching answer that it contains.</li>
+ * <li>{@link #evaluateRule(Result)} returns the skip identifier of the first matching rule. A rule without a skip
+ * identifier skips to exit unless it has a cohort.</li>
+ * <li>{@link #evaluateCohorts(Result)} adds the cohorts of the matching rules and removes the cohorts of the other
+ * rules, or returns null if none of the rules have a cohort.</li>
+ * </ul>
+ * Collection answers are rare and are evaluated rule by rule.
+ */
+public final class CompiledSurveyRules implements SurveyRule {
+    /**
+     * The evaluation of all the rules for one answer, or one range of answers.
+     */
+    private static final class Outcome {
+        @Nullable
+        final CohortResult cohortResult;
+
+        @Nullable
+        final String skipToIdentifier;
+
+        Outcome(@Nullable final String skipToIdentifier, @Nullable final CohortResult cohortResult) {
+            this.skipToIdentifier = skipToIdentifier;
+            this.cohortResult = cohortResult;
+        }
+    }
+
+    private static final Cache<SurveyInputField, CompiledSurveyRules> COMPILED_RULES = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    private static final String EXIT_IDENTIFIER = NextStepStrategy.Identifiers.Exit.getKey();
+
+    // Stands in for a non-numeric answer that doesn't equal any of the matching answers.
+    private static final Object UNMATCHED_ANSWER = new Object();
+
+    @NonNull
+    private final ImmutableMap<Object, Outcome> equalityOutcomes;
+
+    @NonNull
+    private final Outcome missingAnswerOutcome;
+
+    @NonNull
+    private final Outcome nanOutcome;
+
+    // numericOutcomes[2 * i + 1] is the outcome for thresholds[i], and numericOutcomes[2 * i] is the outcome for the
+    // answers between thresholds[i - 1] and thresholds[i].
+    @NonNull
+    private final Outcome[] numericOutcomes;
+
+    @NonNull
+    private final ImmutableList<MatchingAnswerSurveyRule> rules;
+
+    @NonNull
+    private final double[] thresholds;
+
+    @NonNull
+    private final Outcome unmatchedOutcome;
+
+    /**
+     * Returns the compiled survey rules of the given input field. The rules are compiled the first time they are
+     * requested for an input field and reused afterwards.
+     *
+     * @param inputField
+     *         The input field to get the compiled survey rules of.
+     * @return The compiled survey rules of the given input field.
+     */
+    @NonNull
+    public static CompiledSurveyRules forInputField(@NonNull final SurveyInputField inputField) {
+        checkNotNull(inputField);
+        try {
+            return COMPILED_RULES.get(inputField, () -> compile(inputField.getSurveyRules()));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to compile survey rules for " + inputField.getIdentifier(),
+                    e.getCause());
+        }
+    }
+
+    /**
+     * Compiles the given survey rules.
+     *
+     * @param rules
+     *         The rules to compile, in the order they should be evaluated.
+     * @return The compiled survey rules.
+     */
+    @NonNull
+    public static CompiledSurveyRules compile(@NonNull final List<? extends MatchingAnswerSurveyRule> rules) {
+        return new CompiledSurveyRules(ImmutableList.copyOf(rules));
+    }
+
+    /**
+     * Returns true if the given rule matches the given answer, false otherwise.
+     *
+     * @param rule
+     *         The rule to match.
+     * @param answer
+     *         The answer to match the rule against, null if the question was skipped.
+     * @return true if the given rule matches the given answer, false otherwise.
+     */
+    @VisibleForTesting
+    static boolean matches(@NonNull final MatchingAnswerSurveyRule rule, @Nullable final Object answer) {
+        String operator = rule.getSurveyRuleOperator() != null ? rule.getSurveyRuleOperator() : Operator.EQUALS;
+        if (Operator.SKIPS.equals(operator)) {
+            return answer == null;
+        }
+
+        Object matchingAnswer = rule.getMatchingAnswer();
+        if (answer == null || matchingAnswer == null) {
+            return false;
+        }
+
+        if (answer instanceof Number && matchingAnswer instanceof Number) {
+            double value = ((Number) answer).doubleValue();
+            double match = ((Number) matchingAnswer).doubleValue();
+            switch (operator) {
+                case Operator.EQUALS:
+                    return value == match;
+                case Operator.NOT_EQUALS:
+                    return value != match;
+                case Operator.LESS_THAN:
+                    return value < match;
+                case Operator.GREATER_THAN:
+                    return value > match;
+                case Operator.LESS_THAN_EQUALS:
+                    return value <= match;
+                case Operator.GREATER_THAN_EQUALS:
+                    return value >= match;
+                default:
+                    return false;
+            }
+        }
+
+        boolean isEqual = answer instanceof Collection ? ((Collection<?>) answer).contains(matchingAnswer)
+                : answer.equals(matchingAnswer);
+        switch (operator) {
+            case Operator.EQUALS:
+                return isEqual;
+            case Operator.NOT_EQUALS:
+                return !isEqual;
+            default:
+                return false;
+        }
+    }
+
+    private CompiledSurveyRules(@NonNull final ImmutableList<MatchingAnswerSurveyRule> rules) {
+        this.rules = rules;
+
+        Set<Double> thresholdSet = new TreeSet<>();
+        Set<Object> matchingAnswers = new LinkedHashSet<>();
+        for (MatchingAnswerSurveyRule rule : rules) {
+            Object matchingAnswer = rule.getMatchingAnswer();
+            if (matchingAnswer instanceof Number) {
+                // NaN never equals or compares to an answer, so it isn't a threshold.
+                double match = ((Number) matchingAnswer).doubleValue();
+                if (!Double.isNaN(match)) {
+                    thresholdSet.add(normalize(match));
+                }
+            } else if (matchingAnswer != null) {
+                matchingAnswers.add(matchingAnswer);
+            }
+        }
+
+        thresholds = new double[thresholdSet.size()];
+        int index = 0;
+        for (Double threshold : thresholdSet) {
+            thresholds[index++] = threshold;
+        }
+
+        numericOutcomes = new Outcome[2 * thresholds.length + 1];
+        for (int i = 0; i < thresholds.length; i++) {
+            // Any answer within a range has the same outcome, so the range is evaluated at its midpoint.
+            double between = i == 0 ? Double.NEGATIVE_INFINITY : thresholds[i - 1] / 2 + thresholds[i] / 2;
+            numericOutcomes[2 * i] = evaluate(rules, between);
+            numericOutcomes[2 * i + 1] = evaluate(rules, thresholds[i]);
+        }
+        numericOutcomes[2 * thresholds.length] = evaluate(rules, Double.POSITIVE_INFINITY);
+
+        ImmutableMap.Builder<Object, Outcome> equalityOutcomesBuilder = ImmutableMap.builder();
+        for (Object matchingAnswer : matchingAnswers) {
+            equalityOutcomesBuilder.put(matchingAnswer, evaluate(rules, matchingAnswer));
+        }
+        equalityOutcomes = equalityOutcomesBuilder.build();
+
+        missingAnswerOutcome = evaluate(rules, null);
+        nanOutcome = evaluate(rules, Double.NaN);
+        unmatchedOutcome = evaluate(rules, UNMATCHED_ANSWER);
+    }
+
+    @Nullable
+    @Override
+    public CohortResult evaluateCohorts(final Result result) {
+        Outcome outcome = getOutcome(result);
+        return outcome != null ? outcome.cohortResult : null;
+    }
+
+    @Nullable
+    @Override
+    public String evaluateRule(final Result result) {
+        Outcome outcome = getOutcome(result);
+        return outcome != null ? outcome.skipToIdentifier : null;
+    }
+
+    @NonNull
+    public ImmutableList<MatchingAnswerSurveyRule> getRules() {
+        return rules;
+    }
+
+    @Nullable
+    private Outcome getOutcome(@Nullable final Result result) {
+        if (!(result instanceof AnswerResult)) {
+            return null;
+        }
+
+        Object answer = ((AnswerResult<?>) result).getAnswer();
+        if (answer == null) {
+            return missingAnswerOutcome;
+        } else if (answer instanceof Number) {
+            double value = ((Number) answer).doubleValue();
+            if (Double.isNaN(value)) {
+                return nanOutcome;
+            }
+
+            int index = Arrays.binarySearch(thresholds, normalize(value));
+            return index >= 0 ? numericOutcomes[2 * index + 1] : numericOutcomes[2 * (-index - 1)];
+        } else if (answer instanceof Collection) {
+            return evaluate(rules, answer);
+        }
+
+        Outcome outcome = equalityOutcomes.get(answer);
+        return outcome != null ? outcome : unmatchedOutcome;
+    }
+
+    @NonNull
+    private static Outcome evaluate(@NonNull final List<MatchingAnswerSurveyRule> rules,
+            @Nullable final Object answer) {
+        String skipToIdentifier = null;
+        boolean hasCohort = false;
+        Set<String> add = new LinkedHashSet<>();
+        Set<String> remove = new LinkedHashSet<>();
+        for (MatchingAnswerSurveyRule rule : rules) {
+            boolean matches = matches(rule, answer);
+            if (matches && skipToIdentifier == null) {
+                skipToIdentifier = getSkipToIdentifier(rule);
+            }
+
+            String cohort = rule.getCohort();
+            if (cohort != null) {
+                hasCohort = true;
+                if (matches) {
+                    add.add(cohort);
+                } else {
+                    remove.add(cohort);
+                }
+            }
+        }
+
+        remove.removeAll(add);
+        CohortResult cohortResult = hasCohort ? new CohortResult(ImmutableSet.copyOf(add),
+                ImmutableSet.copyOf(remove)) : null;
+        return new Outcome(skipToIdentifier, cohortResult);
+    }
+
+    private static double normalize(final double value) {
+        // Arrays.binarySearch orders -0.0 before 0.0, but the operators treat them as equal.
+        return value + 0.0;
+    }
+
+    @Nullable
+    private static String getSkipToIdentifier(@NonNull final MatchingAnswerSurveyRule rule) {
+        if (rule.getSkipToIdentifier() != null) {
+            return rule.getSkipToIdentifier();
+        }
+
+        return rule.getCohort() == null ? EXIT_IDENTIFIER : null;
+    }
+}
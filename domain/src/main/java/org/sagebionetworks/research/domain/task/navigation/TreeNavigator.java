@@ -14,10 +14,11 @@ import org.sagebionetworks.research.domain.step.interfaces.Step;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 public class TreeNavigator implements StepNavigator {
 
@@ -110,25 +111,101 @@ public class TreeNavigator implements StepNavigator {
         }
 
         /**
-         * @return a flattened list of all nodes within the tree
+         * Adds this node and all of its descendants to the given list in pre-order, visiting children either first
+         * to last or last to first.
+         *
+         * @param nodeListByRef
+         *         The list to add the nodes to.
+         * @param reversed
+         *         True to visit children last to first, false to visit them first to last.
          */
-        @NonNull
-        private List<Node> findAllNodes() {
-            List<Node> leafNodes = new ArrayList<>();
-            findAllNodesRecursively(leafNodes);
-            return leafNodes;
+        private void addNodesInPreOrder(List<Node> nodeListByRef, boolean reversed) {
+            nodeListByRef.add(this);
+            if (children != null) {
+                List<Node> orderedChildren = reversed ? children.reverse() : children;
+                for (Node child : orderedChildren) {
+                    child.addNodesInPreOrder(nodeListByRef, reversed);
+                }
+            }
+        }
+    }
+
+    /**
+     * The nodes of the tree flattened in one traversal order, with the position of the next leaf after each node
+     * precomputed so the step after any step can be found without walking the tree.
+     */
+    private static final class TraversalIndex {
+        // The position of the first leaf, or steps.length if there is none.
+        private final int firstLeaf;
+
+        // The position of the first leaf after each position, or steps.length if there is none.
+        private final int[] nextLeaf;
+
+        // Positions of the nodes with each step identifier, in traversal order.
+        private final Map<String, int[]> positionsById;
+
+        private final Step[] steps;
+
+        private TraversalIndex(@NonNull List<Node> nodes) {
+            int size = nodes.size();
+            this.steps = new Step[size];
+            this.nextLeaf = new int[size];
+            this.positionsById = new HashMap<>();
+            int following = size;
+            for (int i = size - 1; i >= 0; i--) {
+                Node node = nodes.get(i);
+                nextLeaf[i] = following;
+                if (node.isLeaf()) {
+                    following = i;
+                }
+
+                steps[i] = node.step;
+            }
+
+            this.firstLeaf = following;
+            for (int i = 0; i < size; i++) {
+                String identifier = steps[i].getIdentifier();
+                int[] positions = positionsById.get(identifier);
+                if (positions == null) {
+                    positions = new int[]{i};
+                } else {
+                    positions = Arrays.copyOf(positions, positions.length + 1);
+                    positions[positions.length - 1] = i;
+                }
+
+                positionsById.put(identifier, positions);
+            }
         }
 
         /**
-         * @return recursively traverse nodes until we have all the nodes in thge list
+         * Returns the first leaf step after the first occurrence of the given step in this traversal.
+         *
+         * @param initialStep
+         *         The step to find the step after.
+         * @return The first leaf step after the given step, or null if there is none.
          */
-        private void findAllNodesRecursively(List<Node> nodeListByRef) {
-            nodeListByRef.add(this);
-            if (children != null) {
-                for (Node child : children) {
-                    child.findAllNodesRecursively(nodeListByRef);
+        @Nullable
+        private Step getLeafAfter(@NonNull Step initialStep) {
+            int[] positions = positionsById.get(initialStep.getIdentifier());
+            if (positions != null) {
+                for (int position : positions) {
+                    if (steps[position].equals(initialStep)) {
+                        return getLeafAt(nextLeaf[position]);
+                    }
                 }
             }
+
+            return null;
+        }
+
+        @Nullable
+        private Step getFirstLeaf() {
+            return getLeafAt(firstLeaf);
+        }
+
+        @Nullable
+        private Step getLeafAt(int position) {
+            return position < steps.length ? steps[position] : null;
         }
     }
 
@@ -152,6 +229,17 @@ public class TreeNavigator implements StepNavigator {
     @NonNull
     private final ImmutableMap<String, Step> stepsById;
 
+    // A map from the last part of a nested step's identifier to the step, see findStepNestedWithinSectionSteps.
+    @NonNull
+    private final Map<String, Step> nestedStepsById;
+
+    // The tree in pre-order, used to find the next step.
+    @NonNull
+    private final TraversalIndex nextStepIndex;
+
+    // The tree in pre-order with children visited last to first, used to find the previous step.
+    @NonNull
+    private final TraversalIndex previousStepIndex;
 
     /**
      * Constructs a TreeNavigator from the given list of steps, and the given progress markers
@@ -165,6 +253,22 @@ public class TreeNavigator implements StepNavigator {
         this.root = new Node(steps);
         this.progressMarkers = progressMarkers == null ? null : ImmutableList.copyOf(progressMarkers);
         this.stepsById = buildStepsByID(steps);
+
+        List<Node> nodes = new ArrayList<>();
+        List<Node> reversedNodes = new ArrayList<>();
+        if (root.children != null) {
+            for (Node child : root.children) {
+                child.addNodesInPreOrder(nodes, false);
+            }
+
+            for (Node child : root.children.reverse()) {
+                child.addNodesInPreOrder(reversedNodes, true);
+            }
+        }
+
+        this.nextStepIndex = new TraversalIndex(nodes);
+        this.previousStepIndex = new TraversalIndex(reversedNodes);
+        this.nestedStepsById = buildNestedStepsById(nodes);
     }
 
     @Nullable
@@ -175,24 +279,34 @@ public class TreeNavigator implements StepNavigator {
             // Due to the way that SectionStep's sub-step identifiers are created in ResourceTaskRepository.
             // There may be some step identifiers that are prefixed with their sub-step identifiers.
             // However, we can detect for that scenario with isNestedWithinSectionSteps function.
-            step = findStepNestedWithinSectionSteps(identifier);
+            step = nestedStepsById.get(identifier);
         }
         return step;
     }
 
     /**
-     * @param identifier to find at the end of the stepIdentifierPath
-     * @return true if we found the sub-step identifier at the end of the path,
-     *         and each part of the path is a section step containing the next part of the path.
+     * Maps the last part of the identifier of every nested step, for which each part of the path is a section step
+     * containing the next part of the path, to the first such step.
+     *
+     * @param nodes
+     *         Every node of the tree in pre-order.
+     * @return the map from the sub-step identifier at the end of the path to the step.
      */
-    @Nullable
-    private Step findStepNestedWithinSectionSteps(@NonNull String identifier) {
-        for (Node node: root.findAllNodes()) {
-            if (isValidNestedStep(node, identifier)) {
-                return node.step;
+    @NonNull
+    private Map<String, Step> buildNestedStepsById(@NonNull List<Node> nodes) {
+        Map<String, Step> nestedSteps = new HashMap<>();
+        for (Node node : nodes) {
+            String[] stepIdentifierPath = node.step.getIdentifier().split(SECTION_STEP_PREFIX_SEPARATOR);
+            if (stepIdentifierPath.length == 0) {
+                continue;
+            }
+
+            String identifier = stepIdentifierPath[stepIdentifierPath.length - 1];
+            if (!nestedSteps.containsKey(identifier) && isValidNestedStep(node, identifier)) {
+                nestedSteps.put(identifier, node.step);
             }
         }
-        return null;
+        return nestedSteps;
     }
 
     /**
@@ -261,14 +375,14 @@ public class TreeNavigator implements StepNavigator {
     @NonNull
     @Override
     public StepAndNavDirection getNextStep(@Nullable Step step, @NonNull TaskResult taskResult) {
-        Step nextStep = nextStepHelper(step, this.root, new AtomicBoolean(false));
+        Step nextStep = step == null ? nextStepIndex.getFirstLeaf() : nextStepIndex.getLeafAfter(step);
         return new StepAndNavDirection(nextStep, NavDirection.SHIFT_LEFT);
     }
 
     @Nullable
     @Override
     public Step getPreviousStep(@NonNull Step step, @NonNull TaskResult taskResult) {
-        return previousStepHelper(step, this.root, new AtomicBoolean(false));
+        return previousStepIndex.getLeafAfter(step);
     }
 
     @Nullable
@@ -391,88 +505,4 @@ public class TreeNavigator implements StepNavigator {
 
         return builder.build();
     }
-
-    /**
-     * Returns the first leaf step that appears after the given initialStep, in this TreeNavigator. After is defined
-     * as the next leaf in a pre-order traversal of the tree.
-     *
-     * @param initialStep
-     *         The step to find the step after.
-     * @param current
-     *         The step that is being evaluated by this call to nextStepHelper().
-     * @param hasFoundInitial
-     *         True if the initialStep has already been encountered by a parent recursive call of this call to
-     *         nextStepHelper(), false otherwise.
-     * @return The first leaf step that appears after the given initialStep, or null if no such step exists.
-     */
-    @Nullable
-    private static Step nextStepHelper(@Nullable Step initialStep, @Nullable Node current,
-            AtomicBoolean hasFoundInitial) {
-        if (current == null) {
-            return null;
-        }
-
-        if (current.step != null) {
-            if ((initialStep == null || hasFoundInitial.get()) && current.isLeaf()) {
-                return current.step;
-            }
-
-            if (current.step.equals(initialStep)) {
-                hasFoundInitial.set(true);
-            }
-        }
-
-        if (current.children != null) {
-            for (Node child : current.children) {
-                Step found = nextStepHelper(initialStep, child, hasFoundInitial);
-                if (found != null) {
-                    return found;
-                }
-            }
-        }
-
-        return null;
-    }
-
-    /**
-     * Returns the first leaf step that appears before the given initialStep, in this TreeNavigator. Before is defined
-     * as the next leaf in a reverse pre-order traversal of the tree.
-     *
-     * @param initialStep
-     *         The step to find the step before.
-     * @param current
-     *         The step that is being evaluated by this call to previousStepHelper().
-     * @param hasFoundInitial
-     *         True if the initialStep has already been encountered by a parent recursive call of this call to
-     *         previousStepHelper(), false otherwise.
-     * @return The first leaf step that appears before the given initialStep, or null if no such step exists.
-     */
-    @Nullable
-    private static Step previousStepHelper(@Nullable Step initialStep, @Nullable Node current,
-            AtomicBoolean hasFoundInitial) {
-        if (current == null) {
-            return null;
-        }
-
-        if (current.step != null) {
-            if (hasFoundInitial.get() && current.isLeaf()) {
-                return current.step;
-            }
-
-            if (current.step.equals(initialStep)) {
-                hasFoundInitial.set(true);
-            }
-        }
-
-        if (current.children != null) {
-            for (Node child : current.children.reverse()) {
-                Step found = previousStepHelper(initialStep, child, hasFoundInitial);
-                if (found != null) {
-                    return found;
-                }
-            }
-        }
-
-        return null;
-    }
 }
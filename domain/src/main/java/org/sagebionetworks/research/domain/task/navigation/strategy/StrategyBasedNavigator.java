@@ -50,11 +50,19 @@ import org.sagebionetworks.research.domain.task.navigation.TreeNavigator;
 import org.sagebionetworks.research.domain.task.navigation.strategy.StepNavigationStrategy.BackStepStrategy;
 import org.sagebionetworks.research.domain.task.navigation.strategy.StepNavigationStrategy.NextStepStrategy;
 import org.sagebionetworks.research.domain.task.navigation.strategy.StepNavigationStrategy.SkipStepStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class StrategyBasedNavigator implements StepNavigator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StrategyBasedNavigator.class);
+
     public static class Factory implements StepNavigatorFactory {
         @Override
         public StepNavigator create(final Task task, final List<String> progressMarkers) {
@@ -69,6 +77,15 @@ public class StrategyBasedNavigator implements StepNavigator {
     @NonNull
     private final Task task;
 
+    // Next and previous steps memoized by current step for the most recent task result. Task results are immutable,
+    // so a new task result instance is a new version and clears both maps.
+    @Nullable
+    private TaskResult memoizedTaskResult;
+
+    private final Map<Step, StepAndNavDirection> nextStepMemo = new IdentityHashMap<>();
+
+    private final Map<Step, Step> previousStepMemo = new IdentityHashMap<>();
+
     /**
      * Constructs a new StrategyBasedNavigator from the given list of steps, and the given list of progress markers.
      *
@@ -105,8 +122,26 @@ public class StrategyBasedNavigator implements StepNavigator {
     }
 
     @Override
-    public @NonNull StepAndNavDirection getNextStep(final Step step, @NonNull TaskResult taskResult) {
-        return _nextStep(step, step, false, taskResult);
+    public synchronized @NonNull StepAndNavDirection getNextStep(final Step step, @NonNull TaskResult taskResult) {
+        checkMemoizedTaskResult(taskResult);
+        StepAndNavDirection nextStepAndDirection = nextStepMemo.get(step);
+        if (nextStepAndDirection == null) {
+            nextStepAndDirection = _nextStep(step, step, false, taskResult);
+            nextStepMemo.put(step, nextStepAndDirection);
+        }
+
+        return nextStepAndDirection;
+    }
+
+    /**
+     * Clears the memoized next and previous steps. Task results are immutable, so passing a different task result
+     * already invalidates them; this only needs to be called when a navigation strategy depends on state outside of
+     * the task result.
+     */
+    public synchronized void invalidate() {
+        memoizedTaskResult = null;
+        nextStepMemo.clear();
+        previousStepMemo.clear();
     }
 
     /**
@@ -116,34 +151,45 @@ public class StrategyBasedNavigator implements StepNavigator {
      * @param originalStep that the user is moving away from
      * @return The step and the navigation direction to that step
      */
-    protected @NonNull StepAndNavDirection _nextStep(final Step step,
+    protected @NonNull StepAndNavDirection _nextStep(Step step,
             final Step originalStep, @NonNull Boolean hasSkipToStrategyBeenUsed,
             @NonNull TaskResult taskResult) {
-        Step nextStep = null;
+        // The skipped steps seen so far. If the navigation rules lead back to one of them the rules are ignored for
+        // the rest of the chain, and the tree order, which always moves forward, is used instead.
+        Set<Step> skippedSteps = Collections.newSetFromMap(new IdentityHashMap<>());
+        boolean followRules = true;
+        while (true) {
+            Step nextStep = null;
 
-        // First we try to get the next step from the result by casting it to a NavigationResult
-        String skipToIdentifier = getSkipToIdentifierFromNavigationResult(step, taskResult);
-        if (skipToIdentifier != null) {
-            hasSkipToStrategyBeenUsed = true;
-            nextStep = treeNavigator.getStep(skipToIdentifier);
-        }
+            if (followRules) {
+                // First we try to get the next step from the result by casting it to a NavigationResult
+                String skipToIdentifier = getSkipToIdentifierFromNavigationResult(step, taskResult);
+                if (skipToIdentifier != null) {
+                    hasSkipToStrategyBeenUsed = true;
+                    nextStep = treeNavigator.getStep(skipToIdentifier);
+                }
+
+                // If we don't get a valid step from casting the result to a NavigationResult,
+                // let's try to get the next step from the step by casting it to a NextStepStrategy.
+                if (nextStep == null && step instanceof NextStepStrategy) {
+                    String nextStepId = ((NextStepStrategy) step).getNextStepIdentifier(taskResult);
+                    if (nextStepId != null) {
+                        nextStep = this.getStep(nextStepId);
+                    }
+                }
+            }
 
-        // If we don't get a valid step from casting the result to a NavigationResult,
-        // let's try to get the next step from the step by casting it to a NextStepStrategy.
-        if (nextStep == null && step instanceof NextStepStrategy) {
-            String nextStepId = ((NextStepStrategy)step).getNextStepIdentifier(taskResult);
-            if (nextStepId != null) {
-                nextStep = this.getStep(nextStepId);
+            // If we didn't get a valid step from the previous checks, we default to using the tree navigator to
+            // get the next step.
+            if (nextStep == null) {
+                nextStep = treeNavigator.getNextStep(step, taskResult).getStep();
             }
-        }
 
-        // If we didn't get a valid step from the previous checks, we default to using the tree navigator to
-        // get the next step.
-        if (nextStep == null) {
-            nextStep = treeNavigator.getNextStep(step, taskResult).getStep();
-        }
+            if (nextStep == null) {
+                // If the tree navigator returns null we also return null.
+                return new StepAndNavDirection(null, NavDirection.SHIFT_LEFT);
+            }
 
-        if (nextStep != null) {
             nextStep = StrategyBasedNavigator.resolveSection(nextStep);
 
             // As long as the next step we have found shouldn't be skipped we return it.
@@ -157,20 +203,40 @@ public class StrategyBasedNavigator implements StepNavigator {
                 return new StepAndNavDirection(nextStep, navDirection);
             }
 
-            // If we should skip the next step we found, we recurse on the next step to get the one after that.
-            return _nextStep(nextStep, originalStep, hasSkipToStrategyBeenUsed, taskResult);
+            // If we should skip the next step we found, we move on to the one after that.
+            if (followRules && !skippedSteps.add(nextStep)) {
+                LOGGER.warn("Navigation rules loop through skipped step {}, continuing in task order",
+                        nextStep.getIdentifier());
+                followRules = false;
+            }
+            step = nextStep;
         }
-
-        // If the tree navigator returns null we also return null.
-        return new StepAndNavDirection(null, NavDirection.SHIFT_LEFT);
     }
 
     @Override
-    public Step getPreviousStep(@NonNull final Step step, @NonNull TaskResult taskResult) {
+    public synchronized Step getPreviousStep(@NonNull final Step step, @NonNull TaskResult taskResult) {
+        checkMemoizedTaskResult(taskResult);
+        if (previousStepMemo.containsKey(step)) {
+            return previousStepMemo.get(step);
+        }
+
         Step result = this.getPreviousStepHelper(step, taskResult);
         // In the event that the helper returns a SectionStep we traverse through the section's children to get a
         // non-section step.
-        return StrategyBasedNavigator.resolveSection(result);
+        result = StrategyBasedNavigator.resolveSection(result);
+        previousStepMemo.put(step, result);
+        return result;
+    }
+
+    /**
+     * Drops the memoized next and previous steps if they were computed for a different task result.
+     */
+    private void checkMemoizedTaskResult(@NonNull TaskResult taskResult) {
+        if (taskResult != memoizedTaskResult) {
+            nextStepMemo.clear();
+            previousStepMemo.clear();
+            memoizedTaskResult = taskResult;
+        }
     }
 
     private Step getPreviousStepHelper(@NonNull final Step step, @NonNull TaskResult taskResult) {
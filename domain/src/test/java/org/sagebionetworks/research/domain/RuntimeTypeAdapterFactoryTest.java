@@ -0,0 +1,129 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+public class RuntimeTypeAdapterFactoryTest {
+    private static abstract class Shape {
+        String type;
+
+        Integer x;
+
+        Boolean filled;
+
+        String note;
+
+        Map<String, Integer> tags;
+    }
+
+    private static class Circle extends Shape {
+        double radius;
+    }
+
+    private static class Rectangle extends Shape {
+        long width;
+
+        long height;
+    }
+
+    private static class Drawing {
+        String identifier;
+
+        List<Shape> shapes;
+    }
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapterFactory(RuntimeTypeAdapterFactory.of(Shape.class, "type")
+                    .registerSubtype(Circle.class, "circle")
+                    .registerSubtype(Rectangle.class, "rectangle"))
+            .serializeNulls()
+            .create();
+
+    @Test
+    public void testRead_typeFirst() {
+        Shape shape = assertSameAsTree("{\"type\": \"circle\", \"radius\": 2.5, \"tags\": {\"a\": 1}}", Shape.class);
+        assertTrue(shape instanceof Circle);
+        assertEquals(2.5, ((Circle) shape).radius, 0);
+    }
+
+    @Test
+    public void testRead_typeAfterScalars() {
+        Shape shape = assertSameAsTree("{\"x\": 3, \"filled\": true, \"note\": null, \"width\": \"4\", "
+                + "\"type\": \"rectangle\", \"height\": 5, \"tags\": {\"b\": 2}}", Shape.class);
+        assertTrue(shape instanceof Rectangle);
+        assertEquals(Integer.valueOf(3), shape.x);
+        assertEquals(4, ((Rectangle) shape).width);
+    }
+
+    @Test
+    public void testRead_typeAfterNestedObject() {
+        Shape shape = assertSameAsTree("{\"tags\": {\"c\": 3}, \"type\": \"circle\", \"radius\": 1}", Shape.class);
+        assertTrue(shape instanceof Circle);
+        assertEquals(Integer.valueOf(3), shape.tags.get("c"));
+    }
+
+    @Test
+    public void testRead_nestedList() {
+        Drawing drawing = assertSameAsTree("{\"identifier\": \"drawing\", \"shapes\": ["
+                + "{\"type\": \"circle\", \"radius\": 1}, null, "
+                + "{\"x\": 1, \"type\": \"rectangle\", \"width\": 2, \"height\": 3}, "
+                + "{\"tags\": {}, \"type\": \"circle\", \"radius\": 4}]}", Drawing.class);
+        assertEquals(4, drawing.shapes.size());
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testRead_missingType() {
+        gson.fromJson(new PeekingJsonReader(new StringReader("{\"x\": 1, \"radius\": 2}")), Shape.class);
+    }
+
+    private <T> T assertSameAsTree(String json, Class<T> klass) {
+        T fromTree = gson.fromJson(new JsonReader(new StringReader(json)), klass);
+        T fromStream = gson.fromJson(new PeekingJsonReader(new StringReader(json)), klass);
+        assertEquals(gson.toJson(fromTree), gson.toJson(fromStream));
+        return fromStream;
+    }
+}
@@ -8,6 +8,8 @@ import static junit.framework.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.withSettings;
 
@@ -277,6 +279,65 @@ public class StrategyBasedNavigatorTest extends IndividualNavigatorTest {
         assertEquals("step5.Y", nextStep.getIdentifier());
     }
 
+    @Test
+    public void testSkip_cycle_continuesInTaskOrder() {
+        // stepA and stepB are both skipped and their next rules point at each other.
+        List<Step> steps = Arrays.asList(mockStep("start"), mockTestStep("stepA", true, "stepB", true),
+                mockTestStep("stepB", true, "stepA", true), mockStep("end"));
+        StrategyBasedNavigator navigator = new StrategyBasedNavigator(mockTask(steps, null), null);
+        List<Result> stepHistory = new ArrayList<>();
+        stepHistory.add(mockResult(SKIP_RESULT_IDENTIFIER));
+        stepHistory.add(mockResult(steps.get(0)));
+        TaskResult taskResult = mockTaskResultFromResults("task", stepHistory);
+
+        Step nextStep = navigator.getNextStep(steps.get(0), taskResult).getStep();
+        assertNotNull(nextStep);
+        assertEquals("end", nextStep.getIdentifier());
+    }
+
+    @Test
+    public void testSkip_longChain() {
+        List<Step> steps = new ArrayList<>();
+        steps.add(mockStep("start"));
+        for (int i = 0; i < 10000; i++) {
+            steps.add(mockTestStep("skipped" + i, true, null, true));
+        }
+        steps.add(mockStep("end"));
+        StrategyBasedNavigator navigator = new StrategyBasedNavigator(mockTask(steps, null), null);
+        List<Result> stepHistory = new ArrayList<>();
+        stepHistory.add(mockResult(SKIP_RESULT_IDENTIFIER));
+        stepHistory.add(mockResult(steps.get(0)));
+        TaskResult taskResult = mockTaskResultFromResults("task", stepHistory);
+
+        Step nextStep = navigator.getNextStep(steps.get(0), taskResult).getStep();
+        assertNotNull(nextStep);
+        assertEquals("end", nextStep.getIdentifier());
+    }
+
+    @Test
+    public void testNext_memoizedPerTaskResult() {
+        Step skippedStep = mockTestStep("skipped", true, null, true);
+        List<Step> steps = Arrays.asList(mockStep("start"), skippedStep, mockStep("end"));
+        StrategyBasedNavigator navigator = new StrategyBasedNavigator(mockTask(steps, null), null);
+        List<Result> stepHistory = new ArrayList<>();
+        stepHistory.add(mockResult(SKIP_RESULT_IDENTIFIER));
+        stepHistory.add(mockResult(steps.get(0)));
+        TaskResult taskResult = mockTaskResultFromResults("task", stepHistory);
+
+        assertEquals("end", navigator.getNextStep(steps.get(0), taskResult).getStep().getIdentifier());
+        assertEquals("end", navigator.getNextStep(steps.get(0), taskResult).getStep().getIdentifier());
+        verify((SkipStepStrategy) skippedStep, times(1)).shouldSkip(taskResult);
+
+        navigator.invalidate();
+        assertEquals("end", navigator.getNextStep(steps.get(0), taskResult).getStep().getIdentifier());
+        verify((SkipStepStrategy) skippedStep, times(2)).shouldSkip(taskResult);
+
+        TaskResult updatedTaskResult = mockTaskResult("task", steps.subList(0, 1));
+        Step nextStep = navigator.getNextStep(steps.get(0), updatedTaskResult).getStep();
+        assertNotNull(nextStep);
+        assertEquals("skipped", nextStep.getIdentifier());
+    }
+
     private TaskResult mockSectionResult(Step step, int from, int to) {
         SectionStep sectionStep = (SectionStep) step;
         return mockTaskResult(sectionStep.getIdentifier(), sectionStep.getSteps().subList(from, to));
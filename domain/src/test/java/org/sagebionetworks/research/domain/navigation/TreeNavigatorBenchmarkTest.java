@@ -0,0 +1,156 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.domain.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import static org.sagebionetworks.research.domain.task.navigation.TreeNavigator.SECTION_STEP_PREFIX_SEPARATOR;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.sagebionetworks.research.domain.result.implementations.TaskResultBase;
+import org.sagebionetworks.research.domain.result.interfaces.TaskResult;
+import org.sagebionetworks.research.domain.step.implementations.SectionStepBase;
+import org.sagebionetworks.research.domain.step.implementations.UIStepBase;
+import org.sagebionetworks.research.domain.step.interfaces.Step;
+import org.sagebionetworks.research.domain.task.navigation.TreeNavigator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Measures the cost of walking forward and back through a generated task of 5,000 steps nested two sections deep,
+ * with identifiers prefixed by their sections the way ResourceTaskRepository names them.
+ * <p>
+ * This is a benchmark rather than a test, so it is ignored and only logs its measurements. Remove the Ignore
+ * annotation to run it. TreeNavigatorTest checks walking through nested sections.
+ */
+public class TreeNavigatorBenchmarkTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TreeNavigatorBenchmarkTest.class);
+
+    private static final int SECTIONS = 50;
+
+    private static final int SUBSECTIONS = 10;
+
+    private static final int STEPS_PER_SUBSECTION = 10;
+
+    private static final int LEAF_STEPS = SECTIONS * SUBSECTIONS * STEPS_PER_SUBSECTION;
+
+    private static final int WARM_UP_ITERATIONS = 5;
+
+    private static final int MEASURED_ITERATIONS = 10;
+
+    private final TaskResult taskResult = new TaskResultBase("benchmark", UUID.randomUUID());
+
+    @Test
+    @Ignore("benchmark, run manually")
+    public void benchmarkNavigation() {
+        List<Step> leaves = new ArrayList<>();
+        List<Step> steps = createSteps(leaves);
+
+        long constructionStart = System.nanoTime();
+        TreeNavigator navigator = new TreeNavigator(steps, null);
+        long constructionNanos = System.nanoTime() - constructionStart;
+
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            walkForward(navigator, leaves);
+            walkBack(navigator, leaves);
+        }
+
+        long forwardNanos = 0;
+        long backNanos = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            walkForward(navigator, leaves);
+            forwardNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            walkBack(navigator, leaves);
+            backNanos += System.nanoTime() - start;
+        }
+
+        long operations = (long) MEASURED_ITERATIONS * LEAF_STEPS;
+        LOGGER.info("{} steps: construction {} ms, getNextStep {} ns/op, getPreviousStep {} ns/op", LEAF_STEPS,
+                constructionNanos / 1_000_000, forwardNanos / operations, backNanos / operations);
+    }
+
+    private void walkForward(TreeNavigator navigator, List<Step> leaves) {
+        Step step = null;
+        for (Step expected : leaves) {
+            step = navigator.getNextStep(step, taskResult).getStep();
+            assertSame(expected, step);
+        }
+
+        assertNull(navigator.getNextStep(step, taskResult).getStep());
+    }
+
+    private void walkBack(TreeNavigator navigator, List<Step> leaves) {
+        Step step = leaves.get(leaves.size() - 1);
+        for (int i = leaves.size() - 2; i >= 0; i--) {
+            step = navigator.getPreviousStep(step, taskResult);
+            assertSame(leaves.get(i), step);
+        }
+
+        assertNull(navigator.getPreviousStep(step, taskResult));
+    }
+
+    private static List<Step> createSteps(List<Step> leavesByRef) {
+        List<Step> sections = new ArrayList<>();
+        for (int section = 0; section < SECTIONS; section++) {
+            String sectionId = "section" + section;
+            List<Step> subsections = new ArrayList<>();
+            for (int subsection = 0; subsection < SUBSECTIONS; subsection++) {
+                String subsectionId = sectionId + SECTION_STEP_PREFIX_SEPARATOR + "subsection" + subsection;
+                List<Step> steps = new ArrayList<>();
+                for (int step = 0; step < STEPS_PER_SUBSECTION; step++) {
+                    Step leaf = new UIStepBase(subsectionId + SECTION_STEP_PREFIX_SEPARATOR + "step" + step,
+                            Collections.emptySet(), null, null, null, null, null, null, null, null);
+                    steps.add(leaf);
+                    leavesByRef.add(leaf);
+                }
+
+                subsections.add(new SectionStepBase(subsectionId, Collections.emptySet(), steps));
+            }
+
+            sections.add(new SectionStepBase(sectionId, Collections.emptySet(), subsections));
+        }
+
+        assertEquals(LEAF_STEPS, leavesByRef.size());
+        return sections;
+    }
+}
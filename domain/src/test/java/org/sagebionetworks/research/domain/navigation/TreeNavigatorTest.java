@@ -2,6 +2,7 @@ package org.sagebionetworks.research.domain.navigation;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
 
 import static org.junit.Assert.assertNull;
@@ -133,5 +134,36 @@ public class TreeNavigatorTest extends IndividualNavigatorTest {
         assertNotNull(step_2_3_e);
         assertEquals("2_3_e", step_2_3_e.getIdentifier());
     }
-}
 
+    @Test
+    public void testNavigation_TwoSectionsDeep() {
+        List<Step> steps1_3 = createSteps(new String[]{"1_3_a", "1_3_b"});
+        List<Step> steps2_4 = createSteps(new String[]{"2_4_a", "2_4_b"});
+        Step step1_d = mockStep("1_d");
+        Step step2_d = mockStep("2_d");
+        Step step5 = mockStep("5");
+
+        List<Step> steps = Arrays.asList(
+                mockSectionStep("1", Arrays.asList(mockSectionStep("1_3", steps1_3), step1_d)),
+                mockSectionStep("2", Arrays.asList(mockSectionStep("2_4", steps2_4), step2_d)),
+                step5);
+        List<Step> leaves = Arrays.asList(steps1_3.get(0), steps1_3.get(1), step1_d, steps2_4.get(0),
+                steps2_4.get(1), step2_d, step5);
+
+        TreeNavigator navigator = new TreeNavigator(steps, null);
+        TaskResult taskResult = mockTaskResult("task", null);
+
+        Step step = null;
+        for (Step expected : leaves) {
+            step = navigator.getNextStep(step, taskResult).getStep();
+            assertSame(expected, step);
+        }
+        assertNull(navigator.getNextStep(step, taskResult).getStep());
+
+        for (int i = leaves.size() - 2; i >= 0; i--) {
+            step = navigator.getPreviousStep(step, taskResult);
+            assertSame(leaves.get(i), step);
+        }
+        assertNull(navigator.getPreviousStep(step, taskResult));
+    }
+}
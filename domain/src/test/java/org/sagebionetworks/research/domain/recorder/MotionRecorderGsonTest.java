@@ -43,6 +43,9 @@ import org.junit.Test;
 import org.sagebionetworks.research.domain.JsonAssetUtil;
 import org.sagebionetworks.research.domain.async.AsyncActionConfiguration;
 import org.sagebionetworks.research.domain.async.DeviceMotionRecorderConfiguration;
+import org.sagebionetworks.research.domain.async.MotionRecorderOutputFormat;
+import org.sagebionetworks.research.domain.async.RecorderCompression;
+import org.sagebionetworks.research.domain.async.SensorOverflowPolicy;
 
 public class MotionRecorderGsonTest {
     private static Gson GSON = DaggerRecorderTestComponent.builder().build().gson();
@@ -63,6 +66,18 @@ public class MotionRecorderGsonTest {
                 + "stopStepIdentifier", "stopStepIdentifier", dmrConfiguration.getStopStepIdentifier());
         assertEquals(ImmutableSet.of("gravity", "gyro"), dmrConfiguration.getRecorderTypes());
         assertNull("Frequency " + dmrConfiguration.getFrequency() + "is non null", dmrConfiguration.getFrequency());
+        assertNull("OutputFormat " + dmrConfiguration.getOutputFormat() + " is non null",
+                dmrConfiguration.getOutputFormat());
+        assertNull("Compression " + dmrConfiguration.getCompression() + " is non null",
+                dmrConfiguration.getCompression());
+        assertNull("MaxReportLatency " + dmrConfiguration.getMaxReportLatency() + " is non null",
+                dmrConfiguration.getMaxReportLatency());
+        assertNull("FlushOnStop " + dmrConfiguration.getFlushOnStop() + " is non null",
+                dmrConfiguration.getFlushOnStop());
+        assertNull("BufferCapacity " + dmrConfiguration.getBufferCapacity() + " is non null",
+                dmrConfiguration.getBufferCapacity());
+        assertNull("OverflowPolicy " + dmrConfiguration.getOverflowPolicy() + " is non null",
+                dmrConfiguration.getOverflowPolicy());
     }
 
     @Test
@@ -82,5 +97,11 @@ public class MotionRecorderGsonTest {
         assertEquals(ImmutableSet.of("gravity", "gyro"), dmrConfiguration.getRecorderTypes());
         assertEquals("Frequency " + dmrConfiguration.getFrequency() + "is not equal to expect frequency 3.0",
                 Double.valueOf(3.0), dmrConfiguration.getFrequency());
+        assertEquals(MotionRecorderOutputFormat.COLUMNAR, dmrConfiguration.getOutputFormat());
+        assertEquals(RecorderCompression.GZIP, dmrConfiguration.getCompression());
+        assertEquals(Double.valueOf(0.5), dmrConfiguration.getMaxReportLatency());
+        assertEquals(Boolean.FALSE, dmrConfiguration.getFlushOnStop());
+        assertEquals(Integer.valueOf(8192), dmrConfiguration.getBufferCapacity());
+        assertEquals(SensorOverflowPolicy.ERROR, dmrConfiguration.getOverflowPolicy());
     }
 }
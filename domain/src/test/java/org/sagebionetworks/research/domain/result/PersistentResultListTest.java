@@ -0,0 +1,152 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.domain.result;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Test;
+import org.sagebionetworks.research.domain.result.data.PersistentResultList;
+import org.sagebionetworks.research.domain.result.implementations.ResultBase;
+import org.sagebionetworks.research.domain.result.interfaces.Result;
+import org.threeten.bp.Instant;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+public class PersistentResultListTest {
+    private static final Instant TIME = Instant.ofEpochMilli(1_500_000_000_000L);
+
+    @Test
+    public void testReplaceAndAppend() {
+        PersistentResultList list = PersistentResultList.empty()
+                .replaceAndAppend(result("a", 0))
+                .replaceAndAppend(result("b", 0))
+                .replaceAndAppend(result("c", 0));
+
+        PersistentResultList replaced = list.replaceAndAppend(result("a", 1));
+
+        assertEquals(ImmutableList.of(result("a", 0), result("b", 0), result("c", 0)), list);
+        assertEquals(ImmutableList.of(result("b", 0), result("c", 0), result("a", 1)), replaced);
+        assertEquals(result("a", 1), replaced.getResult("a"));
+        assertNull(replaced.getResult("d"));
+    }
+
+    @Test
+    public void testTruncateAt() {
+        PersistentResultList list = PersistentResultList.empty()
+                .replaceAndAppend(result("a", 0))
+                .replaceAndAppend(result("b", 0))
+                .replaceAndAppend(result("c", 0));
+
+        assertEquals(ImmutableList.of(result("a", 0)), list.truncateAt("b"));
+        assertSame(list, list.truncateAt("d"));
+        assertEquals(3, list.size());
+        assertNull(list.truncateAt("b").getResult("c"));
+    }
+
+    @Test
+    public void testCopyOf_KeepsDuplicates() {
+        List<Result> results = ImmutableList.of(result("a", 0), result("b", 0), result("a", 1));
+
+        PersistentResultList copy = PersistentResultList.copyOf(results);
+
+        assertEquals(results, copy);
+        assertEquals(results.hashCode(), copy.hashCode());
+        assertEquals(result("a", 0), copy.getResult("a"));
+        assertEquals(ImmutableList.of(result("b", 0), result("c", 0)),
+                copy.replaceAndAppend(result("c", 0)).replaceAndAppend(result("b", 0)).truncateAt("a")
+                        .replaceAndAppend(result("b", 0)).replaceAndAppend(result("c", 0)));
+        assertSame(copy, PersistentResultList.copyOf(copy));
+    }
+
+    @Test
+    public void testIndexOf() {
+        PersistentResultList list = PersistentResultList.copyOf(
+                ImmutableList.of(result("a", 0), result("b", 0), result("a", 1), result("c", 0)));
+
+        assertEquals(0, list.indexOf(result("a", 0)));
+        assertEquals(2, list.indexOf(result("a", 1)));
+        assertEquals(3, list.indexOf(result("c", 0)));
+        assertEquals(-1, list.indexOf(result("c", 1)));
+        assertEquals(-1, list.indexOf(null));
+        assertEquals(-1, list.indexOf("a"));
+    }
+
+    @Test
+    public void testMatchesArrayList_RandomOperations() {
+        Random random = new Random(42);
+        PersistentResultList list = PersistentResultList.empty();
+        List<Result> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String identifier = "step" + random.nextInt(200);
+            if (random.nextInt(10) == 0) {
+                list = list.truncateAt(identifier);
+                for (int j = 0; j < expected.size(); j++) {
+                    if (expected.get(j).getIdentifier().equals(identifier)) {
+                        expected = new ArrayList<>(expected.subList(0, j));
+                        break;
+                    }
+                }
+            } else {
+                Result result = result(identifier, i);
+                list = list.replaceAndAppend(result);
+                Iterator<Result> iterator = expected.iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next().getIdentifier().equals(identifier)) {
+                        iterator.remove();
+                    }
+                }
+                expected.add(result);
+            }
+
+            assertEquals(expected.size(), list.size());
+        }
+
+        assertEquals(expected, list);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), list.get(i));
+            assertEquals(expected.get(i), list.getResult(expected.get(i).getIdentifier()));
+            assertEquals(i, list.indexOf(expected.get(i)));
+        }
+    }
+
+    private static Result result(String identifier, int seconds) {
+        return new ResultBase(identifier, TIME.plusSeconds(seconds), TIME.plusSeconds(seconds));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.domain.result;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Test;
+import org.sagebionetworks.research.domain.result.implementations.ResultBase;
+import org.sagebionetworks.research.domain.result.implementations.TaskResultBase;
+import org.sagebionetworks.research.domain.result.interfaces.Result;
+import org.sagebionetworks.research.domain.result.interfaces.TaskResult;
+import org.threeten.bp.Instant;
+
+import java.util.UUID;
+
+public class TaskResultBaseTest {
+    private static final Instant TIME = Instant.ofEpochMilli(1_500_000_000_000L);
+
+    private final TaskResult taskResult = new TaskResultBase("task", TIME, UUID.randomUUID());
+
+    @Test
+    public void testUpsertAsyncResult_laterStartReplaces() {
+        Result first = result("recorder", 0);
+        Result other = result("other", 0);
+        Result restarted = result("recorder", 10);
+
+        TaskResult upserted = taskResult.upsertAsyncResult(first)
+                .upsertAsyncResult(other)
+                .upsertAsyncResult(restarted);
+
+        assertEquals(ImmutableList.of(other, restarted), upserted.getAsyncResults());
+    }
+
+    @Test
+    public void testUpsertAsyncResult_earlierOrSameStartIgnored() {
+        Result result = result("recorder", 10);
+        TaskResult upserted = taskResult.upsertAsyncResult(result);
+
+        assertSame(upserted, upserted.upsertAsyncResult(result("recorder", 5)));
+        assertSame(upserted, upserted.upsertAsyncResult(result("recorder", 10)));
+        assertEquals(ImmutableList.of(result), upserted.getAsyncResults());
+    }
+
+    @Test
+    public void testUpsertAsyncResult_manyRecorders() {
+        TaskResult upserted = taskResult;
+        for (int restart = 0; restart < 10; restart++) {
+            for (int recorder = 0; recorder < 100; recorder++) {
+                upserted = upserted.upsertAsyncResult(result("recorder" + recorder, restart));
+            }
+        }
+
+        assertEquals(100, upserted.getAsyncResults().size());
+        for (Result result : upserted.getAsyncResults()) {
+            assertEquals(TIME.plusSeconds(9), result.getStartTime());
+        }
+    }
+
+    private static Result result(String identifier, long startSeconds) {
+        Instant startTime = TIME.plusSeconds(startSeconds);
+        return new ResultBase(identifier, startTime, startTime);
+    }
+}
@@ -32,6 +32,8 @@
 
 package org.sagebionetworks.research.domain.result.gson;
 
+import com.google.common.collect.ImmutableMap;
+
 import org.junit.Test;
 import org.sagebionetworks.research.domain.result.implementations.FileResultBase;
 import org.sagebionetworks.research.domain.result.interfaces.Result;
@@ -41,6 +43,14 @@ public class FileResultGsonTest extends IndividualResultGsonTest {
     private static final Result FULL = new FileResultBase("fileResult", Instant.ofEpochSecond(20),
             Instant.ofEpochSecond(30), "text", "C:/Test/Folder/");
 
+    private static final Result COMPRESSED = new FileResultBase("fileResult", Instant.ofEpochSecond(20),
+            Instant.ofEpochSecond(30), "application/json", "C:/Test/Folder/motion.json.gz", "gzip");
+
+    private static final Result METADATA = new FileResultBase("motion", Instant.ofEpochSecond(20),
+            Instant.ofEpochSecond(30), "application/json", "C:/Test/Folder/motion.json", null,
+            ImmutableMap.of("acceleration.dropped", "0", "acceleration.received", "1000",
+                    "acceleration.written", "1000"));
+
     @Test
     public void testFileResult_Full() {
         testCommon(FULL, "FileResult_Full.json");
@@ -50,4 +60,24 @@ public class FileResultGsonTest extends IndividualResultGsonTest {
     public void testSerializationDeserializationIntegration_Full() {
         testSerializationThenDeserialization(FULL);
     }
+
+    @Test
+    public void testFileResult_Compressed() {
+        testCommon(COMPRESSED, "FileResult_Compressed.json");
+    }
+
+    @Test
+    public void testSerializationDeserializationIntegration_Compressed() {
+        testSerializationThenDeserialization(COMPRESSED);
+    }
+
+    @Test
+    public void testFileResult_Metadata() {
+        testCommon(METADATA, "FileResult_Metadata.json");
+    }
+
+    @Test
+    public void testSerializationDeserializationIntegration_Metadata() {
+        testSerializationThenDeserialization(METADATA);
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.domain.step.gson;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.Joiner;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.sagebionetworks.research.domain.JsonAssetUtil;
+import org.sagebionetworks.research.domain.PeekingJsonReader;
+import org.sagebionetworks.research.domain.step.DaggerStepTestComponent;
+import org.sagebionetworks.research.domain.step.interfaces.Step;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.StringReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares reading the step fixtures through the tree model with reading them through a PeekingJsonReader, both one
+ * fixture at a time and as a single section step holding many copies of every fixture.
+ * <p>
+ * This is a benchmark rather than a test, so it is ignored and only logs its measurements. Remove the Ignore
+ * annotations to run it. StreamingStepGsonTest checks that both paths read the same steps.
+ */
+public class StepGsonBenchmarkTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StepGsonBenchmarkTest.class);
+
+    private static final String[] FIXTURES = {"ActiveUIStep_1.json", "ActiveUIStep_2.json", "ActiveUIStep_3.json",
+            "CompletionStep_1.json", "CompletionStep_2.json", "EmptySectionStep.json", "FormIcons.json",
+            "FormStepInteger.json", "FormStepString.json", "FormStepStringShorthand.json",
+            "FormStringIntoInteger.json", "SectionStep_1.json", "Transformer_1.json", "Transformer_2.json",
+            "UIStep_1.json", "UIStep_2.json"};
+
+    private static final int SECTION_COPIES = 50;
+
+    private static final int WARM_UP_ITERATIONS = 50;
+
+    private static final int MEASURED_ITERATIONS = 200;
+
+    private Gson gson;
+
+    private List<String> fixtures;
+
+    @Before
+    public void setup() {
+        gson = DaggerStepTestComponent.builder().build().gson();
+        fixtures = new ArrayList<>();
+        for (String fixture : FIXTURES) {
+            URL url = JsonAssetUtil.class.getClassLoader().getResource("steps/" + fixture);
+            checkState(url != null, "invalid URL for filename: %s", fixture);
+            fixtures.add(JsonAssetUtil.readJsonFileHelper(gson, url));
+        }
+    }
+
+    @Test
+    @Ignore("benchmark, run manually")
+    public void benchmarkFixtures() {
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            readAll(fixtures, false);
+            readAll(fixtures, true);
+        }
+
+        long treeNanos = time(fixtures, false);
+        long streamNanos = time(fixtures, true);
+        long operations = (long) MEASURED_ITERATIONS * fixtures.size();
+        LOGGER.info("{} fixtures: tree {} ns/op, streaming {} ns/op", fixtures.size(), treeNanos / operations,
+                streamNanos / operations);
+    }
+
+    @Test
+    @Ignore("benchmark, run manually")
+    public void benchmarkLargeSection() {
+        List<String> steps = new ArrayList<>();
+        for (int i = 0; i < SECTION_COPIES; i++) {
+            steps.addAll(fixtures);
+        }
+
+        List<String> section = Collections.singletonList("{\"identifier\": \"benchmarkSection\", \"type\": "
+                + "\"section\", \"steps\": [" + Joiner.on(',').join(steps) + "]}");
+
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            readAll(section, false);
+            readAll(section, true);
+        }
+
+        long treeNanos = time(section, false);
+        long streamNanos = time(section, true);
+        LOGGER.info("section of {} steps: tree {} us/op, streaming {} us/op", steps.size(),
+                treeNanos / MEASURED_ITERATIONS / 1000, streamNanos / MEASURED_ITERATIONS / 1000);
+    }
+
+    private long time(List<String> jsons, boolean streaming) {
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            readAll(jsons, streaming);
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private void readAll(List<String> jsons, boolean streaming) {
+        for (String json : jsons) {
+            Step step = streaming ? readStream(json) : readTree(json);
+            checkState(step != null, "Failed to deserialize json: %s", json);
+        }
+    }
+
+    private Step readStream(String json) {
+        return gson.fromJson(new PeekingJsonReader(new StringReader(json)), Step.class);
+    }
+
+    private Step readTree(String json) {
+        return gson.fromJson(new JsonReader(new StringReader(json)), Step.class);
+    }
+}
@@ -38,7 +38,7 @@ import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
 @SuiteClasses({ActiveUIStepGsonTest.class, FormUIStepGsonTest.class, SectionStepGsonTest.class,
-        TransformerStepGsonTest.class, UIStepGsonTest.class})
+        StreamingStepGsonTest.class, TransformerStepGsonTest.class, UIStepGsonTest.class})
 public class StepGsonTestSuite {
 
 }
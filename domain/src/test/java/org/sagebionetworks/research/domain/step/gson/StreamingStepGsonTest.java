@@ -0,0 +1,95 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.domain.step.gson;
+
+import static com.google.common.base.Preconditions.checkState;
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.base.Joiner;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Test;
+import org.sagebionetworks.research.domain.JsonAssetUtil;
+import org.sagebionetworks.research.domain.PeekingJsonReader;
+import org.sagebionetworks.research.domain.step.interfaces.Step;
+
+import java.io.StringReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that reading steps through a PeekingJsonReader, which lets type labels be peeked from the stream, gives the
+ * same steps as reading them through the tree model.
+ */
+public class StreamingStepGsonTest extends IndividualStepGsonTest {
+    private static final String[] FIXTURES = {"ActiveUIStep_1.json", "ActiveUIStep_2.json", "ActiveUIStep_3.json",
+            "CompletionStep_1.json", "CompletionStep_2.json", "EmptySectionStep.json", "FormIcons.json",
+            "FormStepInteger.json", "FormStepString.json", "FormStepStringShorthand.json",
+            "FormStringIntoInteger.json", "SectionStep_1.json", "Transformer_1.json", "Transformer_2.json",
+            "UIStep_1.json", "UIStep_2.json"};
+
+    @Test
+    public void testRead_fixtures() {
+        for (String json : readFixtures()) {
+            assertEquals(readTree(json), readStream(json));
+        }
+    }
+
+    @Test
+    public void testRead_sectionOfFixtures() {
+        String section = "{\"identifier\": \"section\", \"type\": \"section\", \"steps\": ["
+                + Joiner.on(',').join(readFixtures()) + "]}";
+
+        assertEquals(readTree(section), readStream(section));
+    }
+
+    private List<String> readFixtures() {
+        List<String> fixtures = new ArrayList<>();
+        for (String fixture : FIXTURES) {
+            URL url = JsonAssetUtil.class.getClassLoader().getResource("steps/" + fixture);
+            checkState(url != null, "invalid URL for filename: %s", fixture);
+            fixtures.add(JsonAssetUtil.readJsonFileHelper(stepTestComponent.gson(), url));
+        }
+        return fixtures;
+    }
+
+    private Step readStream(String json) {
+        return stepTestComponent.gson().fromJson(new PeekingJsonReader(new StringReader(json)), Step.class);
+    }
+
+    private Step readTree(String json) {
+        return stepTestComponent.gson().fromJson(new JsonReader(new StringReader(json)), Step.class);
+    }
+}
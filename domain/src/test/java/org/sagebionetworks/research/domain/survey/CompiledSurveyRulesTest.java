@@ -0,0 +1,338 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.domain.survey;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import androidx.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Test;
+import org.sagebionetworks.research.domain.result.AnswerResultType;
+import org.sagebionetworks.research.domain.result.implementations.AnswerResultBase;
+import org.sagebionetworks.research.domain.result.implementations.ResultBase;
+import org.sagebionetworks.research.domain.result.interfaces.AnswerResult;
+import org.sagebionetworks.research.domain.result.interfaces.Result;
+import org.sagebionetworks.research.domain.survey.SurveyRule.CohortResult;
+import org.sagebionetworks.research.domain.survey.SurveyRule.Operator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.threeten.bp.Instant;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class CompiledSurveyRulesTest {
+    /**
+     * A rule that evaluates itself, the way the rules were evaluated one by one before being compiled.
+     */
+    private static class TestRule implements MatchingAnswerSurveyRule {
+        @Nullable
+        private final String cohort;
+
+        @Nullable
+        private final Object matchingAnswer;
+
+        @Nullable
+        private final String operator;
+
+        @Nullable
+        private final String skipToIdentifier;
+
+        TestRule(@Nullable String operator, @Nullable Object matchingAnswer, @Nullable String skipToIdentifier,
+                @Nullable String cohort) {
+            this.operator = operator;
+            this.matchingAnswer = matchingAnswer;
+            this.skipToIdentifier = skipToIdentifier;
+            this.cohort = cohort;
+        }
+
+        @Nullable
+        @Override
+        public CohortResult evaluateCohorts(Result result) {
+            if (cohort == null || !(result instanceof AnswerResult)) {
+                return null;
+            }
+
+            boolean matches = CompiledSurveyRules.matches(this, ((AnswerResult<?>) result).getAnswer());
+            return matches ? new CohortResult(ImmutableSet.of(cohort), ImmutableSet.of())
+                    : new CohortResult(ImmutableSet.of(), ImmutableSet.of(cohort));
+        }
+
+        @Nullable
+        @Override
+        public String evaluateRule(Result result) {
+            if (!(result instanceof AnswerResult)
+                    || !CompiledSurveyRules.matches(this, ((AnswerResult<?>) result).getAnswer())) {
+                return null;
+            }
+
+            return skipToIdentifier != null ? skipToIdentifier : (cohort == null ? "exit" : null);
+        }
+
+        @Nullable
+        @Override
+        public String getCohort() {
+            return cohort;
+        }
+
+        @Nullable
+        @Override
+        public Object getMatchingAnswer() {
+            return matchingAnswer;
+        }
+
+        @Nullable
+        @Override
+        public String getSkipToIdentifier() {
+            return skipToIdentifier;
+        }
+
+        @Nullable
+        @Override
+        public String getSurveyRuleOperator() {
+            return operator;
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompiledSurveyRulesTest.class);
+
+    private static final String[] OPERATORS = {null, Operator.SKIPS, Operator.EQUALS, Operator.NOT_EQUALS,
+            Operator.LESS_THAN, Operator.GREATER_THAN, Operator.LESS_THAN_EQUALS, Operator.GREATER_THAN_EQUALS};
+
+    private static final int BENCHMARK_RULES = 1000;
+
+    private static final int WARM_UP_ITERATIONS = 5;
+
+    // Collection answers are evaluated rule by rule, so the benchmark only uses single answers.
+    private static final int BENCHMARK_ANSWERS = 10000;
+
+    @Test
+    public void testEvaluateRule() {
+        CompiledSurveyRules rules = CompiledSurveyRules.compile(ImmutableList.of(
+                new TestRule(Operator.SKIPS, null, "declined", null),
+                new TestRule(Operator.GREATER_THAN, 10, "high", null),
+                new TestRule(Operator.LESS_THAN_EQUALS, 0.5, "low", null),
+                new TestRule(null, "yes", null, null),
+                new TestRule(Operator.NOT_EQUALS, "no", "notNo", null)));
+
+        assertEquals("declined", rules.evaluateRule(answer(null)));
+        assertEquals("high", rules.evaluateRule(answer(11)));
+        // a number never equals "no"
+        assertEquals("notNo", rules.evaluateRule(answer(10)));
+        assertEquals("low", rules.evaluateRule(answer(0.5)));
+        assertEquals("low", rules.evaluateRule(answer(-100L)));
+        // equality without a skip identifier goes to exit
+        assertEquals("exit", rules.evaluateRule(answer("yes")));
+        assertEquals("notNo", rules.evaluateRule(answer("maybe")));
+        assertNull(rules.evaluateRule(answer("no")));
+        assertEquals("exit", rules.evaluateRule(answer(ImmutableList.of("no", "yes"))));
+        assertNull(rules.evaluateRule(new ResultBase("notAnAnswer", Instant.EPOCH, Instant.EPOCH)));
+    }
+
+    @Test
+    public void testEvaluateCohorts() {
+        CompiledSurveyRules rules = CompiledSurveyRules.compile(ImmutableList.of(
+                new TestRule(Operator.LESS_THAN, 18, null, "minor"),
+                new TestRule(Operator.GREATER_THAN_EQUALS, 18, null, "adult"),
+                new TestRule(Operator.GREATER_THAN_EQUALS, 65, null, "adult")));
+
+        CohortResult cohortResult = rules.evaluateCohorts(answer(12));
+        assertEquals(ImmutableSet.of("minor"), cohortResult.add);
+        assertEquals(ImmutableSet.of("adult"), cohortResult.remove);
+
+        // a cohort added by one rule isn't removed by another
+        cohortResult = rules.evaluateCohorts(answer(40));
+        assertEquals(ImmutableSet.of("adult"), cohortResult.add);
+        assertEquals(ImmutableSet.of("minor"), cohortResult.remove);
+        assertNull(rules.evaluateRule(answer(40)));
+
+        assertNull(CompiledSurveyRules.compile(ImmutableList.of(new TestRule(null, 1, "one", null)))
+                .evaluateCohorts(answer(1)));
+    }
+
+    @Test
+    public void testMatchesRuleByRuleEvaluation() {
+        Random random = new Random(17);
+        for (int i = 0; i < 500; i++) {
+            List<TestRule> rules = createRules(random, 1 + random.nextInt(20));
+            CompiledSurveyRules compiledRules = CompiledSurveyRules.compile(rules);
+            for (int j = 0; j < 50; j++) {
+                Result result = answer(createAnswer(random, true));
+                assertEquals(evaluateRuleByRule(rules, result), compiledRules.evaluateRule(result));
+                CohortResult expected = evaluateCohortsByRule(rules, result);
+                CohortResult actual = compiledRules.evaluateCohorts(result);
+                if (expected == null) {
+                    assertNull(actual);
+                } else {
+                    assertEquals(expected.add, actual.add);
+                    assertEquals(expected.remove, actual.remove);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void benchmarkEvaluation() {
+        Random random = new Random(1000);
+        List<TestRule> rules = createRules(random, BENCHMARK_RULES);
+        List<Result> answers = new ArrayList<>();
+        for (int i = 0; i < BENCHMARK_ANSWERS; i++) {
+            answers.add(answer(createAnswer(random, false)));
+        }
+
+        long compileStart = System.nanoTime();
+        CompiledSurveyRules compiledRules = CompiledSurveyRules.compile(rules);
+        long compileNanos = System.nanoTime() - compileStart;
+
+        // warm up both paths before measuring
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            for (Result result : answers) {
+                evaluateRuleByRule(rules, result);
+                evaluateCohortsByRule(rules, result);
+                compiledRules.evaluateRule(result);
+                compiledRules.evaluateCohorts(result);
+            }
+        }
+
+        long start = System.nanoTime();
+        for (Result result : answers) {
+            evaluateRuleByRule(rules, result);
+            evaluateCohortsByRule(rules, result);
+        }
+        long ruleByRuleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Result result : answers) {
+            compiledRules.evaluateRule(result);
+            compiledRules.evaluateCohorts(result);
+        }
+        long compiledNanos = System.nanoTime() - start;
+
+        LOGGER.info("{} rules: compile {} ms, rule by rule {} ns/answer, compiled {} ns/answer", BENCHMARK_RULES,
+                compileNanos / 1_000_000, ruleByRuleNanos / BENCHMARK_ANSWERS, compiledNanos / BENCHMARK_ANSWERS);
+
+        for (Result result : answers.subList(0, 100)) {
+            assertEquals(evaluateRuleByRule(rules, result), compiledRules.evaluateRule(result));
+        }
+        Result result = answers.get(0);
+        assertSame(compiledRules.evaluateCohorts(result), compiledRules.evaluateCohorts(result));
+    }
+
+    private static Result answer(@Nullable Object answer) {
+        return new AnswerResultBase<>("question", Instant.EPOCH, Instant.EPOCH, answer, AnswerResultType.JSON);
+    }
+
+    @Nullable
+    private static Object createAnswer(Random random, boolean includeCollections) {
+        switch (random.nextInt(includeCollections ? 8 : 7)) {
+            case 0:
+                return null;
+            case 1:
+                return "choice" + random.nextInt(10);
+            case 2:
+                return random.nextBoolean();
+            case 3:
+                return random.nextInt(20) / 2.0;
+            case 7:
+                return ImmutableList.of("choice" + random.nextInt(10), "choice" + random.nextInt(10));
+            default:
+                return random.nextInt(12) - 1;
+        }
+    }
+
+    private static List<TestRule> createRules(Random random, int count) {
+        List<TestRule> rules = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String operator = OPERATORS[random.nextInt(OPERATORS.length)];
+            Object matchingAnswer;
+            switch (random.nextInt(4)) {
+                case 0:
+                    matchingAnswer = "choice" + random.nextInt(10);
+                    break;
+                case 1:
+                    matchingAnswer = random.nextInt(20) / 2.0;
+                    break;
+                case 2:
+                    matchingAnswer = random.nextBoolean();
+                    break;
+                default:
+                    matchingAnswer = random.nextInt(10);
+                    break;
+            }
+
+            String skipToIdentifier = random.nextBoolean() ? "step" + i : null;
+            String cohort = random.nextInt(3) == 0 ? "cohort" + random.nextInt(5) : null;
+            rules.add(new TestRule(operator, matchingAnswer, skipToIdentifier, cohort));
+        }
+
+        return rules;
+    }
+
+    @Nullable
+    private static CohortResult evaluateCohortsByRule(List<TestRule> rules, Result result) {
+        Set<String> add = new LinkedHashSet<>();
+        Set<String> remove = new LinkedHashSet<>();
+        boolean hasCohort = false;
+        for (TestRule rule : rules) {
+            CohortResult cohortResult = rule.evaluateCohorts(result);
+            if (cohortResult != null) {
+                hasCohort = true;
+                add.addAll(cohortResult.add);
+                remove.addAll(cohortResult.remove);
+            }
+        }
+
+        remove.removeAll(add);
+        return hasCohort ? new CohortResult(ImmutableSet.copyOf(add), ImmutableSet.copyOf(remove)) : null;
+    }
+
+    @Nullable
+    private static String evaluateRuleByRule(List<TestRule> rules, Result result) {
+        for (TestRule rule : rules) {
+            String skipToIdentifier = rule.evaluateRule(result);
+            if (skipToIdentifier != null) {
+                return skipToIdentifier;
+            }
+        }
+
+        return null;
+    }
+}
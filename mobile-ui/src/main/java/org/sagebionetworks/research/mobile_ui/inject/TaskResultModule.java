@@ -4,12 +4,14 @@ import org.sagebionetworks.research.presentation.perform_task.BoundServiceTaskRe
 import org.sagebionetworks.research.presentation.perform_task.BoundServiceTaskResultProcessingManager;
 import org.sagebionetworks.research.presentation.perform_task.TaskResultManager;
 import org.sagebionetworks.research.presentation.perform_task.TaskResultProcessingManager;
+import org.sagebionetworks.research.presentation.perform_task.TaskResultProcessingPolicy;
 import org.sagebionetworks.research.presentation.perform_task.TaskResultProcessingManager.TaskResultProcessor;
 import org.sagebionetworks.research.presentation.perform_task.TaskResultService;
 
 import java.util.Set;
 
 import dagger.Binds;
+import dagger.BindsOptionalOf;
 import dagger.Module;
 import dagger.android.ContributesAndroidInjector;
 import dagger.multibindings.Multibinds;
@@ -28,4 +30,8 @@ public abstract class TaskResultModule {
 
     @Multibinds
     abstract Set<TaskResultProcessor> provideTaskResultProcessors();
+
+    // apps may bind their own TaskResultProcessingPolicy, otherwise the default is used
+    @BindsOptionalOf
+    abstract TaskResultProcessingPolicy optionalTaskResultProcessingPolicy();
 }
@@ -36,31 +36,42 @@ import static org.sagebionetworks.research.presentation.recorder.reactive.Reacti
 
 import android.content.Context;
 import android.hardware.SensorEvent;
+import android.hardware.SensorManager;
 
 import com.github.pwittchen.reactivesensors.library.ReactiveSensors;
 import com.google.gson.Gson;
 
+import org.sagebionetworks.research.domain.async.MotionRecorderOutputFormat;
+import org.sagebionetworks.research.domain.async.RecorderCompression;
 import org.sagebionetworks.research.domain.async.RecorderType;
+import org.sagebionetworks.research.domain.inject.GsonModule.CompactGson;
 import org.sagebionetworks.research.domain.result.interfaces.Result;
 import org.sagebionetworks.research.presentation.recorder.Recorder;
 import org.sagebionetworks.research.presentation.recorder.RecorderConfigPresentation;
 import org.sagebionetworks.research.presentation.recorder.location.DistanceRecorderConfigPresentation;
 import org.sagebionetworks.research.presentation.recorder.location.Path;
 import org.sagebionetworks.research.presentation.recorder.location.PathAccumulator;
-import org.sagebionetworks.research.presentation.recorder.reactive.ReactiveFileResultRecorder;
+import org.sagebionetworks.research.presentation.recorder.reactive.FlushPolicy;
+import org.sagebionetworks.research.presentation.recorder.reactive.ReactiveColumnarSensorRecorder;
+import org.sagebionetworks.research.presentation.recorder.reactive.ReactiveSensorSampleRecorder;
+import org.sagebionetworks.research.presentation.recorder.reactive.RecorderSchedulers;
 import org.sagebionetworks.research.presentation.recorder.reactive.source.ReactiveLocationFactory;
 import org.sagebionetworks.research.presentation.recorder.reactive.source.SensorSourceFactory;
 import org.sagebionetworks.research.presentation.recorder.reactive.source.SensorSourceFactory.SensorConfig;
-import org.sagebionetworks.research.presentation.recorder.sensor.DeviceMotionUtil;
 import org.sagebionetworks.research.presentation.recorder.sensor.SensorRecorderConfigPresentation;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSample;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSampleRingBuffer;
+import org.sagebionetworks.research.presentation.recorder.sensor.columnar.ColumnarSensorFormat;
+import org.sagebionetworks.research.presentation.recorder.sensor.columnar.SensorColumnDescriptor;
 import org.sagebionetworks.research.presentation.recorder.util.TaskOutputFileUtil;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicReference;
 
 import dagger.Module;
 import dagger.Provides;
@@ -70,12 +81,14 @@ import io.reactivex.Flowable;
 
 @Module
 public abstract class RecorderModule {
+    private static final String GZIP_FILE_EXTENSION = ".gz";
+
     @Provides
     @IntoMap
     @StringKey(RecorderType.DISTANCE)
     static RecorderFactory provideDistanceJsonRecorderFactory(ReactiveLocationFactory reactiveLocationFactory,
-                                                              Context context, Gson gson) {
-        return (recorderConfiguration, taskUUID) -> {
+                                                              Context context, @CompactGson Gson gson) {
+        return (recorderConfiguration, taskUUID, schedulers) -> {
             if (!(recorderConfiguration instanceof DistanceRecorderConfigPresentation)) {
                 throw new IllegalArgumentException("RecorderConfigPresentation " + recorderConfiguration
                         + " is not a DistanceRecorderConfigPresentation.");
@@ -87,8 +100,11 @@ public abstract class RecorderModule {
                     gson,
                     TaskOutputFileUtil.getTaskOutputFile(
                             taskUUID,
-                            recorderConfiguration.getIdentifier() + ".json",
-                            context));
+                            getJsonFileName(recorderConfiguration),
+                            context),
+                    FlushPolicy.DEFAULT,
+                    recorderConfiguration.getCompression(),
+                    schedulers);
         };
     }
 
@@ -97,6 +113,11 @@ public abstract class RecorderModule {
         return new ReactiveSensors(context);
     }
 
+    @Provides
+    static SensorManager provideSensorManager(Context context) {
+        return (SensorManager) context.getSystemService(Context.SENSOR_SERVICE);
+    }
+
     @Provides
     @IntoMap
     @StringKey(RecorderType.MOTION)
@@ -104,9 +125,9 @@ public abstract class RecorderModule {
      * TODO: Currently, sensor metadata is recorded, but only for the first sensor event from the Flowable.
      * We should be collecting sensorTypes and writing metadata before merging the sensor event Flowables
      */
-    static RecorderFactory provideMotionJsonRecorderFactory(Context context, Gson gson,
+    static RecorderFactory provideMotionJsonRecorderFactory(Context context, @CompactGson Gson gson,
                                                             SensorSourceFactory sensorSourceFactory) {
-        return (recorderConfiguration, taskUUID) -> {
+        return (recorderConfiguration, taskUUID, schedulers) -> {
             if (!(recorderConfiguration instanceof SensorRecorderConfigPresentation)) {
                 throw new IllegalArgumentException("RecorderConfigPresentation " + recorderConfiguration
                         + " is not a SensorRecorderConfigPresentation.");
@@ -120,53 +141,84 @@ public abstract class RecorderModule {
                 sensorEventFlowables.add(sensorSourceFactory.getSensorEvents(sensorConfig));
             }
 
-            AtomicReference<Double> firstEventUptimeReference = new AtomicReference<>();
-
-            // cache so first sensor event gets repeated with concat below
-            Flowable<SensorEvent> allSensorsFlowable = Flowable.merge(sensorEventFlowables).cache();
-
-            Flowable<DeviceMotionUtil.SensorEventPOJO> sensorEventPOJOFlowable =
-                    Flowable.concat(allSensorsFlowable.take(1), allSensorsFlowable)
-                            .map(e -> {
-                                if (firstEventUptimeReference.get() == null) {
-                                    // determine uptime reference and log full info about sensor
-                                    DeviceMotionUtil.SensorEventPOJO first = new DeviceMotionUtil.SensorEventPOJO(e);
-                                    firstEventUptimeReference.set(first.uptime);
-                                    return first;
-                                } else {
-                                    // normal log of event based on uptime reference
-                                    return DeviceMotionUtil.SENSOR_TYPE_TO_FACTORY
-                                            .get(e.sensor.getType())
-                                            .apply(e, firstEventUptimeReference.get());
-                                }
-                            });
-
-
-            return ReactiveFileResultRecorder.createJsonArrayLogger(
+            // Events are copied into recycled samples on the sensor thread. Every sample waiting to be written holds
+            // a slot of the ring, so the ring bounds the samples buffered between the sensors and the file writer.
+            SensorSampleRingBuffer ringBuffer = new SensorSampleRingBuffer(sensorRecorderConfig.getBufferCapacity(),
+                    sensorRecorderConfig.getOverflowPolicy());
+            Collection<Flowable<SensorSample>> sensorSampleFlowables = new ArrayList<>();
+            for (Flowable<SensorEvent> sensorEventFlowable : sensorEventFlowables) {
+                sensorSampleFlowables.add(ringBuffer.copyOf(sensorEventFlowable));
+            }
+
+            if (MotionRecorderOutputFormat.COLUMNAR.equals(sensorRecorderConfig.getOutputFormat())) {
+                List<SensorColumnDescriptor> descriptors = new ArrayList<>();
+                for (SensorConfig sensorConfig : sensorRecorderConfig.getSensorConfigs()) {
+                    SensorColumnDescriptor descriptor = SensorColumnDescriptor.forSensorType(sensorConfig.sensorType);
+                    if (descriptor != null) {
+                        descriptors.add(descriptor);
+                    }
+                }
+
+                ReactiveColumnarSensorRecorder columnarRecorder = new ReactiveColumnarSensorRecorder(
+                        recorderConfiguration.getIdentifier(),
+                        Flowable.merge(sensorSampleFlowables),
+                        descriptors,
+                        TaskOutputFileUtil.getTaskOutputFile(
+                                taskUUID,
+                                getFileName(recorderConfiguration, ColumnarSensorFormat.FILE_EXTENSION),
+                                context),
+                        recorderConfiguration.getCompression(),
+                        ringBuffer,
+                        schedulers);
+                columnarRecorder.setBeforeStop(
+                        sensorSourceFactory.flushSensorEvents(sensorRecorderConfig.getSensorConfigs()));
+                return columnarRecorder;
+            }
+
+            ReactiveSensorSampleRecorder sampleRecorder = new ReactiveSensorSampleRecorder(
                     recorderConfiguration.getIdentifier(),
-                    sensorEventPOJOFlowable,
+                    Flowable.merge(sensorSampleFlowables),
                     gson,
                     TaskOutputFileUtil.getTaskOutputFile(
                             taskUUID,
-                            recorderConfiguration.getIdentifier() + ".json",
-                            context)
+                            getJsonFileName(recorderConfiguration),
+                            context),
+                    recorderConfiguration.getCompression(),
+                    ringBuffer,
+                    schedulers
             );
+            sampleRecorder.setBeforeStop(
+                    sensorSourceFactory.flushSensorEvents(sensorRecorderConfig.getSensorConfigs()));
+            return sampleRecorder;
         };
     }
 
     @Provides
     static RecorderFactory provideRecorderFactory(final Map<String, RecorderFactory> recorderFactories) {
-        return (recorderConfiguration, taskUUID) -> {
+        return (recorderConfiguration, taskUUID, schedulers) -> {
             String recorderType = recorderConfiguration.getType();
             if (!recorderFactories.containsKey(recorderType)) {
                 throw new IllegalArgumentException("No recorder factory for recorder type " + recorderType);
             }
 
-            return recorderFactories.get(recorderType).create(recorderConfiguration, taskUUID);
+            return recorderFactories.get(recorderType).create(recorderConfiguration, taskUUID, schedulers);
         };
     }
 
+    private static String getJsonFileName(RecorderConfigPresentation recorderConfiguration) {
+        return getFileName(recorderConfiguration, ".json");
+    }
+
+    private static String getFileName(RecorderConfigPresentation recorderConfiguration, String extension) {
+        String fileName = recorderConfiguration.getIdentifier() + extension;
+        if (RecorderCompression.GZIP.equals(recorderConfiguration.getCompression())) {
+            fileName += GZIP_FILE_EXTENSION;
+        }
+        return fileName;
+    }
+
     public interface RecorderFactory {
-        Recorder<? extends Result> create(RecorderConfigPresentation recorderConfiguration, UUID taskUUID) throws IOException;
+        Recorder<? extends Result> create(RecorderConfigPresentation recorderConfiguration, UUID taskUUID,
+                RecorderSchedulers schedulers) throws IOException;
     }
 }
@@ -0,0 +1,240 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.perform_task;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import androidx.annotation.NonNull;
+
+import org.sagebionetworks.research.domain.result.interfaces.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.reactivex.Completable;
+import io.reactivex.Maybe;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.observers.DisposableMaybeObserver;
+import io.reactivex.subjects.CompletableSubject;
+import io.reactivex.subjects.ReplaySubject;
+import io.reactivex.subjects.Subject;
+
+/**
+ * Waits on the asynchronous results of a task run. Each Maybe added is subscribed to once, when it is added, and is
+ * tracked by a key until it terminates. The aggregator completes once it has been closed and every Maybe added to it
+ * has terminated, so adding a result costs the same however many results came before it. Whether the aggregator is
+ * completing is decided while holding its lock, so a result is either added and waited on, or rejected.
+ */
+class AsyncResultAggregator implements Disposable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncResultAggregator.class);
+
+    private final Subject<Maybe<? extends Result>> asyncResults = ReplaySubject.create();
+
+    private final CompletableSubject completion = CompletableSubject.create();
+
+    // guarded by this
+    private boolean closed;
+
+    // guarded by this, set once the aggregator is closed with nothing pending, after which results are rejected
+    private boolean completing;
+
+    // guarded by this
+    private boolean disposed;
+
+    // guarded by this
+    private long nextKey;
+
+    // guarded by this, the subscriptions to the async results which have not terminated yet
+    private final Map<Long, Disposable> pending = new HashMap<>();
+
+    private final Consumer<Result> resultConsumer;
+
+    private final Scheduler scheduler;
+
+    /**
+     * @param resultConsumer
+     *         called with each result, on the scheduler
+     * @param scheduler
+     *         the scheduler the async results are subscribed on
+     */
+    AsyncResultAggregator(@NonNull Consumer<Result> resultConsumer, @NonNull Scheduler scheduler) {
+        this.resultConsumer = checkNotNull(resultConsumer);
+        this.scheduler = checkNotNull(scheduler);
+    }
+
+    /**
+     * Subscribes to the async result, unless the aggregator is completing. Results may still be added after the
+     * aggregator is closed, as long as earlier results are pending, and are emitted by {@link #getAsyncResults()}.
+     *
+     * @return true if the async result was added, false if the aggregator is completing or disposed
+     */
+    boolean add(@NonNull Maybe<? extends Result> asyncResult) {
+        Maybe<? extends Result> cachedAsyncResult = asyncResult.cache();
+        long key;
+        DisposableMaybeObserver<Result> observer;
+        synchronized (this) {
+            if (disposed || completing) {
+                return false;
+            }
+
+            key = nextKey++;
+            observer = new DisposableMaybeObserver<Result>() {
+                @Override
+                public void onComplete() {
+                    onTerminated(key);
+                }
+
+                @Override
+                public void onError(final Throwable e) {
+                    LOGGER.warn("Error getting async result", e);
+                    onTerminated(key);
+                }
+
+                @Override
+                public void onSuccess(final Result result) {
+                    try {
+                        resultConsumer.accept(result);
+                    } catch (Exception e) {
+                        LOGGER.warn("Error adding async result {}", result, e);
+                    }
+                    onTerminated(key);
+                }
+            };
+            pending.put(key, observer);
+            asyncResults.onNext(cachedAsyncResult);
+        }
+
+        cachedAsyncResult.subscribeOn(scheduler).subscribe(observer);
+        return true;
+    }
+
+    /**
+     * Marks that no more async results are expected. The aggregator completes once the pending results terminate.
+     */
+    void close() {
+        boolean complete;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            complete = pending.isEmpty() && startCompleting();
+        }
+
+        if (complete) {
+            completion.onComplete();
+        }
+    }
+
+    /**
+     * @return completes once the aggregator is closed and every async result added to it has terminated
+     */
+    @NonNull
+    Completable getCompletion() {
+        return completion;
+    }
+
+    /**
+     * @return each async result added, replayed to late subscribers, completing once the aggregator is closed and
+     *         every async result added to it has terminated
+     */
+    @NonNull
+    Observable<Maybe<? extends Result>> getAsyncResults() {
+        return asyncResults;
+    }
+
+    /**
+     * @return the number of async results which have not terminated
+     */
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    @Override
+    public void dispose() {
+        List<Disposable> subscriptions;
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+
+            disposed = true;
+            subscriptions = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+
+        for (Disposable subscription : subscriptions) {
+            subscription.dispose();
+        }
+    }
+
+    @Override
+    public synchronized boolean isDisposed() {
+        return disposed;
+    }
+
+    private void onTerminated(long key) {
+        boolean complete;
+        synchronized (this) {
+            complete = pending.remove(key) != null && closed && pending.isEmpty() && startCompleting();
+        }
+
+        if (complete) {
+            completion.onComplete();
+        }
+    }
+
+    /**
+     * Must be called while holding the aggregator's lock once it is closed with nothing pending.
+     *
+     * @return true if the caller should complete the aggregator, false if it is disposed or already completing
+     */
+    private boolean startCompleting() {
+        if (disposed || completing) {
+            return false;
+        }
+
+        completing = true;
+        asyncResults.onComplete();
+        return true;
+    }
+}
@@ -9,8 +9,6 @@ import android.os.IBinder;
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
 
-import com.google.common.collect.ImmutableSet;
-
 import org.sagebionetworks.research.domain.result.interfaces.Result;
 import org.sagebionetworks.research.domain.result.interfaces.TaskResult;
 import org.sagebionetworks.research.presentation.perform_task.TaskResultService.TaskResultServiceBinder;
@@ -60,6 +58,11 @@ public class BoundServiceTaskResultManager implements TaskResultManager {
             binder.addStepResult(taskRunUUID, stepResult);
         }
 
+        @Override
+        public void upsertAsyncResult(@NonNull final Result asyncResult) {
+            binder.upsertAsyncResult(taskRunUUID, asyncResult);
+        }
+
         @Override
         public void disconnect() {
             binder.onDisconnect(taskRunUUID);
@@ -73,7 +76,7 @@ public class BoundServiceTaskResultManager implements TaskResultManager {
 
         @NonNull
         @Override
-        public Observable<ImmutableSet<Maybe<? extends Result>>> getAsyncResultsObservable() {
+        public Observable<Maybe<? extends Result>> getAsyncResultsObservable() {
             return binder.getAsyncResultsObservable(taskRunUUID);
         }
 
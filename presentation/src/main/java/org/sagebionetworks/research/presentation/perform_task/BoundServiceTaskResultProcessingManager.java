@@ -4,48 +4,66 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import androidx.annotation.NonNull;
 
-import com.google.common.collect.ImmutableSet;
+import com.google.common.base.Optional;
 
 import org.sagebionetworks.research.presentation.perform_task.TaskResultManager.TaskResultManagerConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
 import javax.inject.Inject;
 
-import io.reactivex.Completable;
-import io.reactivex.Flowable;
 import io.reactivex.Single;
 import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.schedulers.Schedulers;
 
 /**
  * Manages processing of TaskResults via a bound service.
+ * <p>
+ * Upon connection to TaskResultService, runs the TaskResultProcessors on the final TaskResult as the
+ * TaskResultProcessingPolicy says, and unbinds from TaskResultService once every processor has finished.
  */
 public class BoundServiceTaskResultProcessingManager implements TaskResultProcessingManager {
-    /**
-     * Upon connection to TaskResultService, calls each TaskProcessor with the final TaskResult and waits for every
-     * processor to complete. Upon completion of processors, unbinds from TaskResultService.
-     */
     private static final Logger LOGGER = LoggerFactory.getLogger(BoundServiceTaskResultProcessingManager.class);
 
     private BoundServiceTaskResultManager boundServiceTaskResultManager;
 
     private final CompositeDisposable compositeDisposable;
 
-    private final ImmutableSet<TaskResultProcessor> taskResultProcessors;
+    private final TaskResultProcessorPipeline taskResultProcessorPipeline;
 
+    /**
+     * @param taskResultProcessingPolicy
+     *         the policy the app binds, if any, otherwise TaskResultProcessingPolicy.DEFAULT is used.
+     */
     @Inject
     public BoundServiceTaskResultProcessingManager(
             final @NonNull BoundServiceTaskResultManager boundServiceTaskResultManager,
-            final @NonNull Set<TaskResultProcessor> taskResultProcessors) {
+            final @NonNull Set<TaskResultProcessor> taskResultProcessors,
+            final @NonNull Optional<TaskResultProcessingPolicy> taskResultProcessingPolicy) {
+        this(boundServiceTaskResultManager, taskResultProcessors,
+                taskResultProcessingPolicy.or(TaskResultProcessingPolicy.DEFAULT));
+    }
+
+    public BoundServiceTaskResultProcessingManager(
+            final @NonNull BoundServiceTaskResultManager boundServiceTaskResultManager,
+            final @NonNull Set<TaskResultProcessor> taskResultProcessors,
+            final @NonNull TaskResultProcessingPolicy taskResultProcessingPolicy) {
         this.boundServiceTaskResultManager = checkNotNull(boundServiceTaskResultManager);
-        this.taskResultProcessors = ImmutableSet.copyOf(checkNotNull(taskResultProcessors));
+        this.taskResultProcessorPipeline = new TaskResultProcessorPipeline(checkNotNull(taskResultProcessors),
+                taskResultProcessingPolicy, Schedulers.io());
         compositeDisposable = new CompositeDisposable();
     }
 
+    @NonNull
+    @Override
+    public Map<TaskResultProcessor, TaskResultProcessorMetrics> getProcessorMetrics() {
+        return taskResultProcessorPipeline.getProcessorMetrics();
+    }
+
     @Override
     public void registerTaskRun(@NonNull String taskIdentifier,
             @NonNull UUID taskRunUUID) {
@@ -55,12 +73,9 @@ public class BoundServiceTaskResultProcessingManager implements TaskResultProces
                 connection
                         .observeOn(Schedulers.io())
                         .flatMapCompletable(trmc ->
-                                Completable.mergeDelayError(
-                                        Flowable.fromIterable(taskResultProcessors)
-                                                .map(trp -> trmc.getFinalTaskResult()
-                                                        .flatMapCompletable(trp::processTaskResult)
-                                                ))
-                                        .doOnComplete(trmc::disconnect))
+                                trmc.getFinalTaskResult()
+                                        .flatMapCompletable(taskResultProcessorPipeline::process)
+                                        .doFinally(trmc::disconnect))
                         .subscribe(
                                 () -> {
                                     LOGGER.debug("Finished processing task for identifier: {}, task run: {}",
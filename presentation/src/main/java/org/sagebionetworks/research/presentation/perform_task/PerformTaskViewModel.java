@@ -50,6 +50,7 @@ import androidx.annotation.VisibleForTesting;
 import org.sagebionetworks.research.domain.repository.TaskRepository;
 import org.sagebionetworks.research.domain.result.AnswerResultType;
 import org.sagebionetworks.research.domain.result.implementations.AnswerResultBase;
+import org.sagebionetworks.research.domain.result.implementations.TaskResultBase;
 import org.sagebionetworks.research.domain.result.interfaces.Result;
 import org.sagebionetworks.research.domain.result.interfaces.TaskResult;
 import org.sagebionetworks.research.domain.step.interfaces.SectionStep;
@@ -74,18 +75,22 @@ import org.sagebionetworks.research.presentation.model.interfaces.StepView;
 import org.sagebionetworks.research.presentation.perform_task.PerformTaskViewModelFactory.SharedPrefsArgs;
 import org.sagebionetworks.research.presentation.perform_task.TaskResultManager.TaskResultManagerConnection;
 import org.sagebionetworks.research.presentation.perform_task.TaskResultService.TaskResultServiceBinder;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSummary;
 import org.sagebionetworks.research.presentation.recorder.service.RecorderManager;
 import org.sagebionetworks.research.presentation.show_step.show_step_view_models.ShowActiveUiStepViewModelHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.threeten.bp.Instant;
 
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
 
 import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
 import io.reactivex.Maybe;
 import io.reactivex.Single;
 import io.reactivex.android.schedulers.AndroidSchedulers;
@@ -157,6 +162,13 @@ public class PerformTaskViewModel extends AndroidViewModel {
 
     private Single<TaskResultManagerConnection> taskResultManagerConnectionSingle;
 
+    // set on the main thread once taskResultManagerConnectionSingle succeeds
+    @Nullable
+    private volatile TaskResultManagerConnection taskResultManagerConnection;
+
+    // work waiting for the TaskResultManagerConnection, run in order on the main thread once it is available
+    private final Queue<Runnable> pendingConnectionActions;
+
     private final UUID taskRunUuid;
 
     private final TaskView taskView;
@@ -195,9 +207,15 @@ public class PerformTaskViewModel extends AndroidViewModel {
 
         stepViewMapping = new HashMap<>();
         stepViewModeHelperMapping = new HashMap<>();
+        pendingConnectionActions = new ArrayDeque<>();
 
         taskResultManagerConnectionSingle = taskResultManager
                 .getTaskResultManagerConnection(taskView.getIdentifier(), taskRunUUID);
+        compositeDisposable.add(
+                taskResultManagerConnectionSingle
+                        .observeOn(AndroidSchedulers.mainThread())
+                        .subscribe(this::onTaskResultManagerConnected,
+                                t -> LOGGER.warn("Failed to connect to TaskResultManager", t)));
 
         taskResultLiveData = fromPublisher(
                 taskResultManagerConnectionSingle
@@ -212,7 +230,17 @@ public class PerformTaskViewModel extends AndroidViewModel {
     }
 
     public void addStepResult(Result result) {
-        taskResultManagerConnectionSingle.blockingGet().addStepResult(result);
+        whenConnected(() -> taskResultManagerConnection.addStepResult(result));
+    }
+
+    /**
+     * Adds the async result to the task run once the TaskResultManager is connected, in order with the step results
+     * and transitions requested before it.
+     */
+    @MainThread
+    public void addAsyncActionResult(@NonNull Maybe<? extends Result> asyncResult) {
+        checkNotNull(asyncResult);
+        whenConnected(() -> taskResultManagerConnection.addAsyncActionResult(asyncResult));
     }
 
     /**
@@ -260,9 +288,18 @@ public class PerformTaskViewModel extends AndroidViewModel {
         return taskResultLiveData;
     }
 
-    @NonNull
+    /**
+     * @return the latest task result, or the last one observed if the TaskResultManager is not connected yet, or null
+     *         if there is none.
+     */
+    @Nullable
     public TaskResult getTaskResult() {
-        return taskResultManagerConnectionSingle.blockingGet().getLatestTaskResult();
+        TaskResultManagerConnection connection = taskResultManagerConnection;
+        if (connection != null) {
+            return connection.getLatestTaskResult();
+        }
+
+        return taskResultLiveData.getValue();
     }
 
     @NonNull
@@ -274,14 +311,28 @@ public class PerformTaskViewModel extends AndroidViewModel {
         return stepViewModeHelperMapping.get(stepId);
     }
 
+    /**
+     * @return summaries of the motion recorded by the task's active recorders, or an empty Flowable before the task
+     *         is loaded.
+     */
+    @NonNull
+    public Flowable<SensorSummary> getSensorSummaries() {
+        return Flowable.defer(() -> recorderManager != null ? recorderManager.getSensorSummaries()
+                : Flowable.<SensorSummary>empty());
+    }
+
     /**
      * Navigates backward in the task without writing a result for the current step.
      */
     public void goBack() {
         LOGGER.debug("goBack called");
+        whenConnected(this::goBackWhenConnected);
+    }
+
+    private void goBackWhenConnected() {
         Step currentStep = currentStepLiveData.getValue();
 
-        TaskResult taskResult = taskResultManagerConnectionSingle.blockingGet().getLatestTaskResult();
+        TaskResult taskResult = taskResultManagerConnection.getLatestTaskResult();
         checkState(currentStep != null);
 
         @NavDirection int direction = NavDirection.SHIFT_RIGHT;
@@ -299,8 +350,12 @@ public class PerformTaskViewModel extends AndroidViewModel {
      */
     public void goForward() {
         LOGGER.debug("goForward called");
+        whenConnected(this::goForwardWhenConnected);
+    }
+
+    private void goForwardWhenConnected() {
         Step currentStep = currentStepLiveData.getValue();
-        TaskResult taskResult = taskResultManagerConnectionSingle.blockingGet().getLatestTaskResult();
+        TaskResult taskResult = taskResultManagerConnection.getLatestTaskResult();
 
         StepAndNavDirection nextStepAndDirection = stepNavigator.getNextStep(currentStep, taskResult);
         Step nextStep = nextStepAndDirection.getStep();
@@ -310,19 +365,27 @@ public class PerformTaskViewModel extends AndroidViewModel {
     }
 
     /**
-     * Returns true if there is a step after the current one in the task, false otherwise.
+     * Returns true if there is a step after the current one in the task, false otherwise. Before the TaskResultManager
+     * is connected this is evaluated against the last task result observed, or an empty one. Returns false until the
+     * task is loaded.
      *
      * @return true if there is a step after the current one in the task, false otherwise.
      */
     public boolean hasNextStep() {
         // TODO: mdephillips 11/20/18 move this function to the StepNavigator interface like iOS
-        TaskResult taskResult = taskResultManagerConnectionSingle.blockingGet().getLatestTaskResult();
-        StepAndNavDirection nextStepAndDirection = stepNavigator.getNextStep(getStep().getValue(), taskResult);
+        if (stepNavigator == null) {
+            return false;
+        }
+
+        StepAndNavDirection nextStepAndDirection = stepNavigator
+                .getNextStep(getStep().getValue(), getNavigationTaskResult());
         return nextStepAndDirection.getStep() != null;
     }
 
     /**
-     * Returns true if there is a step before the current one in the task, false otherwise.
+     * Returns true if there is a step before the current one in the task, false otherwise. Before the
+     * TaskResultManager is connected this is evaluated against the last task result observed, or an empty one.
+     * Returns false until the task is loaded.
      *
      * @return true if there is a step before the current one in the task, false otherwise.
      */
@@ -330,13 +393,17 @@ public class PerformTaskViewModel extends AndroidViewModel {
         // TODO: mdephillips 11/20/18 move this function to the StepNavigator interface like iOS
         Step currentStep = currentStepLiveData.getValue();
         checkState(currentStep != null);
-        TaskResult taskResult = taskResultManagerConnectionSingle.blockingGet().getLatestTaskResult();
-        return stepNavigator.getPreviousStep(currentStep, taskResult) != null;
+        if (stepNavigator == null) {
+            return false;
+        }
+
+        return stepNavigator.getPreviousStep(currentStep, getNavigationTaskResult()) != null;
     }
 
     @Override
     protected void onCleared() {
         compositeDisposable.dispose();
+        pendingConnectionActions.clear();
     }
 
     /**
@@ -355,7 +422,7 @@ public class PerformTaskViewModel extends AndroidViewModel {
             this.currentStepLiveData.setValue(null);
             this.stepViewLiveData.setValue(null);
             this.taskProgressLiveData.setValue(null);
-            taskResultManagerConnectionSingle.blockingGet().finishTask();
+            whenConnected(() -> taskResultManagerConnection.finishTask());
         } else {
             TaskProgress nextProgress = stepNavigator.getProgress(nextStep, taskResult);
             this.taskProgressLiveData.setValue(nextProgress);
@@ -421,8 +488,9 @@ public class PerformTaskViewModel extends AndroidViewModel {
         // step the user was at @liujoshua 2018/08/07
 
         this.task = task;
+        // recorder results are added in order with the step transitions, so finishing the task can't overtake them
         recorderManager = new RecorderManager(task, taskView.getIdentifier(), taskRunUuid, getApplication(),
-                taskResultManager, recorderConfigPresentationFactory);
+                taskResultManager, recorderConfigPresentationFactory, this::addAsyncActionResult);
         // Subscribe to the recorder results and put them in the async results.
 
         stepNavigator = stepNavigatorFactory.create(task, task.getProgressMarkers());
@@ -437,12 +505,13 @@ public class PerformTaskViewModel extends AndroidViewModel {
                 LOGGER.debug("taskResult: {}", taskResult);
                 compositeDisposable.add(
                         taskResultManagerConnectionSingle
+                                .observeOn(AndroidSchedulers.mainThread())
                                 .subscribe((resultManagerConnection) -> {
                                     if (sharedPrefsArgs != null) {
-                                        resultManagerConnection.addAsyncActionResult(Maybe.fromCallable(
+                                        addAsyncActionResult(Maybe.fromCallable(
                                                 () -> new AnswerResultBase<>(LAST_RUN_RESULT_ID, Instant.now(), Instant.now(),
                                                         sharedPrefsArgs.lastRun, AnswerResultType.DATE)));
-                                        resultManagerConnection.addAsyncActionResult(Maybe.fromCallable(
+                                        addAsyncActionResult(Maybe.fromCallable(
                                                 () -> new AnswerResultBase<>(RUN_COUNT_RESULT_ID, Instant.now(), Instant.now(),
                                                         sharedPrefsArgs.runCount, AnswerResultType.INTEGER)));
                                     }
@@ -454,10 +523,42 @@ public class PerformTaskViewModel extends AndroidViewModel {
         });
     }
 
+    /**
+     * @return the task result to navigate by, which is empty until a task result is observed.
+     */
+    @NonNull
+    private TaskResult getNavigationTaskResult() {
+        TaskResult taskResult = getTaskResult();
+        return taskResult != null ? taskResult : new TaskResultBase(taskView.getIdentifier(), taskRunUuid);
+    }
+
     void taskResultObserver(TaskResult taskResult) {
         LOGGER.debug("Observed TaskResult: {}", taskResult);
     }
 
+    @VisibleForTesting
+    @MainThread
+    void onTaskResultManagerConnected(@NonNull TaskResultManagerConnection connection) {
+        taskResultManagerConnection = checkNotNull(connection);
+        Runnable action;
+        while ((action = pendingConnectionActions.poll()) != null) {
+            action.run();
+        }
+    }
+
+    /**
+     * Runs the action now if the TaskResultManager is connected, otherwise queues it to run once the connection is
+     * available, so step transitions requested before then happen in order without blocking the main thread.
+     */
+    @MainThread
+    private void whenConnected(@NonNull Runnable action) {
+        if (taskResultManagerConnection != null && pendingConnectionActions.isEmpty()) {
+            action.run();
+        } else {
+            pendingConnectionActions.add(action);
+        }
+    }
+
     /**
      * Class encapsulating a StepView and the direction of the transition to it
      */
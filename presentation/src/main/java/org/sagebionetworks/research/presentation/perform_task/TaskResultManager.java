@@ -2,8 +2,6 @@ package org.sagebionetworks.research.presentation.perform_task;
 
 import androidx.annotation.NonNull;
 
-import com.google.common.collect.ImmutableSet;
-
 import org.sagebionetworks.research.domain.result.interfaces.Result;
 import org.sagebionetworks.research.domain.result.interfaces.TaskResult;
 
@@ -23,12 +21,18 @@ public interface TaskResultManager {
 
         void addStepResult(@NonNull Result stepResult);
 
+        /**
+         * Adds an async result which is already available, keeping whichever of it and the async result with the same
+         * identifier started later.
+         */
+        void upsertAsyncResult(@NonNull Result asyncResult);
+
         void disconnect();
 
         void finishTask();
 
         @NonNull
-        Observable<ImmutableSet<Maybe<? extends Result>>> getAsyncResultsObservable();
+        Observable<Maybe<? extends Result>> getAsyncResultsObservable();
 
         @NonNull
         Single<TaskResult> getFinalTaskResult();
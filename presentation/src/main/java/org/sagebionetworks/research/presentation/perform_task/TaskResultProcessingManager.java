@@ -4,6 +4,7 @@ import androidx.annotation.NonNull;
 
 import org.sagebionetworks.research.domain.result.interfaces.TaskResult;
 
+import java.util.Map;
 import java.util.UUID;
 
 import io.reactivex.Completable;
@@ -19,6 +20,36 @@ public interface TaskResultProcessingManager {
         Completable processTaskResult(TaskResult taskResult);
     }
 
+    /**
+     * A TaskResultProcessor which says how soon it should run. Processors with a lower priority are started first,
+     * so light processors, such as archiving the result locally, don't wait behind heavy ones, such as packaging it
+     * for upload. Processors which don't implement this run with PRIORITY_DEFAULT.
+     */
+    interface PrioritizedTaskResultProcessor extends TaskResultProcessor {
+        int PRIORITY_HIGH = 0;
+
+        int PRIORITY_DEFAULT = 100;
+
+        int PRIORITY_LOW = 200;
+
+        int getPriority();
+    }
+
+    /**
+     * A TaskResultProcessor which is safe to run more than once on the same task result, such as one which overwrites
+     * what an earlier attempt wrote. Only these processors are timed out and retried as the
+     * TaskResultProcessingPolicy says. Other processors, such as packaging a result for upload, run once and are
+     * never cancelled.
+     */
+    interface RetryableTaskResultProcessor extends TaskResultProcessor {
+    }
+
+    /**
+     * @return the metrics of each task result processor, across every task run registered so far.
+     */
+    @NonNull
+    Map<TaskResultProcessor, TaskResultProcessorMetrics> getProcessorMetrics();
+
     /**
      * Registers a task run. Each task result processor will receive the final task result from TaskResultService for
      * processing.
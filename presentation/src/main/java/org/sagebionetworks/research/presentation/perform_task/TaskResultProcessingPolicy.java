@@ -0,0 +1,86 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.presentation.perform_task;
+
+import androidx.annotation.NonNull;
+
+import com.google.auto.value.AutoValue;
+
+import org.threeten.bp.Duration;
+
+/**
+ * How BoundServiceTaskResultProcessingManager runs the TaskResultProcessors of a task run. At most maxConcurrency
+ * processors run at once. Each attempt of a RetryableTaskResultProcessor fails if it takes longer than the timeout,
+ * and a failed one is retried up to maxRetries times, waiting the initial backoff before the first retry and twice as
+ * long before each retry after it. Other processors run once with no timeout.
+ * <p>
+ * Apps can bind their own policy, otherwise DEFAULT is used.
+ */
+@AutoValue
+public abstract class TaskResultProcessingPolicy {
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract TaskResultProcessingPolicy build();
+
+        public abstract Builder setInitialBackoff(@NonNull Duration initialBackoff);
+
+        public abstract Builder setMaxConcurrency(int maxConcurrency);
+
+        public abstract Builder setMaxRetries(int maxRetries);
+
+        public abstract Builder setTimeout(@NonNull Duration timeout);
+    }
+
+    public static final TaskResultProcessingPolicy DEFAULT = builder()
+            .setInitialBackoff(Duration.ofSeconds(1))
+            .setMaxConcurrency(2)
+            .setMaxRetries(2)
+            .setTimeout(Duration.ofMinutes(2))
+            .build();
+
+    public static Builder builder() {
+        return new AutoValue_TaskResultProcessingPolicy.Builder();
+    }
+
+    @NonNull
+    public abstract Duration getInitialBackoff();
+
+    public abstract int getMaxConcurrency();
+
+    public abstract int getMaxRetries();
+
+    @NonNull
+    public abstract Duration getTimeout();
+
+    public abstract Builder toBuilder();
+}
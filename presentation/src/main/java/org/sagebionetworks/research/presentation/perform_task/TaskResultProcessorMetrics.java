@@ -0,0 +1,144 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.presentation.perform_task;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the runs of one TaskResultProcessor across task runs, so a processor which slows down or fails task result
+ * processing can be told apart from the others. Latencies are measured from the first attempt of a run until the
+ * run succeeds or gives up, so they include timeouts and retries.
+ */
+public final class TaskResultProcessorMetrics {
+    private final AtomicLong failureCount = new AtomicLong();
+
+    private final AtomicLong lastLatencyMillis = new AtomicLong();
+
+    private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+    private final AtomicLong retryCount = new AtomicLong();
+
+    private final AtomicLong successCount = new AtomicLong();
+
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+
+    /**
+     * @return the mean latency of the runs which have finished, or 0 if none has.
+     */
+    public long getAverageLatencyMillis() {
+        long runs = getRunCount();
+        return runs == 0 ? 0 : totalLatencyMillis.get() / runs;
+    }
+
+    /**
+     * @return the number of runs which failed after every retry.
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    public long getLastLatencyMillis() {
+        return lastLatencyMillis.get();
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis.get();
+    }
+
+    /**
+     * @return the number of attempts which failed and were retried.
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * @return the number of runs which have finished, successfully or not.
+     */
+    public long getRunCount() {
+        return successCount.get() + failureCount.get();
+    }
+
+    public long getSuccessCount() {
+        return successCount.get();
+    }
+
+    /**
+     * @return the number of attempts which took longer than the timeout, whether or not they were retried.
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "TaskResultProcessorMetrics{" +
+                "successCount=" + getSuccessCount() +
+                ", failureCount=" + getFailureCount() +
+                ", retryCount=" + getRetryCount() +
+                ", timeoutCount=" + getTimeoutCount() +
+                ", lastLatencyMillis=" + getLastLatencyMillis() +
+                ", averageLatencyMillis=" + getAverageLatencyMillis() +
+                ", maxLatencyMillis=" + getMaxLatencyMillis() +
+                '}';
+    }
+
+    void recordFailure(long latencyMillis) {
+        failureCount.incrementAndGet();
+        recordLatency(latencyMillis);
+    }
+
+    void recordRetry() {
+        retryCount.incrementAndGet();
+    }
+
+    void recordSuccess(long latencyMillis) {
+        successCount.incrementAndGet();
+        recordLatency(latencyMillis);
+    }
+
+    void recordTimeout() {
+        timeoutCount.incrementAndGet();
+    }
+
+    private void recordLatency(long latencyMillis) {
+        lastLatencyMillis.set(latencyMillis);
+        totalLatencyMillis.addAndGet(latencyMillis);
+        long max = maxLatencyMillis.get();
+        while (latencyMillis > max && !maxLatencyMillis.compareAndSet(max, latencyMillis)) {
+            max = maxLatencyMillis.get();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.presentation.perform_task;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import androidx.annotation.NonNull;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.sagebionetworks.research.domain.result.interfaces.TaskResult;
+import org.sagebionetworks.research.presentation.perform_task.TaskResultProcessingManager.PrioritizedTaskResultProcessor;
+import org.sagebionetworks.research.presentation.perform_task.TaskResultProcessingManager.RetryableTaskResultProcessor;
+import org.sagebionetworks.research.presentation.perform_task.TaskResultProcessingManager.TaskResultProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+
+/**
+ * Runs TaskResultProcessors on a final TaskResult as the TaskResultProcessingPolicy says. Processors are started in
+ * order of priority, at most maxConcurrency at once, and each one's run is counted on its own, so a slow or failing
+ * processor neither holds back the ones before it nor hides which processor it is. Only processors which opt in by
+ * implementing RetryableTaskResultProcessor are timed out and retried.
+ */
+class TaskResultProcessorPipeline {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskResultProcessorPipeline.class);
+
+    // the longest a retry waits is the initial backoff times 2 to the power of this
+    private static final int MAX_BACKOFF_DOUBLINGS = 16;
+
+    // in the order the processors are started
+    private final ImmutableMap<TaskResultProcessor, TaskResultProcessorMetrics> processorMetrics;
+
+    private final TaskResultProcessingPolicy policy;
+
+    private final Scheduler scheduler;
+
+    /**
+     * @param processors
+     *         the processors, processors of the same priority are started in the order they're given.
+     * @param policy
+     *         the policy to run them with.
+     * @param scheduler
+     *         the scheduler timeouts and retries are run on.
+     */
+    TaskResultProcessorPipeline(@NonNull Collection<? extends TaskResultProcessor> processors,
+            @NonNull TaskResultProcessingPolicy policy, @NonNull Scheduler scheduler) {
+        checkNotNull(processors);
+        this.policy = checkNotNull(policy);
+        this.scheduler = checkNotNull(scheduler);
+        checkArgument(policy.getMaxConcurrency() > 0, "maxConcurrency must be positive");
+        checkArgument(policy.getMaxRetries() >= 0, "maxRetries cannot be negative");
+        checkArgument(!policy.getTimeout().isNegative() && !policy.getTimeout().isZero(),
+                "timeout must be positive");
+        checkArgument(!policy.getInitialBackoff().isNegative(), "initialBackoff cannot be negative");
+
+        List<TaskResultProcessor> ordered = new ArrayList<>(processors);
+        // Collections.sort is stable, so processors of the same priority keep their order
+        Collections.sort(ordered, (a, b) -> Integer.compare(getPriority(a), getPriority(b)));
+        ImmutableMap.Builder<TaskResultProcessor, TaskResultProcessorMetrics> builder = ImmutableMap.builder();
+        for (TaskResultProcessor processor : ordered) {
+            builder.put(checkNotNull(processor), new TaskResultProcessorMetrics());
+        }
+        processorMetrics = builder.build();
+    }
+
+    static int getPriority(@NonNull TaskResultProcessor processor) {
+        if (processor instanceof PrioritizedTaskResultProcessor) {
+            return ((PrioritizedTaskResultProcessor) processor).getPriority();
+        }
+        return PrioritizedTaskResultProcessor.PRIORITY_DEFAULT;
+    }
+
+    /**
+     * @return the metrics of each processor, in the order the processors are started.
+     */
+    @NonNull
+    ImmutableMap<TaskResultProcessor, TaskResultProcessorMetrics> getProcessorMetrics() {
+        return processorMetrics;
+    }
+
+    /**
+     * Runs every processor on the task result. Completes once every processor has completed, or errors once every
+     * processor has finished if any of them failed after its retries.
+     *
+     * @param taskResult
+     *         the final task result.
+     * @return the run of the processors.
+     */
+    @NonNull
+    Completable process(@NonNull TaskResult taskResult) {
+        checkNotNull(taskResult);
+        return Flowable.fromIterable(processorMetrics.entrySet())
+                .flatMapCompletable(entry -> process(entry, taskResult), true, policy.getMaxConcurrency());
+    }
+
+    @NonNull
+    private Completable process(@NonNull Entry<TaskResultProcessor, TaskResultProcessorMetrics> entry,
+            @NonNull TaskResult taskResult) {
+        TaskResultProcessor processor = entry.getKey();
+        TaskResultProcessorMetrics metrics = entry.getValue();
+        return Completable.defer(() -> {
+            long start = scheduler.now(TimeUnit.MILLISECONDS);
+            Completable attempts = Completable.defer(() -> processor.processTaskResult(taskResult));
+            if (processor instanceof RetryableTaskResultProcessor) {
+                attempts = attempts
+                        .timeout(policy.getTimeout().toMillis(), TimeUnit.MILLISECONDS, scheduler)
+                        .doOnError(t -> {
+                            if (t instanceof TimeoutException) {
+                                metrics.recordTimeout();
+                            }
+                        })
+                        .retryWhen(errors -> retryWithBackoff(processor, metrics, errors));
+            }
+
+            return attempts
+                    .doOnComplete(() -> {
+                        long latencyMillis = scheduler.now(TimeUnit.MILLISECONDS) - start;
+                        metrics.recordSuccess(latencyMillis);
+                        LOGGER.debug("Task result processor {} finished in {} ms", processor, latencyMillis);
+                    })
+                    .doOnError(t -> {
+                        long latencyMillis = scheduler.now(TimeUnit.MILLISECONDS) - start;
+                        metrics.recordFailure(latencyMillis);
+                        LOGGER.warn("Task result processor {} failed after {} ms", processor, latencyMillis, t);
+                    });
+        });
+    }
+
+    @NonNull
+    private Flowable<Long> retryWithBackoff(@NonNull TaskResultProcessor processor,
+            @NonNull TaskResultProcessorMetrics metrics, @NonNull Flowable<Throwable> errors) {
+        AtomicInteger retries = new AtomicInteger();
+        return errors.flatMap(t -> {
+            int retry = retries.incrementAndGet();
+            if (retry > policy.getMaxRetries()) {
+                return Flowable.<Long>error(t);
+            }
+
+            metrics.recordRetry();
+            long backoffMillis = policy.getInitialBackoff().toMillis()
+                    << Math.min(retry - 1, MAX_BACKOFF_DOUBLINGS);
+            LOGGER.info("Retrying task result processor {} in {} ms, retry {} of {}", processor, backoffMillis,
+                    retry, policy.getMaxRetries(), t);
+            return Flowable.timer(backoffMillis, TimeUnit.MILLISECONDS, scheduler);
+        });
+    }
+}
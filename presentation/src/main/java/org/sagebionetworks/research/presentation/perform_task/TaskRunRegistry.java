@@ -0,0 +1,372 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.presentation.perform_task;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import androidx.annotation.CheckResult;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.sagebionetworks.research.domain.repository.TaskRepository;
+import org.sagebionetworks.research.domain.result.implementations.TaskResultBase;
+import org.sagebionetworks.research.domain.result.interfaces.Result;
+import org.sagebionetworks.research.domain.result.interfaces.TaskResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+
+import io.reactivex.Completable;
+import io.reactivex.Maybe;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.BehaviorSubject;
+import io.reactivex.subjects.CompletableSubject;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+
+/**
+ * The task runs of a TaskResultService. Each task run's task result is loaded from the TaskRepository when the task
+ * run is registered, updated with the synchronous and asynchronous results added to it and journaled back to the
+ * repository.
+ */
+class TaskRunRegistry {
+    /**
+     * The state of a single task run. Changes to the task result, the async result set and the subjects which publish
+     * them are made while holding the TaskRun's lock, so each run is updated in order without blocking other runs.
+     */
+    private static final class TaskRun {
+        final AsyncResultAggregator asyncResults;
+
+        // only changed while holding TaskRunRegistry.taskRuns
+        final AtomicInteger binderCount = new AtomicInteger(1);
+
+        final CompositeDisposable disposables = new CompositeDisposable();
+
+        // write the journal of task result changes in order
+        final Subject<Completable> journal = PublishSubject.<Completable>create().toSerialized();
+
+        final CompletableSubject performTaskCompletable = CompletableSubject.create();
+
+        final BehaviorSubject<TaskResult> taskResultObservable = BehaviorSubject.create();
+
+        final Single<TaskResult> taskResultSingle = taskResultObservable.lastOrError();
+
+        // changes made before the task result is loaded, applied in order once it is
+        final List<Runnable> pendingChanges = new ArrayList<>();
+
+        // completes once the task result is loaded, set before the task run is registered
+        Completable loadCompletable;
+
+        @Nullable
+        volatile TaskResult taskResult;
+
+        TaskRun(@NonNull AsyncResultAggregator asyncResults) {
+            this.asyncResults = asyncResults;
+            disposables.add(asyncResults);
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskRunRegistry.class);
+
+    private final TaskRepository taskRepository;
+
+    // reads don't lock, registering and deregistering a task run hold the map's lock
+    private final ConcurrentHashMap<UUID, TaskRun> taskRuns = new ConcurrentHashMap<>();
+
+    @Inject
+    TaskRunRegistry(@NonNull TaskRepository taskRepository) {
+        this.taskRepository = checkNotNull(taskRepository);
+    }
+
+    /**
+     * Removes every task run, letting pending journal writes finish so the task runs can be resumed.
+     */
+    void clear() {
+        for (TaskRun taskRun : taskRuns.values()) {
+            taskRun.disposables.dispose();
+            taskRun.journal.onComplete();
+        }
+        taskRuns.clear();
+    }
+
+    void deregisterTaskRun(final UUID taskRunUUID) {
+        TaskRun taskRun;
+        // the last binder removes the task run, atomically with respect to registerTaskRun
+        synchronized (taskRuns) {
+            taskRun = taskRuns.get(taskRunUUID);
+            if (taskRun == null) {
+                LOGGER.warn("deregister called for unknown taskRunUUID: {}", taskRunUUID);
+                return;
+            }
+
+            if (taskRun.binderCount.decrementAndGet() > 0) {
+                return;
+            }
+
+            taskRuns.remove(taskRunUUID);
+        }
+
+        taskRun.disposables.dispose();
+        // pending changes are still written after the run is deregistered
+        taskRun.journal.onComplete();
+    }
+
+    /**
+     * @return completes when task result is ready
+     */
+    @CheckResult
+    Completable registerTaskRun(@NonNull String taskIdentifier, @NonNull UUID taskRunUUID) {
+        TaskRun taskRun = new TaskRun(
+                new AsyncResultAggregator(result -> upsertAsyncResult(taskRunUUID, result), Schedulers.io()));
+
+        // load the initial task result, resuming from the journal if the task run was interrupted. A journal that
+        // can't be read fails the load rather than being overwritten by a new task result.
+        Single<TaskResult> taskResultSingle = taskRepository
+                .getTaskResult(taskRunUUID)
+                .subscribeOn(Schedulers.io())
+                .doOnError(t -> LOGGER.warn("Failed to read the task result for taskRunUUID {}, leaving it in place",
+                        taskRunUUID, t))
+                .switchIfEmpty(Single.fromCallable(() -> {
+                    TaskResult taskResult = new TaskResultBase(taskIdentifier, taskRunUUID);
+                    // the snapshot the journaled changes will be applied to
+                    taskRun.journal.onNext(taskRepository.setTaskResult(taskResult));
+                    return taskResult;
+                }))
+                .cache();
+        taskRun.loadCompletable = taskResultSingle.ignoreElement();
+
+        synchronized (taskRuns) {
+            TaskRun run = taskRuns.get(taskRunUUID);
+            if (run != null) {
+                run.binderCount.incrementAndGet();
+                // the task run is shared, so this binder is ready once the first binder's load completes
+                return run.loadCompletable;
+            }
+
+            taskRuns.put(taskRunUUID, taskRun);
+        }
+
+        taskRun.journal.concatMapCompletable(change -> change
+                .doOnError(t -> LOGGER.warn("Error journaling task result for taskRunUUID {}", taskRunUUID, t))
+                .onErrorComplete())
+                .subscribe();
+
+        // let's log the task completion
+        taskRun.disposables.add(
+                taskRun.performTaskCompletable
+                        .subscribeOn(Schedulers.io())
+                        .doOnComplete(() ->
+                                LOGGER.debug("task completion received for taskRunUUID {}", taskRunUUID))
+                        .subscribe(
+                                () -> {},
+                                throwable -> LOGGER.debug("task completion threw throwable {}", throwable))
+        );
+
+        // wait for all async results to come back, then mark the task result observable as finished
+        taskRun.disposables.add(
+                taskRun.asyncResults.getCompletion()
+                        .subscribe(() -> {
+                            LOGGER.debug("completed work for taskRunUUID {}", taskRunUUID);
+                            // async results complete and task complete, no more updates to TaskResult observable
+                            synchronized (taskRun) {
+                                taskRun.taskResultObservable.onComplete();
+                            }
+                        }));
+
+        taskRun.disposables.add(
+                taskResultSingle
+                        .subscribe(
+                                tr -> {
+                                    synchronized (taskRun) {
+                                        updateTaskResult(taskRun, tr);
+                                        for (Runnable change : taskRun.pendingChanges) {
+                                            change.run();
+                                        }
+                                        taskRun.pendingChanges.clear();
+                                    }
+                                },
+                                t -> {
+                                    synchronized (taskRun) {
+                                        LOGGER.warn("Dropping {} changes to the task result that failed to load",
+                                                taskRun.pendingChanges.size());
+                                        taskRun.pendingChanges.clear();
+                                        taskRun.taskResultObservable.onError(t);
+                                    }
+                                }
+                        ));
+
+        return taskRun.loadCompletable;
+    }
+
+    /**
+     * Adds an async result to the task result associated with the taskRunUUID.
+     * If an async result with the same identifier already exists,
+     * The task result will only store the one with the most recent startTime.
+     * @param taskRunUUID associated with the task result to add the async result to
+     * @param asyncResult to add to the task result
+     */
+    void addAsyncResult(UUID taskRunUUID, Result asyncResult) {
+        checkState(!isTaskFinished(taskRunUUID));
+        upsertAsyncResult(taskRunUUID, asyncResult);
+    }
+
+    void addAsyncResult(UUID taskRunUUID, Maybe<? extends Result> resultMaybe) {
+        // this can be called when task is marked finished since it is used internally by the service
+        if (!getTaskRun(taskRunUUID).asyncResults.add(resultMaybe)) {
+            LOGGER.warn("Async result added after all async results completed for taskRunUUID {}", taskRunUUID);
+        }
+    }
+
+    void addStepResult(UUID taskRunUUID, Result stepResult) {
+        checkState(!isTaskFinished(taskRunUUID));
+        LOGGER.debug("received step result: {}, updating task result for uuid: {}", stepResult, taskRunUUID);
+
+        TaskRun taskRun = getTaskRun(taskRunUUID);
+        whenLoaded(taskRun, () -> {
+            updateTaskResult(taskRun, taskRun.taskResult.addStepHistory(stepResult));
+            taskRun.journal.onNext(taskRepository.addStepHistory(taskRunUUID, stepResult));
+        });
+    }
+
+    void removeStepResult(UUID taskRunUUID, Result stepResult) {
+        checkState(!isTaskFinished(taskRunUUID));
+        LOGGER.debug("removing step result: {}, updating task result for uuid: {}", stepResult, taskRunUUID);
+
+        TaskRun taskRun = getTaskRun(taskRunUUID);
+        whenLoaded(taskRun, () -> {
+            TaskResult taskResult = taskRun.taskResult.removeStepHistory(stepResult);
+            if (taskResult != null) {
+                updateTaskResult(taskRun, taskResult);
+                taskRun.journal.onNext(taskRepository.removeStepHistory(taskRunUUID, stepResult));
+            }
+        });
+    }
+
+    void finish(UUID taskRunUUID) {
+        checkState(!isTaskFinished(taskRunUUID));
+        LOGGER.debug("finished called for task run: {]", taskRunUUID);
+
+        TaskRun taskRun = getTaskRun(taskRunUUID);
+        synchronized (taskRun) {
+            // task is complete
+            taskRun.performTaskCompletable.onComplete();
+            // source of async results complete, no more will be added
+            taskRun.asyncResults.close();
+        }
+    }
+
+    Observable<Maybe<? extends Result>> getAsyncResults(UUID taskRunUUID) {
+        return getTaskRun(taskRunUUID).asyncResults.getAsyncResults();
+    }
+
+    Single<TaskResult> getFinalTaskResult(UUID taskRunUUID) {
+        return getTaskRun(taskRunUUID).taskResultSingle;
+    }
+
+    TaskResult getLatestTaskResult(UUID taskRunUUID) {
+        TaskRun taskRun = taskRuns.get(taskRunUUID);
+        return taskRun == null ? null : taskRun.taskResult;
+    }
+
+    Observable<TaskResult> getTaskResultObservable(UUID taskRunUUID) {
+        return getTaskRun(taskRunUUID).taskResultObservable;
+    }
+
+    boolean isTaskFinished(UUID taskRunUUID) {
+        TaskRun taskRun = taskRunUUID == null ? null : taskRuns.get(taskRunUUID);
+
+        return taskRun != null && taskRun.performTaskCompletable.hasComplete();
+    }
+
+    /**
+     * Upserts the async result, which may arrive after the task is finished when it comes from the async results
+     * the task run was waiting on.
+     */
+    private void upsertAsyncResult(UUID taskRunUUID, Result asyncResult) {
+        TaskRun taskRun = getTaskRun(taskRunUUID);
+        whenLoaded(taskRun, () -> {
+            TaskResult taskResult = taskRun.taskResult;
+            TaskResult newTaskResult = taskResult.upsertAsyncResult(asyncResult);
+            if (newTaskResult != taskResult) {
+                updateTaskResult(taskRun, newTaskResult);
+                // replaying the journal replaces the async result with the same identifier, like the upsert
+                taskRun.journal.onNext(taskRepository.addAsyncResult(taskRunUUID, asyncResult));
+            } else {
+                LOGGER.debug("Ignoring async result {}, a result with the same identifier started later",
+                        asyncResult);
+            }
+        });
+    }
+
+    /**
+     * Must be called while holding the task run's lock.
+     */
+    private void updateTaskResult(TaskRun taskRun, TaskResult newTaskResult) {
+        taskRun.taskResult = newTaskResult;
+        taskRun.taskResultObservable.onNext(newTaskResult);
+    }
+
+    /**
+     * Applies a change to the task run's task result while holding its lock, or queues the change to be applied in
+     * order once the task result is loaded.
+     */
+    private void whenLoaded(TaskRun taskRun, Runnable change) {
+        synchronized (taskRun) {
+            if (taskRun.taskResultObservable.hasThrowable()) {
+                LOGGER.warn("Dropping change to the task result that failed to load");
+            } else if (taskRun.taskResult == null) {
+                taskRun.pendingChanges.add(change);
+            } else {
+                change.run();
+            }
+        }
+    }
+
+    @NonNull
+    private TaskRun getTaskRun(UUID taskRunUUID) {
+        TaskRun taskRun = taskRuns.get(checkNotNull(taskRunUUID));
+        checkState(taskRun != null, "Unknown taskRunUUID: %s", taskRunUUID);
+        return taskRun;
+    }
+}
@@ -32,6 +32,9 @@
 
 package org.sagebionetworks.research.presentation.recorder;
 
+import androidx.annotation.NonNull;
+
+import org.sagebionetworks.research.domain.async.RecorderCompression;
 import org.sagebionetworks.research.presentation.async.AsyncActionPresentation;
 
 public interface RecorderConfigPresentation extends AsyncActionPresentation {
@@ -39,4 +42,11 @@ public interface RecorderConfigPresentation extends AsyncActionPresentation {
     String END = "last";
 
     String getStopStepIdentifier();
+
+    /**
+     * @return how the recorder compresses its file while recording.
+     */
+    @NonNull
+    @RecorderCompression
+    String getCompression();
 }
@@ -38,6 +38,7 @@ import androidx.annotation.Nullable;
 import com.google.auto.value.AutoValue;
 
 import org.sagebionetworks.research.domain.async.DistanceRecorderConfiguration;
+import org.sagebionetworks.research.domain.async.RecorderCompression;
 import org.sagebionetworks.research.domain.async.RecorderConfiguration;
 import org.sagebionetworks.research.presentation.inject.RecorderConfigPresentationFactory;
 import org.sagebionetworks.research.presentation.recorder.RecorderConfigPresentation;
@@ -49,6 +50,8 @@ public abstract class DistanceRecorderConfigPresentationImpl implements Distance
     public abstract static class Builder {
         public abstract DistanceRecorderConfigPresentationImpl build();
 
+        public abstract Builder setCompression(@NonNull @RecorderCompression String compression);
+
         public abstract Builder setIdentifier(@NonNull String identifier);
 
         public abstract Builder setStartStepIdentifier(@Nullable String startStepIdentifier);
@@ -70,7 +73,12 @@ public abstract class DistanceRecorderConfigPresentationImpl implements Distance
                                 + " is not a DistanceRecorderConfiguration");
             }
 
-            return DistanceRecorderConfigPresentationImpl.builder()
+            DistanceRecorderConfigPresentationImpl.Builder builder = DistanceRecorderConfigPresentationImpl.builder();
+            if (configuration.getCompression() != null) {
+                builder.setCompression(configuration.getCompression());
+            }
+
+            return builder
                     .setIdentifier(configuration.getIdentifier())
                     .setType(configuration.getType())
                     .setStartStepIdentifier(
@@ -82,6 +90,12 @@ public abstract class DistanceRecorderConfigPresentationImpl implements Distance
     }
 
     public static Builder builder() {
-        return new AutoValue_DistanceRecorderConfigPresentationImpl.Builder();
+        return new AutoValue_DistanceRecorderConfigPresentationImpl.Builder()
+                .setCompression(RecorderCompression.NONE);
     }
+
+    @Override
+    @NonNull
+    @RecorderCompression
+    public abstract String getCompression();
 }
@@ -0,0 +1,105 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.presentation.recorder.reactive;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Controls when a ReactiveFileResultRecorder writes events to disk. Events are collected into batches of at most
+ * maxBatchCount events, or whatever arrived within maxBatchLatencyMs, and each batch is encoded into a direct buffer
+ * of bufferCapacityBytes. The buffer is written to the file when a batch ends, when it fills up, and when the
+ * recorder stops. If syncEachBatch is set the file is forced to storage after every batch, so a crash loses at most
+ * the batch that was being collected.
+ */
+public class FlushPolicy {
+    public static final FlushPolicy DEFAULT = new FlushPolicyBuilder().build();
+
+    private static final int BATCH_COUNT_DEFAULT = 512;
+
+    private static final long BATCH_LATENCY_MS_DEFAULT = 1000;
+
+    private static final int BUFFER_CAPACITY_BYTES_DEFAULT = 64 * 1024;
+
+    public final int bufferCapacityBytes;
+
+    public final int maxBatchCount;
+
+    public final long maxBatchLatencyMs;
+
+    public final boolean syncEachBatch;
+
+    private FlushPolicy(final int bufferCapacityBytes, final int maxBatchCount, final long maxBatchLatencyMs,
+            final boolean syncEachBatch) {
+        this.bufferCapacityBytes = bufferCapacityBytes;
+        this.maxBatchCount = maxBatchCount;
+        this.maxBatchLatencyMs = maxBatchLatencyMs;
+        this.syncEachBatch = syncEachBatch;
+    }
+
+    public static class FlushPolicyBuilder {
+        private int bufferCapacityBytes = BUFFER_CAPACITY_BYTES_DEFAULT;
+
+        private int maxBatchCount = BATCH_COUNT_DEFAULT;
+
+        private long maxBatchLatencyMs = BATCH_LATENCY_MS_DEFAULT;
+
+        private boolean syncEachBatch = true;
+
+        public FlushPolicy build() {
+            return new FlushPolicy(bufferCapacityBytes, maxBatchCount, maxBatchLatencyMs, syncEachBatch);
+        }
+
+        public FlushPolicyBuilder setBufferCapacityBytes(final int bufferCapacityBytes) {
+            checkArgument(bufferCapacityBytes > 0, "bufferCapacityBytes must be positive");
+            this.bufferCapacityBytes = bufferCapacityBytes;
+            return this;
+        }
+
+        public FlushPolicyBuilder setMaxBatchCount(final int maxBatchCount) {
+            checkArgument(maxBatchCount > 0, "maxBatchCount must be positive");
+            this.maxBatchCount = maxBatchCount;
+            return this;
+        }
+
+        public FlushPolicyBuilder setMaxBatchLatencyMs(final long maxBatchLatencyMs) {
+            checkArgument(maxBatchLatencyMs > 0, "maxBatchLatencyMs must be positive");
+            this.maxBatchLatencyMs = maxBatchLatencyMs;
+            return this;
+        }
+
+        public FlushPolicyBuilder setSyncEachBatch(final boolean syncEachBatch) {
+            this.syncEachBatch = syncEachBatch;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.recorder.reactive;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import androidx.annotation.CallSuper;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.google.common.collect.ImmutableList;
+
+import org.reactivestreams.Subscription;
+import org.sagebionetworks.research.domain.async.RecorderCompression;
+import org.sagebionetworks.research.domain.result.implementations.FileResultBase;
+import org.sagebionetworks.research.domain.result.interfaces.FileResult;
+import org.sagebionetworks.research.presentation.recorder.sensor.DeviceMotionUtil.SensorEventPOJO;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSample;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSampleRingBuffer;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSummary;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSummaryPublisher;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSummarySource;
+import org.sagebionetworks.research.presentation.recorder.sensor.columnar.ColumnarSensorFormat;
+import org.sagebionetworks.research.presentation.recorder.sensor.columnar.ColumnarSensorReference;
+import org.sagebionetworks.research.presentation.recorder.sensor.columnar.ColumnarSensorWriter;
+import org.sagebionetworks.research.presentation.recorder.sensor.columnar.SensorColumnDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.subjects.MaybeSubject;
+
+/**
+ * Records SensorSamples to a file in the columnar motion recorder format, optionally gzip compressed. The file can be
+ * converted to the json motion recorder schema with ColumnarSensorJsonConverter.
+ * <p>
+ * When the samples come from a SensorSampleRingBuffer, each sample is released back to it once it's written or
+ * skipped, and the ring's sample counts are added to the FileResult as metadata.
+ */
+public class ReactiveColumnarSensorRecorder extends ReactiveRecorder<SensorSample, FileResult>
+        implements SensorSummarySource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveColumnarSensorRecorder.class);
+
+    private static final int GZIP_BUFFER_SIZE = 8 * 1024;
+
+    @RecorderCompression
+    protected final String compression;
+
+    protected final File outputFile;
+
+    protected ColumnarSensorWriter writer;
+
+    private final CompositeDisposable compositeDisposable;
+
+    private final List<SensorColumnDescriptor> descriptors;
+
+    private final MaybeSubject<FileResult> fileResultMaybeSubject;
+
+    @Nullable
+    private final SensorSampleRingBuffer ringBuffer;
+
+    private final SensorSummaryPublisher sensorSummaryPublisher = new SensorSummaryPublisher();
+
+    // allows us to cancel our subscription
+    private Subscription reactiveDataSubscription;
+
+    private final AtomicBoolean success = new AtomicBoolean(false);
+
+    public ReactiveColumnarSensorRecorder(@NonNull String identifier, @NonNull Flowable<SensorSample> sampleFlowable,
+            @NonNull List<SensorColumnDescriptor> descriptors, @NonNull File outputFile) {
+        this(identifier, sampleFlowable, descriptors, outputFile, RecorderCompression.NONE, null,
+                RecorderSchedulers.defaults());
+    }
+
+    public ReactiveColumnarSensorRecorder(@NonNull String identifier, @NonNull Flowable<SensorSample> sampleFlowable,
+            @NonNull List<SensorColumnDescriptor> descriptors, @NonNull File outputFile,
+            @NonNull @RecorderCompression String compression, @Nullable SensorSampleRingBuffer ringBuffer,
+            @NonNull RecorderSchedulers schedulers) {
+        super(identifier, sampleFlowable, schedulers);
+
+        this.descriptors = ImmutableList.copyOf(checkNotNull(descriptors));
+        this.outputFile = checkNotNull(outputFile);
+        checkArgument(RecorderCompression.NONE.equals(compression) || RecorderCompression.GZIP.equals(compression),
+                "Unsupported compression %s", compression);
+        this.compression = compression;
+        this.ringBuffer = ringBuffer;
+
+        this.fileResultMaybeSubject = MaybeSubject.create();
+
+        this.compositeDisposable = new CompositeDisposable();
+
+        Flowable<SensorSample> writeFlowable = getEventFlowable();
+        if (!schedulers.isSingleWriter()) {
+            writeFlowable = writeFlowable.observeOn(schedulers.writeScheduler);
+        }
+        compositeDisposable.add(
+                writeFlowable
+                        .doOnSubscribe(this::onReactiveDataSubscribe)
+                        .doOnCancel(this::onReactiveDataCancel)
+                        .doFinally(this::doReactiveDataFinally)
+                        .subscribe(this::onReactiveDataNext, this::onReactiveDataError,
+                                this::onReactiveDataComplete));
+    }
+
+    @Override
+    @CallSuper
+    public void cancelRecorder() {
+        super.cancelRecorder();
+        fileResultMaybeSubject.onComplete();
+        reactiveDataSubscription.cancel();
+    }
+
+    @Override
+    public Maybe<FileResult> getResult() {
+        return fileResultMaybeSubject;
+    }
+
+    /**
+     * Returns summaries of the recorded acceleration over a sliding window, each subscriber gets its own window,
+     * which reads each sample on the writer thread before the sample is released.
+     *
+     * @return summaries of the recorded acceleration.
+     */
+    @NonNull
+    @Override
+    public Flowable<SensorSummary> getSensorSummaries() {
+        return sensorSummaryPublisher.getSensorSummaries();
+    }
+
+    @VisibleForTesting
+    void onReactiveDataSubscribe(Subscription subscription) {
+        LOGGER.debug("reactive data subscribed for {}", identifier);
+
+        try {
+            reactiveDataSubscription = subscription;
+            // overwrites any file that already exists at this location
+            OutputStream fileStream = new FileOutputStream(outputFile);
+            if (RecorderCompression.GZIP.equals(compression)) {
+                fileStream = new GZIPOutputStream(fileStream, GZIP_BUFFER_SIZE);
+            }
+            writer = new ColumnarSensorWriter(fileStream, descriptors);
+        } catch (Throwable t) {
+            onReactiveDataError(t);
+        }
+    }
+
+    @VisibleForTesting
+    void doReactiveDataFinally() {
+        try {
+            if (writer != null) {
+                writer.close();
+            }
+        } catch (Throwable t) {
+            LOGGER.warn("Failed to close columnar writer for {}", identifier, t);
+        }
+        if (!success.get()) {
+            LOGGER.debug("Deleting output file");
+            outputFile.delete();
+        }
+
+        sensorSummaryPublisher.complete();
+        compositeDisposable.dispose();
+    }
+
+    @VisibleForTesting
+    void onReactiveDataCancel() {
+        LOGGER.debug("reactive data canceled for {}", identifier);
+
+        fileResultMaybeSubject.onComplete();
+    }
+
+    @VisibleForTesting
+    void onReactiveDataComplete() {
+        LOGGER.debug("reactive data completed for {}", identifier);
+
+        try {
+            writer.close();
+            success.set(true);
+            String contentEncoding = RecorderCompression.GZIP.equals(compression) ? RecorderCompression.GZIP : null;
+            fileResultMaybeSubject.onSuccess(new FileResultBase(identifier, startTime, stopTime,
+                    ColumnarSensorFormat.CONTENT_TYPE, outputFile.getPath(), contentEncoding,
+                    ringBuffer != null ? ringBuffer.getMetadata() : null));
+        } catch (Throwable t) {
+            onReactiveDataError(t);
+        }
+    }
+
+    @VisibleForTesting
+    void onReactiveDataError(Throwable t) {
+        LOGGER.debug("reactive data errored for {}", identifier, t);
+
+        fileResultMaybeSubject.onError(t);
+    }
+
+    @VisibleForTesting
+    void onReactiveDataNext(SensorSample sample) {
+        LOGGER.trace("reactive data received: {}", sample);
+        boolean written = false;
+        try {
+            sensorSummaryPublisher.add(sample);
+            if (writer.getReference() == null) {
+                writer.writeReference(ColumnarSensorReference.create(sample.sensor, sample.timestamp,
+                        SensorEventPOJO.instantOf(sample.timestamp)));
+            }
+            writer.writeSample(sample.sensorType, sample.timestamp, sample.accuracy, sample.values);
+            written = true;
+        } catch (Throwable t) {
+            onReactiveDataError(t);
+        } finally {
+            if (ringBuffer != null) {
+                ringBuffer.release(sample, written);
+            }
+        }
+    }
+
+    @Override
+    protected void onEventSkipped(@NonNull SensorSample sample) {
+        if (ringBuffer != null) {
+            ringBuffer.release(sample, false);
+        }
+    }
+}
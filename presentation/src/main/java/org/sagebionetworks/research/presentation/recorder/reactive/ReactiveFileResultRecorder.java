@@ -5,25 +5,33 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import androidx.annotation.CallSuper;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.google.common.base.Strings;
 import com.google.gson.Gson;
 
 import org.reactivestreams.Subscription;
+import org.sagebionetworks.research.domain.async.RecorderCompression;
 import org.sagebionetworks.research.domain.result.implementations.FileResultBase;
 import org.sagebionetworks.research.domain.result.interfaces.FileResult;
+import org.sagebionetworks.research.presentation.recorder.util.FileChannelOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
 
 import io.reactivex.Flowable;
 import io.reactivex.Maybe;
 import io.reactivex.disposables.CompositeDisposable;
-import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subjects.MaybeSubject;
 
 public class ReactiveFileResultRecorder<E> extends ReactiveRecorder<E, FileResult> {
@@ -32,11 +40,17 @@ public class ReactiveFileResultRecorder<E> extends ReactiveRecorder<E, FileResul
 
     public static final String JSON_MIME_CONTENT_TYPE = "application/json";
 
-    private static final String JSON_FILE_START = "[";
+    protected static final String JSON_FILE_START = "[";
 
-    private static final String JSON_FILE_END = "]";
+    protected static final String JSON_FILE_END = "]";
 
-    private static final String JSON_OBJECT_DELIMINATOR = ",";
+    protected static final String JSON_OBJECT_DELIMINATOR = ",";
+
+    // the deflater's output buffer, compressed bytes are then batched by the FileChannelOutputStream
+    private static final int GZIP_BUFFER_SIZE = 8 * 1024;
+
+    @RecorderCompression
+    protected final String compression;
 
     protected final String deliminator;
 
@@ -46,6 +60,8 @@ public class ReactiveFileResultRecorder<E> extends ReactiveRecorder<E, FileResul
 
     protected PrintStream outputStream;
 
+    protected final FlushPolicy flushPolicy;
+
     protected final String start;
 
     private final CompositeDisposable compositeDisposable;
@@ -54,29 +70,56 @@ public class ReactiveFileResultRecorder<E> extends ReactiveRecorder<E, FileResul
 
     private final MaybeSubject<FileResult> fileResultMaybeSubject;
 
-    private final Gson gson;
+    protected final Gson gson;
 
     private final AtomicBoolean isFirstJsonObject = new AtomicBoolean(true);
 
     // allows us to cancel our subscription
     private Subscription reactiveDataSubscription;
 
+    private FileChannelOutputStream fileChannelOutputStream;
+
+    @Nullable
+    private GZIPOutputStream gzipOutputStream;
+
     private final AtomicBoolean success = new AtomicBoolean(false);
 
     public static <E> ReactiveFileResultRecorder<E> createJsonArrayLogger(@NonNull String identifier,
             @NonNull Flowable<E> flowableData, @NonNull Gson gson, @NonNull File outputFile) {
+        return createJsonArrayLogger(identifier, flowableData, gson, outputFile, FlushPolicy.DEFAULT,
+                RecorderCompression.NONE, RecorderSchedulers.defaults());
+    }
+
+    public static <E> ReactiveFileResultRecorder<E> createJsonArrayLogger(@NonNull String identifier,
+            @NonNull Flowable<E> flowableData, @NonNull Gson gson, @NonNull File outputFile,
+            @NonNull FlushPolicy flushPolicy, @NonNull @RecorderCompression String compression,
+            @NonNull RecorderSchedulers schedulers) {
         return new ReactiveFileResultRecorder<>(identifier, flowableData, gson,
-                outputFile, JSON_MIME_CONTENT_TYPE, JSON_FILE_START, JSON_FILE_END, JSON_OBJECT_DELIMINATOR);
+                outputFile, JSON_MIME_CONTENT_TYPE, JSON_FILE_START, JSON_FILE_END, JSON_OBJECT_DELIMINATOR,
+                flushPolicy, compression, schedulers);
     }
 
     protected ReactiveFileResultRecorder(@NonNull String identifier,
             @NonNull Flowable<E> eventFlowable,
             @NonNull Gson gson, @NonNull File outputFile, @NonNull String fileMimeType, @NonNull String start,
             @NonNull String end, @NonNull String deliminator) {
-        super(identifier, eventFlowable);
+        this(identifier, eventFlowable, gson, outputFile, fileMimeType, start, end, deliminator,
+                FlushPolicy.DEFAULT, RecorderCompression.NONE, RecorderSchedulers.defaults());
+    }
+
+    protected ReactiveFileResultRecorder(@NonNull String identifier,
+            @NonNull Flowable<E> eventFlowable,
+            @NonNull Gson gson, @NonNull File outputFile, @NonNull String fileMimeType, @NonNull String start,
+            @NonNull String end, @NonNull String deliminator, @NonNull FlushPolicy flushPolicy,
+            @NonNull @RecorderCompression String compression, @NonNull RecorderSchedulers schedulers) {
+        super(identifier, eventFlowable, schedulers);
 
         this.gson = checkNotNull(gson);
         this.outputFile = checkNotNull(outputFile);
+        this.flushPolicy = checkNotNull(flushPolicy);
+        checkArgument(RecorderCompression.NONE.equals(compression) || RecorderCompression.GZIP.equals(compression),
+                "Unsupported compression %s", compression);
+        this.compression = compression;
         checkArgument(!Strings.isNullOrEmpty(fileMimeType), "fileMimeType cannot be null or empty");
         this.fileMimeType = fileMimeType;
         this.start = start;
@@ -87,13 +130,23 @@ public class ReactiveFileResultRecorder<E> extends ReactiveRecorder<E, FileResul
 
         this.compositeDisposable = new CompositeDisposable();
 
+        // batching means the write thread wakes up, and the file is written, once per batch instead of once per
+        // event. Timed batches can't be slowed down, so if the write thread falls behind they queue instead of failing
+        // the recording.
+        Flowable<List<E>> batchFlowable = getEventFlowable()
+                .buffer(flushPolicy.maxBatchLatencyMs, TimeUnit.MILLISECONDS, schedulers.eventScheduler,
+                        flushPolicy.maxBatchCount)
+                .filter(batch -> !batch.isEmpty())
+                .onBackpressureBuffer();
+        if (!schedulers.isSingleWriter()) {
+            batchFlowable = batchFlowable.observeOn(schedulers.writeScheduler);
+        }
         compositeDisposable.add(
-                getEventFlowable()
-                        .observeOn(Schedulers.io())
+                batchFlowable
                         .doOnSubscribe(this::onReactiveDataSubscribe)
                         .doOnCancel(this::onReactiveDataCancel)
                         .doFinally(this::doReactiveDataFinally)
-                        .subscribe(this::onReactiveDataNext, this::onReactiveDataError,
+                        .subscribe(this::onReactiveDataBatch, this::onReactiveDataError,
                                 this::onReactiveDataComplete));
     }
 
@@ -117,11 +170,16 @@ public class ReactiveFileResultRecorder<E> extends ReactiveRecorder<E, FileResul
         try {
             reactiveDataSubscription = subscription;
 
-            // Creating a new PrintSteam object here will overwrite any
+            // Creating a new FileChannelOutputStream here will overwrite any
             // file that already exists at this location
-            // If ever we want to allow for appending to a file,
-            // call new PrintStream(new FileOutputStream(outputFile, true));
-            outputStream = new PrintStream(this.outputFile);
+            fileChannelOutputStream = new FileChannelOutputStream(outputFile, flushPolicy.bufferCapacityBytes);
+            OutputStream fileStream = fileChannelOutputStream;
+            if (RecorderCompression.GZIP.equals(compression)) {
+                // sync flushing makes everything written before each batch flush decompressible after a crash
+                gzipOutputStream = new GZIPOutputStream(fileChannelOutputStream, GZIP_BUFFER_SIZE, true);
+                fileStream = gzipOutputStream;
+            }
+            outputStream = new PrintStream(fileStream, false, "UTF-8");
 
             outputStream.print(this.start);
         } catch (Throwable t) {
@@ -131,7 +189,9 @@ public class ReactiveFileResultRecorder<E> extends ReactiveRecorder<E, FileResul
 
     @VisibleForTesting
     void doReactiveDataFinally() {
-        outputStream.close();
+        if (outputStream != null) {
+            outputStream.close();
+        }
         if (!success.get()) {
             LOGGER.debug("Deleting output file");
             outputFile.delete();
@@ -150,11 +210,22 @@ public class ReactiveFileResultRecorder<E> extends ReactiveRecorder<E, FileResul
     @VisibleForTesting
     void onReactiveDataComplete() {
         LOGGER.debug("reactive data completed for {}", identifier);
-        success.set(true);
-        outputStream.append(this.end);
+        try {
+            outputStream.append(this.end);
+            if (gzipOutputStream != null) {
+                outputStream.flush();
+                gzipOutputStream.finish();
+            }
+            // the recorder stopping is always a durability point, regardless of the flush policy
+            flushBatch(true);
+            success.set(true);
 
-        fileResultMaybeSubject.onSuccess(
-                new FileResultBase(identifier, startTime, stopTime, fileMimeType, outputFile.getPath()));
+            String contentEncoding = gzipOutputStream != null ? RecorderCompression.GZIP : null;
+            fileResultMaybeSubject.onSuccess(new FileResultBase(identifier, startTime, stopTime, fileMimeType,
+                    outputFile.getPath(), contentEncoding, getResultMetadata()));
+        } catch (Throwable t) {
+            onReactiveDataError(t);
+        }
     }
 
     @VisibleForTesting
@@ -164,20 +235,76 @@ public class ReactiveFileResultRecorder<E> extends ReactiveRecorder<E, FileResul
         fileResultMaybeSubject.onError(t);
     }
 
+    @VisibleForTesting
+    void onReactiveDataBatch(List<E> batch) {
+        LOGGER.trace("reactive data batch of {} received for {}", batch.size(), identifier);
+        for (E data : batch) {
+            onReactiveDataNext(data);
+        }
+        try {
+            flushBatch(flushPolicy.syncEachBatch);
+        } catch (Throwable t) {
+            onReactiveDataError(t);
+        }
+    }
+
     @VisibleForTesting
     void onReactiveDataNext(E data) {
         LOGGER.trace("reactive data received: {}", data);
         if (data != null) {
             try {
-                String outputString = "";
-                if (!isFirstJsonObject.compareAndSet(true, false)) {
-                    outputString += this.deliminator;
-                }
-                outputString += gson.toJson(data);
-                this.outputStream.print(outputString);
+                writeData(data, isFirstJsonObject.compareAndSet(true, false));
             } catch (Throwable t) {
                 onReactiveDataError(t);
             }
         }
     }
+
+    /**
+     * Returns metadata describing the recording, such as how many events were recorded, which is added to the
+     * FileResult once recording completes.
+     *
+     * @return the metadata of the recording, or null if there is none.
+     */
+    @Nullable
+    protected Map<String, String> getResultMetadata() {
+        return null;
+    }
+
+    /**
+     * Writes a single event to the output stream. Subclasses can override this to serialize events without going
+     * through gson.
+     *
+     * @param data
+     *         the event to write.
+     * @param isFirst
+     *         true if this is the first event, which isn't preceded by a deliminator.
+     */
+    protected void writeData(@NonNull E data, boolean isFirst) throws IOException {
+        String outputString = "";
+        if (!isFirst) {
+            outputString += this.deliminator;
+        }
+        outputString += gson.toJson(data);
+        this.outputStream.print(outputString);
+    }
+
+    /**
+     * Writes the buffered output to the file.
+     *
+     * @param sync
+     *         true if the file should also be forced to storage, making this a durability point.
+     */
+    private void flushBatch(boolean sync) throws IOException {
+        // PrintStream swallows IOExceptions, so flush it and then flush the file stream to surface failures
+        outputStream.flush();
+        if (outputStream.checkError()) {
+            throw new IOException("Failed to write to " + outputFile.getPath());
+        }
+        if (sync) {
+            fileChannelOutputStream.sync();
+        } else {
+            fileChannelOutputStream.flush();
+        }
+    }
 }
@@ -32,6 +32,8 @@
 
 package org.sagebionetworks.research.presentation.recorder.reactive;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import androidx.annotation.CallSuper;
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
@@ -41,13 +43,14 @@ import org.sagebionetworks.research.presentation.recorder.RecorderBase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import io.reactivex.Completable;
 import io.reactivex.Flowable;
 import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.flowables.ConnectableFlowable;
-import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subjects.SingleSubject;
 
 /**
@@ -63,6 +66,12 @@ import io.reactivex.subjects.SingleSubject;
 public abstract class ReactiveRecorder<E, R extends Result> extends RecorderBase<R> {
     private final Logger LOGGER = LoggerFactory.getLogger(ReactiveRecorder.class);
 
+    // the longest stopping waits for events buffered upstream to be delivered
+    private static final long BEFORE_STOP_TIMEOUT_MS = 1000;
+
+    @NonNull
+    private Completable beforeStop = Completable.complete();
+
     private CompositeDisposable compositeDisposable;
 
     // this allows us to stop connectableFlowableData
@@ -72,17 +81,26 @@ public abstract class ReactiveRecorder<E, R extends Result> extends RecorderBase
 
     private final AtomicBoolean paused;
 
+    @NonNull
+    protected final RecorderSchedulers schedulers;
+
     private final SingleSubject<Object> stopSignal;
 
     public ReactiveRecorder(@NonNull final String identifier, Flowable<E> eventFlowable) {
+        this(identifier, eventFlowable, RecorderSchedulers.defaults());
+    }
+
+    public ReactiveRecorder(@NonNull final String identifier, Flowable<E> eventFlowable,
+            @NonNull RecorderSchedulers schedulers) {
         super(identifier);
         this.stopSignal = SingleSubject.create();
         paused = new AtomicBoolean();
+        this.schedulers = checkNotNull(schedulers);
 
         this.eventConnectableFlowable = eventFlowable
-                .observeOn(Schedulers.computation())
+                .observeOn(schedulers.eventScheduler)
                 .takeUntil(stopSignal.toFlowable())
-                .filter((e) -> !paused.get())
+                .filter(this::isRecorded)
                 .doFinally(this::doFinally)
                 .publish();
         this.compositeDisposable = new CompositeDisposable();
@@ -117,11 +135,35 @@ public abstract class ReactiveRecorder<E, R extends Result> extends RecorderBase
         });
     }
 
+    /**
+     * Sets a Completable which delivers events still buffered upstream, such as events batched by sensor hardware.
+     * Stopping waits for it to complete before the event stream ends, for at most a second.
+     *
+     * @param beforeStop
+     *         the Completable to wait for before stopping.
+     */
+    public void setBeforeStop(@NonNull Completable beforeStop) {
+        this.beforeStop = checkNotNull(beforeStop);
+    }
+
     @Override
     @CallSuper
     public void stopRecorder() {
         LOGGER.debug("Stopping recorder {}" + identifier);
-        stopSignal.onSuccess(new Object());
+        beforeStop
+                .timeout(BEFORE_STOP_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .doOnError(t -> LOGGER.warn("Failed to deliver buffered events before stopping {}", identifier, t))
+                .onErrorComplete()
+                .subscribe(() -> stopSignal.onSuccess(new Object()));
+    }
+
+    /**
+     * Called for every event left out of the event flowable because the recorder is paused.
+     *
+     * @param event
+     *         the event which isn't recorded.
+     */
+    protected void onEventSkipped(@NonNull E event) {
     }
 
     @VisibleForTesting
@@ -129,4 +171,12 @@ public abstract class ReactiveRecorder<E, R extends Result> extends RecorderBase
         LOGGER.debug("Do finally recorder {}" + identifier);
         compositeDisposable.dispose();
     }
+
+    private boolean isRecorded(@NonNull E event) {
+        if (paused.get()) {
+            onEventSkipped(event);
+            return false;
+        }
+        return true;
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.recorder.reactive;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+
+import org.sagebionetworks.research.domain.async.RecorderCompression;
+import org.sagebionetworks.research.presentation.recorder.sensor.DeviceMotionUtil.SensorEventPOJO;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSample;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSampleJsonWriter;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSampleRingBuffer;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSummary;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSummaryPublisher;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSummarySource;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import io.reactivex.Flowable;
+
+/**
+ * Records SensorSamples to a json array file. The output is the same as recording the matching DeviceMotionUtil
+ * POJOs with a json array logger, but after the first event no objects are allocated per sample.
+ * <p>
+ * When the samples come from a SensorSampleRingBuffer, each sample is released back to it once it's written or
+ * skipped, and the ring's sample counts are added to the FileResult as metadata.
+ */
+public class ReactiveSensorSampleRecorder extends ReactiveFileResultRecorder<SensorSample>
+        implements SensorSummarySource {
+    private byte[] deliminatorBytes;
+
+    @Nullable
+    private final SensorSampleRingBuffer ringBuffer;
+
+    private double referenceUptimeSeconds;
+
+    private SensorSampleJsonWriter sampleJsonWriter;
+
+    private final SensorSummaryPublisher sensorSummaryPublisher = new SensorSummaryPublisher();
+
+    public ReactiveSensorSampleRecorder(@NonNull String identifier, @NonNull Flowable<SensorSample> sampleFlowable,
+            @NonNull Gson gson, @NonNull File outputFile) {
+        this(identifier, sampleFlowable, gson, outputFile, RecorderCompression.NONE, null,
+                RecorderSchedulers.defaults());
+    }
+
+    public ReactiveSensorSampleRecorder(@NonNull String identifier, @NonNull Flowable<SensorSample> sampleFlowable,
+            @NonNull Gson gson, @NonNull File outputFile, @NonNull @RecorderCompression String compression,
+            @Nullable SensorSampleRingBuffer ringBuffer, @NonNull RecorderSchedulers schedulers) {
+        super(identifier, sampleFlowable, gson, outputFile, JSON_MIME_CONTENT_TYPE, JSON_FILE_START,
+                JSON_FILE_END, JSON_OBJECT_DELIMINATOR, FlushPolicy.DEFAULT, compression, schedulers);
+        this.ringBuffer = ringBuffer;
+        getResult().ignoreElement()
+                .onErrorComplete()
+                .subscribe(sensorSummaryPublisher::complete);
+    }
+
+    /**
+     * Returns summaries of the recorded acceleration over a sliding window, updated every
+     * SensorSummaryCalculator.DEFAULT_UPDATE_INTERVAL_NANOS while the recorder is recording. Each subscriber gets its
+     * own window, which reads each sample on the writer thread before the sample is released.
+     *
+     * @return summaries of the recorded acceleration.
+     */
+    @NonNull
+    @Override
+    public Flowable<SensorSummary> getSensorSummaries() {
+        return sensorSummaryPublisher.getSensorSummaries();
+    }
+
+    @Nullable
+    @Override
+    protected Map<String, String> getResultMetadata() {
+        return ringBuffer != null ? ringBuffer.getMetadata() : null;
+    }
+
+    @Override
+    protected void onEventSkipped(@NonNull SensorSample sample) {
+        if (ringBuffer != null) {
+            ringBuffer.release(sample, false);
+        }
+    }
+
+    @Override
+    protected void writeData(@NonNull SensorSample sample, boolean isFirst) throws IOException {
+        boolean written = false;
+        try {
+            sensorSummaryPublisher.add(sample);
+            writeSample(sample, isFirst);
+            written = true;
+        } finally {
+            if (ringBuffer != null) {
+                ringBuffer.release(sample, written);
+            }
+        }
+    }
+
+    private void writeSample(@NonNull SensorSample sample, boolean isFirst) throws IOException {
+        if (isFirst) {
+            sampleJsonWriter = new SensorSampleJsonWriter(gson);
+            deliminatorBytes = deliminator.getBytes("UTF-8");
+
+            // log full info about the sensor and determine the uptime reference
+            SensorEventPOJO first = new SensorEventPOJO(sample);
+            referenceUptimeSeconds = first.uptime;
+            outputStream.print(gson.toJson(first));
+        }
+
+        outputStream.write(deliminatorBytes);
+        sampleJsonWriter.write(outputStream, sample, referenceUptimeSeconds);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.presentation.recorder.reactive;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import androidx.annotation.NonNull;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * The schedulers a ReactiveRecorder handles its events on. Events are delivered to the recorder's subscribers on the
+ * event scheduler, and file recorders write them on the write scheduler. When both are the same scheduler, events are
+ * written without hopping threads a second time.
+ */
+public final class RecorderSchedulers {
+    @NonNull
+    public final Scheduler eventScheduler;
+
+    @NonNull
+    public final Scheduler writeScheduler;
+
+    /**
+     * Returns the shared schedulers, events are handled on the computation scheduler and written on the io scheduler.
+     *
+     * @return the shared schedulers.
+     */
+    @NonNull
+    public static RecorderSchedulers defaults() {
+        return new RecorderSchedulers(Schedulers.computation(), Schedulers.io());
+    }
+
+    /**
+     * Returns schedulers that handle and write events on a single scheduler, such as a RecorderWriterThread's.
+     *
+     * @param scheduler
+     *         the scheduler to handle and write events on.
+     * @return schedulers that handle and write events on the given scheduler.
+     */
+    @NonNull
+    public static RecorderSchedulers singleWriter(@NonNull Scheduler scheduler) {
+        return new RecorderSchedulers(scheduler, scheduler);
+    }
+
+    public RecorderSchedulers(@NonNull Scheduler eventScheduler, @NonNull Scheduler writeScheduler) {
+        this.eventScheduler = checkNotNull(eventScheduler);
+        this.writeScheduler = checkNotNull(writeScheduler);
+    }
+
+    /**
+     * @return true if events are written on the scheduler they're handled on.
+     */
+    public boolean isSingleWriter() {
+        return eventScheduler == writeScheduler;
+    }
+}
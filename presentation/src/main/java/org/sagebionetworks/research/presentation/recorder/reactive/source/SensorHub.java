@@ -0,0 +1,265 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.presentation.recorder.reactive.source;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.github.pwittchen.reactivesensors.library.ReactiveSensorEvent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableEmitter;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Multicasts a single sensor registration to every subscriber of a sensor type. The sensor is registered when the
+ * first subscriber subscribes and unregistered when the last one cancels. It's registered at the fastest rate any
+ * current subscriber asked for, so a faster subscriber joining re-registers the sensor at its rate and the fastest
+ * subscriber leaving re-registers it at the next fastest rate. Like the Android sampling period itself, the rate a
+ * subscriber asks for is a hint and it may receive events faster than that. The max report latency is shared the
+ * same way, the registration uses the shortest latency any current subscriber asked for. Changing the registration
+ * drops events the sensor hardware still had batched for the old one.
+ */
+public class SensorHub {
+    /**
+     * Registers a listener for a sensor, the registration lasts until the returned Flowable is cancelled.
+     */
+    public interface SensorRegistrar {
+        /**
+         * Delivers the events the sensor hardware has batched for the current registration of a sensor type.
+         *
+         * @return a Completable which completes once the batched events have been delivered.
+         */
+        @NonNull
+        Completable flush(int sensorType);
+
+        @NonNull
+        Flowable<ReactiveSensorEvent> observeSensor(int sensorType, int samplingPeriodInUs, int maxReportLatencyInUs);
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SensorHub.class);
+
+    @NonNull
+    private final SensorRegistrar sensorRegistrar;
+
+    // guarded by this
+    private final Map<Integer, SharedSensor> sharedSensors = new HashMap<>();
+
+    public SensorHub(@NonNull SensorRegistrar sensorRegistrar) {
+        this.sensorRegistrar = checkNotNull(sensorRegistrar);
+    }
+
+    /**
+     * Returns the events of a sensor, sharing the sensor's registration with every other subscriber to it.
+     *
+     * @param sensorType
+     *         the android sensor type to observe.
+     * @param samplingPeriodInUs
+     *         the sampling period this subscriber asks for.
+     * @param maxReportLatencyInUs
+     *         the longest this subscriber allows events to be batched by the sensor hardware, 0 for no batching.
+     * @param backpressureStrategy
+     *         what to do when this subscriber can't keep up with the sensor.
+     * @return the events of the sensor.
+     */
+    @NonNull
+    public Flowable<ReactiveSensorEvent> observeSensor(final int sensorType, final int samplingPeriodInUs,
+            final int maxReportLatencyInUs, @NonNull BackpressureStrategy backpressureStrategy) {
+        return Flowable.create(emitter -> {
+            HubSubscriber subscriber = new HubSubscriber(samplingPeriodInUs, maxReportLatencyInUs,
+                    emitter.serialize());
+            emitter.setCancellable(() -> removeSubscriber(sensorType, subscriber));
+            addSubscriber(sensorType, subscriber);
+        }, checkNotNull(backpressureStrategy));
+    }
+
+    /**
+     * Delivers the events the sensor hardware has batched for a sensor type to its subscribers.
+     *
+     * @param sensorType
+     *         the android sensor type to flush.
+     * @return a Completable which completes once the batched events have been delivered, or immediately if the
+     *         sensor isn't registered with a max report latency.
+     */
+    @NonNull
+    public synchronized Completable flush(int sensorType) {
+        SharedSensor sharedSensor = sharedSensors.get(sensorType);
+        if (sharedSensor == null || sharedSensor.maxReportLatencyInUs == 0) {
+            return Completable.complete();
+        }
+        return sensorRegistrar.flush(sensorType);
+    }
+
+    /**
+     * @return the max report latency the sensor is registered with, or null if the sensor isn't registered.
+     */
+    @VisibleForTesting
+    synchronized Integer getRegisteredMaxReportLatencyInUs(int sensorType) {
+        SharedSensor sharedSensor = sharedSensors.get(sensorType);
+        return sharedSensor != null && sharedSensor.registration != null ? sharedSensor.maxReportLatencyInUs : null;
+    }
+
+    /**
+     * @return the sampling period the sensor is registered at, or null if the sensor isn't registered.
+     */
+    @VisibleForTesting
+    synchronized Integer getRegisteredSamplingPeriodInUs(int sensorType) {
+        SharedSensor sharedSensor = sharedSensors.get(sensorType);
+        return sharedSensor != null ? sharedSensor.samplingPeriodInUs : null;
+    }
+
+    private synchronized void addSubscriber(int sensorType, @NonNull HubSubscriber subscriber) {
+        SharedSensor sharedSensor = sharedSensors.get(sensorType);
+        if (sharedSensor == null) {
+            sharedSensor = new SharedSensor(sensorType);
+            sharedSensors.put(sensorType, sharedSensor);
+        }
+        sharedSensor.subscribers.add(subscriber);
+        sharedSensor.updateRegistration();
+    }
+
+    private synchronized void removeSubscriber(int sensorType, @NonNull HubSubscriber subscriber) {
+        SharedSensor sharedSensor = sharedSensors.get(sensorType);
+        if (sharedSensor == null || !sharedSensor.subscribers.remove(subscriber)) {
+            return;
+        }
+        sharedSensor.updateRegistration();
+        if (sharedSensor.subscribers.isEmpty()) {
+            sharedSensors.remove(sensorType);
+        }
+    }
+
+    private static final class HubSubscriber {
+        final FlowableEmitter<ReactiveSensorEvent> emitter;
+
+        final int maxReportLatencyInUs;
+
+        final int samplingPeriodInUs;
+
+        HubSubscriber(int samplingPeriodInUs, int maxReportLatencyInUs,
+                @NonNull FlowableEmitter<ReactiveSensorEvent> emitter) {
+            this.samplingPeriodInUs = samplingPeriodInUs;
+            this.maxReportLatencyInUs = maxReportLatencyInUs;
+            this.emitter = emitter;
+        }
+    }
+
+    private final class SharedSensor {
+        // the max report latency of the current registration, guarded by SensorHub.this
+        int maxReportLatencyInUs;
+
+        // the current registration, null when the sensor isn't registered, guarded by SensorHub.this
+        Disposable registration;
+
+        // the sampling period of the current registration, guarded by SensorHub.this
+        Integer samplingPeriodInUs;
+
+        final int sensorType;
+
+        // copy on write so events are dispatched without holding a lock
+        final List<HubSubscriber> subscribers = new CopyOnWriteArrayList<>();
+
+        SharedSensor(int sensorType) {
+            this.sensorType = sensorType;
+        }
+
+        void updateRegistration() {
+            if (subscribers.isEmpty()) {
+                LOGGER.debug("Unregistering sensor type {}", sensorType);
+                unregister();
+                return;
+            }
+
+            int fastestSamplingPeriodInUs = Integer.MAX_VALUE;
+            int shortestMaxReportLatencyInUs = Integer.MAX_VALUE;
+            for (HubSubscriber subscriber : subscribers) {
+                fastestSamplingPeriodInUs = Math.min(fastestSamplingPeriodInUs, subscriber.samplingPeriodInUs);
+                shortestMaxReportLatencyInUs = Math.min(shortestMaxReportLatencyInUs,
+                        subscriber.maxReportLatencyInUs);
+            }
+            if (registration != null && samplingPeriodInUs == fastestSamplingPeriodInUs
+                    && maxReportLatencyInUs == shortestMaxReportLatencyInUs) {
+                return;
+            }
+
+            LOGGER.debug("Registering sensor type {} at {}us with a max report latency of {}us", sensorType,
+                    fastestSamplingPeriodInUs, shortestMaxReportLatencyInUs);
+            // unregister first so subscribers never see events from both registrations
+            unregister();
+            samplingPeriodInUs = fastestSamplingPeriodInUs;
+            maxReportLatencyInUs = shortestMaxReportLatencyInUs;
+            registration = sensorRegistrar.observeSensor(sensorType, fastestSamplingPeriodInUs,
+                    shortestMaxReportLatencyInUs)
+                    .subscribe(this::dispatchNext, this::dispatchError, this::dispatchComplete);
+        }
+
+        private void dispatchComplete() {
+            for (HubSubscriber subscriber : subscribers) {
+                subscriber.emitter.onComplete();
+            }
+        }
+
+        private void dispatchError(Throwable t) {
+            for (HubSubscriber subscriber : subscribers) {
+                subscriber.emitter.onError(t);
+            }
+        }
+
+        private void dispatchNext(ReactiveSensorEvent event) {
+            for (HubSubscriber subscriber : subscribers) {
+                subscriber.emitter.onNext(event);
+            }
+        }
+
+        private void unregister() {
+            if (registration != null) {
+                registration.dispose();
+                registration = null;
+                samplingPeriodInUs = null;
+                maxReportLatencyInUs = 0;
+            }
+        }
+    }
+}
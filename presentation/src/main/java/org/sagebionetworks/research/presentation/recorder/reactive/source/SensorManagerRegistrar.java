@@ -0,0 +1,158 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.presentation.recorder.reactive.source;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener2;
+import android.hardware.SensorManager;
+import androidx.annotation.NonNull;
+
+import com.github.pwittchen.reactivesensors.library.ReactiveSensorEvent;
+
+import org.sagebionetworks.research.presentation.recorder.reactive.source.SensorHub.SensorRegistrar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableEmitter;
+import io.reactivex.subjects.CompletableSubject;
+
+/**
+ * Registers sensor listeners directly with the SensorManager, so a max report latency can be given and the sensor
+ * hardware can batch events in its FIFO instead of waking the application processor for every event. Batched events
+ * can be delivered early with flush.
+ * <p>
+ * The SensorHub registers at most one listener per sensor type at a time, which this relies on to look up the
+ * listener to flush.
+ */
+public class SensorManagerRegistrar implements SensorRegistrar {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SensorManagerRegistrar.class);
+
+    private final Map<Integer, BatchingSensorListener> listeners = new ConcurrentHashMap<>();
+
+    @NonNull
+    private final SensorManager sensorManager;
+
+    public SensorManagerRegistrar(@NonNull SensorManager sensorManager) {
+        this.sensorManager = checkNotNull(sensorManager);
+    }
+
+    @NonNull
+    @Override
+    public Completable flush(final int sensorType) {
+        BatchingSensorListener listener = listeners.get(sensorType);
+        return listener != null ? listener.flush() : Completable.complete();
+    }
+
+    @NonNull
+    @Override
+    public Flowable<ReactiveSensorEvent> observeSensor(final int sensorType, final int samplingPeriodInUs,
+            final int maxReportLatencyInUs) {
+        // every subscriber gets its own backpressure strategy from the hub, so the registration buffers
+        return Flowable.create(emitter -> {
+            Sensor sensor = sensorManager.getDefaultSensor(sensorType);
+            if (sensor == null) {
+                LOGGER.warn("No sensor of type {}", sensorType);
+                emitter.onComplete();
+                return;
+            }
+
+            BatchingSensorListener listener = new BatchingSensorListener(emitter);
+            listeners.put(sensorType, listener);
+            emitter.setCancellable(() -> {
+                sensorManager.unregisterListener(listener);
+                listeners.remove(sensorType, listener);
+                listener.completeFlushes();
+            });
+            if (!sensorManager.registerListener(listener, sensor, samplingPeriodInUs, maxReportLatencyInUs)) {
+                emitter.onError(new IllegalStateException("Failed to register a listener for sensor " + sensor));
+            }
+        }, BackpressureStrategy.BUFFER);
+    }
+
+    private final class BatchingSensorListener implements SensorEventListener2 {
+        private final FlowableEmitter<ReactiveSensorEvent> emitter;
+
+        private final Queue<CompletableSubject> pendingFlushes = new ConcurrentLinkedQueue<>();
+
+        BatchingSensorListener(@NonNull FlowableEmitter<ReactiveSensorEvent> emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void onAccuracyChanged(final Sensor sensor, final int accuracy) {
+            emitter.onNext(new ReactiveSensorEvent(sensor, accuracy));
+        }
+
+        @Override
+        public void onFlushCompleted(final Sensor sensor) {
+            completeFlushes();
+        }
+
+        @Override
+        public void onSensorChanged(final SensorEvent event) {
+            emitter.onNext(new ReactiveSensorEvent(event));
+        }
+
+        void completeFlushes() {
+            CompletableSubject flush;
+            while ((flush = pendingFlushes.poll()) != null) {
+                flush.onComplete();
+            }
+        }
+
+        @NonNull
+        Completable flush() {
+            return Completable.defer(() -> {
+                CompletableSubject flushCompleted = CompletableSubject.create();
+                pendingFlushes.add(flushCompleted);
+                if (!sensorManager.flush(this)) {
+                    // the sensor doesn't batch or the listener is gone, there's nothing to wait for
+                    pendingFlushes.remove(flushCompleted);
+                    flushCompleted.onComplete();
+                }
+                return flushCompleted;
+            });
+        }
+    }
+}
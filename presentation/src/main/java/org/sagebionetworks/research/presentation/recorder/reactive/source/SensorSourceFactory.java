@@ -34,10 +34,12 @@ package org.sagebionetworks.research.presentation.recorder.reactive.source;
 
 import static android.hardware.SensorManager.SENSOR_DELAY_NORMAL;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
+import android.hardware.SensorManager;
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
 
@@ -45,17 +47,23 @@ import com.github.pwittchen.reactivesensors.library.ReactiveSensorEvent;
 import com.github.pwittchen.reactivesensors.library.ReactiveSensorFilter;
 import com.github.pwittchen.reactivesensors.library.ReactiveSensors;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 import javax.inject.Inject;
 
 import io.reactivex.BackpressureStrategy;
+import io.reactivex.Completable;
 import io.reactivex.Flowable;
 import io.reactivex.FlowableEmitter;
 import io.reactivex.schedulers.Schedulers;
 
 /**
  * This class is a Wrapper around ReactiveSensors that allows subscribing to a set of sensors with a single call.
+ * Sensors are observed through a SensorHub, so recorders created from the same factory share one registration per
+ * sensor type.
  */
 public class SensorSourceFactory {
     @NonNull
@@ -67,6 +75,9 @@ public class SensorSourceFactory {
     @NonNull
     protected Set<Integer> sensorTypes;
 
+    @NonNull
+    protected final SensorHub sensorHub;
+
     public static class SensorConfig {
         public final int sensorType;
 
@@ -74,17 +85,31 @@ public class SensorSourceFactory {
 
         public final BackpressureStrategy backpressureStrategy;
 
+        // how long the sensor hardware may batch events before delivering them, 0 delivers every event right away
+        public final int maxReportLatencyInUs;
+
+        // whether events the sensor hardware has batched are delivered before a recorder stops
+        public final boolean flushOnStop;
+
         private static final int SENSOR_DELAY_DEFAULT = 10000; //10,000 microseconds -> 100hz
 
         private SensorConfig(final int sensorType, final int samplingPeriodInUs,
-                final BackpressureStrategy backpressureStrategy) {
+                final BackpressureStrategy backpressureStrategy, final int maxReportLatencyInUs,
+                final boolean flushOnStop) {
             this.sensorType = sensorType;
             this.samplingPeriodInUs = samplingPeriodInUs;
             this.backpressureStrategy = backpressureStrategy;
+            this.maxReportLatencyInUs = maxReportLatencyInUs;
+            this.flushOnStop = flushOnStop;
         }
 
         public static class SensorConfigBuilder {
-            private BackpressureStrategy backpressureStrategy = BackpressureStrategy.LATEST;
+            // recorders bound how many events they hold, dropping the oldest event would lose samples silently
+            private BackpressureStrategy backpressureStrategy = BackpressureStrategy.BUFFER;
+
+            private boolean flushOnStop = true;
+
+            private int maxReportLatencyInUs = 0;
 
             private int samplingPeriodInUs;
 
@@ -96,7 +121,19 @@ public class SensorSourceFactory {
             }
 
             public SensorConfig build() {
-                return new SensorConfig(sensorType, samplingPeriodInUs, backpressureStrategy);
+                return new SensorConfig(sensorType, samplingPeriodInUs, backpressureStrategy, maxReportLatencyInUs,
+                        flushOnStop);
+            }
+
+            public SensorConfigBuilder setFlushOnStop(final boolean flushOnStop) {
+                this.flushOnStop = flushOnStop;
+                return this;
+            }
+
+            public SensorConfigBuilder setMaxReportLatencyInUs(final int maxReportLatencyInUs) {
+                checkArgument(maxReportLatencyInUs >= 0, "maxReportLatencyInUs cannot be negative");
+                this.maxReportLatencyInUs = maxReportLatencyInUs;
+                return this;
             }
 
             public SensorConfigBuilder setBackpressureStrategy(
@@ -131,8 +168,28 @@ public class SensorSourceFactory {
     }
 
     @Inject
-    public SensorSourceFactory(@NonNull ReactiveSensors reactiveSensors) {
+    public SensorSourceFactory(@NonNull ReactiveSensors reactiveSensors, @NonNull SensorManager sensorManager) {
         this.reactiveSensors = checkNotNull(reactiveSensors);
+        this.sensorHub = new SensorHub(new SensorManagerRegistrar(checkNotNull(sensorManager)));
+    }
+
+    /**
+     * Delivers the events the sensor hardware has batched for the given sensors, for the configs which flush on
+     * stop.
+     *
+     * @param configs
+     *         the configs of the sensors to flush.
+     * @return a Completable which completes once the batched events have been delivered.
+     */
+    @NonNull
+    public Completable flushSensorEvents(@NonNull Collection<SensorConfig> configs) {
+        List<Completable> flushes = new ArrayList<>();
+        for (SensorConfig config : checkNotNull(configs)) {
+            if (config.flushOnStop) {
+                flushes.add(sensorHub.flush(config.sensorType));
+            }
+        }
+        return Completable.merge(flushes);
     }
 
     @NonNull
@@ -142,8 +199,8 @@ public class SensorSourceFactory {
             // TODO: handle missing sensors
             return Flowable.empty();
         }
-        return reactiveSensors
-                .observeSensor(config.sensorType, config.samplingPeriodInUs, null, config.backpressureStrategy)
+        return sensorHub.observeSensor(config.sensorType, config.samplingPeriodInUs, config.maxReportLatencyInUs,
+                config.backpressureStrategy)
                 .subscribeOn(Schedulers.computation());
     }
 
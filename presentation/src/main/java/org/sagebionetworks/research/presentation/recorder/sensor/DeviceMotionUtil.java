@@ -171,6 +171,44 @@ public final class DeviceMotionUtil {
         return false;
     }
 
+    /**
+     * @param sensorType
+     *         a rotation vector sensor type
+     * @return the value recorded for sensorAndroidType, or null if the sensor type isn't a known rotation vector
+     */
+    @Nullable
+    public static String getRotationSensorAndroidType(int sensorType) {
+        if (Sensor.TYPE_ROTATION_VECTOR == sensorType) {
+            return "rotationVector";
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2
+                && Sensor.TYPE_GAME_ROTATION_VECTOR == sensorType) {
+            return "gameRotationVector";
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT
+                && Sensor.TYPE_GEOMAGNETIC_ROTATION_VECTOR == sensorType) {
+            return "geomagneticRotationVector";
+        }
+        return null;
+    }
+
+    /**
+     * @param sensorType
+     *         a rotation vector sensor type
+     * @return the value recorded for referenceCoordinate, or null if the sensor type isn't a known rotation vector
+     */
+    @Nullable
+    public static String getRotationReferenceCoordinate(int sensorType) {
+        if (Sensor.TYPE_ROTATION_VECTOR == sensorType) {
+            return "East-Up-North";
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2
+                && Sensor.TYPE_GAME_ROTATION_VECTOR == sensorType) {
+            return "zUp";
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT
+                && Sensor.TYPE_GEOMAGNETIC_ROTATION_VECTOR == sensorType) {
+            return "East-Up-North";
+        }
+        return null;
+    }
+
     public static List<Integer> getSensorTypeList(List<Sensor> availableSensorList) {
         List<Integer> sensorTypeList = new ArrayList<>();
 
@@ -416,6 +454,20 @@ public final class DeviceMotionUtil {
             sensor = null;
         }
 
+        /**
+         * @param sample
+         *         sensor sample
+         * @param referenceUptimeSeconds
+         *         uptime zero in nanos from epoch
+         */
+        public SensorEventPOJO(SensorSample sample, double referenceUptimeSeconds) {
+            uptime = (double) sample.timestamp / SECONDS_TO_NANOS;
+            timestamp = uptime - referenceUptimeSeconds;
+            sensorType = SENSOR_TYPE_TO_DATA_TYPE.get(sample.sensorType);
+            timestampDate = null;
+            sensor = null;
+        }
+
         // used to log initial event, contains more data about sensor and reference for subsequent events
         public SensorEventPOJO(SensorEvent event) {
             uptime = (double) event.timestamp / SECONDS_TO_NANOS;
@@ -425,6 +477,15 @@ public final class DeviceMotionUtil {
             sensor = event.sensor;
         }
 
+        // used to log initial event, contains more data about sensor and reference for subsequent events
+        public SensorEventPOJO(SensorSample sample) {
+            uptime = (double) sample.timestamp / SECONDS_TO_NANOS;
+            timestampDate = instantOf(sample.timestamp);
+            timestamp = 0;
+            sensorType = SENSOR_TYPE_TO_DATA_TYPE.get(sample.sensorType);
+            sensor = sample.sensor;
+        }
+
         public static long toNanos(@NonNull Instant timestamp) {
             return timestamp.getEpochSecond() * SECONDS_TO_NANOS + timestamp.getNano();
         }
@@ -441,13 +502,15 @@ public final class DeviceMotionUtil {
     }
 
     public static class AccelerationEventPojo extends SensorEventPOJO {
+        public static final String UNIT = "g";
+
         public final double x;
 
         public final double y;
 
         public final double z;
 
-        public final String unit = "g";
+        public final String unit = UNIT;
 
         public AccelerationEventPojo(SensorEvent sensorEvent, double referenceTimestampNanos) {
             super(sensorEvent, referenceTimestampNanos);
@@ -456,19 +519,28 @@ public final class DeviceMotionUtil {
             z = sensorEvent.values[2] / SensorManager.GRAVITY_EARTH;
         }
 
+        public AccelerationEventPojo(SensorSample sample, double referenceTimestampNanos) {
+            super(sample, referenceTimestampNanos);
+            x = sample.values[0] / SensorManager.GRAVITY_EARTH;
+            y = sample.values[1] / SensorManager.GRAVITY_EARTH;
+            z = sample.values[2] / SensorManager.GRAVITY_EARTH;
+        }
+
         public static AccelerationEventPojo create(SensorEvent event, double referenceTimestampNanos) {
             return new AccelerationEventPojo(event, referenceTimestampNanos);
         }
     }
 
     public static class GyroscopeEventPOJO extends SensorEventPOJO {
+        public static final String UNIT = "rad/s";
+
         public final double x;
 
         public final double y;
 
         public final double z;
 
-        public final String unit = "rad/s";
+        public final String unit = UNIT;
 
         public GyroscopeEventPOJO(SensorEvent sensorEvent, double referenceTimestampNanos) {
             super(sensorEvent, referenceTimestampNanos);
@@ -477,19 +549,28 @@ public final class DeviceMotionUtil {
             z = sensorEvent.values[2];
         }
 
+        public GyroscopeEventPOJO(SensorSample sample, double referenceTimestampNanos) {
+            super(sample, referenceTimestampNanos);
+            x = sample.values[0];
+            y = sample.values[1];
+            z = sample.values[2];
+        }
+
         public static GyroscopeEventPOJO create(SensorEvent event, double referenceTimestampNanos) {
             return new GyroscopeEventPOJO(event, referenceTimestampNanos);
         }
     }
 
     public static class MagneticEventPojo extends SensorEventPOJO {
+        public static final String UNIT = "uT";
+
         public final double x;
 
         public final double y;
 
         public final double z;
 
-        public final String unit = "uT";
+        public final String unit = UNIT;
 
         public MagneticEventPojo(SensorEvent sensorEvent, double referenceTimestampNanos) {
             super(sensorEvent, referenceTimestampNanos);
@@ -498,6 +579,13 @@ public final class DeviceMotionUtil {
             z = sensorEvent.values[2];
         }
 
+        public MagneticEventPojo(SensorSample sample, double referenceTimestampNanos) {
+            super(sample, referenceTimestampNanos);
+            x = sample.values[0];
+            y = sample.values[1];
+            z = sample.values[2];
+        }
+
         public static MagneticEventPojo create(SensorEvent event, double referenceTimestampNanos) {
             return new MagneticEventPojo(event, referenceTimestampNanos);
         }
@@ -533,21 +621,20 @@ public final class DeviceMotionUtil {
 
             estimatedAccuracy = event.values[4];
             int sensorType = event.sensor.getType();
-            if (Sensor.TYPE_ROTATION_VECTOR == sensorType) {
-                sensorAndroidType = "rotationVector";
-                referenceCoordinate = "East-Up-North";
-            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2
-                    && Sensor.TYPE_GAME_ROTATION_VECTOR == sensorType) {
-                sensorAndroidType = "gameRotationVector";
-                referenceCoordinate = "zUp";
-            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT
-                    && Sensor.TYPE_GEOMAGNETIC_ROTATION_VECTOR == sensorType) {
-                sensorAndroidType = "geomagneticRotationVector";
-                referenceCoordinate = "East-Up-North";
-            } else {
-                sensorAndroidType = null;
-                referenceCoordinate = null;
-            }
+            sensorAndroidType = getRotationSensorAndroidType(sensorType);
+            referenceCoordinate = getRotationReferenceCoordinate(sensorType);
+        }
+
+        public RotationEventPojo(SensorSample sample, double referenceTimestampNanos) {
+            super(sample, referenceTimestampNanos);
+            x = sample.values[0];
+            y = sample.values[1];
+            z = sample.values[2];
+            w = sample.values[3];
+
+            estimatedAccuracy = sample.values[4];
+            sensorAndroidType = getRotationSensorAndroidType(sample.sensorType);
+            referenceCoordinate = getRotationReferenceCoordinate(sample.sensorType);
         }
 
         public static RotationEventPojo create(SensorEvent event, double referenceTimestampNanos) {
@@ -578,6 +665,16 @@ public final class DeviceMotionUtil {
             zBias = event.values[5];
         }
 
+        public UncalibratedEventPOJO(SensorSample sample, double referenceTimestampNanos) {
+            super(sample, referenceTimestampNanos);
+            xUncalibrated = sample.values[0];
+            yUncalibrated = sample.values[1];
+            zUncalibrated = sample.values[2];
+            xBias = sample.values[3];
+            yBias = sample.values[4];
+            zBias = sample.values[5];
+        }
+
         public static UncalibratedEventPOJO create(SensorEvent event, double referenceTimestampNanos) {
             return new UncalibratedEventPOJO(event, referenceTimestampNanos);
         }
@@ -34,6 +34,8 @@ package org.sagebionetworks.research.presentation.recorder.sensor;
 
 import androidx.annotation.NonNull;
 
+import org.sagebionetworks.research.domain.async.MotionRecorderOutputFormat;
+import org.sagebionetworks.research.domain.async.SensorOverflowPolicy;
 import org.sagebionetworks.research.presentation.recorder.RestartableRecorderConfiguration;
 import org.sagebionetworks.research.presentation.recorder.reactive.source.SensorSourceFactory.SensorConfig;
 
@@ -50,4 +52,29 @@ public interface SensorRecorderConfigPresentation extends RestartableRecorderCon
      */
     @NonNull
     Set<SensorConfig> getSensorConfigs();
+
+    /**
+     * Returns the format the recorder should write its samples in.
+     *
+     * @return the format the recorder should write its samples in.
+     */
+    @NonNull
+    @MotionRecorderOutputFormat
+    String getOutputFormat();
+
+    /**
+     * Returns how many samples the recorder holds while they wait to be written.
+     *
+     * @return how many samples the recorder holds while they wait to be written.
+     */
+    int getBufferCapacity();
+
+    /**
+     * Returns what the recorder does with a sample when it's holding as many samples as it can.
+     *
+     * @return what the recorder does with a sample when it's holding as many samples as it can.
+     */
+    @NonNull
+    @SensorOverflowPolicy
+    String getOverflowPolicy();
 }
@@ -57,12 +57,34 @@ public class SensorRecorderConfigPresentationFactory implements RecorderConfigPr
                                     * SECONDS_TO_MICROSECONDS);
                     sensorConfigBuilder.setSamplingPeriodInUs(samplingPeriodInUs);
                 }
+                if (dmrConfiguration.getMaxReportLatency() != null) {
+                    int maxReportLatencyInUs = (int) Math
+                            .round(dmrConfiguration.getMaxReportLatency() * SECONDS_TO_MICROSECONDS);
+                    sensorConfigBuilder.setMaxReportLatencyInUs(maxReportLatencyInUs);
+                }
+                if (dmrConfiguration.getFlushOnStop() != null) {
+                    sensorConfigBuilder.setFlushOnStop(dmrConfiguration.getFlushOnStop());
+                }
                 // TODO: currently using system default sampling rate. does SR have a default? @liujoshua 2018/08/29
                 sensorConfigs.add(sensorConfigBuilder.build());
             }
         }
 
-        return SensorRecorderConfigPresentationImpl.builder()
+        SensorRecorderConfigPresentationImpl.Builder builder = SensorRecorderConfigPresentationImpl.builder();
+        if (dmrConfiguration.getOutputFormat() != null) {
+            builder.setOutputFormat(dmrConfiguration.getOutputFormat());
+        }
+        if (dmrConfiguration.getCompression() != null) {
+            builder.setCompression(dmrConfiguration.getCompression());
+        }
+        if (dmrConfiguration.getBufferCapacity() != null) {
+            builder.setBufferCapacity(dmrConfiguration.getBufferCapacity());
+        }
+        if (dmrConfiguration.getOverflowPolicy() != null) {
+            builder.setOverflowPolicy(dmrConfiguration.getOverflowPolicy());
+        }
+
+        return builder
                 .setIdentifier(config.getIdentifier())
                 .setType(config.getType())
                 .setStartStepIdentifier(config.getStartStepIdentifier())
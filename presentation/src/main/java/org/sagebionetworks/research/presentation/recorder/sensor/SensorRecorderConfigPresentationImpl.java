@@ -37,6 +37,9 @@ import androidx.annotation.Nullable;
 
 import com.google.auto.value.AutoValue;
 
+import org.sagebionetworks.research.domain.async.MotionRecorderOutputFormat;
+import org.sagebionetworks.research.domain.async.RecorderCompression;
+import org.sagebionetworks.research.domain.async.SensorOverflowPolicy;
 import org.sagebionetworks.research.presentation.recorder.reactive.source.SensorSourceFactory.SensorConfig;
 
 import java.util.Set;
@@ -47,8 +50,16 @@ public abstract class SensorRecorderConfigPresentationImpl implements SensorReco
     public abstract static class Builder {
         public abstract SensorRecorderConfigPresentationImpl build();
 
+        public abstract Builder setBufferCapacity(int bufferCapacity);
+
+        public abstract Builder setCompression(@NonNull @RecorderCompression String compression);
+
         public abstract Builder setIdentifier(@NonNull String identifier);
 
+        public abstract Builder setOutputFormat(@NonNull @MotionRecorderOutputFormat String outputFormat);
+
+        public abstract Builder setOverflowPolicy(@NonNull @SensorOverflowPolicy String overflowPolicy);
+
         public abstract Builder setSensorConfigs(@NonNull Set<SensorConfig> sensorConfigs);
 
         public abstract Builder setStartStepIdentifier(@Nullable String startStepIdentifier);
@@ -62,13 +73,35 @@ public abstract class SensorRecorderConfigPresentationImpl implements SensorReco
 
     public static Builder builder() {
         return new AutoValue_SensorRecorderConfigPresentationImpl.Builder()
-                .setShouldDeletePrevious(true);
+                .setShouldDeletePrevious(true)
+                .setOutputFormat(MotionRecorderOutputFormat.JSON)
+                .setCompression(RecorderCompression.NONE)
+                .setBufferCapacity(SensorSampleRingBuffer.DEFAULT_CAPACITY)
+                .setOverflowPolicy(SensorOverflowPolicy.DROP_NEWEST);
     }
 
+    @Override
+    @NonNull
+    @RecorderCompression
+    public abstract String getCompression();
+
     @Override
     public abstract boolean getShouldDeletePrevious();
 
     @Override
     @NonNull
     public abstract Set<SensorConfig> getSensorConfigs();
+
+    @Override
+    @NonNull
+    @MotionRecorderOutputFormat
+    public abstract String getOutputFormat();
+
+    @Override
+    public abstract int getBufferCapacity();
+
+    @Override
+    @NonNull
+    @SensorOverflowPolicy
+    public abstract String getOverflowPolicy();
 }
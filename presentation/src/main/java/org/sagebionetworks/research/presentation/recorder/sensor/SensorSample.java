@@ -0,0 +1,113 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.recorder.sensor;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * A mutable, primitive copy of a SensorEvent. Samples are recycled through a SensorSampleRingBuffer so recording a
+ * sensor event doesn't allocate, and copying the values on the sensor thread means the framework is free to reuse its
+ * SensorEvent for the next callback.
+ */
+public final class SensorSample {
+    /**
+     * The most values any recorded sensor type reports, the uncalibrated sensors report 6.
+     */
+    public static final int MAX_VALUES = 6;
+
+    public int accuracy;
+
+    @Nullable
+    public Sensor sensor;
+
+    public int sensorType;
+
+    // sensor timestamp in nanoseconds of uptime
+    public long timestamp;
+
+    // position in the SensorSampleRingBuffer which claimed this sample
+    long sequence;
+
+    public int valueCount;
+
+    // values past valueCount are always 0
+    @NonNull
+    public final float[] values = new float[MAX_VALUES];
+
+    /**
+     * Copies the given event into this sample.
+     *
+     * @param event
+     *         the event to copy.
+     * @return this sample.
+     */
+    @NonNull
+    public SensorSample copyFrom(@NonNull SensorEvent event) {
+        sensor = event.sensor;
+        return set(event.sensor.getType(), event.timestamp, event.accuracy, event.values);
+    }
+
+    /**
+     * Sets the contents of this sample.
+     *
+     * @param sensorType
+     *         the android sensor type.
+     * @param timestamp
+     *         the sensor timestamp in nanoseconds of uptime.
+     * @param accuracy
+     *         the accuracy of the sample.
+     * @param values
+     *         the sensor values, only the first MAX_VALUES are kept.
+     * @return this sample.
+     */
+    @NonNull
+    public SensorSample set(int sensorType, long timestamp, int accuracy, @NonNull float[] values) {
+        checkNotNull(values);
+        this.sensorType = sensorType;
+        this.timestamp = timestamp;
+        this.accuracy = accuracy;
+        this.valueCount = Math.min(values.length, MAX_VALUES);
+        System.arraycopy(values, 0, this.values, 0, valueCount);
+        for (int i = valueCount; i < MAX_VALUES; i++) {
+            this.values[i] = 0f;
+        }
+        return this;
+    }
+}
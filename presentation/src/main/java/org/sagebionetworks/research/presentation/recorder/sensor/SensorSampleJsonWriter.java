@@ -0,0 +1,372 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.recorder.sensor;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import org.sagebionetworks.research.presentation.recorder.sensor.DeviceMotionUtil.AccelerationEventPojo;
+import org.sagebionetworks.research.presentation.recorder.sensor.DeviceMotionUtil.GyroscopeEventPOJO;
+import org.sagebionetworks.research.presentation.recorder.sensor.DeviceMotionUtil.MagneticEventPojo;
+import org.sagebionetworks.research.presentation.recorder.sensor.DeviceMotionUtil.SensorEventPOJO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Serializes SensorSamples to the same bytes gson produces for the matching DeviceMotionUtil POJO, without creating
+ * the POJO, a json tree or any strings.
+ * <p>
+ * The fields of each POJO are discovered once, in the order gson's reflective adapter writes them, which depends on
+ * the runtime, and the encoded field names and constant values are cached. Each sample is then written into a
+ * reusable buffer. Numbers are formatted with StringBuilder.append, which uses the same algorithm as the
+ * Double.toString call gson makes.
+ * <p>
+ * Writing a sample allocates nothing for values of typical sensor magnitudes. The platform's double formatting
+ * allocates scratch space for some values, such as tiny values like 1e-7 written in scientific notation, and
+ * matching gson's output exactly means this writer shares that cost.
+ * <p>
+ * This class is not thread safe, all calls are expected to come from the recorder's writer thread.
+ */
+public class SensorSampleJsonWriter {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int SOURCE_CONSTANT = 0;
+
+    private static final int SOURCE_VALUE = 1;
+
+    private static final int SOURCE_GRAVITY_VALUE = 2;
+
+    private static final int SOURCE_TIMESTAMP = 3;
+
+    private static final int SOURCE_UPTIME = 4;
+
+    private static final int SOURCE_EVENT_ACCURACY = 5;
+
+    private static final Map<String, Integer> VALUE_INDEX_FOR_FIELD = new HashMap<>();
+
+    static {
+        VALUE_INDEX_FOR_FIELD.put(DeviceMotionUtil.X_KEY, 0);
+        VALUE_INDEX_FOR_FIELD.put(DeviceMotionUtil.Y_KEY, 1);
+        VALUE_INDEX_FOR_FIELD.put(DeviceMotionUtil.Z_KEY, 2);
+        VALUE_INDEX_FOR_FIELD.put(DeviceMotionUtil.W_KEY, 3);
+        VALUE_INDEX_FOR_FIELD.put(DeviceMotionUtil.ACCURACY_KEY, 4);
+        VALUE_INDEX_FOR_FIELD.put(DeviceMotionUtil.X_UNCALIBRATED_KEY, 0);
+        VALUE_INDEX_FOR_FIELD.put(DeviceMotionUtil.Y_UNCALIBRATED_KEY, 1);
+        VALUE_INDEX_FOR_FIELD.put(DeviceMotionUtil.Z_UNCALIBRATED_KEY, 2);
+        VALUE_INDEX_FOR_FIELD.put(DeviceMotionUtil.X_BIAS_KEY, 3);
+        VALUE_INDEX_FOR_FIELD.put(DeviceMotionUtil.Y_BIAS_KEY, 4);
+        VALUE_INDEX_FOR_FIELD.put(DeviceMotionUtil.Z_BIAS_KEY, 5);
+    }
+
+    private static final class FieldPlan {
+        // encoded constant value, only used for SOURCE_CONSTANT
+        @Nullable
+        final byte[] constant;
+
+        // encoded name including the name separator, e.g. "x": or "x":<space> when pretty printing
+        @NonNull
+        final byte[] name;
+
+        final int source;
+
+        final int valueIndex;
+
+        FieldPlan(@NonNull byte[] name, int source, int valueIndex, @Nullable byte[] constant) {
+            this.name = name;
+            this.source = source;
+            this.valueIndex = valueIndex;
+            this.constant = constant;
+        }
+    }
+
+    private byte[] buffer = new byte[512];
+
+    private int length;
+
+    private final byte[] newlineAndIndent;
+
+    private final Map<Integer, FieldPlan[]> plansBySensorType;
+
+    private final boolean prettyPrinting;
+
+    private final StringBuilder numberBuilder = new StringBuilder(32);
+
+    /**
+     * @param gson
+     *         the gson whose output should be reproduced, its pretty printing, html escaping and null serialization
+     *         settings are honored.
+     */
+    public SensorSampleJsonWriter(@NonNull Gson gson) {
+        checkNotNull(gson);
+        prettyPrinting = isPrettyPrinting(gson);
+        newlineAndIndent = "\n  ".getBytes(UTF_8);
+
+        plansBySensorType = new HashMap<>();
+        for (Entry<Integer, Class<? extends SensorEventPOJO>> entry
+                : DeviceMotionUtil.SENSOR_TYPE_TO_EVENT_POJO.entrySet()) {
+            plansBySensorType.put(entry.getKey(), createPlan(gson, entry.getKey(), entry.getValue()));
+        }
+    }
+
+    /**
+     * Returns the buffer holding the most recently encoded sample, valid up to getLength.
+     *
+     * @return the buffer holding the most recently encoded sample.
+     */
+    @NonNull
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns the length of the most recently encoded sample.
+     *
+     * @return the length of the most recently encoded sample.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Encodes the given sample into the buffer, replacing its previous contents.
+     *
+     * @param sample
+     *         the sample to encode.
+     * @param referenceUptimeSeconds
+     *         the uptime of the first recorded event, in seconds.
+     * @throws IllegalArgumentException
+     *         if a value is NaN or infinite, as gson would.
+     */
+    public void encode(@NonNull SensorSample sample, double referenceUptimeSeconds) {
+        FieldPlan[] plan = plansBySensorType.get(sample.sensorType);
+        if (plan == null) {
+            throw new IllegalArgumentException("Unable to record sensor type: " + sample.sensorType);
+        }
+
+        length = 0;
+        append((byte) '{');
+        double uptime = (double) sample.timestamp / 1_000_000_000;
+        for (int i = 0; i < plan.length; i++) {
+            FieldPlan field = plan[i];
+            if (i > 0) {
+                append((byte) ',');
+            }
+            if (prettyPrinting) {
+                append(newlineAndIndent);
+            }
+            append(field.name);
+            switch (field.source) {
+                case SOURCE_CONSTANT:
+                    append(field.constant);
+                    break;
+                case SOURCE_VALUE:
+                    appendDouble(sample.values[field.valueIndex]);
+                    break;
+                case SOURCE_GRAVITY_VALUE:
+                    appendDouble(sample.values[field.valueIndex] / DeviceMotionUtil.GRAVITY_SI_CONVERSION);
+                    break;
+                case SOURCE_TIMESTAMP:
+                    appendDouble(uptime - referenceUptimeSeconds);
+                    break;
+                case SOURCE_UPTIME:
+                    appendDouble(uptime);
+                    break;
+                case SOURCE_EVENT_ACCURACY:
+                    // SensorEventPOJO never assigns eventAccuracy, so it is always serialized as 0
+                    append((byte) '0');
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown field source " + field.source);
+            }
+        }
+        if (prettyPrinting && plan.length > 0) {
+            append((byte) '\n');
+        }
+        append((byte) '}');
+    }
+
+    /**
+     * Encodes the given sample and writes it to the given stream.
+     *
+     * @param outputStream
+     *         the stream to write to.
+     * @param sample
+     *         the sample to write.
+     * @param referenceUptimeSeconds
+     *         the uptime of the first recorded event, in seconds.
+     */
+    public void write(@NonNull OutputStream outputStream, @NonNull SensorSample sample,
+            double referenceUptimeSeconds) throws IOException {
+        encode(sample, referenceUptimeSeconds);
+        outputStream.write(buffer, 0, length);
+    }
+
+    private static boolean isPrettyPrinting(@NonNull Gson gson) {
+        // gson doesn't expose whether it pretty prints, so check how it lays out a small object
+        JsonObject probe = new JsonObject();
+        probe.addProperty("a", 1);
+        return gson.toJson(probe).indexOf('\n') >= 0;
+    }
+
+    @NonNull
+    private FieldPlan[] createPlan(@NonNull Gson gson, int sensorType,
+            @NonNull Class<? extends SensorEventPOJO> pojoClass) {
+        List<FieldPlan> plan = new ArrayList<>();
+        // gson's reflective adapter writes a class's own fields before the fields of its superclass
+        for (Class<?> clazz = pojoClass; clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+
+                String name = field.getName();
+                byte[] encodedName = (gson.toJson(name) + (prettyPrinting ? ": " : ":")).getBytes(UTF_8);
+                FieldPlan fieldPlan = createFieldPlan(gson, sensorType, pojoClass, name, encodedName);
+                if (fieldPlan != null) {
+                    plan.add(fieldPlan);
+                }
+            }
+        }
+        return plan.toArray(new FieldPlan[0]);
+    }
+
+    @Nullable
+    private static FieldPlan createFieldPlan(@NonNull Gson gson, int sensorType,
+            @NonNull Class<? extends SensorEventPOJO> pojoClass, @NonNull String name, @NonNull byte[] encodedName) {
+        Integer valueIndex = VALUE_INDEX_FOR_FIELD.get(name);
+        if (valueIndex != null) {
+            int source = pojoClass == AccelerationEventPojo.class ? SOURCE_GRAVITY_VALUE : SOURCE_VALUE;
+            return new FieldPlan(encodedName, source, valueIndex, null);
+        }
+
+        switch (name) {
+            case "timestamp":
+                return new FieldPlan(encodedName, SOURCE_TIMESTAMP, 0, null);
+            case "uptime":
+                return new FieldPlan(encodedName, SOURCE_UPTIME, 0, null);
+            case DeviceMotionUtil.SENSOR_EVENT_ACCURACY_KEY:
+                return new FieldPlan(encodedName, SOURCE_EVENT_ACCURACY, 0, null);
+            case DeviceMotionUtil.SENSOR_DATA_TYPE_KEY:
+                return constantFieldPlan(gson, encodedName,
+                        DeviceMotionUtil.SENSOR_TYPE_TO_DATA_TYPE.get(sensorType));
+            case DeviceMotionUtil.SENSOR_DATA_SUBTYPE_KEY:
+                return constantFieldPlan(gson, encodedName,
+                        DeviceMotionUtil.getRotationSensorAndroidType(sensorType));
+            case DeviceMotionUtil.ROTATION_REFERENCE_COORDINATE_KEY:
+                return constantFieldPlan(gson, encodedName,
+                        DeviceMotionUtil.getRotationReferenceCoordinate(sensorType));
+            case "unit":
+                return constantFieldPlan(gson, encodedName, unitFor(pojoClass));
+            case "sensor":
+            case "timestampDate":
+                // only set on the first event, which is written by gson
+                return constantFieldPlan(gson, encodedName, null);
+            default:
+                throw new IllegalStateException("Unable to serialize field " + name + " of " + pojoClass);
+        }
+    }
+
+    @Nullable
+    private static FieldPlan constantFieldPlan(@NonNull Gson gson, @NonNull byte[] encodedName,
+            @Nullable String value) {
+        if (value == null && !gson.serializeNulls()) {
+            return null;
+        }
+        // gson.toJson(null) returns "null"
+        return new FieldPlan(encodedName, SOURCE_CONSTANT, 0, gson.toJson(value).getBytes(UTF_8));
+    }
+
+    @Nullable
+    private static String unitFor(@NonNull Class<? extends SensorEventPOJO> pojoClass) {
+        if (pojoClass == AccelerationEventPojo.class) {
+            return AccelerationEventPojo.UNIT;
+        } else if (pojoClass == GyroscopeEventPOJO.class) {
+            return GyroscopeEventPOJO.UNIT;
+        } else if (pojoClass == MagneticEventPojo.class) {
+            return MagneticEventPojo.UNIT;
+        }
+        return null;
+    }
+
+    private void append(byte b) {
+        ensureCapacity(1);
+        buffer[length++] = b;
+    }
+
+    private void append(@NonNull byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void appendDouble(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException(value
+                    + " is not a valid double value as per JSON specification. To override this"
+                    + " behavior, use GsonBuilder.serializeSpecialFloatingPointValues() method.");
+        }
+
+        numberBuilder.setLength(0);
+        numberBuilder.append(value);
+        int count = numberBuilder.length();
+        ensureCapacity(count);
+        // numbers are always ascii
+        for (int i = 0; i < count; i++) {
+            buffer[length++] = (byte) numberBuilder.charAt(i);
+        }
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > buffer.length) {
+            byte[] grown = new byte[Math.max(buffer.length * 2, length + additional)];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+    }
+}
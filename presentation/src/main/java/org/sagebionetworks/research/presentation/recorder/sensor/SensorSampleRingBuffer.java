@@ -0,0 +1,258 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.presentation.recorder.sensor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.hardware.SensorEvent;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.sagebionetworks.research.domain.async.SensorOverflowPolicy;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import io.reactivex.Flowable;
+import io.reactivex.exceptions.MissingBackpressureException;
+
+/**
+ * A bounded ring of pre-allocated SensorSamples between the sensor callbacks and the file writer. Each sensor event
+ * is copied into the next free sample on the sensor thread, and the writer releases samples once they're written.
+ * Samples of different sensors can be released out of the order they were claimed in, as each sensor's samples are
+ * queued separately before they're merged, so each sample is released on its own and a sample is only claimed again
+ * once every sample claimed before it has been released. When no sample can be claimed, the overflow policy decides
+ * whether the event is dropped or the recording fails, so a slow writer never overwrites a sample that hasn't been
+ * written.
+ * <p>
+ * The number of samples received, dropped and written is counted per sensor type, so the quality of a recording can
+ * be audited.
+ */
+public final class SensorSampleRingBuffer {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    public static final String DROPPED_SUFFIX = ".dropped";
+
+    public static final String RECEIVED_SUFFIX = ".received";
+
+    public static final String WRITTEN_SUFFIX = ".written";
+
+    /**
+     * Immutable counts of the samples of one sensor type.
+     */
+    public static final class SampleCounts {
+        public final long dropped;
+
+        public final long received;
+
+        public final long written;
+
+        SampleCounts(long received, long dropped, long written) {
+            this.received = received;
+            this.dropped = dropped;
+            this.written = written;
+        }
+    }
+
+    private static final class MutableCounts {
+        long dropped;
+
+        long received;
+
+        long written;
+    }
+
+    // returned by offer instead of null so the Rx chain can filter dropped events without allocating
+    private static final SensorSample DROPPED = new SensorSample();
+
+    // the sequence of the next sample to claim, guarded by this
+    private long claimSequence;
+
+    // guarded by this
+    private final Map<Integer, MutableCounts> counts = new HashMap<>();
+
+    @SensorOverflowPolicy
+    private final String overflowPolicy;
+
+    // whether the sample in each slot has been released while a sample claimed before it has not, guarded by this
+    private final boolean[] released;
+
+    // samples claimed before this sequence are free, guarded by this
+    private long releaseSequence;
+
+    private final SensorSample[] samples;
+
+    public SensorSampleRingBuffer(int capacity, @NonNull @SensorOverflowPolicy String overflowPolicy) {
+        checkArgument(capacity > 0, "capacity must be positive");
+        checkArgument(SensorOverflowPolicy.DROP_NEWEST.equals(overflowPolicy)
+                || SensorOverflowPolicy.ERROR.equals(overflowPolicy), "Unsupported overflow policy %s", overflowPolicy);
+        this.overflowPolicy = overflowPolicy;
+        released = new boolean[capacity];
+        samples = new SensorSample[capacity];
+        for (int i = 0; i < capacity; i++) {
+            samples[i] = new SensorSample();
+        }
+    }
+
+    /**
+     * Claims the next free sample for an event of the given sensor type, the caller then sets its contents.
+     *
+     * @param sensorType
+     *         the android sensor type of the event.
+     * @return the claimed sample, or null if the buffer is full and the overflow policy drops the event.
+     * @throws MissingBackpressureException
+     *         if the buffer is full and the overflow policy is SensorOverflowPolicy.ERROR.
+     */
+    @Nullable
+    public synchronized SensorSample claim(int sensorType) throws MissingBackpressureException {
+        MutableCounts sensorCounts = getCounts(sensorType);
+        sensorCounts.received++;
+        if (claimSequence - releaseSequence >= samples.length) {
+            sensorCounts.dropped++;
+            if (SensorOverflowPolicy.ERROR.equals(overflowPolicy)) {
+                throw new MissingBackpressureException(
+                        "Sensor sample buffer of " + samples.length + " samples overflowed");
+            }
+            return null;
+        }
+        SensorSample sample = samples[(int) (claimSequence % samples.length)];
+        sample.sequence = claimSequence++;
+        return sample;
+    }
+
+    /**
+     * Copies every event into a sample of this buffer, leaving out events the overflow policy drops. The events are
+     * requested without bound and copied on the thread they're emitted on, and the copies are buffered until they're
+     * requested, which holds at most the capacity of this buffer.
+     *
+     * @param events
+     *         the sensor events.
+     * @return the samples the events were copied into.
+     */
+    @NonNull
+    public Flowable<SensorSample> copyOf(@NonNull Flowable<SensorEvent> events) {
+        return checkNotNull(events)
+                .map(this::offer)
+                .filter(sample -> sample != DROPPED)
+                .onBackpressureBuffer();
+    }
+
+    public int getCapacity() {
+        return samples.length;
+    }
+
+    /**
+     * @return the counts of the given sensor type's samples.
+     */
+    @NonNull
+    public synchronized SampleCounts getSampleCounts(int sensorType) {
+        MutableCounts sensorCounts = counts.get(sensorType);
+        return sensorCounts == null ? new SampleCounts(0, 0, 0)
+                : new SampleCounts(sensorCounts.received, sensorCounts.dropped, sensorCounts.written);
+    }
+
+    /**
+     * Returns the sample counts as file result metadata. Keys are the sensor's data type, as written in the sensor
+     * type field of the json, followed by a suffix for the count. Sensor types sharing a data type share counts.
+     *
+     * @return the sample counts as metadata.
+     */
+    @NonNull
+    public synchronized Map<String, String> getMetadata() {
+        Map<String, MutableCounts> countsByDataType = new TreeMap<>();
+        for (Map.Entry<Integer, MutableCounts> entry : counts.entrySet()) {
+            String dataType = DeviceMotionUtil.SENSOR_TYPE_TO_DATA_TYPE.get(entry.getKey());
+            if (dataType == null) {
+                dataType = "sensor" + entry.getKey();
+            }
+            MutableCounts dataTypeCounts = countsByDataType.get(dataType);
+            if (dataTypeCounts == null) {
+                dataTypeCounts = new MutableCounts();
+                countsByDataType.put(dataType, dataTypeCounts);
+            }
+            dataTypeCounts.received += entry.getValue().received;
+            dataTypeCounts.dropped += entry.getValue().dropped;
+            dataTypeCounts.written += entry.getValue().written;
+        }
+
+        Map<String, String> metadata = new TreeMap<>();
+        for (Map.Entry<String, MutableCounts> entry : countsByDataType.entrySet()) {
+            metadata.put(entry.getKey() + RECEIVED_SUFFIX, Long.toString(entry.getValue().received));
+            metadata.put(entry.getKey() + DROPPED_SUFFIX, Long.toString(entry.getValue().dropped));
+            metadata.put(entry.getKey() + WRITTEN_SUFFIX, Long.toString(entry.getValue().written));
+        }
+        return metadata;
+    }
+
+    /**
+     * Releases a sample. Its slot can be claimed again once every sample claimed before it has been released too.
+     *
+     * @param sample
+     *         the sample to release.
+     * @param written
+     *         true if the sample was written, which is counted.
+     */
+    public synchronized void release(@NonNull SensorSample sample, boolean written) {
+        if (written) {
+            getCounts(sample.sensorType).written++;
+        }
+        if (sample.sequence < releaseSequence || sample.sequence >= claimSequence) {
+            // already released
+            return;
+        }
+
+        released[(int) (sample.sequence % samples.length)] = true;
+        while (releaseSequence < claimSequence && released[(int) (releaseSequence % samples.length)]) {
+            released[(int) (releaseSequence % samples.length)] = false;
+            releaseSequence++;
+        }
+    }
+
+    @NonNull
+    private MutableCounts getCounts(int sensorType) {
+        MutableCounts sensorCounts = counts.get(sensorType);
+        if (sensorCounts == null) {
+            sensorCounts = new MutableCounts();
+            counts.put(sensorType, sensorCounts);
+        }
+        return sensorCounts;
+    }
+
+    @NonNull
+    private SensorSample offer(@NonNull SensorEvent event) throws MissingBackpressureException {
+        SensorSample sample = claim(event.sensor.getType());
+        return sample == null ? DROPPED : sample.copyFrom(event);
+    }
+}
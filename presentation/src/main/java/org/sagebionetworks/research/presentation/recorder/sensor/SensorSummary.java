@@ -0,0 +1,79 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.presentation.recorder.sensor;
+
+/**
+ * Features of the acceleration over a sliding window of a motion recording, for giving live feedback such as asking
+ * the participant to hold the phone still.
+ */
+public final class SensorSummary {
+    // root mean square of the acceleration magnitude about its mean over the window in m/s^2, 0 when still
+    public final double accelerationRms;
+
+    // steps per minute detected over the window
+    public final double cadence;
+
+    // root mean square of the rate of change of the acceleration over the window in m/s^3
+    public final double jerkRms;
+
+    // samples in the window
+    public final int sampleCount;
+
+    // sensor timestamp in nanoseconds of uptime of the newest sample in the window
+    public final long timestamp;
+
+    // mean power of the acceleration magnitude in the tremor band over the window in (m/s^2)^2
+    public final double tremorEnergy;
+
+    public SensorSummary(long timestamp, int sampleCount, double accelerationRms, double cadence,
+            double tremorEnergy, double jerkRms) {
+        this.timestamp = timestamp;
+        this.sampleCount = sampleCount;
+        this.accelerationRms = accelerationRms;
+        this.cadence = cadence;
+        this.tremorEnergy = tremorEnergy;
+        this.jerkRms = jerkRms;
+    }
+
+    @Override
+    public String toString() {
+        return "SensorSummary{" +
+                "timestamp=" + timestamp +
+                ", sampleCount=" + sampleCount +
+                ", accelerationRms=" + accelerationRms +
+                ", cadence=" + cadence +
+                ", tremorEnergy=" + tremorEnergy +
+                ", jerkRms=" + jerkRms +
+                '}';
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.presentation.recorder.sensor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import android.hardware.Sensor;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes SensorSummaries from acceleration samples over a sliding window. Each sample updates running sums held in
+ * primitive ring buffers, so adding a sample is O(1) amortized and allocates nothing. The filters adapt to the time
+ * between samples, so the sampling rate doesn't need to be known.
+ * <p>
+ * Only the first accelerometer sensor type seen is summarized, samples of other sensor types are ignored. The
+ * accelerometer's magnitude includes gravity, so movement changes it in step with the movement instead of rectifying
+ * it the way the magnitude of user acceleration would. This class isn't thread safe, samples should be added from a
+ * single thread.
+ */
+public final class SensorSummaryCalculator {
+    /**
+     * A first order band-pass filter, a high-pass of the input followed by a low-pass of the result.
+     */
+    private static final class BandPassFilter {
+        private final double highCutoffRadians;
+
+        private final double lowCutoffRadians;
+
+        private double baseline;
+
+        private boolean initialized;
+
+        private double output;
+
+        BandPassFilter(double lowCutoffHz, double highCutoffHz) {
+            this.lowCutoffRadians = 2 * Math.PI * lowCutoffHz;
+            this.highCutoffRadians = 2 * Math.PI * highCutoffHz;
+        }
+
+        double filter(double input, double dtSeconds) {
+            if (!initialized) {
+                baseline = input;
+                initialized = true;
+                return output;
+            }
+            baseline += (1 - Math.exp(-lowCutoffRadians * dtSeconds)) * (input - baseline);
+            output += (1 - Math.exp(-highCutoffRadians * dtSeconds)) * (input - baseline - output);
+            return output;
+        }
+    }
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    public static final long DEFAULT_UPDATE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    public static final long DEFAULT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    // steps closer together than this are one step, capping cadence at 240 steps per minute
+    private static final long MIN_STEP_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private static final double NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // walking moves the phone between 0.5 and 3 Hz
+    private static final double STEP_BAND_HIGH_HZ = 3.0;
+
+    private static final double STEP_BAND_LOW_HZ = 0.5;
+
+    // acceleration in m/s^2 the step band has to rise above to count a step
+    private static final double STEP_THRESHOLD = 1.0;
+
+    // parkinsonian and essential tremor are between 3.5 and 7.5 Hz
+    private static final double TREMOR_BAND_HIGH_HZ = 7.5;
+
+    private static final double TREMOR_BAND_LOW_HZ = 3.5;
+
+    private final double[] jerkSquares;
+
+    private final double[] magnitudes;
+
+    private final boolean[] steps;
+
+    private final long[] timestamps;
+
+    private final double[] tremorSquares;
+
+    private final BandPassFilter stepFilter = new BandPassFilter(STEP_BAND_LOW_HZ, STEP_BAND_HIGH_HZ);
+
+    private final BandPassFilter tremorFilter = new BandPassFilter(TREMOR_BAND_LOW_HZ, TREMOR_BAND_HIGH_HZ);
+
+    private final long updateIntervalNanos;
+
+    private final long windowNanos;
+
+    // index of the oldest sample in the window
+    private int head;
+
+    private float lastX;
+
+    private float lastY;
+
+    private float lastZ;
+
+    // sensor timestamps are uptime, so the first step is never too soon
+    private long lastStepTimestamp = -MIN_STEP_INTERVAL_NANOS;
+
+    private long lastTimestamp;
+
+    private long nextUpdateTimestamp;
+
+    private int sensorType = -1;
+
+    private int size;
+
+    private boolean started;
+
+    // the step band has fallen below zero since the last step
+    private boolean stepArmed;
+
+    private int stepCount;
+
+    private double sumJerkSquares;
+
+    private double sumMagnitudes;
+
+    private double sumMagnitudeSquares;
+
+    private double sumTremorSquares;
+
+    public SensorSummaryCalculator() {
+        this(DEFAULT_WINDOW_NANOS, DEFAULT_UPDATE_INTERVAL_NANOS, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param windowNanos
+     *         the length of the sliding window.
+     * @param updateIntervalNanos
+     *         how often the summary is updated, in sensor time.
+     * @param capacity
+     *         the most samples in a window, when the window holds more the oldest samples are left out.
+     */
+    public SensorSummaryCalculator(long windowNanos, long updateIntervalNanos, int capacity) {
+        checkArgument(windowNanos > 0, "windowNanos must be positive");
+        checkArgument(updateIntervalNanos > 0, "updateIntervalNanos must be positive");
+        checkArgument(capacity > 0, "capacity must be positive");
+        this.windowNanos = windowNanos;
+        this.updateIntervalNanos = updateIntervalNanos;
+        jerkSquares = new double[capacity];
+        magnitudes = new double[capacity];
+        steps = new boolean[capacity];
+        timestamps = new long[capacity];
+        tremorSquares = new double[capacity];
+    }
+
+    /**
+     * Adds a sample, ignoring samples which aren't from the summarized acceleration sensor.
+     *
+     * @param sample
+     *         the sample to add, which isn't retained.
+     * @return true if the summary should be updated, because an update interval has passed since the last update.
+     */
+    public boolean add(@NonNull SensorSample sample) {
+        if (sensorType == -1 && isAcceleration(sample.sensorType)) {
+            sensorType = sample.sensorType;
+        }
+        if (sample.sensorType != sensorType || sample.valueCount < 3) {
+            return false;
+        }
+        return add(sample.timestamp, sample.values[0], sample.values[1], sample.values[2]);
+    }
+
+    /**
+     * Adds an acceleration sample.
+     *
+     * @param timestamp
+     *         the sensor timestamp in nanoseconds of uptime.
+     * @param x
+     *         the acceleration along the x axis in m/s^2.
+     * @param y
+     *         the acceleration along the y axis in m/s^2.
+     * @param z
+     *         the acceleration along the z axis in m/s^2.
+     * @return true if the summary should be updated, because an update interval has passed since the last update.
+     */
+    public boolean add(long timestamp, float x, float y, float z) {
+        double magnitude = Math.sqrt(x * x + y * y + z * z);
+        double dtSeconds = started ? Math.max(0, timestamp - lastTimestamp) / NANOS_PER_SECOND : 0;
+
+        double jerkSquare = 0;
+        if (dtSeconds > 0) {
+            double dx = x - lastX;
+            double dy = y - lastY;
+            double dz = z - lastZ;
+            jerkSquare = (dx * dx + dy * dy + dz * dz) / (dtSeconds * dtSeconds);
+        }
+
+        double tremor = tremorFilter.filter(magnitude, dtSeconds);
+        double stepBand = stepFilter.filter(magnitude, dtSeconds);
+        boolean step = false;
+        if (stepBand < 0) {
+            stepArmed = true;
+        } else if (stepArmed && stepBand > STEP_THRESHOLD
+                && timestamp - lastStepTimestamp >= MIN_STEP_INTERVAL_NANOS) {
+            step = true;
+            stepArmed = false;
+            lastStepTimestamp = timestamp;
+        }
+
+        while (size > 0 && (size == timestamps.length || timestamps[head] <= timestamp - windowNanos)) {
+            evictOldest();
+        }
+        int index = (head + size) % timestamps.length;
+        timestamps[index] = timestamp;
+        magnitudes[index] = magnitude;
+        jerkSquares[index] = jerkSquare;
+        tremorSquares[index] = tremor * tremor;
+        steps[index] = step;
+        size++;
+        sumMagnitudes += magnitude;
+        sumMagnitudeSquares += magnitude * magnitude;
+        sumJerkSquares += jerkSquare;
+        sumTremorSquares += tremor * tremor;
+        if (step) {
+            stepCount++;
+        }
+
+        lastTimestamp = timestamp;
+        lastX = x;
+        lastY = y;
+        lastZ = z;
+
+        if (!started) {
+            started = true;
+            nextUpdateTimestamp = timestamp + updateIntervalNanos;
+        } else if (timestamp >= nextUpdateTimestamp) {
+            nextUpdateTimestamp = timestamp + updateIntervalNanos;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the summary of the samples in the window, or null if there are none.
+     */
+    @Nullable
+    public SensorSummary getSummary() {
+        if (size == 0) {
+            return null;
+        }
+        double mean = sumMagnitudes / size;
+        double accelerationRms = Math.sqrt(Math.max(0, sumMagnitudeSquares / size - mean * mean));
+        long newestTimestamp = timestamps[(head + size - 1) % timestamps.length];
+        long spanNanos = newestTimestamp - timestamps[head];
+        double cadence = spanNanos > 0 ? stepCount * NANOS_PER_MINUTE / spanNanos : 0;
+        return new SensorSummary(newestTimestamp, size, accelerationRms, cadence, sumTremorSquares / size,
+                Math.sqrt(Math.max(0, sumJerkSquares / size)));
+    }
+
+    private void evictOldest() {
+        sumMagnitudes -= magnitudes[head];
+        sumMagnitudeSquares -= magnitudes[head] * magnitudes[head];
+        sumJerkSquares -= jerkSquares[head];
+        sumTremorSquares -= tremorSquares[head];
+        if (steps[head]) {
+            stepCount--;
+        }
+        head = (head + 1) % timestamps.length;
+        size--;
+    }
+
+    private static boolean isAcceleration(int sensorType) {
+        return sensorType == Sensor.TYPE_ACCELEROMETER || sensorType == Sensor.TYPE_ACCELEROMETER_UNCALIBRATED;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.presentation.recorder.sensor;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableEmitter;
+
+/**
+ * Publishes SensorSummaries of the samples a recorder writes. The recorder adds each sample on its writer thread
+ * before the sample is released back to its SensorSampleRingBuffer, so summaries are computed from the sample's
+ * values before the sample can be reused. Each subscriber gets its own SensorSummaryCalculator, which is only used on
+ * the writer thread, and only the latest summary is kept for a slow subscriber.
+ */
+public final class SensorSummaryPublisher {
+    private static final class Subscription {
+        final SensorSummaryCalculator calculator = new SensorSummaryCalculator();
+
+        final FlowableEmitter<SensorSummary> emitter;
+
+        Subscription(@NonNull FlowableEmitter<SensorSummary> emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    // guarded by subscriptions
+    private boolean completed;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Adds a sample to every subscriber's window, on the recorder's writer thread.
+     *
+     * @param sample
+     *         the sample, which isn't retained.
+     */
+    public void add(@NonNull SensorSample sample) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.calculator.add(sample)) {
+                subscription.emitter.onNext(subscription.calculator.getSummary());
+            }
+        }
+    }
+
+    /**
+     * Completes every subscriber, called once the recorder stops writing samples.
+     */
+    public void complete() {
+        synchronized (subscriptions) {
+            completed = true;
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.emitter.onComplete();
+        }
+        subscriptions.clear();
+    }
+
+    /**
+     * @return summaries of the acceleration samples written from when this is subscribed to, which complete when the
+     *         recorder stops.
+     */
+    @NonNull
+    public Flowable<SensorSummary> getSensorSummaries() {
+        return Flowable.create(emitter -> {
+            Subscription subscription = new Subscription(emitter.serialize());
+            synchronized (subscriptions) {
+                if (!completed) {
+                    subscriptions.add(subscription);
+                    emitter.setCancellable(() -> subscriptions.remove(subscription));
+                    return;
+                }
+            }
+            emitter.onComplete();
+        }, BackpressureStrategy.LATEST);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.recorder.sensor.columnar;
+
+/**
+ * Constants describing the columnar motion recorder file format.
+ * <p>
+ * A file starts with a header: the magic bytes, a format version and the descriptors of every sensor type the file
+ * may contain. The header is followed by a stream of tagged records. A REFERENCE record is written once, for the first
+ * sensor event, and holds the uptime and wall clock time every other timestamp is relative to. A BLOCK record holds up
+ * to a block size worth of samples for a single sensor type, laid out column by column: the timestamp deltas in
+ * nanoseconds, one column per sensor value and finally the accuracy of each sample. An END record marks that the
+ * recorder completed normally.
+ * <p>
+ * All numbers are big endian, as written by java.io.DataOutputStream.
+ * <p>
+ * The REFERENCE record only keeps the sensor's name, vendor, version, type, maximum range, resolution, power and
+ * minimum delay. So when a file is converted to json, the "sensor" object of the first event has only the fields
+ * mName, mVendor, mVersion, mType, mMaxRange, mResolution, mPower and mMinDelay. The json motion recorder serializes
+ * the whole android.hardware.Sensor, which also includes private fields such as mHandle and mStringType that vary
+ * between Android versions. Consumers of converted files must not rely on those. The sample events have the same
+ * fields as the json motion recorder's.
+ */
+public final class ColumnarSensorFormat {
+    public static final String CONTENT_TYPE = "application/x-sensor-columnar";
+
+    public static final String FILE_EXTENSION = ".scol";
+
+    public static final byte[] MAGIC = {'S', 'C', 'O', 'L'};
+
+    public static final int VERSION = 1;
+
+    public static final int DEFAULT_BLOCK_SIZE = 256;
+
+    public static final byte TAG_REFERENCE = 1;
+
+    public static final byte TAG_BLOCK = 2;
+
+    public static final byte TAG_END = 3;
+
+    /**
+     * Standard gravity, matching android.hardware.SensorManager.GRAVITY_EARTH, used to convert acceleration columns
+     * to g's in the same way the json recorder does.
+     */
+    public static final float GRAVITY_EARTH = 9.80665f;
+
+    static final long SECONDS_TO_NANOS = 1_000_000_000;
+
+    private ColumnarSensorFormat() {
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.recorder.sensor.columnar;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import org.sagebionetworks.research.presentation.recorder.sensor.columnar.ColumnarSensorReader.Block;
+import org.sagebionetworks.research.presentation.recorder.sensor.columnar.SensorColumnDescriptor.Kind;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+
+/**
+ * Converts a columnar motion recorder file to the json array written by the json motion recorder, one block at a
+ * time, so the upload contract doesn't depend on which format a recorder was configured with.
+ * <p>
+ * Field names, field order and numeric conversions match the serialized DeviceMotionUtil POJOs. Samples keep their
+ * order within each sensor type, but samples of different sensor types are grouped by block instead of interleaved.
+ * The sensor of the first event is written with a subset of the fields of android.hardware.Sensor, see
+ * ColumnarSensorFormat.
+ */
+public final class ColumnarSensorJsonConverter {
+    /**
+     * Converts the given columnar file to json.
+     *
+     * @param inputStream
+     *         the columnar file, this stream is closed when conversion finishes.
+     * @param writer
+     *         the writer to write json to, this writer is flushed but not closed.
+     * @param gson
+     *         the gson whose settings, e.g. pretty printing, should be used for the output.
+     */
+    public static void convert(@NonNull InputStream inputStream, @NonNull Writer writer, @NonNull Gson gson)
+            throws IOException {
+        checkNotNull(inputStream);
+        checkNotNull(writer);
+        checkNotNull(gson);
+
+        try (ColumnarSensorReader reader = new ColumnarSensorReader(inputStream)) {
+            JsonWriter jsonWriter = gson.newJsonWriter(writer);
+            jsonWriter.beginArray();
+
+            Block block;
+            boolean wroteReference = false;
+            while ((block = reader.readBlock()) != null) {
+                ColumnarSensorReference reference = reader.getReference();
+                if (reference == null) {
+                    throw new IOException("Sample block found before the reference event");
+                }
+                if (!wroteReference) {
+                    writeReference(jsonWriter, reference, reader.getDescriptors().get(reference.sensorType));
+                    wroteReference = true;
+                }
+                writeBlock(jsonWriter, reference, block);
+            }
+
+            jsonWriter.endArray();
+            jsonWriter.flush();
+        }
+    }
+
+    private static void writeBlock(@NonNull JsonWriter jsonWriter, @NonNull ColumnarSensorReference reference,
+            @NonNull Block block) throws IOException {
+        SensorColumnDescriptor descriptor = block.descriptor;
+        float[][] columns = block.columns;
+        double referenceUptime = (double) reference.uptimeNanos / ColumnarSensorFormat.SECONDS_TO_NANOS;
+
+        for (int i = 0; i < block.count; i++) {
+            jsonWriter.beginObject();
+            switch (descriptor.kind) {
+                case Kind.ACCELERATION:
+                    jsonWriter.name("x").value(columns[0][i] / ColumnarSensorFormat.GRAVITY_EARTH);
+                    jsonWriter.name("y").value(columns[1][i] / ColumnarSensorFormat.GRAVITY_EARTH);
+                    jsonWriter.name("z").value(columns[2][i] / ColumnarSensorFormat.GRAVITY_EARTH);
+                    writeNullable(jsonWriter, "unit", descriptor.unit);
+                    break;
+                case Kind.GYROSCOPE:
+                case Kind.MAGNETIC_FIELD:
+                    jsonWriter.name("x").value(columns[0][i]);
+                    jsonWriter.name("y").value(columns[1][i]);
+                    jsonWriter.name("z").value(columns[2][i]);
+                    writeNullable(jsonWriter, "unit", descriptor.unit);
+                    break;
+                case Kind.ROTATION_VECTOR:
+                    writeNullable(jsonWriter, "referenceCoordinate", descriptor.referenceCoordinate);
+                    writeNullable(jsonWriter, "sensorAndroidType", descriptor.sensorAndroidType);
+                    jsonWriter.name("x").value(columns[0][i]);
+                    jsonWriter.name("y").value(columns[1][i]);
+                    jsonWriter.name("z").value(columns[2][i]);
+                    jsonWriter.name("w").value(columns[3][i]);
+                    jsonWriter.name("estimatedAccuracy").value(columns[4][i]);
+                    break;
+                case Kind.UNCALIBRATED:
+                    jsonWriter.name("xUncalibrated").value(columns[0][i]);
+                    jsonWriter.name("xBias").value(columns[3][i]);
+                    jsonWriter.name("yUncalibrated").value(columns[1][i]);
+                    jsonWriter.name("yBias").value(columns[4][i]);
+                    jsonWriter.name("zUncalibrated").value(columns[2][i]);
+                    jsonWriter.name("zBias").value(columns[5][i]);
+                    break;
+                default:
+                    throw new IOException("Unknown column kind " + descriptor.kind);
+            }
+
+            double uptime = (double) (reference.uptimeNanos + block.timestampDeltas[i])
+                    / ColumnarSensorFormat.SECONDS_TO_NANOS;
+            writeNullable(jsonWriter, "sensorType", descriptor.dataType);
+            jsonWriter.name("timestamp").value(uptime - referenceUptime);
+            jsonWriter.name("uptime").value(uptime);
+            jsonWriter.name("eventAccuracy").value(block.accuracy[i]);
+            jsonWriter.endObject();
+        }
+    }
+
+    private static void writeNullable(@NonNull JsonWriter jsonWriter, @NonNull String name, @Nullable String value)
+            throws IOException {
+        if (value != null) {
+            jsonWriter.name(name).value(value);
+        }
+    }
+
+    private static void writeReference(@NonNull JsonWriter jsonWriter, @NonNull ColumnarSensorReference reference,
+            @Nullable SensorColumnDescriptor descriptor) throws IOException {
+        jsonWriter.beginObject();
+
+        // floats are boxed so they are written the way gson writes float fields
+        jsonWriter.name("sensor").beginObject();
+        writeNullable(jsonWriter, "mName", reference.sensorName);
+        writeNullable(jsonWriter, "mVendor", reference.sensorVendor);
+        jsonWriter.name("mVersion").value(reference.sensorVersion);
+        jsonWriter.name("mType").value(reference.sensorType);
+        jsonWriter.name("mMaxRange").value(Float.valueOf(reference.sensorMaximumRange));
+        jsonWriter.name("mResolution").value(Float.valueOf(reference.sensorResolution));
+        jsonWriter.name("mPower").value(Float.valueOf(reference.sensorPower));
+        jsonWriter.name("mMinDelay").value(reference.sensorMinDelay);
+        jsonWriter.endObject();
+
+        jsonWriter.name("timestampDate").value(reference.timestampDate.toString());
+        writeNullable(jsonWriter, "sensorType", descriptor == null ? null : descriptor.dataType);
+        jsonWriter.name("timestamp").value(0d);
+        jsonWriter.name("uptime").value((double) reference.uptimeNanos / ColumnarSensorFormat.SECONDS_TO_NANOS);
+        jsonWriter.name("eventAccuracy").value(0);
+        jsonWriter.endObject();
+    }
+
+    private ColumnarSensorJsonConverter() {
+    }
+}
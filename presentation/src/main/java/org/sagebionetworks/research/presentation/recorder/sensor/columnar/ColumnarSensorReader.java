@@ -0,0 +1,213 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.recorder.sensor.columnar;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Streams the records of a columnar motion recorder file. Only one block is held in memory at a time.
+ *
+ * @see ColumnarSensorFormat
+ */
+public class ColumnarSensorReader implements Closeable {
+    /**
+     * The samples of a single block, all from the same sensor type.
+     */
+    public static final class Block {
+        @NonNull
+        public final byte[] accuracy;
+
+        @NonNull
+        public final float[][] columns;
+
+        public final int count;
+
+        @NonNull
+        public final SensorColumnDescriptor descriptor;
+
+        // nanoseconds since the reference event
+        @NonNull
+        public final long[] timestampDeltas;
+
+        Block(@NonNull SensorColumnDescriptor descriptor, int count, @NonNull long[] timestampDeltas,
+                @NonNull float[][] columns, @NonNull byte[] accuracy) {
+            this.descriptor = descriptor;
+            this.count = count;
+            this.timestampDeltas = timestampDeltas;
+            this.columns = columns;
+            this.accuracy = accuracy;
+        }
+    }
+
+    private final Map<Integer, SensorColumnDescriptor> descriptors;
+
+    private boolean ended;
+
+    private final DataInputStream input;
+
+    private ColumnarSensorReference reference;
+
+    public ColumnarSensorReader(@NonNull InputStream inputStream) throws IOException {
+        checkNotNull(inputStream);
+        this.input = new DataInputStream(new BufferedInputStream(inputStream));
+
+        byte[] magic = new byte[ColumnarSensorFormat.MAGIC.length];
+        input.readFully(magic);
+        if (!Arrays.equals(magic, ColumnarSensorFormat.MAGIC)) {
+            throw new IOException("Not a columnar sensor file");
+        }
+        int version = input.readUnsignedShort();
+        if (version != ColumnarSensorFormat.VERSION) {
+            throw new IOException("Unsupported columnar sensor file version " + version);
+        }
+
+        int descriptorCount = input.readUnsignedShort();
+        ImmutableMap.Builder<Integer, SensorColumnDescriptor> builder = ImmutableMap.builder();
+        for (int i = 0; i < descriptorCount; i++) {
+            SensorColumnDescriptor descriptor = SensorColumnDescriptor.read(input);
+            builder.put(descriptor.sensorType, descriptor);
+        }
+        this.descriptors = builder.build();
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    /**
+     * Returns the column descriptors from the file header, keyed by android sensor type.
+     *
+     * @return the column descriptors from the file header, keyed by android sensor type.
+     */
+    @NonNull
+    public Map<Integer, SensorColumnDescriptor> getDescriptors() {
+        return descriptors;
+    }
+
+    /**
+     * Returns the reference event, or null if it hasn't been read yet.
+     *
+     * @return the reference event, or null if it hasn't been read yet.
+     */
+    @Nullable
+    public ColumnarSensorReference getReference() {
+        return reference;
+    }
+
+    /**
+     * Returns true if the file ended with an end marker, meaning the recorder completed normally. Only meaningful
+     * after readBlock has returned null.
+     *
+     * @return true if the file ended with an end marker.
+     */
+    public boolean isComplete() {
+        return ended;
+    }
+
+    /**
+     * Reads the next block of samples. The reference event is consumed along the way and is available from
+     * getReference.
+     *
+     * @return the next block of samples, or null if the end of the file has been reached.
+     */
+    @Nullable
+    public Block readBlock() throws IOException {
+        while (!ended) {
+            int tag = input.read();
+            if (tag == -1) {
+                // the recorder didn't finish, everything written up to here is still usable
+                return null;
+            }
+
+            try {
+                switch (tag) {
+                    case ColumnarSensorFormat.TAG_REFERENCE:
+                        reference = ColumnarSensorReference.read(input);
+                        break;
+                    case ColumnarSensorFormat.TAG_BLOCK:
+                        return readBlockBody();
+                    case ColumnarSensorFormat.TAG_END:
+                        ended = true;
+                        break;
+                    default:
+                        throw new IOException("Unknown record tag " + tag);
+                }
+            } catch (EOFException e) {
+                // a truncated trailing record is dropped
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    private Block readBlockBody() throws IOException {
+        int sensorType = input.readInt();
+        SensorColumnDescriptor descriptor = descriptors.get(sensorType);
+        if (descriptor == null) {
+            throw new IOException("Block for undescribed sensor type " + sensorType);
+        }
+
+        int count = input.readInt();
+        long[] timestampDeltas = new long[count];
+        for (int i = 0; i < count; i++) {
+            timestampDeltas[i] = input.readLong();
+        }
+        float[][] columns = new float[descriptor.valueCount][count];
+        for (float[] column : columns) {
+            for (int i = 0; i < count; i++) {
+                column[i] = input.readFloat();
+            }
+        }
+        byte[] accuracy = new byte[count];
+        input.readFully(accuracy);
+
+        return new Block(descriptor, count, timestampDeltas, columns, accuracy);
+    }
+}
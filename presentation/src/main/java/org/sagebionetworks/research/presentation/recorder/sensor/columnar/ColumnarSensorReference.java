@@ -0,0 +1,125 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.recorder.sensor.columnar;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.hardware.Sensor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.threeten.bp.Instant;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The first event of a columnar motion recording. Every other sample's timestamp is stored relative to this event's
+ * uptime, and the metadata of the sensor which produced it is kept so the json conversion can reproduce the first
+ * entry of the json recorder's output.
+ */
+public final class ColumnarSensorReference {
+    public final int sensorType;
+
+    // sensor timestamp of the first event, in nanoseconds of uptime
+    public final long uptimeNanos;
+
+    @NonNull
+    public final Instant timestampDate;
+
+    @Nullable
+    public final String sensorName;
+
+    @Nullable
+    public final String sensorVendor;
+
+    public final int sensorVersion;
+
+    public final float sensorMaximumRange;
+
+    public final float sensorResolution;
+
+    public final float sensorPower;
+
+    public final int sensorMinDelay;
+
+    @NonNull
+    public static ColumnarSensorReference create(@NonNull Sensor sensor, long uptimeNanos,
+            @NonNull Instant timestampDate) {
+        return new ColumnarSensorReference(sensor.getType(), uptimeNanos, timestampDate, sensor.getName(),
+                sensor.getVendor(), sensor.getVersion(), sensor.getMaximumRange(), sensor.getResolution(),
+                sensor.getPower(), sensor.getMinDelay());
+    }
+
+    public ColumnarSensorReference(int sensorType, long uptimeNanos, @NonNull Instant timestampDate,
+            @Nullable String sensorName, @Nullable String sensorVendor, int sensorVersion, float sensorMaximumRange,
+            float sensorResolution, float sensorPower, int sensorMinDelay) {
+        this.sensorType = sensorType;
+        this.uptimeNanos = uptimeNanos;
+        this.timestampDate = checkNotNull(timestampDate);
+        this.sensorName = sensorName;
+        this.sensorVendor = sensorVendor;
+        this.sensorVersion = sensorVersion;
+        this.sensorMaximumRange = sensorMaximumRange;
+        this.sensorResolution = sensorResolution;
+        this.sensorPower = sensorPower;
+        this.sensorMinDelay = sensorMinDelay;
+    }
+
+    @NonNull
+    static ColumnarSensorReference read(@NonNull DataInput input) throws IOException {
+        int sensorType = input.readInt();
+        long uptimeNanos = input.readLong();
+        Instant timestampDate = Instant.ofEpochSecond(input.readLong(), input.readInt());
+        return new ColumnarSensorReference(sensorType, uptimeNanos, timestampDate,
+                SensorColumnDescriptor.readNullableUTF(input), SensorColumnDescriptor.readNullableUTF(input),
+                input.readInt(), input.readFloat(), input.readFloat(), input.readFloat(), input.readInt());
+    }
+
+    void write(@NonNull DataOutput output) throws IOException {
+        output.writeInt(sensorType);
+        output.writeLong(uptimeNanos);
+        output.writeLong(timestampDate.getEpochSecond());
+        output.writeInt(timestampDate.getNano());
+        SensorColumnDescriptor.writeNullableUTF(output, sensorName);
+        SensorColumnDescriptor.writeNullableUTF(output, sensorVendor);
+        output.writeInt(sensorVersion);
+        output.writeFloat(sensorMaximumRange);
+        output.writeFloat(sensorResolution);
+        output.writeFloat(sensorPower);
+        output.writeInt(sensorMinDelay);
+    }
+}
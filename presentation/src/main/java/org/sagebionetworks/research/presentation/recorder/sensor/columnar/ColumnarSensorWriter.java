@@ -0,0 +1,225 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.recorder.sensor.columnar;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes sensor samples in the columnar motion recorder format. Samples are accumulated per sensor type into
+ * pre-allocated column blocks, and a block is written out once it is full, so writing a sample does not allocate.
+ * <p>
+ * This class is not thread safe, all calls are expected to come from the recorder's writer thread.
+ *
+ * @see ColumnarSensorFormat
+ */
+public class ColumnarSensorWriter implements Closeable {
+    private static class ColumnBlock {
+        final byte[] accuracy;
+
+        final float[][] columns;
+
+        int count;
+
+        final SensorColumnDescriptor descriptor;
+
+        final long[] timestampDeltas;
+
+        ColumnBlock(SensorColumnDescriptor descriptor, int blockSize) {
+            this.descriptor = descriptor;
+            this.timestampDeltas = new long[blockSize];
+            this.columns = new float[descriptor.valueCount][blockSize];
+            this.accuracy = new byte[blockSize];
+        }
+    }
+
+    private final int blockSize;
+
+    private final Map<Integer, ColumnBlock> blocks;
+
+    private boolean closed;
+
+    private final DataOutputStream output;
+
+    private ColumnarSensorReference reference;
+
+    public ColumnarSensorWriter(@NonNull OutputStream outputStream,
+            @NonNull List<SensorColumnDescriptor> descriptors) throws IOException {
+        this(outputStream, descriptors, ColumnarSensorFormat.DEFAULT_BLOCK_SIZE);
+    }
+
+    public ColumnarSensorWriter(@NonNull OutputStream outputStream,
+            @NonNull List<SensorColumnDescriptor> descriptors, int blockSize) throws IOException {
+        checkNotNull(outputStream);
+        checkNotNull(descriptors);
+        checkArgument(blockSize > 0, "blockSize must be positive");
+
+        this.blockSize = blockSize;
+        this.blocks = new LinkedHashMap<>();
+        for (SensorColumnDescriptor descriptor : descriptors) {
+            blocks.put(descriptor.sensorType, new ColumnBlock(descriptor, blockSize));
+        }
+
+        this.output = new DataOutputStream(new BufferedOutputStream(outputStream));
+        output.write(ColumnarSensorFormat.MAGIC);
+        output.writeShort(ColumnarSensorFormat.VERSION);
+        output.writeShort(blocks.size());
+        for (ColumnBlock block : blocks.values()) {
+            block.descriptor.write(output);
+        }
+    }
+
+    /**
+     * Returns the reference event, or null if it hasn't been written yet.
+     *
+     * @return the reference event, or null if it hasn't been written yet.
+     */
+    @Nullable
+    public ColumnarSensorReference getReference() {
+        return reference;
+    }
+
+    /**
+     * Writes the reference event. This must be called once, before any sample is written.
+     *
+     * @param reference
+     *         the reference event.
+     */
+    public void writeReference(@NonNull ColumnarSensorReference reference) throws IOException {
+        checkNotNull(reference);
+        checkState(this.reference == null, "Reference has already been written");
+
+        this.reference = reference;
+        output.writeByte(ColumnarSensorFormat.TAG_REFERENCE);
+        reference.write(output);
+    }
+
+    /**
+     * Writes a single sensor sample.
+     *
+     * @param sensorType
+     *         the android sensor type of the sample, must have been described when this writer was created.
+     * @param timestampNanos
+     *         the sensor timestamp of the sample, in nanoseconds of uptime.
+     * @param accuracy
+     *         the accuracy of the sample.
+     * @param values
+     *         the sample values. Missing values are recorded as 0.
+     */
+    public void writeSample(int sensorType, long timestampNanos, int accuracy, @NonNull float[] values)
+            throws IOException {
+        checkState(reference != null, "Reference must be written before samples");
+        ColumnBlock block = blocks.get(sensorType);
+        if (block == null) {
+            throw new IllegalArgumentException("No column descriptor for sensor type " + sensorType);
+        }
+
+        int index = block.count;
+        block.timestampDeltas[index] = timestampNanos - reference.uptimeNanos;
+        int valueCount = Math.min(values.length, block.descriptor.valueCount);
+        for (int column = 0; column < valueCount; column++) {
+            block.columns[column][index] = values[column];
+        }
+        for (int column = valueCount; column < block.descriptor.valueCount; column++) {
+            block.columns[column][index] = 0f;
+        }
+        block.accuracy[index] = (byte) accuracy;
+        block.count++;
+
+        if (block.count == blockSize) {
+            writeBlock(block);
+        }
+    }
+
+    /**
+     * Writes every partially filled block and flushes the underlying stream.
+     */
+    public void flush() throws IOException {
+        for (ColumnBlock block : blocks.values()) {
+            if (block.count > 0) {
+                writeBlock(block);
+            }
+        }
+        output.flush();
+    }
+
+    /**
+     * Writes the remaining samples and the end marker, then closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            flush();
+            output.writeByte(ColumnarSensorFormat.TAG_END);
+            output.flush();
+        } finally {
+            output.close();
+        }
+    }
+
+    private void writeBlock(ColumnBlock block) throws IOException {
+        int count = block.count;
+        output.writeByte(ColumnarSensorFormat.TAG_BLOCK);
+        output.writeInt(block.descriptor.sensorType);
+        output.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            output.writeLong(block.timestampDeltas[i]);
+        }
+        for (float[] column : block.columns) {
+            for (int i = 0; i < count; i++) {
+                output.writeFloat(column[i]);
+            }
+        }
+        output.write(block.accuracy, 0, count);
+        block.count = 0;
+    }
+}
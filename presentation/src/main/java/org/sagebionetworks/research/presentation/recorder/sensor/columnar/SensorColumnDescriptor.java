@@ -0,0 +1,202 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.recorder.sensor.columnar;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import android.hardware.Sensor;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+
+import org.sagebionetworks.research.presentation.recorder.sensor.DeviceMotionUtil;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Describes the column layout of one sensor type in a columnar motion recorder file, along with the names needed to
+ * convert its samples back to the json schema written by the json motion recorder.
+ */
+public final class SensorColumnDescriptor {
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({Kind.ACCELERATION, Kind.GYROSCOPE, Kind.MAGNETIC_FIELD, Kind.ROTATION_VECTOR, Kind.UNCALIBRATED})
+    public @interface Kind {
+        int ACCELERATION = 0;
+        int GYROSCOPE = 1;
+        int MAGNETIC_FIELD = 2;
+        int ROTATION_VECTOR = 3;
+        int UNCALIBRATED = 4;
+    }
+
+    public final int sensorType;
+
+    @Kind
+    public final int kind;
+
+    public final int valueCount;
+
+    @Nullable
+    public final String dataType;
+
+    @Nullable
+    public final String unit;
+
+    @Nullable
+    public final String sensorAndroidType;
+
+    @Nullable
+    public final String referenceCoordinate;
+
+    /**
+     * Returns the descriptor for the given android sensor type, or null if the motion recorder doesn't record it.
+     *
+     * @param sensorType
+     *         the android sensor type.
+     * @return the descriptor for the given android sensor type, or null if the motion recorder doesn't record it.
+     */
+    @Nullable
+    public static SensorColumnDescriptor forSensorType(int sensorType) {
+        String dataType = DeviceMotionUtil.SENSOR_TYPE_TO_DATA_TYPE.get(sensorType);
+        switch (sensorType) {
+            case Sensor.TYPE_ACCELEROMETER:
+            case Sensor.TYPE_GRAVITY:
+            case Sensor.TYPE_LINEAR_ACCELERATION:
+                return new SensorColumnDescriptor(sensorType, Kind.ACCELERATION, 3, dataType, "g", null, null);
+            case Sensor.TYPE_GYROSCOPE:
+                return new SensorColumnDescriptor(sensorType, Kind.GYROSCOPE, 3, dataType, "rad/s", null, null);
+            case Sensor.TYPE_MAGNETIC_FIELD:
+                return new SensorColumnDescriptor(sensorType, Kind.MAGNETIC_FIELD, 3, dataType, "uT", null, null);
+            case Sensor.TYPE_GYROSCOPE_UNCALIBRATED:
+            case Sensor.TYPE_MAGNETIC_FIELD_UNCALIBRATED:
+            case Sensor.TYPE_ACCELEROMETER_UNCALIBRATED:
+                return new SensorColumnDescriptor(sensorType, Kind.UNCALIBRATED, 6, dataType, null, null, null);
+            case Sensor.TYPE_ROTATION_VECTOR:
+                return new SensorColumnDescriptor(sensorType, Kind.ROTATION_VECTOR, 5, dataType, null,
+                        "rotationVector", "East-Up-North");
+            case Sensor.TYPE_GAME_ROTATION_VECTOR:
+                return new SensorColumnDescriptor(sensorType, Kind.ROTATION_VECTOR, 5, dataType, null,
+                        "gameRotationVector", "zUp");
+            case Sensor.TYPE_GEOMAGNETIC_ROTATION_VECTOR:
+                return new SensorColumnDescriptor(sensorType, Kind.ROTATION_VECTOR, 5, dataType, null,
+                        "geomagneticRotationVector", "East-Up-North");
+            default:
+                return null;
+        }
+    }
+
+    public SensorColumnDescriptor(int sensorType, @Kind int kind, int valueCount, @Nullable String dataType,
+            @Nullable String unit, @Nullable String sensorAndroidType, @Nullable String referenceCoordinate) {
+        checkArgument(valueCount > 0 && valueCount <= Byte.MAX_VALUE, "valueCount must be in [1, 127]");
+        this.sensorType = sensorType;
+        this.kind = kind;
+        this.valueCount = valueCount;
+        this.dataType = dataType;
+        this.unit = unit;
+        this.sensorAndroidType = sensorAndroidType;
+        this.referenceCoordinate = referenceCoordinate;
+    }
+
+    @NonNull
+    static SensorColumnDescriptor read(@NonNull DataInput input) throws IOException {
+        int sensorType = input.readInt();
+        int kind = input.readUnsignedByte();
+        int valueCount = input.readUnsignedByte();
+        return new SensorColumnDescriptor(sensorType, kind, valueCount, readNullableUTF(input),
+                readNullableUTF(input), readNullableUTF(input), readNullableUTF(input));
+    }
+
+    @Nullable
+    static String readNullableUTF(@NonNull DataInput input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    static void writeNullableUTF(@NonNull DataOutput output, @Nullable String value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    void write(@NonNull DataOutput output) throws IOException {
+        output.writeInt(sensorType);
+        output.writeByte(kind);
+        output.writeByte(valueCount);
+        writeNullableUTF(output, dataType);
+        writeNullableUTF(output, unit);
+        writeNullableUTF(output, sensorAndroidType);
+        writeNullableUTF(output, referenceCoordinate);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SensorColumnDescriptor that = (SensorColumnDescriptor) o;
+        return sensorType == that.sensorType &&
+                kind == that.kind &&
+                valueCount == that.valueCount &&
+                Objects.equal(dataType, that.dataType) &&
+                Objects.equal(unit, that.unit) &&
+                Objects.equal(sensorAndroidType, that.sensorAndroidType) &&
+                Objects.equal(referenceCoordinate, that.referenceCoordinate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(sensorType, kind, valueCount, dataType, unit, sensorAndroidType,
+                referenceCoordinate);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("sensorType", sensorType)
+                .add("kind", kind)
+                .add("valueCount", valueCount)
+                .add("dataType", dataType)
+                .toString();
+    }
+}
@@ -43,6 +43,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 
 import org.sagebionetworks.research.domain.async.AsyncActionConfiguration;
@@ -57,18 +58,27 @@ import org.sagebionetworks.research.presentation.perform_task.TaskResultManager.
 import org.sagebionetworks.research.presentation.recorder.Recorder;
 import org.sagebionetworks.research.presentation.recorder.RecorderConfigPresentation;
 import org.sagebionetworks.research.presentation.recorder.RestartableRecorderConfiguration;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSummary;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSummarySource;
 import org.sagebionetworks.research.presentation.recorder.service.RecorderService.RecorderBinder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
 import io.reactivex.Single;
+import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.subjects.BehaviorSubject;
 
 /**
  * A RecorderManager managers a Task's recorders.
@@ -78,6 +88,8 @@ import io.reactivex.disposables.CompositeDisposable;
  */
 public class RecorderManager implements ServiceConnection {
     private static final Logger LOGGER = LoggerFactory.getLogger(RecorderManager.class);
+    // emits whenever the active recorders may have changed, completes when the service is unbound
+    private final BehaviorSubject<Object> activeRecordersChanged = BehaviorSubject.createDefault(new Object());
     private final CompositeDisposable compositeDisposable;
     private final Context context;
     private final RecorderConfigPresentationFactory recorderConfigPresentationFactory;
@@ -95,10 +107,21 @@ public class RecorderManager implements ServiceConnection {
 
     private RecorderServiceConnectionListener recorderServiceConnectionListener;
 
+    @Nullable
+    private AsyncResultListener asyncResultListener;
+
     public interface RecorderServiceConnectionListener {
         void onRecorderServiceConnected(@NonNull final RecorderService recorderService, final boolean bound);
     }
 
+    /**
+     * Receives the result of each recorder as it is started, on the main thread, so the owner can add it to the task
+     * result in order with its other changes to the task run.
+     */
+    public interface AsyncResultListener {
+        void onAsyncResult(@NonNull Maybe<? extends Result> asyncResult);
+    }
+
     public RecorderManager(@NonNull Task task, @NonNull String taskIdentifier, @NonNull UUID taskRunUUID,
                            Context context,
                            @NonNull TaskResultManager taskResultManager,
@@ -126,6 +149,15 @@ public class RecorderManager implements ServiceConnection {
         this.recorderServiceConnectionListener = recorderServiceConnectionListener;
     }
 
+    public RecorderManager(@NonNull Task task, @NonNull String taskIdentifier, @NonNull UUID taskRunUUID,
+            Context context,
+            @NonNull TaskResultManager taskResultManager,
+            RecorderConfigPresentationFactory recorderConfigPresentationFactory,
+            @NonNull AsyncResultListener asyncResultListener) {
+        this(task, taskIdentifier, taskRunUUID, context, taskResultManager, recorderConfigPresentationFactory);
+        this.asyncResultListener = checkNotNull(asyncResultListener);
+    }
+
     /**
      * Returns a map of Recorder Id to Recorder containing all of the recorders that are currently active. An active
      * recorder is any recorder that has been created and has not had stop() called on it.
@@ -142,6 +174,27 @@ public class RecorderManager implements ServiceConnection {
         }
     }
 
+    /**
+     * Returns summaries of the motion recorded by the active recorders. The summaries follow the active recorders as
+     * the service binds and recorders are created, started and stopped, resubscribing to the recorders whenever the
+     * set of active recorders changes.
+     *
+     * @return summaries of the recorded motion, which complete when the service is unbound.
+     */
+    @NonNull
+    public Flowable<SensorSummary> getSensorSummaries() {
+        return activeRecordersChanged.toFlowable(BackpressureStrategy.LATEST)
+                .map(changed -> getSensorSummarySources())
+                .distinctUntilChanged()
+                .switchMap(sources -> {
+                    List<Flowable<SensorSummary>> sensorSummaries = new ArrayList<>();
+                    for (SensorSummarySource source : sources) {
+                        sensorSummaries.add(source.getSensorSummaries());
+                    }
+                    return Flowable.merge(sensorSummaries);
+                });
+    }
+
     @Override
     public void onServiceConnected(final ComponentName componentName, final IBinder iBinder) {
         this.binder = (RecorderBinder) iBinder;
@@ -161,6 +214,8 @@ public class RecorderManager implements ServiceConnection {
         } catch (IOException e) {
             LOGGER.warn("Encountered IOException while initializing recorders", e);
             // TODO rkolmos 8/13/2018 handle the IOException.
+        } finally {
+            activeRecordersChanged.onNext(new Object());
         }
     }
 
@@ -170,6 +225,7 @@ public class RecorderManager implements ServiceConnection {
         this.service = null;
         this.bound = false;
         this.compositeDisposable.dispose();
+        activeRecordersChanged.onComplete();
     }
 
     /**
@@ -237,8 +293,7 @@ public class RecorderManager implements ServiceConnection {
 
                 if (activeRecorder != null) {
                     // Only wait for results of recorders which were started
-                    taskResultManagerConnectionSingle.blockingGet()
-                            .addAsyncActionResult(activeRecorder.getResult());
+                    addAsyncResult(config, activeRecorder.getResult());
                     this.service.startRecorder(this.taskRunUUID, config.getIdentifier());
                     LOGGER.info("Starting recorder " + config.getIdentifier());
                 } else {
@@ -266,16 +321,48 @@ public class RecorderManager implements ServiceConnection {
                     }
                 }
             }
+            activeRecordersChanged.onNext(new Object());
         } else {
             LOGGER.warn("OnStepTransition was called but RecorderService was unbound.");
             // TODO: rkolmos 06/20/2018 handle the service being unbound
         }
     }
 
+    /**
+     * Hands the result of a started recorder to the listener, or otherwise to the TaskResultManager on the main thread
+     * once it is connected, without blocking the main thread until then.
+     */
+    private void addAsyncResult(@NonNull RecorderConfigPresentation config,
+            @NonNull Maybe<? extends Result> recorderResult) {
+        if (asyncResultListener != null) {
+            asyncResultListener.onAsyncResult(recorderResult);
+            return;
+        }
+
+        this.compositeDisposable.add(taskResultManagerConnectionSingle
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(connection -> connection.addAsyncActionResult(recorderResult),
+                        t -> LOGGER.warn("Failed to add result of recorder " + config.getIdentifier(), t)));
+    }
+
     public void unbind() {
         if (this.bound) {
             this.context.unbindService(this);
         }
+        activeRecordersChanged.onComplete();
+    }
+
+    @NonNull
+    private ImmutableSet<SensorSummarySource> getSensorSummarySources() {
+        ImmutableSet.Builder<SensorSummarySource> sources = ImmutableSet.builder();
+        if (this.bound) {
+            for (Recorder<? extends Result> recorder : getActiveRecorders().values()) {
+                if (recorder instanceof SensorSummarySource) {
+                    sources.add((SensorSummarySource) recorder);
+                }
+            }
+        }
+        return sources.build();
     }
 
     /**
@@ -46,6 +46,8 @@ import org.sagebionetworks.research.presentation.inject.RecorderModule.RecorderF
 import org.sagebionetworks.research.presentation.recorder.Recorder;
 import org.sagebionetworks.research.presentation.recorder.RecorderActionType;
 import org.sagebionetworks.research.presentation.recorder.RecorderConfigPresentation;
+import org.sagebionetworks.research.presentation.recorder.reactive.RecorderSchedulers;
+import org.sagebionetworks.research.presentation.recorder.reactive.RecorderWriterThread;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -70,6 +72,10 @@ import dagger.android.DaggerService;
  * <p>
  * RECORDER_ID_KEY -> the identifier of the recorder to perform the action on.
  * <p>
+ * By default recorders handle their events on the shared computation scheduler and write them on the io scheduler.
+ * Subclasses can override useDedicatedWriterThread to have every recorder of the service handle and write its events
+ * on one dedicated RecorderWriterThread instead.
+ * <p>
  * TODO: create a reactive binding to the service, like for TaskResultService. Currently, step transitions and adding
  * of recorders can be missed when the service is not yet bound @liujoshua 08/26/2018
  */
@@ -147,6 +153,10 @@ public class RecorderService extends DaggerService {
 
     protected IBinder serviceBinder;
 
+    // the thread recorders handle and write their events on, or null if they use the shared schedulers
+    @Nullable
+    protected RecorderWriterThread recorderWriterThread;
+
     @Inject
     RecorderFactory recorderFactory;
 
@@ -159,6 +169,18 @@ public class RecorderService extends DaggerService {
         super.onCreate();
         this.serviceBinder = new RecorderBinder();
         this.recorderMapping = new HashMap<>();
+        if (useDedicatedWriterThread()) {
+            this.recorderWriterThread = new RecorderWriterThread("RecorderWriter");
+        }
+    }
+
+    @Override
+    public void onDestroy() {
+        if (this.recorderWriterThread != null) {
+            this.recorderWriterThread.shutdown();
+            this.recorderWriterThread = null;
+        }
+        super.onDestroy();
     }
 
     /**
@@ -185,7 +207,10 @@ public class RecorderService extends DaggerService {
     public Recorder<? extends Result> createRecorder(@NonNull UUID taskIdentifier,
             @NonNull RecorderConfigPresentation recorderConfiguration)
             throws IOException {
-        Recorder<? extends Result> recorder = this.recorderFactory.create(recorderConfiguration, taskIdentifier);
+        RecorderSchedulers schedulers = this.recorderWriterThread != null
+                ? this.recorderWriterThread.getRecorderSchedulers() : RecorderSchedulers.defaults();
+        Recorder<? extends Result> recorder = this.recorderFactory
+                .create(recorderConfiguration, taskIdentifier, schedulers);
 
         if (!this.recorderMapping.containsKey(taskIdentifier)) {
             this.recorderMapping.put(taskIdentifier, new HashMap<>());
@@ -295,6 +320,17 @@ public class RecorderService extends DaggerService {
         this.recorderMapping.get(taskIdentifier).remove(recorderIdentifier);
     }
 
+    /**
+     * Returns whether the recorders of this service handle and write their events on one dedicated thread, instead of
+     * hopping from the shared computation scheduler to the shared io scheduler. A dedicated thread keeps recording
+     * from competing with other computation work, and every event crosses one queue instead of two.
+     *
+     * @return true if recorders should use a dedicated writer thread, false by default.
+     */
+    protected boolean useDedicatedWriterThread() {
+        return false;
+    }
+
     private Recorder getRecorder(@NonNull UUID taskIdentifier, @NonNull String recorderIdentifier) {
         Map<String, Recorder<? extends Result>> taskRecorderMap = this.recorderMapping.get(taskIdentifier);
         if (taskRecorderMap == null) {
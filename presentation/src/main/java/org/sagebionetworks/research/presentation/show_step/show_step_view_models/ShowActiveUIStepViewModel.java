@@ -36,6 +36,7 @@ import androidx.lifecycle.LiveData;
 
 import org.sagebionetworks.research.presentation.model.interfaces.ActiveUIStepView;
 import org.sagebionetworks.research.presentation.perform_task.PerformTaskViewModel;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSummary;
 
 public class ShowActiveUIStepViewModel<S extends ActiveUIStepView> extends ShowUIStepViewModel<S> {
 
@@ -88,6 +89,14 @@ public class ShowActiveUIStepViewModel<S extends ActiveUIStepView> extends ShowU
         return this.mModelHelper.countdown;
     }
 
+    /**
+     * To get live feedback on how the phone is moving during the step, observe the sensor summary LiveData.
+     * @return the latest summary of the motion recorded during the step.
+     */
+    public LiveData<SensorSummary> getSensorSummary() {
+        return this.mModelHelper.getSensorSummary();
+    }
+
     @Override
     protected void onCleared() {
         mModelHelper.cleanup();
@@ -17,6 +17,7 @@ import org.sagebionetworks.research.domain.result.implementations.ResultBase;
 import org.sagebionetworks.research.domain.step.ui.active.Command;
 import org.sagebionetworks.research.presentation.model.interfaces.ActiveUIStepView;
 import org.sagebionetworks.research.presentation.perform_task.PerformTaskViewModel;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSummary;
 import org.sagebionetworks.research.presentation.speech.TextToSpeechService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +26,7 @@ import org.threeten.bp.Instant;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 import io.reactivex.internal.operators.flowable.FlowableFromObservable;
 
@@ -66,6 +68,9 @@ public class ShowActiveUiStepViewModelHelper <S extends ActiveUIStepView> {
     protected LiveData<Long> tempLiveData;
     protected MutableLiveData<Long> countdown;
 
+    @Nullable
+    private LiveData<SensorSummary> sensorSummary;
+
     protected @Nullable
     Observer<Long> countDownObserver;
     protected @NonNull Long currentDuration = 0L;
@@ -255,6 +260,23 @@ public class ShowActiveUiStepViewModelHelper <S extends ActiveUIStepView> {
         return this.countdown;
     }
 
+    /**
+     * Summaries of the motion recorded during this step, such as how much the phone is moving, so the UI can give
+     * live feedback. Summaries follow the active motion recorders, and stop when the recorder service is unbound,
+     * or if they fail.
+     * @return the latest summary of the recorded motion.
+     */
+    public LiveData<SensorSummary> getSensorSummary() {
+        if (this.sensorSummary == null) {
+            this.sensorSummary = LiveDataReactiveStreams.fromPublisher(
+                    mPerformTaskViewModel.getSensorSummaries()
+                            .onBackpressureLatest()
+                            .doOnError(t -> LOGGER.warn("Sensor summaries failed", t))
+                            .onErrorResumeNext(Flowable.empty()));
+        }
+        return this.sensorSummary;
+    }
+
 
 
 
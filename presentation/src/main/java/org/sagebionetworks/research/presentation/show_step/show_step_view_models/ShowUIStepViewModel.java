@@ -82,8 +82,8 @@ public class ShowUIStepViewModel<S extends UIStepView> extends ShowStepViewModel
         LOGGER.debug("handleAction called with actionType: {}", actionType);
         switch (actionType) {
             case ActionType.FORWARD:
-                if (performTaskViewModel.getTaskResult()
-                        .getResult(stepView.getIdentifier()) == null) {
+                TaskResult taskResult = performTaskViewModel.getTaskResult();
+                if (taskResult == null || taskResult.getResult(stepView.getIdentifier()) == null) {
                     // If for whatever reason the step didn't create a result matching it's identifier we create a
                     // ResultBase to mark that the step completed.
                     addStepResult(new ResultBase(stepView.getIdentifier(), startTime, Instant.now()));
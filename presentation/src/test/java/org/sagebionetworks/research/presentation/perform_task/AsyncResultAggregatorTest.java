@@ -0,0 +1,144 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.perform_task;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.sagebionetworks.research.domain.result.implementations.ResultBase;
+import org.sagebionetworks.research.domain.result.interfaces.Result;
+import org.threeten.bp.Instant;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Maybe;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.MaybeSubject;
+
+public class AsyncResultAggregatorTest {
+    @Test
+    public void testCompletion_waitsForCloseAndPendingResults() {
+        List<Result> results = new ArrayList<>();
+        AsyncResultAggregator aggregator = new AsyncResultAggregator(results::add, Schedulers.trampoline());
+        MaybeSubject<Result> pending = MaybeSubject.create();
+
+        assertTrue(aggregator.add(Maybe.just(result("immediate"))));
+        assertTrue(aggregator.add(pending));
+        assertTrue(aggregator.add(Maybe.empty()));
+        assertTrue(aggregator.add(Maybe.error(new IllegalStateException("failed recorder"))));
+        assertEquals(1, aggregator.getPendingCount());
+
+        aggregator.close();
+        assertFalse(completed(aggregator));
+
+        // results can still arrive while earlier ones are pending
+        assertTrue(aggregator.add(Maybe.just(result("late"))));
+
+        pending.onSuccess(result("pending"));
+        assertTrue(completed(aggregator));
+        assertEquals(0, aggregator.getPendingCount());
+        assertEquals(3, results.size());
+
+        assertFalse(aggregator.add(Maybe.just(result("after completion"))));
+        // the observable of async results includes the late result, and completed with the aggregator
+        aggregator.getAsyncResults().test().assertValueCount(5).assertComplete();
+    }
+
+    @Test
+    public void testDispose_cancelsPendingResults() {
+        List<Result> results = new ArrayList<>();
+        AsyncResultAggregator aggregator = new AsyncResultAggregator(results::add, Schedulers.trampoline());
+        MaybeSubject<Result> pending = MaybeSubject.create();
+        aggregator.add(pending);
+
+        aggregator.dispose();
+        pending.onSuccess(result("after dispose"));
+        aggregator.close();
+
+        assertTrue(results.isEmpty());
+        assertEquals(0, aggregator.getPendingCount());
+        assertFalse(completed(aggregator));
+        assertFalse(aggregator.add(Maybe.just(result("added after dispose"))));
+    }
+
+    @Test
+    public void testClose_rejectsResultsOnceComplete() {
+        AsyncResultAggregator aggregator = new AsyncResultAggregator(result -> {}, Schedulers.trampoline());
+        aggregator.add(Maybe.just(result("immediate")));
+
+        aggregator.close();
+
+        assertTrue(completed(aggregator));
+        assertFalse(aggregator.add(Maybe.just(result("after close"))));
+        aggregator.getAsyncResults().test().assertValueCount(1).assertComplete();
+    }
+
+    @Test
+    public void testManyAsyncResults_subscribedOnceEach() {
+        // each result is subscribed to once however many came before it, so the work grows linearly
+        for (int size : new int[]{250, 500, 1000}) {
+            aggregate(size);
+        }
+    }
+
+    private void aggregate(int size) {
+        List<Result> results = Collections.synchronizedList(new ArrayList<>());
+        AsyncResultAggregator aggregator = new AsyncResultAggregator(results::add, Schedulers.single());
+        AtomicInteger subscriptions = new AtomicInteger();
+        for (int i = 0; i < size; i++) {
+            Result result = result("action" + i);
+            aggregator.add(Maybe.fromCallable(() -> result).doOnSubscribe(d -> subscriptions.incrementAndGet()));
+        }
+
+        aggregator.close();
+        assertTrue(aggregator.getCompletion().blockingAwait(10, TimeUnit.SECONDS));
+        assertEquals(size, results.size());
+        assertEquals(size, subscriptions.get());
+        aggregator.getAsyncResults().test().assertValueCount(size).assertComplete();
+    }
+
+    private static boolean completed(AsyncResultAggregator aggregator) {
+        return aggregator.getCompletion().test().completions() == 1;
+    }
+
+    private static Result result(String identifier) {
+        return new ResultBase(identifier, Instant.now(), Instant.now());
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.presentation.perform_task;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.sagebionetworks.research.domain.result.implementations.TaskResultBase;
+import org.sagebionetworks.research.domain.result.interfaces.TaskResult;
+import org.sagebionetworks.research.presentation.perform_task.TaskResultProcessingManager.PrioritizedTaskResultProcessor;
+import org.sagebionetworks.research.presentation.perform_task.TaskResultProcessingManager.RetryableTaskResultProcessor;
+import org.sagebionetworks.research.presentation.perform_task.TaskResultProcessingManager.TaskResultProcessor;
+import org.threeten.bp.Duration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Completable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.CompletableSubject;
+
+public class TaskResultProcessorPipelineTest {
+    private static class FakeProcessor implements PrioritizedTaskResultProcessor {
+        private final Callable<Completable> attempt;
+
+        private final String name;
+
+        private final int priority;
+
+        private final List<String> started;
+
+        FakeProcessor(String name, int priority, List<String> started, Callable<Completable> attempt) {
+            this.name = name;
+            this.priority = priority;
+            this.started = started;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public int getPriority() {
+            return priority;
+        }
+
+        @Override
+        public Completable processTaskResult(TaskResult taskResult) {
+            started.add(name);
+            try {
+                return attempt.call();
+            } catch (Exception e) {
+                return Completable.error(e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static class RetryableFakeProcessor extends FakeProcessor implements RetryableTaskResultProcessor {
+        RetryableFakeProcessor(String name, int priority, List<String> started, Callable<Completable> attempt) {
+            super(name, priority, started, attempt);
+        }
+    }
+
+    private static final TaskResultProcessingPolicy POLICY = TaskResultProcessingPolicy.builder()
+            .setInitialBackoff(Duration.ofSeconds(1))
+            .setMaxConcurrency(2)
+            .setMaxRetries(2)
+            .setTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final List<String> started = new ArrayList<>();
+
+    private final TaskResult taskResult = new TaskResultBase("task", UUID.randomUUID());
+
+    private final TestScheduler scheduler = new TestScheduler();
+
+    @Test
+    public void testProcess_startsByPriorityWithinMaxConcurrency() {
+        CompletableSubject heavy = CompletableSubject.create();
+        CompletableSubject normal = CompletableSubject.create();
+        CompletableSubject light = CompletableSubject.create();
+        TaskResultProcessor heavyProcessor = new FakeProcessor("heavy", PrioritizedTaskResultProcessor.PRIORITY_LOW,
+                started, () -> heavy);
+        TaskResultProcessor normalProcessor = taskResult -> {
+            started.add("normal");
+            return normal;
+        };
+        TaskResultProcessor lightProcessor = new FakeProcessor("light",
+                PrioritizedTaskResultProcessor.PRIORITY_HIGH, started, () -> light);
+        TaskResultProcessorPipeline pipeline = new TaskResultProcessorPipeline(
+                Arrays.asList(heavyProcessor, normalProcessor, lightProcessor), POLICY, scheduler);
+
+        TestObserver<Void> observer = pipeline.process(taskResult).test();
+        assertEquals(Arrays.asList("light", "normal"), started);
+
+        light.onComplete();
+        assertEquals(Arrays.asList("light", "normal", "heavy"), started);
+
+        scheduler.advanceTimeBy(3, TimeUnit.SECONDS);
+        heavy.onComplete();
+        observer.assertNotComplete();
+        normal.onComplete();
+        observer.assertComplete();
+
+        assertEquals(1, pipeline.getProcessorMetrics().get(lightProcessor).getSuccessCount());
+        assertEquals(0, pipeline.getProcessorMetrics().get(lightProcessor).getLastLatencyMillis());
+        assertEquals(3000, pipeline.getProcessorMetrics().get(heavyProcessor).getLastLatencyMillis());
+        assertEquals(3000, pipeline.getProcessorMetrics().get(normalProcessor).getMaxLatencyMillis());
+    }
+
+    @Test
+    public void testProcess_retriesTimeoutAfterBackoff() {
+        AtomicInteger attempts = new AtomicInteger();
+        TaskResultProcessor processor = new RetryableFakeProcessor("slow",
+                PrioritizedTaskResultProcessor.PRIORITY_DEFAULT, started,
+                () -> attempts.incrementAndGet() == 1 ? Completable.never() : Completable.complete());
+        TaskResultProcessorPipeline pipeline = new TaskResultProcessorPipeline(Arrays.asList(processor), POLICY,
+                scheduler);
+
+        TestObserver<Void> observer = pipeline.process(taskResult).test();
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+        assertEquals(1, attempts.get());
+
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        assertEquals(2, attempts.get());
+        observer.assertComplete();
+
+        TaskResultProcessorMetrics metrics = pipeline.getProcessorMetrics().get(processor);
+        assertEquals(1, metrics.getTimeoutCount());
+        assertEquals(1, metrics.getRetryCount());
+        assertEquals(1, metrics.getSuccessCount());
+        assertEquals(0, metrics.getFailureCount());
+        assertEquals(11000, metrics.getLastLatencyMillis());
+    }
+
+    @Test
+    public void testProcess_failureWaitsForOtherProcessors() {
+        AtomicInteger attempts = new AtomicInteger();
+        IllegalStateException error = new IllegalStateException("upload failed");
+        CompletableSubject archive = CompletableSubject.create();
+        TaskResultProcessor failing = new RetryableFakeProcessor("failing",
+                PrioritizedTaskResultProcessor.PRIORITY_DEFAULT, started, () -> {
+            attempts.incrementAndGet();
+            return Completable.error(error);
+        });
+        TaskResultProcessor archiving = new FakeProcessor("archive", PrioritizedTaskResultProcessor.PRIORITY_HIGH,
+                started, () -> archive);
+        TaskResultProcessorPipeline pipeline = new TaskResultProcessorPipeline(Arrays.asList(failing, archiving),
+                POLICY, scheduler);
+
+        TestObserver<Void> observer = pipeline.process(taskResult).test();
+        // retries wait 1 second, then 2 seconds
+        scheduler.advanceTimeBy(2999, TimeUnit.MILLISECONDS);
+        assertEquals(2, attempts.get());
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        assertEquals(3, attempts.get());
+        observer.assertNotTerminated();
+
+        archive.onComplete();
+        observer.assertError(error);
+
+        TaskResultProcessorMetrics metrics = pipeline.getProcessorMetrics().get(failing);
+        assertEquals(1, metrics.getFailureCount());
+        assertEquals(2, metrics.getRetryCount());
+        assertEquals(3000, metrics.getLastLatencyMillis());
+        assertEquals(1, pipeline.getProcessorMetrics().get(archiving).getSuccessCount());
+    }
+
+    @Test
+    public void testProcess_runsOnceUnlessRetryable() {
+        AtomicInteger attempts = new AtomicInteger();
+        IllegalStateException error = new IllegalStateException("packaging failed");
+        CompletableSubject upload = CompletableSubject.create();
+        TaskResultProcessor failing = new FakeProcessor("packaging", PrioritizedTaskResultProcessor.PRIORITY_DEFAULT,
+                started, () -> {
+            attempts.incrementAndGet();
+            return Completable.error(error);
+        });
+        TaskResultProcessor slow = new FakeProcessor("upload", PrioritizedTaskResultProcessor.PRIORITY_DEFAULT,
+                started, () -> upload);
+        TaskResultProcessorPipeline pipeline = new TaskResultProcessorPipeline(Arrays.asList(failing, slow),
+                POLICY, scheduler);
+
+        TestObserver<Void> observer = pipeline.process(taskResult).test();
+        // well past the timeout and every retry's backoff
+        scheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+        assertEquals(1, attempts.get());
+        observer.assertNotTerminated();
+
+        upload.onComplete();
+        observer.assertError(error);
+
+        assertEquals(0, pipeline.getProcessorMetrics().get(failing).getRetryCount());
+        assertEquals(1, pipeline.getProcessorMetrics().get(failing).getFailureCount());
+        assertEquals(0, pipeline.getProcessorMetrics().get(slow).getTimeoutCount());
+        assertEquals(1, pipeline.getProcessorMetrics().get(slow).getSuccessCount());
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.perform_task;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sagebionetworks.research.domain.repository.TaskRepository;
+import org.sagebionetworks.research.domain.result.implementations.ResultBase;
+import org.sagebionetworks.research.domain.result.interfaces.Result;
+import org.sagebionetworks.research.domain.result.interfaces.TaskResult;
+import org.threeten.bp.Instant;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import io.reactivex.Completable;
+import io.reactivex.Maybe;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.MaybeSubject;
+
+public class TaskRunRegistryTest {
+    private static final int RUNS = 8;
+
+    private static final int THREADS_PER_RUN = 4;
+
+    // each thread adds this many step results and this many async results
+    private static final int UPDATES_PER_THREAD = 500;
+
+    private TaskRepository taskRepository;
+
+    private TaskRunRegistry taskRunRegistry;
+
+    @Before
+    public void setup() {
+        taskRepository = mock(TaskRepository.class);
+        when(taskRepository.getTaskResult(any())).thenReturn(Maybe.empty());
+        when(taskRepository.setTaskResult(any())).thenReturn(Completable.complete());
+        when(taskRepository.addStepHistory(any(), any())).thenReturn(Completable.complete());
+        when(taskRepository.removeStepHistory(any(), any())).thenReturn(Completable.complete());
+        when(taskRepository.addAsyncResult(any(), any())).thenReturn(Completable.complete());
+        taskRunRegistry = new TaskRunRegistry(taskRepository);
+    }
+
+    @Test
+    public void testConcurrentUpdates_noneLost() throws Exception {
+        List<UUID> taskRunUUIDs = new ArrayList<>();
+        for (int i = 0; i < RUNS; i++) {
+            UUID taskRunUUID = UUID.randomUUID();
+            taskRunUUIDs.add(taskRunUUID);
+            taskRunRegistry.registerTaskRun("task" + i, taskRunUUID).blockingAwait();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(RUNS * THREADS_PER_RUN);
+        try {
+            List<Future<?>> updates = new ArrayList<>();
+            for (UUID taskRunUUID : taskRunUUIDs) {
+                for (int thread = 0; thread < THREADS_PER_RUN; thread++) {
+                    String prefix = "thread" + thread + "_";
+                    updates.add(executor.submit(() -> {
+                        for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                            taskRunRegistry.addStepResult(taskRunUUID, result("step_" + prefix + i));
+                            taskRunRegistry.addAsyncResult(taskRunUUID, result("async_" + prefix + i));
+                        }
+                    }));
+                }
+            }
+            for (Future<?> update : updates) {
+                update.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (UUID taskRunUUID : taskRunUUIDs) {
+            TaskResult taskResult = taskRunRegistry.getLatestTaskResult(taskRunUUID);
+            assertEquals(THREADS_PER_RUN * UPDATES_PER_THREAD, taskResult.getStepHistory().size());
+            assertEquals(THREADS_PER_RUN * UPDATES_PER_THREAD, taskResult.getAsyncResults().size());
+        }
+    }
+
+    @Test
+    public void testUpdatesBeforeLoad_appliedOnceLoaded() {
+        MaybeSubject<TaskResult> storedTaskResult = MaybeSubject.create();
+        when(taskRepository.getTaskResult(any())).thenReturn(storedTaskResult);
+        UUID taskRunUUID = UUID.randomUUID();
+        TestObserver<Void> loaded = taskRunRegistry.registerTaskRun("task", taskRunUUID).test();
+
+        taskRunRegistry.addStepResult(taskRunUUID, result("step1"));
+        taskRunRegistry.addAsyncResult(taskRunUUID, result("recorder"));
+        taskRunRegistry.addStepResult(taskRunUUID, result("step2"));
+        assertNull(taskRunRegistry.getLatestTaskResult(taskRunUUID));
+
+        // nothing was stored for the task run
+        storedTaskResult.onComplete();
+        loaded.awaitTerminalEvent();
+
+        loaded.assertComplete();
+        TaskResult taskResult = taskRunRegistry.getLatestTaskResult(taskRunUUID);
+        assertEquals(2, taskResult.getStepHistory().size());
+        assertEquals("step1", taskResult.getStepHistory().get(0).getIdentifier());
+        assertEquals("step2", taskResult.getStepHistory().get(1).getIdentifier());
+        assertEquals(1, taskResult.getAsyncResults().size());
+    }
+
+    @Test
+    public void testSecondRegistration_completesOnceLoaded() {
+        MaybeSubject<TaskResult> storedTaskResult = MaybeSubject.create();
+        when(taskRepository.getTaskResult(any())).thenReturn(storedTaskResult);
+        UUID taskRunUUID = UUID.randomUUID();
+        TestObserver<Void> first = taskRunRegistry.registerTaskRun("task", taskRunUUID).test();
+        TestObserver<Void> second = taskRunRegistry.registerTaskRun("task", taskRunUUID).test();
+
+        second.assertNotComplete();
+
+        storedTaskResult.onComplete();
+        first.awaitTerminalEvent();
+        second.awaitTerminalEvent();
+
+        first.assertComplete();
+        second.assertComplete();
+    }
+
+    @Test
+    public void testLoadError_storedResultNotOverwritten() {
+        IOException readError = new IOException("corrupt journal");
+        when(taskRepository.getTaskResult(any())).thenReturn(Maybe.error(readError));
+        UUID taskRunUUID = UUID.randomUUID();
+
+        TestObserver<Void> loaded = taskRunRegistry.registerTaskRun("task", taskRunUUID).test();
+        loaded.awaitTerminalEvent();
+
+        loaded.assertError(readError);
+        verify(taskRepository, never()).setTaskResult(any());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAddAsyncResult_finishedTask() {
+        UUID taskRunUUID = UUID.randomUUID();
+        taskRunRegistry.registerTaskRun("task", taskRunUUID).blockingAwait();
+        taskRunRegistry.finish(taskRunUUID);
+
+        taskRunRegistry.addAsyncResult(taskRunUUID, result("recorder"));
+    }
+
+    @Test
+    public void testPendingAsyncResult_addedAfterFinish() {
+        UUID taskRunUUID = UUID.randomUUID();
+        taskRunRegistry.registerTaskRun("task", taskRunUUID).blockingAwait();
+        MaybeSubject<Result> recorderResult = MaybeSubject.create();
+        taskRunRegistry.addAsyncResult(taskRunUUID, recorderResult);
+        // the task result observable doesn't replay its last task result once complete, so subscribe before then
+        TestObserver<TaskResult> finalTaskResult = taskRunRegistry.getFinalTaskResult(taskRunUUID).test();
+        taskRunRegistry.finish(taskRunUUID);
+
+        recorderResult.onSuccess(result("recorder"));
+        finalTaskResult.awaitTerminalEvent();
+
+        finalTaskResult.assertValue(taskResult -> taskResult.getAsyncResults().size() == 1);
+    }
+
+    private static Result result(String identifier) {
+        Instant now = Instant.now();
+        return new ResultBase(identifier, now, now);
+    }
+}
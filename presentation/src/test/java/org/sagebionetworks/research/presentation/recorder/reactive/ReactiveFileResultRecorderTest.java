@@ -0,0 +1,202 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.recorder.reactive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sagebionetworks.research.domain.async.RecorderCompression;
+import org.sagebionetworks.research.domain.result.interfaces.FileResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+import io.reactivex.Flowable;
+
+public class ReactiveFileResultRecorderTest {
+    private static final Gson GSON = new Gson();
+
+    // small batches so a recording spans several batch flushes
+    private static final FlushPolicy FLUSH_POLICY = new FlushPolicy.FlushPolicyBuilder()
+            .setMaxBatchCount(4)
+            .setBufferCapacityBytes(16)
+            .build();
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("ReactiveFileResultRecorderTest", ".json");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testRecord_uncompressed() throws IOException {
+        FileResult fileResult = record(RecorderCompression.NONE, 10);
+
+        assertEquals(ReactiveFileResultRecorder.JSON_MIME_CONTENT_TYPE, fileResult.getFileType());
+        assertNull(fileResult.getContentEncoding());
+        assertEquals(expectedJson(10), read(new FileInputStream(file)));
+    }
+
+    @Test
+    public void testRecord_gzip() throws IOException {
+        FileResult fileResult = record(RecorderCompression.GZIP, 1000);
+
+        assertEquals(ReactiveFileResultRecorder.JSON_MIME_CONTENT_TYPE, fileResult.getFileType());
+        assertEquals(RecorderCompression.GZIP, fileResult.getContentEncoding());
+        assertEquals(expectedJson(1000), read(new GZIPInputStream(new FileInputStream(file))));
+    }
+
+    @Test
+    public void testRecord_gzipEmpty() throws IOException {
+        record(RecorderCompression.GZIP, 0);
+
+        assertEquals("[]", read(new GZIPInputStream(new FileInputStream(file))));
+    }
+
+    @Test
+    public void testRecord_writerThread() throws IOException {
+        RecorderWriterThread writerThread = new RecorderWriterThread("RecorderWriterTest");
+        try {
+            ReactiveFileResultRecorder<Integer> recorder = ReactiveFileResultRecorder.createJsonArrayLogger(
+                    "recorder", Flowable.range(0, 1000), GSON, file, FLUSH_POLICY, RecorderCompression.NONE,
+                    writerThread.getRecorderSchedulers());
+            recorder.start();
+            recorder.getResult().blockingGet();
+        } finally {
+            writerThread.shutdown();
+        }
+
+        assertEquals(expectedJson(1000), read(new FileInputStream(file)));
+    }
+
+    @Test
+    public void testRecord_writesOnlyOnTheWriteScheduler() {
+        RecorderWriterThread writerThread = new RecorderWriterThread("RecorderWriterTest");
+        try {
+            assertEquals(Collections.singleton("RecorderWriterTest"),
+                    recordWriteThreadNames(writerThread.getRecorderSchedulers()));
+        } finally {
+            writerThread.shutdown();
+        }
+
+        for (String threadName : recordWriteThreadNames(RecorderSchedulers.defaults())) {
+            assertTrue(threadName, threadName.startsWith("RxCachedThreadScheduler"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreate_unsupportedCompression() {
+        ReactiveFileResultRecorder.createJsonArrayLogger("recorder", Flowable.<Integer>empty(), GSON, file,
+                FLUSH_POLICY, "zip", RecorderSchedulers.defaults());
+    }
+
+    private FileResult record(@RecorderCompression String compression, int count) {
+        // the events complete on their own, stopping the recorder would drop events that are still in flight
+        ReactiveFileResultRecorder<Integer> recorder = ReactiveFileResultRecorder.createJsonArrayLogger("recorder",
+                Flowable.range(0, count), GSON, file, FLUSH_POLICY, compression, RecorderSchedulers.defaults());
+        recorder.start();
+        return recorder.getResult().blockingGet();
+    }
+
+    private Set<String> recordWriteThreadNames(@NonNull RecorderSchedulers schedulers) {
+        ThreadNameRecorder recorder = new ThreadNameRecorder(Flowable.range(0, 100), file, schedulers);
+        recorder.start();
+        recorder.getResult().blockingGet();
+        return recorder.writeThreadNames;
+    }
+
+    private static String expectedJson(int count) {
+        StringBuilder expected = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                expected.append(',');
+            }
+            expected.append(i);
+        }
+        return expected.append(']').toString();
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        try (InputStream in = inputStream) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Records the names of the threads the events were written on.
+     */
+    private static final class ThreadNameRecorder extends ReactiveFileResultRecorder<Integer> {
+        final Set<String> writeThreadNames = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+        ThreadNameRecorder(@NonNull Flowable<Integer> events, @NonNull File file,
+                @NonNull RecorderSchedulers schedulers) {
+            super("threadName", events, GSON, file, JSON_MIME_CONTENT_TYPE, JSON_FILE_START, JSON_FILE_END,
+                    JSON_OBJECT_DELIMINATOR, FLUSH_POLICY, RecorderCompression.NONE, schedulers);
+        }
+
+        @Override
+        protected void writeData(@NonNull Integer event, boolean isFirst) throws IOException {
+            writeThreadNames.add(Thread.currentThread().getName());
+            super.writeData(event, isFirst);
+        }
+    }
+}
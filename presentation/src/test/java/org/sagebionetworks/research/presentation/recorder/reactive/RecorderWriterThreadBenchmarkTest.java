@@ -0,0 +1,176 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.presentation.recorder.reactive;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.sagebionetworks.research.domain.async.RecorderCompression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import io.reactivex.Flowable;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Compares recording on the shared computation and io schedulers with recording on a dedicated RecorderWriterThread.
+ * Latency is measured from a paced producer thread, standing in for the sensor thread, to the event being written.
+ * Throughput is measured by recording events as fast as the recorder accepts them. Batches hold a single event so
+ * every event pays for its thread hops.
+ * <p>
+ * This is a benchmark rather than a test, so it is ignored and only logs its measurements. Remove the Ignore
+ * annotation to run it. ReactiveFileResultRecorderTest checks which threads the recorders write on.
+ */
+public class RecorderWriterThreadBenchmarkTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecorderWriterThreadBenchmarkTest.class);
+
+    private static final FlushPolicy FLUSH_POLICY = new FlushPolicy.FlushPolicyBuilder()
+            .setMaxBatchCount(1)
+            .setSyncEachBatch(false)
+            .build();
+
+    private static final int LATENCY_EVENTS = 5_000;
+
+    private static final long LATENCY_PERIOD_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private static final int THROUGHPUT_EVENTS = 200_000;
+
+    private static final String WRITER_THREAD_NAME = "RecorderWriterBenchmark";
+
+    private File file;
+
+    private RecorderWriterThread writerThread;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("RecorderWriterThreadBenchmarkTest", ".json");
+        writerThread = new RecorderWriterThread(WRITER_THREAD_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        writerThread.shutdown();
+        file.delete();
+    }
+
+    @Test
+    @Ignore("benchmark, run manually")
+    public void benchmarkLatencyAndThroughput() {
+        // warm up both chains so the measured runs are compiled
+        measureThroughput(RecorderSchedulers.defaults());
+        measureThroughput(writerThread.getRecorderSchedulers());
+
+        LatencyRecorder shared = measureLatency(RecorderSchedulers.defaults());
+        LatencyRecorder dedicated = measureLatency(writerThread.getRecorderSchedulers());
+        double sharedEventsPerSecond = measureThroughput(RecorderSchedulers.defaults());
+        double dedicatedEventsPerSecond = measureThroughput(writerThread.getRecorderSchedulers());
+
+        LOGGER.info("shared schedulers: latency p50 {} us, p99 {} us, {} events/s", shared.percentileMicros(50),
+                shared.percentileMicros(99), Math.round(sharedEventsPerSecond));
+        LOGGER.info("writer thread: latency p50 {} us, p99 {} us, {} events/s", dedicated.percentileMicros(50),
+                dedicated.percentileMicros(99), Math.round(dedicatedEventsPerSecond));
+
+        assertEquals(LATENCY_EVENTS, shared.count);
+        assertEquals(LATENCY_EVENTS, dedicated.count);
+    }
+
+    private LatencyRecorder measureLatency(@NonNull RecorderSchedulers schedulers) {
+        Flowable<Long> events = Flowable.<Long>generate(emitter -> {
+            LockSupport.parkNanos(LATENCY_PERIOD_NANOS);
+            emitter.onNext(System.nanoTime());
+        })
+                .take(LATENCY_EVENTS)
+                .subscribeOn(Schedulers.newThread());
+        LatencyRecorder recorder = new LatencyRecorder(events, file, schedulers, LATENCY_EVENTS);
+        recorder.start();
+        recorder.getResult().blockingGet();
+        return recorder;
+    }
+
+    private double measureThroughput(@NonNull RecorderSchedulers schedulers) {
+        Flowable<Long> events = Flowable.range(0, THROUGHPUT_EVENTS)
+                .map(i -> System.nanoTime())
+                .subscribeOn(Schedulers.newThread());
+        LatencyRecorder recorder = new LatencyRecorder(events, file, schedulers, THROUGHPUT_EVENTS);
+        long startNanos = System.nanoTime();
+        recorder.start();
+        recorder.getResult().blockingGet();
+        long elapsedNanos = System.nanoTime() - startNanos;
+        assertEquals(THROUGHPUT_EVENTS, recorder.count);
+        return THROUGHPUT_EVENTS * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Records the nanoTime each event was emitted at, keeping how long each event took to be written.
+     */
+    private static final class LatencyRecorder extends ReactiveFileResultRecorder<Long> {
+        int count;
+
+        final long[] latencyNanos;
+
+        LatencyRecorder(@NonNull Flowable<Long> events, @NonNull File file, @NonNull RecorderSchedulers schedulers,
+                int expectedEvents) {
+            super("latency", events, new Gson(), file, JSON_MIME_CONTENT_TYPE, JSON_FILE_START, JSON_FILE_END,
+                    JSON_OBJECT_DELIMINATOR, FLUSH_POLICY, RecorderCompression.NONE, schedulers);
+            latencyNanos = new long[expectedEvents];
+        }
+
+        long percentileMicros(int percentile) {
+            long[] sorted = Arrays.copyOf(latencyNanos, count);
+            Arrays.sort(sorted);
+            return TimeUnit.NANOSECONDS.toMicros(sorted[(sorted.length - 1) * percentile / 100]);
+        }
+
+        @Override
+        protected void writeData(@NonNull Long emittedNanos, boolean isFirst) {
+            latencyNanos[count++] = System.nanoTime() - emittedNanos;
+            if (!isFirst) {
+                outputStream.print(deliminator);
+            }
+            outputStream.print(count);
+        }
+    }
+}
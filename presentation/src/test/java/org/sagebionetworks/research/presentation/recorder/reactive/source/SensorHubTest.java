@@ -0,0 +1,229 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.recorder.reactive.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.hardware.Sensor;
+import androidx.annotation.NonNull;
+
+import com.github.pwittchen.reactivesensors.library.ReactiveSensorEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sagebionetworks.research.presentation.recorder.reactive.source.SensorHub.SensorRegistrar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.subjects.CompletableSubject;
+import io.reactivex.subscribers.TestSubscriber;
+
+public class SensorHubTest {
+    private static final int FAST_PERIOD_US = 10_000;
+
+    private static final int LATENCY_US = 500_000;
+
+    private static final int SLOW_PERIOD_US = 20_000;
+
+    private List<CompletableSubject> flushes;
+
+    private List<Registration> registrations;
+
+    private SensorHub sensorHub;
+
+    @Before
+    public void setUp() {
+        registrations = new ArrayList<>();
+        flushes = new ArrayList<>();
+        sensorHub = new SensorHub(new SensorRegistrar() {
+            @NonNull
+            @Override
+            public Completable flush(final int sensorType) {
+                CompletableSubject flush = CompletableSubject.create();
+                flushes.add(flush);
+                return flush;
+            }
+
+            @NonNull
+            @Override
+            public Flowable<ReactiveSensorEvent> observeSensor(final int sensorType, final int samplingPeriodInUs,
+                    final int maxReportLatencyInUs) {
+                Registration registration = new Registration(sensorType, samplingPeriodInUs, maxReportLatencyInUs);
+                registrations.add(registration);
+                return registration.processor;
+            }
+        });
+    }
+
+    @Test
+    public void testObserveSensor_sharesRegistration() {
+        TestSubscriber<ReactiveSensorEvent> first = observe(Sensor.TYPE_ACCELEROMETER, FAST_PERIOD_US);
+        TestSubscriber<ReactiveSensorEvent> second = observe(Sensor.TYPE_ACCELEROMETER, FAST_PERIOD_US);
+
+        assertEquals(1, registrations.size());
+        ReactiveSensorEvent event = new ReactiveSensorEvent(null, 0);
+        registrations.get(0).processor.onNext(event);
+        first.assertValues(event);
+        second.assertValues(event);
+    }
+
+    @Test
+    public void testObserveSensor_registersEachSensorType() {
+        observe(Sensor.TYPE_ACCELEROMETER, FAST_PERIOD_US);
+        observe(Sensor.TYPE_GYROSCOPE, FAST_PERIOD_US);
+
+        assertEquals(2, registrations.size());
+        assertEquals(Sensor.TYPE_ACCELEROMETER, registrations.get(0).sensorType);
+        assertEquals(Sensor.TYPE_GYROSCOPE, registrations.get(1).sensorType);
+    }
+
+    @Test
+    public void testObserveSensor_upgradesRate() {
+        TestSubscriber<ReactiveSensorEvent> slow = observe(Sensor.TYPE_ACCELEROMETER, SLOW_PERIOD_US);
+        TestSubscriber<ReactiveSensorEvent> fast = observe(Sensor.TYPE_ACCELEROMETER, FAST_PERIOD_US);
+
+        assertEquals(2, registrations.size());
+        assertFalse(registrations.get(0).processor.hasSubscribers());
+        assertEquals(FAST_PERIOD_US, registrations.get(1).samplingPeriodInUs);
+        assertEquals(Integer.valueOf(FAST_PERIOD_US),
+                sensorHub.getRegisteredSamplingPeriodInUs(Sensor.TYPE_ACCELEROMETER));
+
+        // both subscribers keep receiving events from the new registration
+        ReactiveSensorEvent event = new ReactiveSensorEvent(null, 0);
+        registrations.get(1).processor.onNext(event);
+        slow.assertValues(event);
+        fast.assertValues(event);
+
+        // a slower subscriber joining doesn't re-register
+        observe(Sensor.TYPE_ACCELEROMETER, SLOW_PERIOD_US);
+        assertEquals(2, registrations.size());
+    }
+
+    @Test
+    public void testCancel_downgradesRateAndUnregistersLast() {
+        TestSubscriber<ReactiveSensorEvent> slow = observe(Sensor.TYPE_ACCELEROMETER, SLOW_PERIOD_US);
+        TestSubscriber<ReactiveSensorEvent> fast = observe(Sensor.TYPE_ACCELEROMETER, FAST_PERIOD_US);
+
+        fast.cancel();
+        assertEquals(3, registrations.size());
+        assertEquals(SLOW_PERIOD_US, registrations.get(2).samplingPeriodInUs);
+
+        slow.cancel();
+        assertFalse(registrations.get(2).processor.hasSubscribers());
+        assertNull(sensorHub.getRegisteredSamplingPeriodInUs(Sensor.TYPE_ACCELEROMETER));
+
+        // subscribing again registers the sensor again
+        observe(Sensor.TYPE_ACCELEROMETER, SLOW_PERIOD_US);
+        assertEquals(4, registrations.size());
+        assertTrue(registrations.get(3).processor.hasSubscribers());
+    }
+
+    @Test
+    public void testObserveSensor_sharesShortestLatency() {
+        observe(Sensor.TYPE_ACCELEROMETER, FAST_PERIOD_US, LATENCY_US);
+        assertEquals(LATENCY_US, registrations.get(0).maxReportLatencyInUs);
+
+        // a subscriber which doesn't allow batching turns it off for everyone
+        TestSubscriber<ReactiveSensorEvent> unbatched = observe(Sensor.TYPE_ACCELEROMETER, FAST_PERIOD_US, 0);
+        assertEquals(2, registrations.size());
+        assertEquals(0, registrations.get(1).maxReportLatencyInUs);
+
+        unbatched.cancel();
+        assertEquals(3, registrations.size());
+        assertEquals(Integer.valueOf(LATENCY_US),
+                sensorHub.getRegisteredMaxReportLatencyInUs(Sensor.TYPE_ACCELEROMETER));
+    }
+
+    @Test
+    public void testFlush() {
+        // nothing to flush without a registration or without batching
+        sensorHub.flush(Sensor.TYPE_ACCELEROMETER).test().assertComplete();
+        observe(Sensor.TYPE_GYROSCOPE, FAST_PERIOD_US, 0);
+        sensorHub.flush(Sensor.TYPE_GYROSCOPE).test().assertComplete();
+        assertTrue(flushes.isEmpty());
+
+        observe(Sensor.TYPE_ACCELEROMETER, FAST_PERIOD_US, LATENCY_US);
+        TestObserver<Void> flush = sensorHub.flush(Sensor.TYPE_ACCELEROMETER).test();
+        flush.assertNotComplete();
+        flushes.get(0).onComplete();
+        flush.assertComplete();
+    }
+
+    @Test
+    public void testError_reachesEverySubscriber() {
+        TestSubscriber<ReactiveSensorEvent> first = observe(Sensor.TYPE_ACCELEROMETER, FAST_PERIOD_US);
+        TestSubscriber<ReactiveSensorEvent> second = observe(Sensor.TYPE_ACCELEROMETER, FAST_PERIOD_US);
+
+        IllegalStateException error = new IllegalStateException();
+        registrations.get(0).processor.onError(error);
+        first.assertError(error);
+        second.assertError(error);
+        assertNull(sensorHub.getRegisteredSamplingPeriodInUs(Sensor.TYPE_ACCELEROMETER));
+    }
+
+    private TestSubscriber<ReactiveSensorEvent> observe(int sensorType, int samplingPeriodInUs) {
+        return observe(sensorType, samplingPeriodInUs, 0);
+    }
+
+    private TestSubscriber<ReactiveSensorEvent> observe(int sensorType, int samplingPeriodInUs,
+            int maxReportLatencyInUs) {
+        return sensorHub.observeSensor(sensorType, samplingPeriodInUs, maxReportLatencyInUs,
+                BackpressureStrategy.BUFFER).test();
+    }
+
+    private static final class Registration {
+        final PublishProcessor<ReactiveSensorEvent> processor = PublishProcessor.create();
+
+        final int maxReportLatencyInUs;
+
+        final int samplingPeriodInUs;
+
+        final int sensorType;
+
+        Registration(int sensorType, int samplingPeriodInUs, int maxReportLatencyInUs) {
+            this.sensorType = sensorType;
+            this.samplingPeriodInUs = samplingPeriodInUs;
+            this.maxReportLatencyInUs = maxReportLatencyInUs;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+package org.sagebionetworks.research.presentation.recorder.sensor;
+
+import android.hardware.Sensor;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares the bytes and CPU time per sample of the motion recorder's json output when written with the pretty
+ * printing Gson versus the compact Gson which the recorders are provided with. The motion trace is 30 seconds of
+ * walking at 100Hz from the accelerometer, gyroscope, magnetometer and rotation vector, synthesized
+ * deterministically so that the byte counts are stable between runs.
+ * <p>
+ * This is a benchmark rather than a test, so it is ignored and only logs its measurements. Remove the Ignore
+ * annotation to run it. SensorSampleJsonWriterTest checks that the compact output is smaller.
+ */
+public class CompactGsonBenchmarkTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompactGsonBenchmarkTest.class);
+
+    private static final byte[] DELIMITER = ",".getBytes(StandardCharsets.UTF_8);
+
+    private static final int[] SENSOR_TYPES = {Sensor.TYPE_ACCELEROMETER, Sensor.TYPE_GYROSCOPE,
+            Sensor.TYPE_MAGNETIC_FIELD, Sensor.TYPE_ROTATION_VECTOR};
+
+    private static final int SAMPLING_RATE_HZ = 100;
+
+    private static final int TRACE_SECONDS = 30;
+
+    private static final double REFERENCE_UPTIME = 1234.5;
+
+    private static final int WARM_UP_ITERATIONS = 5;
+
+    private static final int MEASURED_ITERATIONS = 10;
+
+    @Test
+    @Ignore("benchmark, run manually")
+    public void benchmarkBytesAndCpuPerSample() throws IOException {
+        SensorSample[] trace = createTrace();
+
+        Result pretty = measure(new SensorSampleJsonWriter(new GsonBuilder().setPrettyPrinting().create()), trace);
+        Result compact = measure(new SensorSampleJsonWriter(new Gson()), trace);
+
+        LOGGER.info("pretty: {} bytes/sample, {} ns cpu/sample", pretty.bytesPerSample, pretty.cpuNanosPerSample);
+        LOGGER.info("compact: {} bytes/sample, {} ns cpu/sample", compact.bytesPerSample,
+                compact.cpuNanosPerSample);
+    }
+
+    private static SensorSample[] createTrace() {
+        int samplesPerSensor = SAMPLING_RATE_HZ * TRACE_SECONDS;
+        SensorSample[] trace = new SensorSample[samplesPerSensor * SENSOR_TYPES.length];
+        long periodNanos = 1_000_000_000L / SAMPLING_RATE_HZ;
+        float[] values = new float[4];
+        int index = 0;
+        for (int i = 0; i < samplesPerSensor; i++) {
+            // a step roughly every half second, with the phone swinging slowly in the hand
+            double step = 2 * Math.PI * 1.8 * i / SAMPLING_RATE_HZ;
+            double swing = 2 * Math.PI * 0.9 * i / SAMPLING_RATE_HZ;
+            long timestamp = (long) (REFERENCE_UPTIME * 1e9) + i * periodNanos;
+            for (int sensorType : SENSOR_TYPES) {
+                switch (sensorType) {
+                    case Sensor.TYPE_ACCELEROMETER:
+                        values[0] = (float) (0.8 * Math.sin(swing));
+                        values[1] = (float) (9.81 + 2.5 * Math.sin(step));
+                        values[2] = (float) (1.2 * Math.cos(step));
+                        break;
+                    case Sensor.TYPE_GYROSCOPE:
+                        values[0] = (float) (0.35 * Math.cos(swing));
+                        values[1] = (float) (0.12 * Math.sin(step));
+                        values[2] = (float) (0.05 * Math.cos(step + swing));
+                        break;
+                    case Sensor.TYPE_MAGNETIC_FIELD:
+                        values[0] = (float) (22.4 + 3 * Math.sin(swing));
+                        values[1] = (float) (-5.7 + 3 * Math.cos(swing));
+                        values[2] = (float) (-41.3 + Math.sin(step));
+                        break;
+                    default:
+                        values[0] = (float) (0.1 * Math.sin(swing));
+                        values[1] = (float) (0.05 * Math.cos(swing));
+                        values[2] = (float) (0.7 + 0.01 * Math.sin(step));
+                        values[3] = (float) Math.sqrt(Math.max(0, 1 - values[0] * values[0]
+                                - values[1] * values[1] - values[2] * values[2]));
+                        break;
+                }
+                SensorSample sample = new SensorSample();
+                sample.set(sensorType, timestamp, 3,
+                        sensorType == Sensor.TYPE_ROTATION_VECTOR ? values : new float[]{values[0], values[1],
+                                values[2]});
+                trace[index++] = sample;
+            }
+        }
+        return trace;
+    }
+
+    private static Result measure(SensorSampleJsonWriter writer, SensorSample[] trace) throws IOException {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        CountingOutputStream outputStream = new CountingOutputStream();
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            writeTrace(writer, trace, outputStream);
+        }
+
+        outputStream.count = 0;
+        long cpuStart = threadMXBean.getCurrentThreadCpuTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            writeTrace(writer, trace, outputStream);
+        }
+        long cpuNanos = threadMXBean.getCurrentThreadCpuTime() - cpuStart;
+
+        long samples = (long) trace.length * MEASURED_ITERATIONS;
+        return new Result((double) outputStream.count / samples, (double) cpuNanos / samples);
+    }
+
+    private static void writeTrace(SensorSampleJsonWriter writer, SensorSample[] trace, OutputStream outputStream)
+            throws IOException {
+        for (SensorSample sample : trace) {
+            outputStream.write(DELIMITER);
+            writer.write(outputStream, sample, REFERENCE_UPTIME);
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(final int b) {
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            count += len;
+        }
+    }
+
+    private static final class Result {
+        final double bytesPerSample;
+
+        final double cpuNanosPerSample;
+
+        Result(double bytesPerSample, double cpuNanosPerSample) {
+            this.bytesPerSample = bytesPerSample;
+            this.cpuNanosPerSample = cpuNanosPerSample;
+        }
+    }
+}
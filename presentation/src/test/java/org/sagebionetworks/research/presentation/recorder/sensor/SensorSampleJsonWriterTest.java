@@ -0,0 +1,198 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.recorder.sensor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.hardware.Sensor;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Test;
+import org.sagebionetworks.research.domain.async.SensorOverflowPolicy;
+import org.sagebionetworks.research.presentation.recorder.sensor.DeviceMotionUtil.AccelerationEventPojo;
+import org.sagebionetworks.research.presentation.recorder.sensor.DeviceMotionUtil.GyroscopeEventPOJO;
+import org.sagebionetworks.research.presentation.recorder.sensor.DeviceMotionUtil.MagneticEventPojo;
+import org.sagebionetworks.research.presentation.recorder.sensor.DeviceMotionUtil.RotationEventPojo;
+import org.sagebionetworks.research.presentation.recorder.sensor.DeviceMotionUtil.SensorEventPOJO;
+import org.sagebionetworks.research.presentation.recorder.sensor.DeviceMotionUtil.UncalibratedEventPOJO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+
+public class SensorSampleJsonWriterTest {
+    // allocated by the measurement itself, however many events are written
+    private static final long MAX_STEADY_STATE_ALLOCATED_BYTES = 16 * 1024;
+
+    private static final double REFERENCE_UPTIME = 12.5;
+
+    private static final float[] VALUES = {0.1f, -9.81f, 3.14159f, 0.7071f, -1f, 1e-7f};
+
+    private static final Gson COMPACT_GSON = new Gson();
+
+    private static final Gson PRETTY_GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private static final Gson NULL_SERIALIZING_GSON = new GsonBuilder().serializeNulls().create();
+
+    @Test
+    public void testEncode_acceleration() {
+        SensorSample sample = sample(Sensor.TYPE_ACCELEROMETER);
+        assertMatchesGson(sample, new AccelerationEventPojo(sample, REFERENCE_UPTIME));
+        sample = sample(Sensor.TYPE_LINEAR_ACCELERATION);
+        assertMatchesGson(sample, new AccelerationEventPojo(sample, REFERENCE_UPTIME));
+    }
+
+    @Test
+    public void testEncode_gyroscope() {
+        SensorSample sample = sample(Sensor.TYPE_GYROSCOPE);
+        assertMatchesGson(sample, new GyroscopeEventPOJO(sample, REFERENCE_UPTIME));
+    }
+
+    @Test
+    public void testEncode_magneticField() {
+        SensorSample sample = sample(Sensor.TYPE_MAGNETIC_FIELD);
+        assertMatchesGson(sample, new MagneticEventPojo(sample, REFERENCE_UPTIME));
+    }
+
+    @Test
+    public void testEncode_rotationVector() {
+        SensorSample sample = sample(Sensor.TYPE_ROTATION_VECTOR);
+        assertMatchesGson(sample, new RotationEventPojo(sample, REFERENCE_UPTIME));
+        sample = sample(Sensor.TYPE_GAME_ROTATION_VECTOR);
+        assertMatchesGson(sample, new RotationEventPojo(sample, REFERENCE_UPTIME));
+    }
+
+    @Test
+    public void testEncode_uncalibrated() {
+        SensorSample sample = sample(Sensor.TYPE_GYROSCOPE_UNCALIBRATED);
+        assertMatchesGson(sample, new UncalibratedEventPOJO(sample, REFERENCE_UPTIME));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEncode_nan() {
+        SensorSample sample = sample(Sensor.TYPE_GYROSCOPE);
+        sample.values[0] = Float.NaN;
+        new SensorSampleJsonWriter(COMPACT_GSON).encode(sample, REFERENCE_UPTIME);
+    }
+
+    @Test
+    public void testSet_clearsMissingValues() {
+        SensorSample sample = sample(Sensor.TYPE_GYROSCOPE_UNCALIBRATED);
+        sample.set(Sensor.TYPE_GYROSCOPE, 1L, 0, new float[]{1f, 2f, 3f});
+        assertEquals(3, sample.valueCount);
+        assertEquals(0f, sample.values[5], 0f);
+    }
+
+    @Test
+    public void testEncode_compactGsonAtLeastTenPercentSmaller() {
+        int prettyLength = 0;
+        int compactLength = 0;
+        for (int sensorType : new int[]{Sensor.TYPE_ACCELEROMETER, Sensor.TYPE_GYROSCOPE, Sensor.TYPE_MAGNETIC_FIELD,
+                Sensor.TYPE_ROTATION_VECTOR}) {
+            SensorSampleJsonWriter prettyWriter = new SensorSampleJsonWriter(PRETTY_GSON);
+            prettyWriter.encode(sample(sensorType), REFERENCE_UPTIME);
+            prettyLength += prettyWriter.getLength();
+            SensorSampleJsonWriter compactWriter = new SensorSampleJsonWriter(COMPACT_GSON);
+            compactWriter.encode(sample(sensorType), REFERENCE_UPTIME);
+            compactLength += compactWriter.getLength();
+        }
+
+        assertTrue("pretty " + prettyLength + " bytes, compact " + compactLength + " bytes",
+                compactLength < prettyLength * 0.9);
+    }
+
+    @Test
+    public void testWrite_noSteadyStateAllocationForTypicalMagnitudes() throws IOException {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        SensorSampleJsonWriter writer = new SensorSampleJsonWriter(PRETTY_GSON);
+        SensorSampleRingBuffer ring = new SensorSampleRingBuffer(256, SensorOverflowPolicy.ERROR);
+        OutputStream discard = new OutputStream() {
+            @Override
+            public void write(final int b) {
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) {
+            }
+        };
+        int[] sensorTypes = {Sensor.TYPE_ACCELEROMETER, Sensor.TYPE_GYROSCOPE, Sensor.TYPE_ROTATION_VECTOR,
+                Sensor.TYPE_MAGNETIC_FIELD_UNCALIBRATED};
+        // typical magnitudes, the platform's double formatting allocates scratch space for some values, such as
+        // tiny ones like 1e-7, which this test leaves out, see SensorSampleJsonWriter
+        float[] values = {0.1f, -9.81f, 3.14159f, 0.7071f, -1f, 0.02f};
+
+        // warm up so the buffers have grown and the loop is compiled
+        int warmUpEvents = 200_000;
+        for (int i = 0; i < warmUpEvents; i++) {
+            writeEvent(writer, ring, discard, sensorTypes[i % sensorTypes.length], i, values);
+        }
+
+        int events = 100_000;
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < events; i++) {
+            writeEvent(writer, ring, discard, sensorTypes[i % sensorTypes.length], i, values);
+        }
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertTrue("Allocated " + allocated + " bytes for " + events + " events",
+                allocated < MAX_STEADY_STATE_ALLOCATED_BYTES);
+    }
+
+    private static void writeEvent(SensorSampleJsonWriter writer, SensorSampleRingBuffer ring,
+            OutputStream outputStream, int sensorType, int index, float[] values) throws IOException {
+        values[0] = index * 0.001f;
+        SensorSample sample = ring.claim(sensorType).set(sensorType, 12_500_000_000L + index * 10_000_000L, 3, values);
+        writer.write(outputStream, sample, REFERENCE_UPTIME);
+        ring.release(sample, true);
+    }
+
+    private static SensorSample sample(int sensorType) {
+        return new SensorSample().set(sensorType, 12_510_000_000L, 3, VALUES);
+    }
+
+    private static void assertMatchesGson(SensorSample sample, SensorEventPOJO pojo) {
+        for (Gson gson : new Gson[]{COMPACT_GSON, PRETTY_GSON, NULL_SERIALIZING_GSON}) {
+            SensorSampleJsonWriter writer = new SensorSampleJsonWriter(gson);
+            writer.encode(sample, REFERENCE_UPTIME);
+            String encoded = new String(writer.getBuffer(), 0, writer.getLength());
+            assertEquals(gson.toJson(pojo), encoded);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.presentation.recorder.sensor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.hardware.Sensor;
+
+import org.junit.Test;
+import org.sagebionetworks.research.domain.async.SensorOverflowPolicy;
+import org.sagebionetworks.research.presentation.recorder.sensor.SensorSampleRingBuffer.SampleCounts;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+
+import io.reactivex.exceptions.MissingBackpressureException;
+
+public class SensorSampleRingBufferTest {
+    @Test
+    public void testClaim_recyclesReleasedSamples() {
+        SensorSampleRingBuffer ringBuffer = new SensorSampleRingBuffer(2, SensorOverflowPolicy.DROP_NEWEST);
+        SensorSample first = claim(ringBuffer, Sensor.TYPE_ACCELEROMETER);
+        SensorSample second = claim(ringBuffer, Sensor.TYPE_ACCELEROMETER);
+        assertTrue(first != second);
+
+        ringBuffer.release(first, true);
+        assertTrue(first == claim(ringBuffer, Sensor.TYPE_ACCELEROMETER));
+    }
+
+    @Test
+    public void testClaim_dropNewest() {
+        SensorSampleRingBuffer ringBuffer = new SensorSampleRingBuffer(2, SensorOverflowPolicy.DROP_NEWEST);
+        SensorSample first = claim(ringBuffer, Sensor.TYPE_ACCELEROMETER);
+        claim(ringBuffer, Sensor.TYPE_GYROSCOPE);
+        assertNull(ringBuffer.claim(Sensor.TYPE_ACCELEROMETER));
+
+        ringBuffer.release(first, true);
+
+        SampleCounts counts = ringBuffer.getSampleCounts(Sensor.TYPE_ACCELEROMETER);
+        assertEquals(2, counts.received);
+        assertEquals(1, counts.dropped);
+        assertEquals(1, counts.written);
+        assertEquals(1, ringBuffer.getSampleCounts(Sensor.TYPE_GYROSCOPE).received);
+    }
+
+    @Test(expected = MissingBackpressureException.class)
+    public void testClaim_error() {
+        SensorSampleRingBuffer ringBuffer = new SensorSampleRingBuffer(1, SensorOverflowPolicy.ERROR);
+        claim(ringBuffer, Sensor.TYPE_ACCELEROMETER);
+        ringBuffer.claim(Sensor.TYPE_ACCELEROMETER);
+    }
+
+    @Test
+    public void testRelease_outOfOrderKeepsEarlierSamples() {
+        SensorSampleRingBuffer ringBuffer = new SensorSampleRingBuffer(3, SensorOverflowPolicy.DROP_NEWEST);
+        SensorSample first = claim(ringBuffer, Sensor.TYPE_ACCELEROMETER);
+        SensorSample skipped = claim(ringBuffer, Sensor.TYPE_ACCELEROMETER);
+        claim(ringBuffer, Sensor.TYPE_ACCELEROMETER);
+
+        // releasing a later sample doesn't free the samples claimed before it
+        ringBuffer.release(skipped, false);
+        ringBuffer.release(skipped, false);
+        assertNull(ringBuffer.claim(Sensor.TYPE_ACCELEROMETER));
+
+        // once the first is released, both slots are free
+        ringBuffer.release(first, true);
+        assertNotNull(ringBuffer.claim(Sensor.TYPE_ACCELEROMETER));
+        assertNotNull(ringBuffer.claim(Sensor.TYPE_ACCELEROMETER));
+        assertNull(ringBuffer.claim(Sensor.TYPE_ACCELEROMETER));
+        assertEquals(1, ringBuffer.getSampleCounts(Sensor.TYPE_ACCELEROMETER).written);
+        assertEquals(2, ringBuffer.getSampleCounts(Sensor.TYPE_ACCELEROMETER).dropped);
+    }
+
+    @Test
+    public void testRelease_interleavedSensorsNeverOverwriteQueuedSamples() {
+        SensorSampleRingBuffer ringBuffer = new SensorSampleRingBuffer(4, SensorOverflowPolicy.DROP_NEWEST);
+        // two sensors claim on their own threads, and each sensor's samples are queued until the merge drains them,
+        // each queue holds the samples and the timestamps they were claimed with
+        Queue<SensorSample> accelerometer = new ArrayDeque<>();
+        Queue<Long> accelerometerTimestamps = new ArrayDeque<>();
+        Queue<SensorSample> gyroscope = new ArrayDeque<>();
+        Queue<Long> gyroscopeTimestamps = new ArrayDeque<>();
+        long timestamp = 0;
+        for (int round = 0; round < 100; round++) {
+            while (true) {
+                boolean isAccelerometer = timestamp % 2 == 0;
+                int sensorType = isAccelerometer ? Sensor.TYPE_ACCELEROMETER : Sensor.TYPE_GYROSCOPE;
+                SensorSample sample = ringBuffer.claim(sensorType);
+                if (sample == null) {
+                    break;
+                }
+                sample.set(sensorType, timestamp, 3, new float[]{timestamp});
+                (isAccelerometer ? accelerometer : gyroscope).add(sample);
+                (isAccelerometer ? accelerometerTimestamps : gyroscopeTimestamps).add(timestamp);
+                timestamp++;
+            }
+
+            // the writer drains one sensor's queue ahead of the other sensor's samples claimed before it, then
+            // writes a single sample of the other sensor, so samples are never released in claim order
+            boolean gyroscopeAhead = round % 2 == 0;
+            write(ringBuffer, gyroscopeAhead ? gyroscope : accelerometer,
+                    gyroscopeAhead ? gyroscopeTimestamps : accelerometerTimestamps, Integer.MAX_VALUE);
+            write(ringBuffer, gyroscopeAhead ? accelerometer : gyroscope,
+                    gyroscopeAhead ? accelerometerTimestamps : gyroscopeTimestamps, 1);
+        }
+
+        assertTrue(timestamp > 100);
+    }
+
+    @Test
+    public void testGetMetadata() {
+        SensorSampleRingBuffer ringBuffer = new SensorSampleRingBuffer(1, SensorOverflowPolicy.DROP_NEWEST);
+        ringBuffer.release(claim(ringBuffer, Sensor.TYPE_ACCELEROMETER), true);
+        claim(ringBuffer, Sensor.TYPE_LINEAR_ACCELERATION);
+        ringBuffer.claim(Sensor.TYPE_ACCELEROMETER);
+
+        Map<String, String> metadata = ringBuffer.getMetadata();
+        String accelerometer = DeviceMotionUtil.SENSOR_TYPE_TO_DATA_TYPE.get(Sensor.TYPE_ACCELEROMETER);
+        String userAcceleration = DeviceMotionUtil.SENSOR_TYPE_TO_DATA_TYPE.get(Sensor.TYPE_LINEAR_ACCELERATION);
+        assertEquals("2", metadata.get(accelerometer + SensorSampleRingBuffer.RECEIVED_SUFFIX));
+        assertEquals("1", metadata.get(accelerometer + SensorSampleRingBuffer.WRITTEN_SUFFIX));
+        assertEquals("1", metadata.get(accelerometer + SensorSampleRingBuffer.DROPPED_SUFFIX));
+        assertEquals("1", metadata.get(userAcceleration + SensorSampleRingBuffer.RECEIVED_SUFFIX));
+        assertEquals("0", metadata.get(userAcceleration + SensorSampleRingBuffer.WRITTEN_SUFFIX));
+        assertEquals(6, metadata.size());
+    }
+
+    private static void write(SensorSampleRingBuffer ringBuffer, Queue<SensorSample> samples,
+            Queue<Long> timestamps, int count) {
+        for (int i = 0; i < count && !samples.isEmpty(); i++) {
+            SensorSample sample = samples.poll();
+            // the sample still holds the event it was claimed for
+            long timestamp = timestamps.poll();
+            assertEquals(timestamp, sample.timestamp);
+            assertEquals((float) timestamp, sample.values[0], 0f);
+            ringBuffer.release(sample, true);
+        }
+    }
+
+    private static SensorSample claim(SensorSampleRingBuffer ringBuffer, int sensorType) {
+        SensorSample sample = ringBuffer.claim(sensorType);
+        assertNotNull(sample);
+        return sample.set(sensorType, 12_500_000_000L, 3, new float[]{0.1f, -9.81f, 3.14f});
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.sagebionetworks.research.presentation.recorder.sensor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.hardware.Sensor;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+public class SensorSummaryCalculatorTest {
+    private static final double GRAVITY = 9.81;
+
+    private static final long PERIOD_NANOS = 10_000_000L; // 100Hz
+
+    @Test
+    public void testSummary_still() {
+        SensorSummaryCalculator calculator = new SensorSummaryCalculator();
+        record(calculator, 0, 10, 0, 0);
+
+        SensorSummary summary = calculator.getSummary();
+        assertNotNull(summary);
+        assertEquals(200, summary.sampleCount);
+        assertEquals(0, summary.accelerationRms, 1e-3);
+        assertEquals(0, summary.jerkRms, 1e-3);
+        assertEquals(0, summary.tremorEnergy, 1e-6);
+        assertEquals(0, summary.cadence, 0);
+    }
+
+    @Test
+    public void testSummary_walking() {
+        SensorSummaryCalculator calculator = new SensorSummaryCalculator();
+        // two steps a second
+        record(calculator, 0, 10, 2, 3);
+
+        SensorSummary summary = calculator.getSummary();
+        assertNotNull(summary);
+        assertEquals(120, summary.cadence, 20);
+        // the rms of a sine wave is its amplitude over root 2
+        assertEquals(3 / Math.sqrt(2), summary.accelerationRms, 0.05);
+        assertTrue(summary.jerkRms > 10);
+    }
+
+    @Test
+    public void testSummary_tremor() {
+        SensorSummaryCalculator tremorCalculator = new SensorSummaryCalculator();
+        record(tremorCalculator, 0, 10, 5, 1);
+        SensorSummaryCalculator swayCalculator = new SensorSummaryCalculator();
+        record(swayCalculator, 0, 10, 1, 1);
+
+        SensorSummary tremor = tremorCalculator.getSummary();
+        SensorSummary sway = swayCalculator.getSummary();
+        assertNotNull(tremor);
+        assertNotNull(sway);
+        assertTrue(tremor.tremorEnergy > 3 * sway.tremorEnergy);
+        // a 5Hz tremor is too fast to be walking
+        assertEquals(0, tremor.cadence, 0);
+    }
+
+    @Test
+    public void testAdd_updateInterval() {
+        SensorSummaryCalculator calculator = new SensorSummaryCalculator();
+        assertNull(calculator.getSummary());
+
+        // 10 seconds of samples with an update every half second
+        assertEquals(19, record(calculator, 0, 10, 0, 0));
+    }
+
+    @Test
+    public void testAdd_ignoresOtherSensors() {
+        SensorSummaryCalculator calculator = new SensorSummaryCalculator();
+        SensorSample sample = new SensorSample();
+        calculator.add(sample.set(Sensor.TYPE_ACCELEROMETER, PERIOD_NANOS, 3, new float[]{0f, 0f, 9.81f}));
+
+        assertFalse(calculator.add(sample.set(Sensor.TYPE_GYROSCOPE, 100 * PERIOD_NANOS, 3,
+                new float[]{1f, 2f, 3f})));
+        assertEquals(1, calculator.getSummary().sampleCount);
+    }
+
+    @Test
+    public void testAdd_noSteadyStateAllocation() {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        SensorSummaryCalculator calculator = new SensorSummaryCalculator();
+        // warm up so the loop is compiled
+        record(calculator, 0, 1000, 2, 3);
+
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        int updates = record(calculator, 1000, 1000, 2, 3);
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        // the smallest object is larger than a byte, so less than a byte per update means no allocation per window
+        assertEquals(2000, updates);
+        assertTrue("Allocated " + allocated + " bytes for " + updates + " updates", allocated < updates);
+    }
+
+    /**
+     * Records gravity along the z axis plus a sine wave of the given frequency and amplitude, starting at the given
+     * second of uptime.
+     *
+     * @return the number of times the summary should be updated.
+     */
+    private static int record(SensorSummaryCalculator calculator, int startSeconds, int seconds,
+            double frequencyHz, double amplitude) {
+        int updates = 0;
+        long startNanos = startSeconds * 1_000_000_000L;
+        int samples = (int) (seconds * 1_000_000_000L / PERIOD_NANOS);
+        for (int i = 0; i < samples; i++) {
+            long timestamp = startNanos + i * PERIOD_NANOS;
+            double z = GRAVITY + amplitude * Math.sin(2 * Math.PI * frequencyHz * timestamp / 1e9);
+            if (calculator.add(timestamp, 0f, 0f, (float) z)) {
+                updates++;
+            }
+        }
+        return updates;
+    }
+}
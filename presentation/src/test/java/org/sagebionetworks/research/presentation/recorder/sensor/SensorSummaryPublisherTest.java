@@ -0,0 +1,86 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.recorder.sensor;
+
+import static org.junit.Assert.assertEquals;
+
+import android.hardware.Sensor;
+
+import org.junit.Test;
+
+import io.reactivex.subscribers.TestSubscriber;
+
+public class SensorSummaryPublisherTest {
+    private static final long PERIOD_NANOS = 10_000_000L; // 100Hz
+
+    @Test
+    public void testAdd_summarizesBeforeSampleIsReused() {
+        SensorSummaryPublisher publisher = new SensorSummaryPublisher();
+        TestSubscriber<SensorSummary> subscriber = publisher.getSensorSummaries().test();
+
+        // the same sample is reused for every reading, as it is once released to the ring buffer
+        SensorSample sample = new SensorSample();
+        for (int i = 0; i < 100; i++) {
+            publisher.add(sample.set(Sensor.TYPE_ACCELEROMETER, i * PERIOD_NANOS, 3, new float[]{0f, 0f, 9.81f}));
+        }
+
+        subscriber.assertValueCount(1);
+        assertEquals(51, subscriber.values().get(0).sampleCount);
+    }
+
+    @Test
+    public void testComplete_completesSubscribers() {
+        SensorSummaryPublisher publisher = new SensorSummaryPublisher();
+        TestSubscriber<SensorSummary> subscriber = publisher.getSensorSummaries().test();
+
+        publisher.complete();
+
+        subscriber.assertComplete();
+        publisher.getSensorSummaries().test().assertNoValues().assertComplete();
+    }
+
+    @Test
+    public void testCancel_stopsSummaries() {
+        SensorSummaryPublisher publisher = new SensorSummaryPublisher();
+        TestSubscriber<SensorSummary> subscriber = publisher.getSensorSummaries().test();
+        subscriber.cancel();
+
+        SensorSample sample = new SensorSample();
+        for (int i = 0; i < 100; i++) {
+            publisher.add(sample.set(Sensor.TYPE_ACCELEROMETER, i * PERIOD_NANOS, 3, new float[]{0f, 0f, 9.81f}));
+        }
+
+        subscriber.assertNoValues();
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.recorder.sensor.columnar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+import org.sagebionetworks.research.presentation.recorder.sensor.columnar.ColumnarSensorReader.Block;
+import org.sagebionetworks.research.presentation.recorder.sensor.columnar.SensorColumnDescriptor.Kind;
+import org.threeten.bp.Instant;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class ColumnarSensorJsonConverterTest {
+    private static final int TYPE_ACCELEROMETER = 1;
+
+    private static final int TYPE_ROTATION_VECTOR = 11;
+
+    private static final SensorColumnDescriptor ACCELERATION = new SensorColumnDescriptor(TYPE_ACCELEROMETER,
+            Kind.ACCELERATION, 3, "acceleration", "g", null, null);
+
+    private static final SensorColumnDescriptor ROTATION = new SensorColumnDescriptor(TYPE_ROTATION_VECTOR,
+            Kind.ROTATION_VECTOR, 5, "attitude", null, "rotationVector", "East-Up-North");
+
+    private static final long REFERENCE_UPTIME = 5_000_000_000L;
+
+    private static final ColumnarSensorReference REFERENCE = new ColumnarSensorReference(TYPE_ACCELEROMETER,
+            REFERENCE_UPTIME, Instant.ofEpochSecond(1_500_000_000L, 250), "accel", "vendor", 1, 78.4f, 0.01f,
+            0.2f, 10000);
+
+    @Test
+    public void testConvert_matchesJsonSchema() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ColumnarSensorWriter writer = new ColumnarSensorWriter(outputStream,
+                ImmutableList.of(ACCELERATION, ROTATION), 2);
+        writer.writeReference(REFERENCE);
+        writer.writeSample(TYPE_ACCELEROMETER, REFERENCE_UPTIME, 3, new float[]{9.80665f, 0f, -4.9f});
+        writer.writeSample(TYPE_ROTATION_VECTOR, REFERENCE_UPTIME + 5_000_000L, 2,
+                new float[]{0.1f, 0.2f, 0.3f, 0.9f, -1f});
+        writer.writeSample(TYPE_ACCELEROMETER, REFERENCE_UPTIME + 10_000_000L, 3, new float[]{1f, 2f, 3f});
+        writer.close();
+
+        JsonArray json = convert(outputStream.toByteArray());
+        assertEquals(4, json.size());
+
+        JsonObject reference = json.get(0).getAsJsonObject();
+        assertEquals("accel", reference.getAsJsonObject("sensor").get("mName").getAsString());
+        assertEquals(REFERENCE.timestampDate.toString(), reference.get("timestampDate").getAsString());
+        assertEquals("acceleration", reference.get("sensorType").getAsString());
+        assertEquals(0d, reference.get("timestamp").getAsDouble(), 0d);
+        assertEquals(5d, reference.get("uptime").getAsDouble(), 0d);
+
+        // acceleration block is flushed first as it filled up
+        JsonObject first = json.get(1).getAsJsonObject();
+        assertEquals(9.80665f / 9.80665f, first.get("x").getAsDouble(), 0d);
+        assertEquals(-4.9f / 9.80665f, first.get("z").getAsDouble(), 0d);
+        assertEquals("g", first.get("unit").getAsString());
+        assertEquals(0d, first.get("timestamp").getAsDouble(), 0d);
+        assertEquals(3, first.get("eventAccuracy").getAsInt());
+
+        JsonObject second = json.get(2).getAsJsonObject();
+        assertEquals(1f / 9.80665f, second.get("x").getAsDouble(), 0d);
+        assertEquals(5.01d - 5d, second.get("timestamp").getAsDouble(), 0d);
+        assertEquals(5.01d, second.get("uptime").getAsDouble(), 0d);
+
+        JsonObject rotation = json.get(3).getAsJsonObject();
+        assertEquals("East-Up-North", rotation.get("referenceCoordinate").getAsString());
+        assertEquals("rotationVector", rotation.get("sensorAndroidType").getAsString());
+        assertEquals("attitude", rotation.get("sensorType").getAsString());
+        assertEquals(0.9f, rotation.get("w").getAsDouble(), 0d);
+        assertEquals(-1f, rotation.get("estimatedAccuracy").getAsDouble(), 0d);
+        assertFalse(rotation.has("unit"));
+    }
+
+    @Test
+    public void testConvert_referenceSensorHasOnlyRecordedFields() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ColumnarSensorWriter writer = new ColumnarSensorWriter(outputStream, ImmutableList.of(ACCELERATION));
+        writer.writeReference(REFERENCE);
+        writer.writeSample(TYPE_ACCELEROMETER, REFERENCE_UPTIME, 3, new float[]{1f, 2f, 3f});
+        writer.close();
+
+        JsonObject sensor = convert(outputStream.toByteArray()).get(0).getAsJsonObject().getAsJsonObject("sensor");
+
+        // unlike the json recorder's serialized android.hardware.Sensor, there are no platform fields like mHandle
+        assertEquals(Arrays.asList("mName", "mVendor", "mVersion", "mType", "mMaxRange", "mResolution", "mPower",
+                "mMinDelay"), new ArrayList<>(sensor.keySet()));
+        assertEquals("vendor", sensor.get("mVendor").getAsString());
+        assertEquals(1, sensor.get("mVersion").getAsInt());
+        assertEquals(TYPE_ACCELEROMETER, sensor.get("mType").getAsInt());
+        assertEquals(78.4f, sensor.get("mMaxRange").getAsFloat(), 0f);
+        assertEquals(0.01f, sensor.get("mResolution").getAsFloat(), 0f);
+        assertEquals(0.2f, sensor.get("mPower").getAsFloat(), 0f);
+        assertEquals(10000, sensor.get("mMinDelay").getAsInt());
+    }
+
+    @Test
+    public void testReader_missingValuesArePadded() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ColumnarSensorWriter writer = new ColumnarSensorWriter(outputStream, ImmutableList.of(ROTATION));
+        writer.writeReference(REFERENCE);
+        writer.writeSample(TYPE_ROTATION_VECTOR, REFERENCE_UPTIME, 0, new float[]{0.1f, 0.2f, 0.3f});
+        writer.close();
+
+        ColumnarSensorReader reader = new ColumnarSensorReader(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertEquals(ROTATION, reader.getDescriptors().get(TYPE_ROTATION_VECTOR));
+        Block block = reader.readBlock();
+        assertEquals(1, block.count);
+        assertEquals(0f, block.columns[3][0], 0f);
+        assertEquals(0f, block.columns[4][0], 0f);
+        assertNull(reader.readBlock());
+        assertTrue(reader.isComplete());
+    }
+
+    @Test
+    public void testReader_truncatedFile() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ColumnarSensorWriter writer = new ColumnarSensorWriter(outputStream, ImmutableList.of(ACCELERATION), 1);
+        writer.writeReference(REFERENCE);
+        writer.writeSample(TYPE_ACCELEROMETER, REFERENCE_UPTIME, 0, new float[]{1f, 2f, 3f});
+        writer.writeSample(TYPE_ACCELEROMETER, REFERENCE_UPTIME + 1, 0, new float[]{1f, 2f, 3f});
+        writer.close();
+
+        byte[] bytes = outputStream.toByteArray();
+        // drop the end marker and half of the last block
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 10);
+
+        JsonArray json = convert(truncated);
+        // reference and the first sample survive
+        assertEquals(2, json.size());
+    }
+
+    private static JsonArray convert(byte[] bytes) throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        ColumnarSensorJsonConverter.convert(new ByteArrayInputStream(bytes), stringWriter, new Gson());
+        return new JsonParser().parse(stringWriter.toString()).getAsJsonArray();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright 2018  Sage Bionetworks. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1.  Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2.  Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3.  Neither the name of the copyright holder(s) nor the names of any contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission. No license is granted to the trademarks of
+ * the copyright holders even if such marks are included in this software.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.sagebionetworks.research.presentation.recorder.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class FileChannelOutputStreamTest {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("FileChannelOutputStreamTest", ".json");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testWrite_buffersUntilFlush() throws IOException {
+        FileChannelOutputStream outputStream = new FileChannelOutputStream(file, 64);
+        outputStream.write(new byte[]{1, 2, 3});
+        outputStream.write(4);
+        assertEquals(0, file.length());
+
+        outputStream.flush();
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, Files.readAllBytes(file.toPath()));
+        outputStream.close();
+    }
+
+    @Test
+    public void testWrite_drainsWhenFull() throws IOException {
+        FileChannelOutputStream outputStream = new FileChannelOutputStream(file, 8);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < 10; i++) {
+            byte[] chunk = {(byte) i, (byte) (i + 1), (byte) (i + 2)};
+            outputStream.write(chunk);
+            expected.write(chunk);
+        }
+        // 30 bytes through an 8 byte buffer, everything but the last partial buffer is written
+        assertEquals(24, file.length());
+
+        outputStream.sync();
+        assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file.toPath()));
+        outputStream.close();
+    }
+
+    @Test
+    public void testClose_writesBufferedBytes() throws IOException {
+        FileChannelOutputStream outputStream = new FileChannelOutputStream(file, 64);
+        outputStream.write(new byte[]{5, 6, 7, 8, 9}, 1, 3);
+        outputStream.close();
+        outputStream.close();
+        assertArrayEquals(new byte[]{6, 7, 8}, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testWrite_afterClose() throws IOException {
+        FileChannelOutputStream outputStream = new FileChannelOutputStream(file, 64);
+        outputStream.close();
+        outputStream.write(1);
+    }
+}